@@ -0,0 +1,101 @@
+#!/usr/bin/env bash
+# ============================================
+# Benchmark de arranque: JVM y JVM + CDS
+# ============================================
+# Mide, para cada modo, el tiempo hasta la primera petición atendida
+# (GET / con respuesta 200) y la memoria residente (RSS) en ese momento.
+#
+# Alcance: solo JVM y JVM + CDS. Este árbol no tiene manifiesto de construcción,
+# así que no incluye ningún modo con procesamiento AOT de Spring ni perfil de
+# imagen nativa de GraalVM, y el modo nativo no se mide.
+#
+# Artefacto esperado: el jar ejecutable ya construido (JAR, por defecto
+# target/sena-springboot-1.0.0.jar). Este script no construye nada.
+#
+# Uso: scripts/startup-benchmark.sh [jvm|cds|all] [repeticiones]
+# Requiere la base de datos configurada en application.properties.
+
+set -euo pipefail
+
+MODO="${1:-all}"
+REPETICIONES="${2:-5}"
+PUERTO="${PUERTO:-9090}"
+JAR="${JAR:-target/sena-springboot-1.0.0.jar}"
+DIR_CDS="${DIR_CDS:-target/cds}"
+URL="http://localhost:${PUERTO}/"
+
+ahora_ms() {
+    date +%s%3N
+}
+
+# Arranca el comando dado, espera la primera respuesta 200 y detiene el proceso.
+# Imprime "<milisegundos> <rss_kb>".
+medir() {
+    local inicio pid rss
+    inicio=$(ahora_ms)
+    "$@" --server.port="${PUERTO}" > /dev/null 2>&1 &
+    pid=$!
+
+    until curl -s -o /dev/null -w '%{http_code}' "${URL}" 2>/dev/null | grep -q 200; do
+        if ! kill -0 "${pid}" 2>/dev/null; then
+            echo "El proceso terminó antes de responder: $*" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+
+    local fin=$(($(ahora_ms) - inicio))
+    rss=$(ps -o rss= -p "${pid}" | tr -d ' ')
+    kill "${pid}"
+    wait "${pid}" 2>/dev/null || true
+    echo "${fin} ${rss}"
+}
+
+# Ejecuta un modo varias veces e informa la mediana de cada métrica
+reportar() {
+    local nombre="$1"
+    shift
+    local tiempos=() memorias=()
+    for _ in $(seq "${REPETICIONES}"); do
+        read -r t m < <(medir "$@")
+        tiempos+=("${t}")
+        memorias+=("${m}")
+    done
+    local t_med m_med
+    t_med=$(printf '%s\n' "${tiempos[@]}" | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')
+    m_med=$(printf '%s\n' "${memorias[@]}" | sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}')
+    printf '%-10s primera-peticion=%6d ms  rss=%7d KB  (mediana de %d)\n' \
+        "${nombre}" "${t_med}" "${m_med}" "${REPETICIONES}"
+}
+
+# Prepara el archivo AppCDS con una ejecución de entrenamiento que se detiene
+# al terminar de refrescar el contexto (sin atender peticiones). CDS necesita las
+# dependencias como jars sueltos: se extraen con jarmode=tools (Spring Boot 3.3+)
+# o, si el jar no lo admite, se descomprime y se arranca la clase principal con un
+# classpath plano. CDS_CMD queda con el comando de arranque del jar extraído.
+CDS_CMD=()
+preparar_cds() {
+    rm -rf "${DIR_CDS}"
+    if java -Djarmode=tools -jar "${JAR}" extract --destination "${DIR_CDS}" > /dev/null 2>&1; then
+        CDS_CMD=(java -XX:SharedArchiveFile=app.jsa -jar "$(basename "${JAR}")")
+    else
+        rm -rf "${DIR_CDS}"
+        mkdir -p "${DIR_CDS}"
+        unzip -q "${JAR}" -d "${DIR_CDS}"
+        local principal
+        principal=$(sed -n 's/^Start-Class: *//p' "${DIR_CDS}/META-INF/MANIFEST.MF" | tr -d '\r')
+        CDS_CMD=(java -XX:SharedArchiveFile=app.jsa -cp "BOOT-INF/classes:BOOT-INF/lib/*" "${principal}")
+    fi
+    (cd "${DIR_CDS}" && "${CDS_CMD[0]}" -XX:ArchiveClassesAtExit=app.jsa -Dspring.context.exit=onRefresh \
+        "${CDS_CMD[@]:2}" > /dev/null 2>&1)
+}
+
+case "${MODO}" in
+    jvm|all)
+        reportar "jvm" java -jar "${JAR}"
+        ;;&
+    cds|all)
+        preparar_cds
+        (cd "${DIR_CDS}" && reportar "jvm+cds" "${CDS_CMD[@]}")
+        ;;
+esac
@@ -0,0 +1,160 @@
+package com.sena.analytics;
+
+import com.sena.exception.OperationInProgressException;
+import com.sena.pool.Workload;
+import com.sena.pool.WorkloadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reportes de matrículas sobre una instantánea columnar en memoria
+ * La instantánea se reconstruye periódicamente con una sola lectura en streaming
+ * (aprendices con su ficha y programa); las consultas de agrupación y filtro se
+ * resuelven sobre ella en paralelo, sin tocar la base de datos.
+ */
+@Component
+public class AnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
+
+    private static final String CONSULTA =
+            "SELECT p.nombre, p.nivel, f.jornada, a.estado, DATE_FORMAT(a.fecha_registro, '%Y-%m') " +
+            "FROM aprendices a JOIN fichas f ON f.id = a.ficha_id JOIN programas p ON p.id = f.programa_id";
+
+    private final JdbcTemplate streaming;
+    private final ForkJoinPool pool;
+    private final AtomicBoolean refrescando = new AtomicBoolean();
+    private volatile ColumnarSnapshot snapshot = ColumnarSnapshot.vacia();
+
+    public AnalyticsService(DataSource dataSource,
+                            @Value("${sena.reportes.paralelismo:0}") int paralelismo) {
+        // Integer.MIN_VALUE: el driver de MySQL entrega las filas una a una sin cargar el resultado completo
+        this.streaming = new JdbcTemplate(dataSource);
+        this.streaming.setFetchSize(Integer.MIN_VALUE);
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reconstruir la instantánea al arrancar y cada cierto tiempo
+     * Las consultas siguen usando la anterior hasta que la nueva está completa
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${sena.reportes.refresco-ms:3600000}")
+    public void refrescarProgramado() {
+        if (refrescando.get()) {
+            log.debug("Refresco de la instantánea de reportes en curso; se omite esta ejecución");
+            return;
+        }
+        refrescar();
+    }
+
+    /**
+     * Reconstruir la instantánea ahora (falla si ya hay un refresco en curso)
+     */
+    public void refrescar() {
+        if (!refrescando.compareAndSet(false, true)) {
+            throw new OperationInProgressException("Ya hay un refresco de la instantánea en curso");
+        }
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            long inicio = System.currentTimeMillis();
+            ColumnarSnapshot.Constructor constructor = new ColumnarSnapshot.Constructor(
+                    Math.max(1024, snapshot.getFilas()));
+            streaming.query(CONSULTA, rs -> {
+                constructor.agregar(rs.getString(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5));
+            });
+            ColumnarSnapshot nueva = constructor.construir(System.currentTimeMillis() - inicio);
+            snapshot = nueva;
+            log.info("Instantánea de reportes refrescada en {} ms: {} filas, {} KB",
+                    nueva.getMilisegundosRefresco(), nueva.getFilas(), nueva.bytes() / 1024);
+        } finally {
+            refrescando.set(false);
+        }
+    }
+
+    /**
+     * Contar matrículas agrupadas por las dimensiones dadas, con filtros opcionales
+     * (dentro de una dimensión los valores se combinan con O). Sin dimensiones devuelve el total.
+     */
+    public List<Map<String, Object>> agrupar(List<Dimension> dimensiones,
+                                             Map<Dimension, ? extends Collection<String>> filtros) {
+        ColumnarSnapshot actual = snapshot;
+
+        int[][] agrupadas = new int[dimensiones.size()][];
+        int[] bases = new int[dimensiones.size()];
+        for (int i = 0; i < dimensiones.size(); i++) {
+            agrupadas[i] = actual.columna(dimensiones.get(i));
+            bases[i] = actual.diccionario(dimensiones.get(i)).length;
+        }
+
+        int[][] filtradas = new int[filtros.size()][];
+        boolean[][] permitidos = new boolean[filtros.size()][];
+        int f = 0;
+        for (Map.Entry<Dimension, ? extends Collection<String>> filtro : filtros.entrySet()) {
+            String[] diccionario = actual.diccionario(filtro.getKey());
+            filtradas[f] = actual.columna(filtro.getKey());
+            permitidos[f] = new boolean[diccionario.length];
+            for (int codigo = 0; codigo < diccionario.length; codigo++) {
+                permitidos[f][codigo] = filtro.getValue().contains(diccionario[codigo]);
+            }
+            f++;
+        }
+
+        GroupByTask.Acumulador acumulador = pool.invoke(
+                new GroupByTask(agrupadas, bases, filtradas, permitidos, 0, actual.getFilas()));
+
+        List<Map<String, Object>> filas = new ArrayList<>();
+        acumulador.paraCada((clave, cantidad) -> {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            long resto = clave;
+            Object[] valores = new Object[dimensiones.size()];
+            for (int i = dimensiones.size() - 1; i >= 0; i--) {
+                valores[i] = actual.diccionario(dimensiones.get(i))[(int) (resto % bases[i])];
+                resto /= bases[i];
+            }
+            for (int i = 0; i < valores.length; i++) {
+                fila.put(dimensiones.get(i).getParametro(), valores[i]);
+            }
+            fila.put("cantidad", cantidad);
+            filas.add(fila);
+        });
+        filas.sort(Comparator.comparingLong((Map<String, Object> fila) -> (Long) fila.get("cantidad")).reversed());
+        return filas;
+    }
+
+    public Map<String, Object> getEstado() {
+        ColumnarSnapshot actual = snapshot;
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("generada", actual.getGenerada());
+        estado.put("filas", actual.getFilas());
+        estado.put("milisegundosRefresco", actual.getMilisegundosRefresco());
+        estado.put("bytes", actual.bytes());
+        Map<String, Integer> cardinalidades = new LinkedHashMap<>();
+        for (Dimension dimension : Dimension.values()) {
+            cardinalidades.put(dimension.getParametro(), actual.diccionario(dimension).length);
+        }
+        estado.put("valoresPorDimension", cardinalidades);
+        estado.put("paralelismo", pool.getParallelism());
+        estado.put("refrescando", refrescando.get());
+        return estado;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,128 @@
+package com.sena.analytics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instantánea inmutable de las matrículas en formato columnar
+ * Cada dimensión es un arreglo de enteros (un código por aprendiz) y un diccionario
+ * que traduce el código a su texto. Las consultas recorren solo las columnas que
+ * usan, sin objetos por fila.
+ */
+public final class ColumnarSnapshot {
+
+    private final int filas;
+    private final int[][] columnas;
+    private final String[][] diccionarios;
+    private final Instant generada;
+    private final long milisegundosRefresco;
+
+    private ColumnarSnapshot(int filas, int[][] columnas, String[][] diccionarios,
+                             Instant generada, long milisegundosRefresco) {
+        this.filas = filas;
+        this.columnas = columnas;
+        this.diccionarios = diccionarios;
+        this.generada = generada;
+        this.milisegundosRefresco = milisegundosRefresco;
+    }
+
+    public static ColumnarSnapshot vacia() {
+        return new Constructor(0).construir(0);
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    public int[] columna(Dimension dimension) {
+        return columnas[dimension.ordinal()];
+    }
+
+    public String[] diccionario(Dimension dimension) {
+        return diccionarios[dimension.ordinal()];
+    }
+
+    public Instant getGenerada() {
+        return generada;
+    }
+
+    public long getMilisegundosRefresco() {
+        return milisegundosRefresco;
+    }
+
+    /**
+     * Bytes aproximados: columnas más diccionarios (texto en UTF-16 y cabeceras de objeto)
+     */
+    public long bytes() {
+        long total = 0;
+        for (int[] columna : columnas) {
+            total += 16L + columna.length * 4L;
+        }
+        for (String[] diccionario : diccionarios) {
+            total += 16L + diccionario.length * 8L;
+            for (String valor : diccionario) {
+                total += 40L + valor.length() * 2L;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Construye la instantánea fila a fila durante la lectura en streaming
+     */
+    public static final class Constructor {
+
+        private final List<Map<String, Integer>> codigos = new ArrayList<>();
+        private final List<List<String>> valores = new ArrayList<>();
+        private int[][] columnas;
+        private int filas;
+
+        public Constructor(int capacidadInicial) {
+            int dimensiones = Dimension.values().length;
+            columnas = new int[dimensiones][Math.max(16, capacidadInicial)];
+            for (int i = 0; i < dimensiones; i++) {
+                codigos.add(new HashMap<>());
+                valores.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * Agregar una fila con un valor por dimensión, en el orden de Dimension
+         */
+        public void agregar(String... fila) {
+            if (filas == columnas[0].length) {
+                for (int i = 0; i < columnas.length; i++) {
+                    columnas[i] = Arrays.copyOf(columnas[i], filas + (filas >> 1));
+                }
+            }
+            for (int i = 0; i < columnas.length; i++) {
+                columnas[i][filas] = codificar(i, fila[i] != null ? fila[i] : "(sin dato)");
+            }
+            filas++;
+        }
+
+        public ColumnarSnapshot construir(long milisegundosRefresco) {
+            int[][] recortadas = new int[columnas.length][];
+            String[][] diccionarios = new String[columnas.length][];
+            for (int i = 0; i < columnas.length; i++) {
+                recortadas[i] = Arrays.copyOf(columnas[i], filas);
+                diccionarios[i] = valores.get(i).toArray(String[]::new);
+            }
+            return new ColumnarSnapshot(filas, recortadas, diccionarios, Instant.now(), milisegundosRefresco);
+        }
+
+        private int codificar(int dimension, String valor) {
+            Integer codigo = codigos.get(dimension).get(valor);
+            if (codigo == null) {
+                codigo = valores.get(dimension).size();
+                codigos.get(dimension).put(valor, codigo);
+                valores.get(dimension).add(valor);
+            }
+            return codigo;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.sena.analytics;
+
+/**
+ * Columnas de la instantánea analítica por las que se puede agrupar y filtrar
+ * El parámetro es el nombre usado en /reportes/matriculas
+ */
+public enum Dimension {
+
+    PROGRAMA("programa"),
+    NIVEL("nivel"),
+    JORNADA("jornada"),
+    ESTADO("estado"),
+    MES("mes");
+
+    private final String parametro;
+
+    Dimension(String parametro) {
+        this.parametro = parametro;
+    }
+
+    public String getParametro() {
+        return parametro;
+    }
+
+    public static Dimension deParametro(String parametro) {
+        for (Dimension dimension : values()) {
+            if (dimension.parametro.equalsIgnoreCase(parametro)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Dimensión desconocida: " + parametro);
+    }
+}
@@ -0,0 +1,122 @@
+package com.sena.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Conteo agrupado sobre un rango de filas de la instantánea columnar
+ * Divide el rango a la mitad hasta un tamaño de hoja, cuenta cada hoja en paralelo
+ * (fork-join) y suma los acumuladores al volver. La clave de grupo combina los
+ * códigos de las columnas agrupadas en un solo long (base mixta).
+ */
+final class GroupByTask extends RecursiveTask<GroupByTask.Acumulador> {
+
+    private static final int FILAS_POR_HOJA = 1 << 16;
+
+    /** Con menos grupos posibles que esto se cuenta en un arreglo; si no, en un mapa */
+    private static final long MAX_GRUPOS_DENSOS = 1 << 16;
+
+    private final int[][] agrupadas;
+    private final int[] bases;
+    private final int[][] filtradas;
+    private final boolean[][] permitidos;
+    private final long grupos;
+    private final int desde;
+    private final int hasta;
+
+    GroupByTask(int[][] agrupadas, int[] bases, int[][] filtradas, boolean[][] permitidos,
+                int desde, int hasta) {
+        this.agrupadas = agrupadas;
+        this.bases = bases;
+        this.filtradas = filtradas;
+        this.permitidos = permitidos;
+        this.desde = desde;
+        this.hasta = hasta;
+        long producto = 1;
+        for (int base : bases) {
+            producto = Math.multiplyExact(producto, Math.max(1, base));
+        }
+        this.grupos = producto;
+    }
+
+    @Override
+    protected Acumulador compute() {
+        if (hasta - desde <= FILAS_POR_HOJA) {
+            return contar();
+        }
+        int mitad = (desde + hasta) >>> 1;
+        GroupByTask izquierda = new GroupByTask(agrupadas, bases, filtradas, permitidos, desde, mitad);
+        GroupByTask derecha = new GroupByTask(agrupadas, bases, filtradas, permitidos, mitad, hasta);
+        izquierda.fork();
+        Acumulador resultado = derecha.compute();
+        resultado.sumar(izquierda.join());
+        return resultado;
+    }
+
+    private Acumulador contar() {
+        Acumulador acumulador = new Acumulador(grupos);
+        filas:
+        for (int fila = desde; fila < hasta; fila++) {
+            for (int f = 0; f < filtradas.length; f++) {
+                if (!permitidos[f][filtradas[f][fila]]) {
+                    continue filas;
+                }
+            }
+            long clave = 0;
+            for (int g = 0; g < agrupadas.length; g++) {
+                clave = clave * bases[g] + agrupadas[g][fila];
+            }
+            acumulador.incrementar(clave);
+        }
+        return acumulador;
+    }
+
+    /**
+     * Conteo por clave de grupo: arreglo si los grupos posibles son pocos, mapa si no
+     */
+    static final class Acumulador {
+
+        private final long[] densos;
+        private final Map<Long, long[]> dispersos;
+
+        Acumulador(long grupos) {
+            this.densos = grupos <= MAX_GRUPOS_DENSOS ? new long[(int) grupos] : null;
+            this.dispersos = densos == null ? new HashMap<>() : null;
+        }
+
+        void incrementar(long clave) {
+            if (densos != null) {
+                densos[(int) clave]++;
+            } else {
+                dispersos.computeIfAbsent(clave, k -> new long[1])[0]++;
+            }
+        }
+
+        void sumar(Acumulador otro) {
+            if (densos != null) {
+                for (int i = 0; i < densos.length; i++) {
+                    densos[i] += otro.densos[i];
+                }
+            } else {
+                otro.dispersos.forEach((clave, n) -> dispersos.computeIfAbsent(clave, k -> new long[1])[0] += n[0]);
+            }
+        }
+
+        /**
+         * Recorrer los grupos con al menos una fila
+         */
+        void paraCada(ObjLongConsumer<Long> accion) {
+            if (densos != null) {
+                for (int i = 0; i < densos.length; i++) {
+                    if (densos[i] > 0) {
+                        accion.accept((long) i, densos[i]);
+                    }
+                }
+            } else {
+                dispersos.forEach((clave, n) -> accion.accept(clave, n[0]));
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.sena.archive;
+
+import com.sena.cache.CacheInvalidator;
+import com.sena.cache.TipoEntidad;
+import com.sena.exception.OperationInProgressException;
+import com.sena.facet.FacetIndex;
+import com.sena.facet.Faceta;
+import com.sena.interval.FichaIntervalIndex;
+import com.sena.model.EstadoFicha;
+import com.sena.outbox.OutboxWriter;
+import com.sena.pool.Workload;
+import com.sena.pool.WorkloadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Archivo de fichas terminadas (ver db/05_archivo_fichas.sql)
+ * Mueve las fichas TERMINADA cuya fecha de fin es anterior a la retención, con sus
+ * aprendices, a fichas_archivo y aprendices_archivo, y las borra de las tablas de
+ * trabajo. Cada ficha se mueve en su propia transacción corta, con una pausa entre
+ * fichas, para no competir con el tráfico normal; si el proceso se interrumpe, la
+ * siguiente ejecución continúa con las que falten.
+ *
+ * La tendencia de matrículas conserva sus conteos (el archivo no es una baja) y su
+ * reconstrucción también lee las tablas de archivo. El resto de índices en memoria
+ * y las cachés quitan la ficha como si se hubiera eliminado.
+ */
+@Service
+public class ArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ArchiveStore archiveStore;
+    private final OutboxWriter outboxWriter;
+    private final FacetIndex facetIndex;
+    private final FichaIntervalIndex fichaIntervalIndex;
+    private final CacheInvalidator cacheInvalidator;
+    private final TransactionTemplate transactionTemplate;
+    private final int retencionDias;
+    private final int maxFichas;
+    private final long pausaMs;
+    private final AtomicBoolean archivando = new AtomicBoolean();
+
+    private volatile Map<String, Object> ultimaEjecucion = Map.of();
+
+    public ArchiveService(JdbcTemplate jdbcTemplate, ArchiveStore archiveStore, OutboxWriter outboxWriter,
+                          FacetIndex facetIndex, FichaIntervalIndex fichaIntervalIndex,
+                          CacheInvalidator cacheInvalidator, PlatformTransactionManager transactionManager,
+                          @Value("${sena.archivo.retencion-dias:730}") int retencionDias,
+                          @Value("${sena.archivo.max-fichas:500}") int maxFichas,
+                          @Value("${sena.archivo.pausa-ms:200}") long pausaMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveStore = archiveStore;
+        this.outboxWriter = outboxWriter;
+        this.facetIndex = facetIndex;
+        this.fichaIntervalIndex = fichaIntervalIndex;
+        this.cacheInvalidator = cacheInvalidator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retencionDias = retencionDias;
+        this.maxFichas = maxFichas;
+        this.pausaMs = pausaMs;
+    }
+
+    @Scheduled(cron = "${sena.archivo.cron:-}")
+    public void archivarProgramado() {
+        try {
+            archivar();
+        } catch (OperationInProgressException e) {
+            log.warn("Archivo omitido: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archivar hasta max-fichas fichas vencidas; devuelve el resumen de la ejecución
+     */
+    public Map<String, Object> archivar() {
+        if (!archivando.compareAndSet(false, true)) {
+            throw new OperationInProgressException("Ya hay un archivo de fichas en curso");
+        }
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            long inicio = System.currentTimeMillis();
+            LocalDate limite = LocalDate.now().minusDays(retencionDias);
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM fichas WHERE estado = ? AND fecha_fin < ? ORDER BY fecha_fin, id LIMIT ?",
+                    Long.class, EstadoFicha.TERMINADA.name(), Date.valueOf(limite), maxFichas);
+            log.info("Archivo: {} ficha(s) terminadas antes del {}", ids.size(), limite);
+
+            int fichas = 0;
+            long aprendices = 0;
+            for (Long id : ids) {
+                try {
+                    Integer movidos = transactionTemplate.execute(status -> archivarFicha(id, limite));
+                    if (movidos != null && movidos >= 0) {
+                        fichas++;
+                        aprendices += movidos;
+                    }
+                } catch (Exception e) {
+                    // La ficha queda en las tablas de trabajo y se reintenta en la siguiente ejecución
+                    log.warn("No se pudo archivar la ficha ID: {}: {}", id, e.getMessage());
+                }
+                if (pausaMs > 0) {
+                    Thread.sleep(pausaMs);
+                }
+            }
+
+            Map<String, Object> resumen = new LinkedHashMap<>();
+            resumen.put("fecha", LocalDateTime.now());
+            resumen.put("limite", limite);
+            resumen.put("fichas", fichas);
+            resumen.put("aprendices", aprendices);
+            resumen.put("pendientes", ids.size() == maxFichas);
+            resumen.put("milisegundos", System.currentTimeMillis() - inicio);
+            ultimaEjecucion = resumen;
+            log.info("Archivo terminado en {} ms: {} ficha(s), {} aprendiz(es)",
+                    resumen.get("milisegundos"), fichas, aprendices);
+            return resumen;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Archivo de fichas interrumpido");
+        } finally {
+            archivando.set(false);
+        }
+    }
+
+    /**
+     * Tamaño de las tablas de trabajo y de archivo, porcentaje archivado y última ejecución
+     */
+    public Map<String, Object> getResumen() {
+        Map<String, Map<String, Long>> tamanos = archiveStore.getTamanos();
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("tablas", tamanos);
+        resumen.put("fichasArchivadasPct", porcentaje(tamanos.get("fichas_archivo"), tamanos.get("fichas")));
+        resumen.put("aprendicesArchivadosPct", porcentaje(tamanos.get("aprendices_archivo"), tamanos.get("aprendices")));
+        resumen.put("retencionDias", retencionDias);
+        resumen.put("enCurso", archivando.get());
+        resumen.put("ultimaEjecucion", ultimaEjecucion);
+        return resumen;
+    }
+
+    /**
+     * Mover una ficha y sus aprendices; -1 si la ficha ya no cumple las condiciones
+     */
+    private int archivarFicha(Long fichaId, LocalDate limite) {
+        // Bloquear la ficha y volver a comprobarla: pudo cambiar o archivarla otro nodo
+        Integer vigente = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM fichas WHERE id = ? AND estado = ? AND fecha_fin < ? FOR UPDATE",
+                Integer.class, fichaId, EstadoFicha.TERMINADA.name(), Date.valueOf(limite));
+        if (vigente == null || vigente == 0) {
+            return -1;
+        }
+        List<Long> aprendices = jdbcTemplate.queryForList(
+                "SELECT id FROM aprendices WHERE ficha_id = ? FOR UPDATE", Long.class, fichaId);
+
+        jdbcTemplate.update("INSERT INTO fichas_archivo (id, numero_ficha, programa_id, fecha_inicio, fecha_fin, " +
+                "jornada, estado, version, fecha_creacion, capacidad, cupos_ocupados, lista_espera) " +
+                "SELECT id, numero_ficha, programa_id, fecha_inicio, fecha_fin, jornada, estado, version, " +
+                "fecha_creacion, capacidad, cupos_ocupados, lista_espera FROM fichas WHERE id = ?", fichaId);
+        jdbcTemplate.update("INSERT INTO aprendices_archivo (id, tipo_documento, numero_documento, nombres, " +
+                "apellidos, email, telefono, direccion, estado, ficha_id, version, fecha_registro) " +
+                "SELECT id, tipo_documento, numero_documento, nombres, apellidos, email, telefono, direccion, " +
+                "estado, ficha_id, version, fecha_registro FROM aprendices WHERE ficha_id = ?", fichaId);
+        outboxWriter.fichaArchivada(fichaId);
+
+        jdbcTemplate.update("DELETE FROM aprendices WHERE ficha_id = ?", fichaId);
+        jdbcTemplate.update("DELETE FROM fichas WHERE id = ?", fichaId);
+
+        facetIndex.quitarDependientes(Faceta.FICHA, fichaId);
+        fichaIntervalIndex.quitar(fichaId);
+        cacheInvalidator.invalidar(TipoEntidad.FICHA, fichaId);
+        if (!aprendices.isEmpty()) {
+            cacheInvalidator.invalidar(TipoEntidad.APRENDIZ, aprendices);
+        }
+        return aprendices.size();
+    }
+
+    private static double porcentaje(Map<String, Long> archivo, Map<String, Long> trabajo) {
+        long archivadas = archivo.get("filas");
+        long total = archivadas + trabajo.get("filas");
+        return total == 0 ? 0 : Math.round(archivadas * 1000.0 / total) / 10.0;
+    }
+}
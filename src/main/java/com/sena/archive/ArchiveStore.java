@@ -0,0 +1,144 @@
+package com.sena.archive;
+
+import com.sena.model.Aprendiz;
+import com.sena.model.Ficha;
+import com.sena.model.Programa;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lectura de las tablas de archivo (fichas_archivo, aprendices_archivo)
+ * Devuelve entidades desacopladas, solo de lectura, con la ficha marcada como archivada.
+ * Los servicios la usan como segundo intento cuando una búsqueda no encuentra
+ * el registro en las tablas de trabajo.
+ */
+@Component
+public class ArchiveStore {
+
+    private static final String FICHA =
+            "SELECT f.id, f.numero_ficha, f.fecha_inicio, f.fecha_fin, f.jornada, f.estado, f.version, " +
+            "f.fecha_creacion, f.capacidad, f.cupos_ocupados, f.lista_espera, p.id AS p_id, " +
+            "p.codigo AS p_codigo, p.nombre AS p_nombre, p.nivel AS p_nivel, " +
+            "p.duracion AS p_duracion, p.estado AS p_estado " +
+            "FROM fichas_archivo f JOIN programas p ON p.id = f.programa_id ";
+
+    private static final String APRENDIZ =
+            "SELECT a.id, a.tipo_documento, a.numero_documento, a.nombres, a.apellidos, a.email, a.telefono, " +
+            "a.direccion, a.estado, a.ficha_id, a.version, a.fecha_registro FROM aprendices_archivo a ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ArchiveStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<Ficha> buscarFicha(Long id) {
+        return jdbcTemplate.query(FICHA + "WHERE f.id = ?", this::mapearFicha, id).stream().findFirst();
+    }
+
+    public Optional<Aprendiz> buscarAprendiz(Long id) {
+        return conFicha(jdbcTemplate.query(APRENDIZ + "WHERE a.id = ?", this::mapearAprendiz, id)).stream().findFirst();
+    }
+
+    /**
+     * El registro archivado más reciente con ese documento
+     */
+    public Optional<Aprendiz> buscarAprendizPorDocumento(String documento) {
+        return conFicha(jdbcTemplate.query(APRENDIZ + "WHERE a.numero_documento = ? ORDER BY a.id DESC LIMIT 1",
+                this::mapearAprendiz, documento)).stream().findFirst();
+    }
+
+    public List<Aprendiz> aprendicesDeFicha(Long fichaId) {
+        return conFicha(jdbcTemplate.query(APRENDIZ + "WHERE a.ficha_id = ? ORDER BY a.apellidos, a.nombres",
+                this::mapearAprendiz, fichaId));
+    }
+
+    /**
+     * Borrar lo archivado de un programa que se elimina (igual que la cascada de las tablas de trabajo)
+     */
+    public void eliminarPrograma(Long programaId) {
+        jdbcTemplate.update("DELETE a FROM aprendices_archivo a JOIN fichas_archivo f ON f.id = a.ficha_id " +
+                "WHERE f.programa_id = ?", programaId);
+        jdbcTemplate.update("DELETE FROM fichas_archivo WHERE programa_id = ?", programaId);
+    }
+
+    /**
+     * Filas y tamaño (datos + índices, según information_schema) de las tablas de trabajo y de archivo
+     */
+    public Map<String, Map<String, Long>> getTamanos() {
+        Map<String, Map<String, Long>> tamanos = new LinkedHashMap<>();
+        for (String tabla : List.of("fichas", "aprendices", "fichas_archivo", "aprendices_archivo")) {
+            Long filas = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabla, Long.class);
+            Long bytes = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(data_length + index_length), 0) FROM information_schema.tables " +
+                    "WHERE table_schema = DATABASE() AND table_name = ?", Long.class, tabla);
+            tamanos.put(tabla, Map.of("filas", filas == null ? 0 : filas, "bytes", bytes == null ? 0 : bytes));
+        }
+        return tamanos;
+    }
+
+    /**
+     * Asignar a cada aprendiz su ficha archivada (una consulta por ficha distinta)
+     */
+    private List<Aprendiz> conFicha(List<Aprendiz> aprendices) {
+        Map<Long, Ficha> fichas = new LinkedHashMap<>();
+        for (Aprendiz aprendiz : aprendices) {
+            Long fichaId = aprendiz.getFicha().getId();
+            aprendiz.setFicha(fichas.computeIfAbsent(fichaId, id -> buscarFicha(id).orElse(aprendiz.getFicha())));
+        }
+        return aprendices;
+    }
+
+    private Ficha mapearFicha(ResultSet rs, int fila) throws SQLException {
+        Programa programa = new Programa();
+        programa.setId(rs.getLong("p_id"));
+        programa.setCodigo(rs.getString("p_codigo"));
+        programa.setNombre(rs.getString("p_nombre"));
+        programa.setNivel(rs.getString("p_nivel"));
+        programa.setDuracion(rs.getInt("p_duracion"));
+        programa.setEstado(rs.getString("p_estado"));
+
+        Ficha ficha = new Ficha(rs.getString("numero_ficha"), programa);
+        ficha.setId(rs.getLong("id"));
+        ficha.setFechaInicio(rs.getDate("fecha_inicio").toLocalDate());
+        ficha.setFechaFin(rs.getDate("fecha_fin").toLocalDate());
+        ficha.setJornada(rs.getString("jornada"));
+        ficha.setEstado(rs.getString("estado"));
+        ficha.setVersion(rs.getLong("version"));
+        ficha.setFechaCreacion(rs.getTimestamp("fecha_creacion").toLocalDateTime());
+        ficha.setCapacidad(rs.getObject("capacidad", Integer.class));
+        ficha.setCuposOcupados(rs.getInt("cupos_ocupados"));
+        ficha.setListaEspera(rs.getBoolean("lista_espera"));
+        ficha.setArchivada(true);
+        return ficha;
+    }
+
+    private Aprendiz mapearAprendiz(ResultSet rs, int fila) throws SQLException {
+        Ficha ficha = new Ficha();
+        ficha.setId(rs.getLong("ficha_id"));
+        ficha.setArchivada(true);
+
+        Aprendiz aprendiz = new Aprendiz();
+        aprendiz.setId(rs.getLong("id"));
+        aprendiz.setTipoDocumento(rs.getString("tipo_documento"));
+        aprendiz.setDocumento(rs.getString("numero_documento"));
+        aprendiz.setNombres(rs.getString("nombres"));
+        aprendiz.setApellidos(rs.getString("apellidos"));
+        aprendiz.setCorreo(rs.getString("email"));
+        aprendiz.setTelefono(rs.getString("telefono"));
+        aprendiz.setDireccion(rs.getString("direccion"));
+        aprendiz.setEstado(rs.getString("estado"));
+        aprendiz.setVersion(rs.getLong("version"));
+        aprendiz.setFechaRegistro(rs.getTimestamp("fecha_registro").toLocalDateTime());
+        aprendiz.setFicha(ficha);
+        return aprendiz;
+    }
+}
@@ -0,0 +1,42 @@
+package com.sena.cache;
+
+import com.sena.model.Aprendiz;
+import com.sena.model.Ficha;
+
+import java.time.LocalDateTime;
+
+/**
+ * Instantánea inmutable de un aprendiz para las cachés de entidades
+ * Guarda solo el ID de la ficha, que se compone desde la caché de fichas
+ */
+public record AprendizSnapshot(Long id, String tipoDocumento, String documento, String nombres, String apellidos,
+                               String correo, String telefono, String direccion, String estado, Long fichaId,
+                               Long version, LocalDateTime fechaRegistro) {
+
+    public static AprendizSnapshot de(Aprendiz aprendiz) {
+        return new AprendizSnapshot(aprendiz.getId(), aprendiz.getTipoDocumento(), aprendiz.getDocumento(),
+                aprendiz.getNombres(), aprendiz.getApellidos(), aprendiz.getCorreo(), aprendiz.getTelefono(),
+                aprendiz.getDireccion(), aprendiz.getEstado(), aprendiz.getFicha().getId(),
+                aprendiz.getVersion(), aprendiz.getFechaRegistro());
+    }
+
+    /**
+     * Copia desacoplada como entidad
+     */
+    public Aprendiz toEntity(Ficha ficha) {
+        Aprendiz aprendiz = new Aprendiz();
+        aprendiz.setId(id);
+        aprendiz.setTipoDocumento(tipoDocumento);
+        aprendiz.setDocumento(documento);
+        aprendiz.setNombres(nombres);
+        aprendiz.setApellidos(apellidos);
+        aprendiz.setCorreo(correo);
+        aprendiz.setTelefono(telefono);
+        aprendiz.setDireccion(direccion);
+        aprendiz.setEstado(estado);
+        aprendiz.setFicha(ficha);
+        aprendiz.setVersion(version);
+        aprendiz.setFechaRegistro(fechaRegistro);
+        return aprendiz;
+    }
+}
@@ -0,0 +1,76 @@
+package com.sena.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Punto único de invalidación de cachés tras una escritura
+ * Invalida en este nodo (fragmentos HTML y cachés de entidades, efectivo al confirmar)
+ * y publica el cambio en el transporte para que los demás nodos hagan lo mismo.
+ */
+@Component
+public class CacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidator.class);
+
+    private final FragmentCache fragmentCache;
+    private final EntityCaches entityCaches;
+    private final InvalidationTransport transport;
+
+    public CacheInvalidator(FragmentCache fragmentCache, EntityCaches entityCaches,
+                            InvalidationTransport transport) {
+        this.fragmentCache = fragmentCache;
+        this.entityCaches = entityCaches;
+        this.transport = transport;
+    }
+
+    /**
+     * Una entidad cambió (creada, actualizada o eliminada)
+     */
+    public void invalidar(TipoEntidad tipo, Long id) {
+        invalidar(tipo, List.of(id));
+    }
+
+    /**
+     * Varias entidades del mismo tipo cambiaron
+     */
+    public void invalidar(TipoEntidad tipo, Collection<Long> ids) {
+        aplicar(tipo, ids);
+        transport.publicar(tipo, ids);
+    }
+
+    /**
+     * Cambiaron entidades del tipo sin saber cuáles (por ejemplo, un borrado en cascada)
+     */
+    public void invalidarTodos(TipoEntidad tipo) {
+        aplicar(tipo, List.of());
+        transport.publicar(tipo, List.of());
+    }
+
+    /**
+     * Aplicar en este nodo una invalidación (propia o recibida de otro nodo)
+     */
+    public void aplicar(TipoEntidad tipo, Collection<Long> ids) {
+        fragmentCache.invalidar(tipo.getFragmentos());
+        EntityCache<?> cache = entityCaches.de(tipo);
+        if (ids.isEmpty()) {
+            cache.invalidarTodo();
+        } else {
+            cache.invalidar(ids);
+        }
+    }
+
+    /**
+     * Vaciar todas las cachés de este nodo (recuperación ante eventos perdidos)
+     */
+    public void vaciarTodo() {
+        log.warn("Vaciando todas las cachés locales");
+        for (TipoEntidad tipo : TipoEntidad.values()) {
+            aplicar(tipo, List.of());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.sena.cache;
+
+import com.sena.config.NodeIdentity;
+import com.sena.pool.Workload;
+import com.sena.pool.WorkloadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Lee las invalidaciones publicadas por los demás nodos en cache_invalidaciones
+ *
+ * Orden y recuperación:
+ *  - Las filas se aplican por id creciente. La marca "confirmado" es el mayor id tal que
+ *    todos los anteriores ya se vieron; las filas posteriores ya aplicadas se recuerdan
+ *    para no repetirlas.
+ *  - Un hueco en los ids puede ser una transacción aún sin confirmar: se espera
+ *    sena.cache.invalidacion.gracia-ms. Si no aparece, se da por perdido (o revertido),
+ *    se vacían las cachés locales y se sigue adelante.
+ *  - Si las filas pendientes ya se purgaron (nodo detenido más que la retención), también
+ *    se vacían las cachés locales.
+ */
+@Component
+@ConditionalOnProperty(name = "sena.cache.invalidacion.transporte", havingValue = "db")
+public class DbInvalidationPoller {
+
+    private static final Logger log = LoggerFactory.getLogger(DbInvalidationPoller.class);
+
+    private static final int LOTE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidator cacheInvalidator;
+    private final String nodo;
+    private final long graciaMs;
+    private final long retencionMinutos;
+
+    private long confirmado = -1;
+    private final TreeSet<Long> aplicados = new TreeSet<>();
+    private long huecoDesde;
+
+    public DbInvalidationPoller(JdbcTemplate jdbcTemplate, CacheInvalidator cacheInvalidator,
+                                NodeIdentity nodeIdentity,
+                                @Value("${sena.cache.invalidacion.gracia-ms:10000}") long graciaMs,
+                                @Value("${sena.cache.invalidacion.retencion-minutos:60}") long retencionMinutos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheInvalidator = cacheInvalidator;
+        this.nodo = nodeIdentity.getId();
+        this.graciaMs = graciaMs;
+        this.retencionMinutos = retencionMinutos;
+    }
+
+    @Scheduled(fixedDelayString = "${sena.cache.invalidacion.intervalo-ms:1000}")
+    public synchronized void sondear() {
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            if (confirmado < 0) {
+                // Al arrancar las cachés están vacías: basta con empezar desde el final
+                Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cache_invalidaciones", Long.class);
+                confirmado = maximo == null ? 0 : maximo;
+                log.info("Invalidaciones entre nodos activas (nodo {}, desde id {})", nodo, confirmado);
+                return;
+            }
+
+            List<Fila> filas = jdbcTemplate.query(
+                    "SELECT id, nodo, tipo, ids FROM cache_invalidaciones WHERE id > ? ORDER BY id LIMIT ?",
+                    (rs, i) -> new Fila(rs.getLong("id"), rs.getString("nodo"), rs.getString("tipo"), rs.getString("ids")),
+                    confirmado, LOTE);
+
+            for (Fila fila : filas) {
+                if (aplicados.add(fila.id()) && !nodo.equals(fila.nodo())) {
+                    aplicar(fila);
+                }
+            }
+            avanzar();
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron leer las invalidaciones de otros nodos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Borrar invalidaciones más antiguas que la retención
+     */
+    @Scheduled(fixedDelayString = "${sena.cache.invalidacion.purga-ms:300000}")
+    public void purgar() {
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            int borradas = jdbcTemplate.update("DELETE FROM cache_invalidaciones WHERE creado < ? LIMIT 10000",
+                    Timestamp.from(Instant.now().minus(retencionMinutos, ChronoUnit.MINUTES)));
+            if (borradas > 0) {
+                log.debug("Invalidaciones purgadas: {}", borradas);
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron purgar las invalidaciones: {}", e.getMessage());
+        }
+    }
+
+    private void avanzar() {
+        long anterior = confirmado;
+        while (aplicados.remove(confirmado + 1)) {
+            confirmado++;
+        }
+        if (aplicados.isEmpty() || confirmado != anterior) {
+            huecoDesde = 0;
+        }
+        if (aplicados.isEmpty()) {
+            return;
+        }
+
+        // Hay un hueco antes de las filas ya aplicadas
+        long ahora = System.currentTimeMillis();
+        if (huecoDesde == 0) {
+            huecoDesde = ahora;
+            return;
+        }
+        if (ahora - huecoDesde < graciaMs) {
+            return;
+        }
+
+        Long minimo = jdbcTemplate.queryForObject("SELECT MIN(id) FROM cache_invalidaciones", Long.class);
+        if (minimo != null && minimo > confirmado + 1) {
+            log.warn("Invalidaciones purgadas antes de leerlas (ids {} a {})", confirmado + 1, minimo - 1);
+        } else {
+            log.warn("Invalidación {} no apareció en {} ms; se da por perdida", confirmado + 1, graciaMs);
+        }
+        cacheInvalidator.vaciarTodo();
+        confirmado = aplicados.first() - 1;
+        huecoDesde = 0;
+        avanzar();
+    }
+
+    private void aplicar(Fila fila) {
+        TipoEntidad tipo;
+        try {
+            tipo = TipoEntidad.valueOf(fila.tipo());
+        } catch (IllegalArgumentException e) {
+            log.warn("Tipo de invalidación desconocido: {}", fila.tipo());
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        if (fila.ids() != null) {
+            Arrays.stream(fila.ids().split(",")).map(Long::valueOf).forEach(ids::add);
+        }
+        cacheInvalidator.aplicar(tipo, ids);
+    }
+
+    private record Fila(long id, String nodo, String tipo, String ids) {
+    }
+}
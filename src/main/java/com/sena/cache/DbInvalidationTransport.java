@@ -0,0 +1,34 @@
+package com.sena.cache;
+
+import com.sena.config.NodeIdentity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Transporte por tabla de base de datos (cache_invalidaciones), sin infraestructura extra
+ * La fila se inserta en la misma transacción que la escritura, así que los demás nodos
+ * solo la ven si se confirma. DbInvalidationPoller la lee en cada nodo.
+ */
+@Component
+@ConditionalOnProperty(name = "sena.cache.invalidacion.transporte", havingValue = "db")
+public class DbInvalidationTransport implements InvalidationTransport {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NodeIdentity nodeIdentity;
+
+    public DbInvalidationTransport(JdbcTemplate jdbcTemplate, NodeIdentity nodeIdentity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeIdentity = nodeIdentity;
+    }
+
+    @Override
+    public void publicar(TipoEntidad tipo, Collection<Long> ids) {
+        String lista = ids.isEmpty() ? null : ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        jdbcTemplate.update("INSERT INTO cache_invalidaciones (nodo, tipo, ids) VALUES (?, ?, ?)",
+                nodeIdentity.getId(), tipo.name(), lista);
+    }
+}
@@ -0,0 +1,196 @@
+package com.sena.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché acotada por tamaño y tiempo de instantáneas inmutables de una entidad
+ * Indexa por ID y por una clave natural (documento, código) que apunta al ID.
+ * Al invalidar se incrementa una generación: una carga que empezó antes de la
+ * invalidación no guarda su resultado, así que no puede reintroducir un valor viejo.
+ */
+public class EntityCache<V> {
+
+    private final String nombre;
+    private final int maxEntradas;
+    private final long ttlNanos;
+    private final Function<V, Long> id;
+    private final Function<V, String> claveNatural;
+
+    private final LinkedHashMap<Long, Entrada<V>> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Long> indice = new HashMap<>();
+    private long generacion;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    public EntityCache(String nombre, int maxEntradas, long ttlSegundos,
+                       Function<V, Long> id, Function<V, String> claveNatural) {
+        this.nombre = nombre;
+        this.maxEntradas = maxEntradas;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+        this.id = id;
+        this.claveNatural = claveNatural;
+    }
+
+    /**
+     * Obtener por ID, cargando y guardando el valor si no está
+     */
+    public V obtener(Long clave, Supplier<V> carga) {
+        long generacionInicial;
+        synchronized (this) {
+            V valor = vigente(entradas.get(clave), clave);
+            if (valor != null) {
+                aciertos.increment();
+                return valor;
+            }
+            generacionInicial = generacion;
+        }
+        fallos.increment();
+        V cargado = carga.get();
+        guardar(cargado, generacionInicial);
+        return cargado;
+    }
+
+    /**
+     * Obtener por clave natural, cargando y guardando el valor si no está
+     */
+    public V obtenerPorClave(String clave, Supplier<V> carga) {
+        long generacionInicial;
+        synchronized (this) {
+            Long idIndexado = indice.get(clave);
+            V valor = idIndexado == null ? null : vigente(entradas.get(idIndexado), idIndexado);
+            if (valor != null) {
+                aciertos.increment();
+                return valor;
+            }
+            generacionInicial = generacion;
+        }
+        fallos.increment();
+        V cargado = carga.get();
+        guardar(cargado, generacionInicial);
+        return cargado;
+    }
+
+    /**
+     * Expulsar una entrada ahora y de nuevo al confirmar la transacción en curso
+     */
+    public void invalidar(Long clave) {
+        invalidar(List.of(clave));
+    }
+
+    /**
+     * Expulsar varias entradas ahora y de nuevo al confirmar la transacción en curso
+     */
+    public void invalidar(Collection<Long> claves) {
+        invalidarAhora(claves);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidarAhora(claves);
+                }
+            });
+        }
+    }
+
+    /**
+     * Vaciar la caché ahora y de nuevo al confirmar la transacción en curso
+     */
+    public void invalidarTodo() {
+        vaciar();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    vaciar();
+                }
+            });
+        }
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Métricas de uso: aciertos, fallos, tasa de aciertos, tamaño y expulsiones
+     */
+    public synchronized Map<String, Object> getMetricas() {
+        long a = aciertos.sum();
+        long f = fallos.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("entradas", entradas.size());
+        m.put("maxEntradas", maxEntradas);
+        m.put("aciertos", a);
+        m.put("fallos", f);
+        m.put("tasaAciertos", a + f == 0 ? 0.0 : (double) a / (a + f));
+        m.put("expulsiones", expulsiones.sum());
+        m.put("invalidaciones", invalidaciones.sum());
+        return m;
+    }
+
+    private V vigente(Entrada<V> entrada, Long clave) {
+        if (entrada == null) {
+            return null;
+        }
+        if (System.nanoTime() - entrada.creada > ttlNanos) {
+            quitar(clave);
+            expulsiones.increment();
+            return null;
+        }
+        return entrada.valor;
+    }
+
+    private synchronized void guardar(V valor, long generacionInicial) {
+        if (generacion != generacionInicial) {
+            return;
+        }
+        Long clave = id.apply(valor);
+        quitar(clave);
+        Entrada<V> entrada = new Entrada<>(valor, claveNatural.apply(valor), System.nanoTime());
+        entradas.put(clave, entrada);
+        if (entrada.claveNatural != null) {
+            indice.put(entrada.claveNatural, clave);
+        }
+        while (entradas.size() > maxEntradas) {
+            quitar(entradas.keySet().iterator().next());
+            expulsiones.increment();
+        }
+    }
+
+    private synchronized void invalidarAhora(Collection<Long> claves) {
+        generacion++;
+        claves.forEach(this::quitar);
+        invalidaciones.add(claves.size());
+    }
+
+    private synchronized void vaciar() {
+        generacion++;
+        entradas.clear();
+        indice.clear();
+        invalidaciones.increment();
+    }
+
+    private void quitar(Long clave) {
+        Entrada<V> anterior = entradas.remove(clave);
+        if (anterior != null && anterior.claveNatural != null) {
+            indice.remove(anterior.claveNatural, clave);
+        }
+    }
+
+    private record Entrada<V>(V valor, String claveNatural, long creada) {
+    }
+}
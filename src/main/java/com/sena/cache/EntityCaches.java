@@ -0,0 +1,65 @@
+package com.sena.cache;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cachés de instantáneas de aprendices, fichas y programas
+ * Compartidas por los servicios porque una escritura en una entidad puede invalidar
+ * las otras (eliminar un programa elimina sus fichas y aprendices en cascada).
+ * Tamaño y duración: sena.cache.entidades.{aprendices|fichas|programas}.{max-entradas|ttl-segundos}
+ */
+@Component
+public class EntityCaches {
+
+    private final EntityCache<AprendizSnapshot> aprendices;
+    private final EntityCache<FichaSnapshot> fichas;
+    private final EntityCache<ProgramaSnapshot> programas;
+
+    public EntityCaches(Environment env) {
+        this.aprendices = new EntityCache<>("aprendices",
+                env.getProperty("sena.cache.entidades.aprendices.max-entradas", Integer.class, 20000),
+                env.getProperty("sena.cache.entidades.aprendices.ttl-segundos", Long.class, 600L),
+                AprendizSnapshot::id, AprendizSnapshot::documento);
+        this.fichas = new EntityCache<>("fichas",
+                env.getProperty("sena.cache.entidades.fichas.max-entradas", Integer.class, 5000),
+                env.getProperty("sena.cache.entidades.fichas.ttl-segundos", Long.class, 600L),
+                FichaSnapshot::id, FichaSnapshot::codigo);
+        this.programas = new EntityCache<>("programas",
+                env.getProperty("sena.cache.entidades.programas.max-entradas", Integer.class, 1000),
+                env.getProperty("sena.cache.entidades.programas.ttl-segundos", Long.class, 600L),
+                ProgramaSnapshot::id, ProgramaSnapshot::codigo);
+    }
+
+    public EntityCache<AprendizSnapshot> aprendices() {
+        return aprendices;
+    }
+
+    public EntityCache<FichaSnapshot> fichas() {
+        return fichas;
+    }
+
+    public EntityCache<ProgramaSnapshot> programas() {
+        return programas;
+    }
+
+    public EntityCache<?> de(TipoEntidad tipo) {
+        return switch (tipo) {
+            case APRENDIZ -> aprendices;
+            case FICHA -> fichas;
+            case PROGRAMA -> programas;
+        };
+    }
+
+    public Map<String, Map<String, Object>> getMetricas() {
+        Map<String, Map<String, Object>> metricas = new LinkedHashMap<>();
+        for (EntityCache<?> cache : List.of(aprendices, fichas, programas)) {
+            metricas.put(cache.getNombre(), cache.getMetricas());
+        }
+        return metricas;
+    }
+}
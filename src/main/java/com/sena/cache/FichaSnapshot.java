@@ -0,0 +1,43 @@
+package com.sena.cache;
+
+import com.sena.model.Ficha;
+import com.sena.model.Programa;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Instantánea inmutable de una ficha para las cachés de entidades
+ * Guarda solo el ID del programa: el programa se compone desde su propia caché,
+ * así un cambio en el programa no deja copias viejas dentro de las fichas.
+ * No guarda los cupos ocupados: cambian con cada alta o baja de aprendiz y se consultan aparte.
+ */
+public record FichaSnapshot(Long id, String codigo, Long programaId, LocalDate fechaInicio, LocalDate fechaFin,
+                            String jornada, String estado, Integer capacidad, boolean listaEspera,
+                            Long version, LocalDateTime fechaCreacion) {
+
+    public static FichaSnapshot de(Ficha ficha) {
+        return new FichaSnapshot(ficha.getId(), ficha.getCodigo(), ficha.getPrograma().getId(),
+                ficha.getFechaInicio(), ficha.getFechaFin(), ficha.getJornada(), ficha.getEstado(),
+                ficha.getCapacidad(), ficha.isListaEspera(), ficha.getVersion(), ficha.getFechaCreacion());
+    }
+
+    /**
+     * Copia desacoplada como entidad (sin aprendices cargados)
+     */
+    public Ficha toEntity(Programa programa) {
+        Ficha ficha = new Ficha();
+        ficha.setId(id);
+        ficha.setCodigo(codigo);
+        ficha.setPrograma(programa);
+        ficha.setFechaInicio(fechaInicio);
+        ficha.setFechaFin(fechaFin);
+        ficha.setJornada(jornada);
+        ficha.setEstado(estado);
+        ficha.setCapacidad(capacidad);
+        ficha.setListaEspera(listaEspera);
+        ficha.setVersion(version);
+        ficha.setFechaCreacion(fechaCreacion);
+        return ficha;
+    }
+}
@@ -0,0 +1,149 @@
+package com.sena.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché de fragmentos HTML pre-renderizados (cuerpos de las tablas de listado)
+ * Las entradas se guardan ya decodificadas (se insertan en la página con th:utext, así
+ * que cada acierto entrega la misma cadena sin copiarla) y se indexan por tipo de dato,
+ * versión de datos y parámetros de consulta. Acotada con expulsión LRU por número de
+ * entradas y por tamaño en bytes UTF-8.
+ */
+@Component
+public class FragmentCache {
+
+    private static final Logger log = LoggerFactory.getLogger(FragmentCache.class);
+
+    public static final String APRENDICES = "aprendices";
+    public static final String FICHAS = "fichas";
+    public static final String PROGRAMAS = "programas";
+
+    private final Map<String, AtomicLong> versiones = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntradas;
+    private final long maxBytes;
+    private long bytesActuales;
+
+    public FragmentCache(@Value("${sena.cache.fragmentos.max-entradas:64}") int maxEntradas,
+                         @Value("${sena.cache.fragmentos.max-bytes:16777216}") long maxBytes) {
+        this.maxEntradas = maxEntradas;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Obtener el fragmento para un tipo y unos parámetros, renderizándolo si no está en caché
+     */
+    public Entrada obtener(String tipo, String parametros, Supplier<Entrada> renderizador) {
+        // La versión se toma antes de renderizar: si hay una escritura mientras tanto,
+        // la entrada queda bajo una clave obsoleta y nunca se vuelve a servir
+        String clave = tipo + ":" + version(tipo).get() + ":" + parametros;
+
+        synchronized (this) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null) {
+                return entrada;
+            }
+        }
+
+        Entrada entrada = renderizador.get();
+        guardar(clave, entrada);
+        return entrada;
+    }
+
+    /**
+     * Invalidar los fragmentos de los tipos indicados
+     * Si hay una transacción activa, la invalidación se aplica después del commit
+     */
+    public void invalidar(String... tipos) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidarAhora(tipos);
+                }
+            });
+        } else {
+            invalidarAhora(tipos);
+        }
+    }
+
+    private void invalidarAhora(String... tipos) {
+        for (String tipo : tipos) {
+            version(tipo).incrementAndGet();
+        }
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entrada>> it = entradas.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entrada> e = it.next();
+                for (String tipo : tipos) {
+                    if (e.getKey().startsWith(tipo + ":")) {
+                        bytesActuales -= e.getValue().getTamano();
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+        }
+        log.debug("Fragmentos invalidados: {}", String.join(", ", tipos));
+    }
+
+    private synchronized void guardar(String clave, Entrada entrada) {
+        if (entrada.getTamano() > maxBytes) {
+            return;
+        }
+        Entrada anterior = entradas.put(clave, entrada);
+        if (anterior != null) {
+            bytesActuales -= anterior.getTamano();
+        }
+        bytesActuales += entrada.getTamano();
+
+        // Expulsar las entradas menos usadas recientemente
+        Iterator<Map.Entry<String, Entrada>> it = entradas.entrySet().iterator();
+        while ((entradas.size() > maxEntradas || bytesActuales > maxBytes) && it.hasNext()) {
+            Map.Entry<String, Entrada> eldest = it.next();
+            if (eldest.getValue() == entrada) {
+                continue;
+            }
+            bytesActuales -= eldest.getValue().getTamano();
+            it.remove();
+        }
+    }
+
+    private AtomicLong version(String tipo) {
+        return versiones.computeIfAbsent(tipo, t -> new AtomicLong());
+    }
+
+    /**
+     * Fragmento renderizado junto con el total de filas que contiene
+     */
+    public static final class Entrada {
+
+        private final String html;
+        private final int tamano;
+        private final int total;
+
+        // Se decodifica una sola vez, al renderizar
+        public Entrada(byte[] html, int total) {
+            this.html = new String(html, StandardCharsets.UTF_8);
+            this.tamano = html.length;
+            this.total = total;
+        }
+
+        public String getHtml() { return html; }
+        public int getTotal() { return total; }
+        public int getTamano() { return tamano; }
+    }
+}
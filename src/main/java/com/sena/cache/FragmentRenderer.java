@@ -0,0 +1,39 @@
+package com.sena.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renderiza un fragmento de plantilla Thymeleaf a bytes UTF-8
+ */
+@Component
+public class FragmentRenderer {
+
+    private final SpringTemplateEngine templateEngine;
+
+    public FragmentRenderer(SpringTemplateEngine templateEngine) {
+        this.templateEngine = templateEngine;
+    }
+
+    /**
+     * Renderizar el fragmento indicado de una plantilla con las variables dadas
+     */
+    public byte[] render(String plantilla, String fragmento, Map<String, Object> variables,
+                         HttpServletRequest request, HttpServletResponse response) {
+        IWebExchange exchange = JakartaServletWebApplication
+                .buildApplication(request.getServletContext())
+                .buildExchange(request, response);
+        WebContext context = new WebContext(exchange, request.getLocale(), variables);
+        String html = templateEngine.process(plantilla, Set.of(fragmento), context);
+        return html.getBytes(StandardCharsets.UTF_8);
+    }
+}
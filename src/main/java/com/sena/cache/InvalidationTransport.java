@@ -0,0 +1,16 @@
+package com.sena.cache;
+
+import java.util.Collection;
+
+/**
+ * Transporte de invalidaciones hacia los demás nodos
+ * Se llama dentro de la transacción de escritura (si la hay): un transporte transaccional
+ * solo hace visible el evento si la escritura se confirma.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Publicar una invalidación; ids vacío significa todas las entidades del tipo
+     */
+    void publicar(TipoEntidad tipo, Collection<Long> ids);
+}
@@ -0,0 +1,19 @@
+package com.sena.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Transporte para un solo nodo: no hay a quién avisar
+ */
+@Component
+@ConditionalOnProperty(name = "sena.cache.invalidacion.transporte", havingValue = "local", matchIfMissing = true)
+public class LocalInvalidationTransport implements InvalidationTransport {
+
+    @Override
+    public void publicar(TipoEntidad tipo, Collection<Long> ids) {
+        // Sin otros nodos que invalidar
+    }
+}
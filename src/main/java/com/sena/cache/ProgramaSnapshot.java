@@ -0,0 +1,34 @@
+package com.sena.cache;
+
+import com.sena.model.Programa;
+
+import java.time.LocalDateTime;
+
+/**
+ * Instantánea inmutable de un programa para las cachés de entidades
+ */
+public record ProgramaSnapshot(Long id, String codigo, String nombre, String nivel, Integer duracion,
+                               String estado, Long version, LocalDateTime fechaCreacion) {
+
+    public static ProgramaSnapshot de(Programa programa) {
+        return new ProgramaSnapshot(programa.getId(), programa.getCodigo(), programa.getNombre(),
+                programa.getNivel(), programa.getDuracion(), programa.getEstado(), programa.getVersion(),
+                programa.getFechaCreacion());
+    }
+
+    /**
+     * Copia desacoplada como entidad (sin fichas cargadas)
+     */
+    public Programa toEntity() {
+        Programa programa = new Programa();
+        programa.setId(id);
+        programa.setCodigo(codigo);
+        programa.setNombre(nombre);
+        programa.setNivel(nivel);
+        programa.setDuracion(duracion);
+        programa.setEstado(estado);
+        programa.setVersion(version);
+        programa.setFechaCreacion(fechaCreacion);
+        return programa;
+    }
+}
@@ -0,0 +1,42 @@
+package com.sena.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registro de las capas de fusión de lecturas (SingleFlight) de los servicios
+ * Solo fusiona fuera de transacción: dentro de una, la lectura debe ver los cambios
+ * de esa misma transacción y se ejecuta directamente.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final Map<String, SingleFlight<Object, Object>> vuelos = new ConcurrentHashMap<>();
+
+    /**
+     * Ejecutar una lectura fusionándola con las idénticas en curso
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V fusionar(String nombre, Object clave, Supplier<V> carga) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return carga.get();
+        }
+        SingleFlight<Object, Object> vuelo = vuelos.computeIfAbsent(nombre, n -> new SingleFlight<>());
+        return (V) vuelo.ejecutar(clave, (Supplier<Object>) carga);
+    }
+
+    /**
+     * Llamadas y llamadas fusionadas por operación
+     */
+    public Map<String, Map<String, Long>> getMetricas() {
+        Map<String, Map<String, Long>> metricas = new LinkedHashMap<>();
+        vuelos.forEach((nombre, vuelo) -> metricas.put(nombre,
+                Map.of("llamadas", vuelo.getLlamadas(), "coalescidas", vuelo.getCoalescidas())));
+        return metricas;
+    }
+}
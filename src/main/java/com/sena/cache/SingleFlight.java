@@ -0,0 +1,67 @@
+package com.sena.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Fusiona lecturas idénticas concurrentes en una sola carga
+ * El primer hilo que pide una clave ejecuta la carga; los que llegan mientras tanto
+ * esperan y reciben el mismo resultado (o la misma excepción). No es una caché:
+ * en cuanto la carga termina, la siguiente petición vuelve a cargar.
+ * El resultado se comparte entre hilos, así que debe tratarse como de solo lectura.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> enVuelo = new ConcurrentHashMap<>();
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder coalescidas = new LongAdder();
+
+    /**
+     * Obtener el valor de la clave, uniéndose a una carga en curso si la hay
+     */
+    public V ejecutar(K clave, Supplier<V> carga) {
+        llamadas.increment();
+        CompletableFuture<V> propia = new CompletableFuture<>();
+        CompletableFuture<V> enCurso = enVuelo.putIfAbsent(clave, propia);
+        if (enCurso != null) {
+            coalescidas.increment();
+            return esperar(enCurso);
+        }
+
+        try {
+            V valor = carga.get();
+            propia.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVuelo.remove(clave, propia);
+        }
+    }
+
+    public long getLlamadas() {
+        return llamadas.sum();
+    }
+
+    public long getCoalescidas() {
+        return coalescidas.sum();
+    }
+
+    private static <V> V esperar(CompletableFuture<V> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
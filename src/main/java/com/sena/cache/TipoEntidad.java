@@ -0,0 +1,20 @@
+package com.sena.cache;
+
+/**
+ * Entidades cuyas escrituras invalidan cachés, con los fragmentos HTML que dependen de cada una
+ */
+public enum TipoEntidad {
+    APRENDIZ(FragmentCache.APRENDICES),
+    FICHA(FragmentCache.FICHAS, FragmentCache.APRENDICES),
+    PROGRAMA(FragmentCache.PROGRAMAS, FragmentCache.FICHAS, FragmentCache.APRENDICES);
+
+    private final String[] fragmentos;
+
+    TipoEntidad(String... fragmentos) {
+        this.fragmentos = fragmentos;
+    }
+
+    public String[] getFragmentos() {
+        return fragmentos.clone();
+    }
+}
@@ -0,0 +1,51 @@
+package com.sena.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Restringe las rutas /admin/** a quien presente el token de administración
+ * en la cabecera X-Admin-Token. Sin token configurado, las rutas quedan cerradas.
+ * WebConfig crea otras instancias con su propia cabecera y token para rutas de
+ * integración (p. ej. el flujo de cambios /api/cambios).
+ */
+@Component
+public class AdminAccessInterceptor implements HandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminAccessInterceptor.class);
+
+    private final String cabecera;
+    private final byte[] token;
+
+    @Autowired
+    public AdminAccessInterceptor(@Value("${sena.admin.token:}") String token) {
+        this("X-Admin-Token", token);
+    }
+
+    public AdminAccessInterceptor(String cabecera, String token) {
+        this.cabecera = cabecera;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        String recibido = request.getHeader(cabecera);
+        if (token.length > 0 && recibido != null &&
+            MessageDigest.isEqual(token, recibido.getBytes(StandardCharsets.UTF_8))) {
+            return true;
+        }
+        log.warn("Acceso denegado a {} desde {}", request.getRequestURI(), request.getRemoteAddr());
+        response.sendError(HttpServletResponse.SC_FORBIDDEN);
+        return false;
+    }
+}
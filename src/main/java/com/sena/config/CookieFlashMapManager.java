@@ -0,0 +1,208 @@
+package com.sena.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.FlashMap;
+import org.springframework.web.servlet.support.AbstractFlashMapManager;
+import org.springframework.web.util.WebUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Atributos flash (mensajeExito, error) en una cookie firmada en lugar de en la sesión HTTP
+ * Sustituye al SessionFlashMapManager de Spring para que ningún nodo necesite sesión ni
+ * afinidad en el balanceador: el mensaje viaja con el navegador hasta la petición que lo
+ * muestra, sea cual sea el nodo que la atienda.
+ *
+ * La cookie es base64url(JSON) + "." + base64url(HMAC-SHA256) con el secreto compartido
+ * por todos los nodos; una cookie alterada, caducada o ilegible se ignora. Si el contenido
+ * supera el tamaño máximo se recortan los textos largos y, si aún no cabe, se descartan
+ * los mensajes más antiguos.
+ */
+public class CookieFlashMapManager extends AbstractFlashMapManager {
+
+    private static final Logger log = LoggerFactory.getLogger(CookieFlashMapManager.class);
+
+    static final String COOKIE = "SENA_FLASH";
+
+    private static final String ATRIBUTO_ACTUAL = CookieFlashMapManager.class.getName() + ".ACTUAL";
+    private static final String HMAC = "HmacSHA256";
+    private static final int MAX_CARACTERES_RECORTADOS = 200;
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec clave;
+    private final int maxBytes;
+
+    public CookieFlashMapManager(ObjectMapper objectMapper, String secreto, int maxBytes) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+        byte[] bytesClave;
+        if (secreto == null || secreto.isBlank()) {
+            bytesClave = new byte[32];
+            new SecureRandom().nextBytes(bytesClave);
+            log.warn("sena.flash.secreto no está configurado: se usa una clave aleatoria de este nodo; " +
+                     "los mensajes flash creados en otro nodo se descartarán");
+        } else {
+            bytesClave = secreto.getBytes(StandardCharsets.UTF_8);
+        }
+        this.clave = new SecretKeySpec(bytesClave, HMAC);
+    }
+
+    @Override
+    protected List<FlashMap> retrieveFlashMaps(HttpServletRequest request) {
+        // En la misma petición manda lo ya escrito en la respuesta, no la cookie recibida
+        @SuppressWarnings("unchecked")
+        List<FlashMap> actuales = (List<FlashMap>) request.getAttribute(ATRIBUTO_ACTUAL);
+        if (actuales != null) {
+            return new ArrayList<>(actuales);
+        }
+        Cookie cookie = WebUtils.getCookie(request, COOKIE);
+        if (cookie == null || cookie.getValue().isEmpty()) {
+            return null;
+        }
+        try {
+            return leer(cookie.getValue());
+        } catch (Exception e) {
+            log.debug("Cookie de mensajes flash descartada: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    protected void updateFlashMaps(List<FlashMap> flashMaps, HttpServletRequest request,
+                                   HttpServletResponse response) {
+        List<FlashMap> conservados = new ArrayList<>(flashMaps);
+        String valor = conservados.isEmpty() ? "" : escribirAcotado(conservados);
+        request.setAttribute(ATRIBUTO_ACTUAL, conservados);
+
+        if (valor.isEmpty() && WebUtils.getCookie(request, COOKIE) == null) {
+            return;
+        }
+        if (response.isCommitted()) {
+            log.warn("No se pudo actualizar la cookie de mensajes flash en {}: respuesta ya enviada",
+                    request.getRequestURI());
+            return;
+        }
+        String ruta = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+        ResponseCookie cookie = ResponseCookie.from(COOKIE, valor)
+                .path(ruta)
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .maxAge(valor.isEmpty() ? 0 : getFlashMapTimeout())
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    /**
+     * Sin sesión no hay nada que sincronizar: cada petición trae su propia copia
+     */
+    @Override
+    protected Object getFlashMapsMutex(HttpServletRequest request) {
+        return null;
+    }
+
+    /**
+     * Serializar y firmar; recorta o descarta mensajes hasta que la cookie quepa en maxBytes
+     * (la lista queda con lo que realmente se envió)
+     */
+    private String escribirAcotado(List<FlashMap> flashMaps) {
+        String valor = escribir(flashMaps);
+        if (valor.length() <= maxBytes) {
+            return valor;
+        }
+        flashMaps.forEach(CookieFlashMapManager::recortar);
+        valor = escribir(flashMaps);
+        while (valor.length() > maxBytes && !flashMaps.isEmpty()) {
+            FlashMap descartado = flashMaps.remove(0);
+            log.warn("Mensaje flash descartado por superar {} bytes en cookie: {}", maxBytes, descartado.keySet());
+            valor = flashMaps.isEmpty() ? "" : escribir(flashMaps);
+        }
+        return valor;
+    }
+
+    private String escribir(List<FlashMap> flashMaps) {
+        List<Map<String, Object>> datos = new ArrayList<>(flashMaps.size());
+        for (FlashMap flashMap : flashMaps) {
+            Map<String, Object> dato = new LinkedHashMap<>();
+            dato.put("ruta", flashMap.getTargetRequestPath());
+            dato.put("parametros", flashMap.getTargetRequestParams());
+            dato.put("expira", flashMap.getExpirationTime());
+            dato.put("atributos", new LinkedHashMap<>(flashMap));
+            datos.add(dato);
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(datos);
+            Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+            return base64.encodeToString(json) + "." + base64.encodeToString(firmar(json));
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudieron serializar los mensajes flash", e);
+        }
+    }
+
+    private List<FlashMap> leer(String valor) throws Exception {
+        int punto = valor.indexOf('.');
+        if (punto < 0) {
+            throw new IllegalArgumentException("formato no válido");
+        }
+        Base64.Decoder base64 = Base64.getUrlDecoder();
+        byte[] json = base64.decode(valor.substring(0, punto));
+        byte[] firma = base64.decode(valor.substring(punto + 1));
+        if (!MessageDigest.isEqual(firma, firmar(json))) {
+            throw new IllegalArgumentException("firma no válida");
+        }
+
+        List<Map<String, Object>> datos = objectMapper.readValue(json, new TypeReference<>() { });
+        List<FlashMap> flashMaps = new ArrayList<>(datos.size());
+        for (Map<String, Object> dato : datos) {
+            FlashMap flashMap = new FlashMap();
+            flashMap.setTargetRequestPath((String) dato.get("ruta"));
+            @SuppressWarnings("unchecked")
+            Map<String, List<String>> parametros = (Map<String, List<String>>) dato.get("parametros");
+            if (parametros != null) {
+                MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+                parametros.forEach(params::addAll);
+                flashMap.addTargetRequestParams(params);
+            }
+            flashMap.setExpirationTime(((Number) dato.get("expira")).longValue());
+            @SuppressWarnings("unchecked")
+            Map<String, Object> atributos = (Map<String, Object>) dato.get("atributos");
+            if (atributos != null) {
+                flashMap.putAll(atributos);
+            }
+            flashMaps.add(flashMap);
+        }
+        return flashMaps;
+    }
+
+    private byte[] firmar(byte[] datos) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(HMAC);
+        mac.init(clave);
+        return mac.doFinal(datos);
+    }
+
+    private static void recortar(FlashMap flashMap) {
+        flashMap.replaceAll((nombre, valor) -> valor instanceof String texto && texto.length() > MAX_CARACTERES_RECORTADOS
+                ? texto.substring(0, MAX_CARACTERES_RECORTADOS) + "…"
+                : valor);
+    }
+}
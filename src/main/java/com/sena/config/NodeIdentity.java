@@ -0,0 +1,36 @@
+package com.sena.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * Identificador de esta instancia entre los nodos del despliegue
+ * Por defecto, nombre del equipo más un sufijo aleatorio (distinto en cada arranque)
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${sena.nodo.id:}") String id) {
+        this.id = id.isBlank() ? generar() : id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String generar() {
+        String equipo;
+        try {
+            equipo = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            equipo = "nodo";
+        }
+        String nombre = equipo + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return nombre.length() > 64 ? nombre.substring(nombre.length() - 64) : nombre;
+    }
+}
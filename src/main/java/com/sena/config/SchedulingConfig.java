@@ -0,0 +1,18 @@
+package com.sena.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas programadas en segundo plano
+ * (sena.tareas-programadas.habilitadas=false las desactiva, por ejemplo en las pruebas).
+ * Con el perfil "seed" tampoco se habilitan: sus hilos impedirían que el proceso termine.
+ */
+@Configuration
+@EnableScheduling
+@Profile("!seed")
+@ConditionalOnProperty(name = "sena.tareas-programadas.habilitadas", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
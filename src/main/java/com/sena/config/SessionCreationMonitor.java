@@ -0,0 +1,52 @@
+package com.sena.config;
+
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aviso de sesiones HTTP creadas
+ * La aplicación no usa sesión (los mensajes flash van en cookie, ver CookieFlashMapManager),
+ * así que cualquier nodo puede atender cualquier petición sin afinidad. Si algún código vuelve
+ * a crear una sesión se registra un aviso con la ruta; con DEBUG, también la pila de llamadas.
+ */
+@Component
+public class SessionCreationMonitor implements HttpSessionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionCreationMonitor.class);
+
+    private final AtomicLong creadas = new AtomicLong();
+    private final AtomicLong activas = new AtomicLong();
+
+    @Override
+    public void sessionCreated(HttpSessionEvent event) {
+        creadas.incrementAndGet();
+        activas.incrementAndGet();
+        String ruta = RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos
+                ? atributos.getRequest().getMethod() + " " + atributos.getRequest().getRequestURI()
+                : "(fuera de una petición)";
+        log.warn("Sesión HTTP creada en {}: los nodos deben atender sin estado", ruta);
+        if (log.isDebugEnabled()) {
+            log.debug("Origen de la sesión creada en {}", ruta, new IllegalStateException("Sesión HTTP creada"));
+        }
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        activas.decrementAndGet();
+    }
+
+    public long getCreadas() {
+        return creadas.get();
+    }
+
+    public long getActivas() {
+        return activas.get();
+    }
+}
@@ -0,0 +1,143 @@
+package com.sena.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Prepara los recursos estáticos (CSS y JS) al arrancar la aplicación:
+ * los minifica, los escribe en un directorio de trabajo y genera la variante .gz
+ * junto a cada uno. Solo se pre-comprime con gzip: la JDK no trae compresor brotli
+ * y no se añade una dependencia nativa para ello.
+ *
+ * Sin directorio configurado, cada instancia crea el suyo en el directorio temporal y lo
+ * borra al cerrarse, para que dos instancias en la misma máquina no se pisen los ficheros.
+ */
+@Component
+public class StaticAssetPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(StaticAssetPipeline.class);
+
+    private static final String[] PATRONES = {"classpath:/static/**/*.css", "classpath:/static/**/*.js"};
+
+    private final Path directorio;
+    private final boolean temporal;
+
+    public StaticAssetPipeline(@Value("${sena.assets.directorio:}") String directorio) {
+        this.temporal = directorio.isBlank();
+        try {
+            this.directorio = temporal
+                    ? Files.createTempDirectory("sena-assets-").toAbsolutePath()
+                    : Paths.get(directorio).toAbsolutePath();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio de recursos estáticos", e);
+        }
+    }
+
+    @PostConstruct
+    public void procesar() throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        long originales = 0;
+        long minificados = 0;
+
+        for (String patron : PATRONES) {
+            for (Resource recurso : resolver.getResources(patron)) {
+                String ruta = rutaRelativa(recurso);
+                if (ruta == null) {
+                    continue;
+                }
+                String contenido = new String(recurso.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                byte[] minificado = minificar(contenido).getBytes(StandardCharsets.UTF_8);
+
+                Path destino = directorio.resolve(ruta);
+                Files.createDirectories(destino.getParent());
+                Files.write(destino, minificado);
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(Paths.get(destino + ".gz")))) {
+                    out.write(minificado);
+                }
+
+                originales += contenido.length();
+                minificados += minificado.length;
+            }
+        }
+        log.info("Recursos estáticos preparados en {} ({} -> {} bytes)", directorio, originales, minificados);
+    }
+
+    /**
+     * Borrar el directorio temporal de esta instancia (uno configurado se conserva)
+     */
+    @PreDestroy
+    public void limpiar() {
+        if (!temporal) {
+            return;
+        }
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            rutas.sorted(Comparator.reverseOrder()).forEach(ruta -> ruta.toFile().delete());
+        } catch (IOException e) {
+            log.warn("No se pudo borrar {}: {}", directorio, e.getMessage());
+        }
+    }
+
+    /**
+     * Ubicación del directorio de trabajo, para registrarlo delante de classpath:/static/
+     */
+    public String getUbicacion() {
+        return directorio.toUri().toString();
+    }
+
+    private String rutaRelativa(Resource recurso) throws IOException {
+        String url = recurso.getURL().toString();
+        int indice = url.lastIndexOf("/static/");
+        return indice < 0 ? null : url.substring(indice + "/static/".length());
+    }
+
+    /**
+     * Minificación conservadora: elimina comentarios de bloque y de línea que ocupan
+     * líneas completas, la indentación y las líneas vacías. Se conservan los saltos
+     * de línea para no alterar la inserción automática de punto y coma en JavaScript.
+     */
+    static String minificar(String contenido) {
+        StringBuilder sb = new StringBuilder(contenido.length());
+        boolean enComentario = false;
+        for (String linea : contenido.split("\r?\n")) {
+            String recortada = linea.strip();
+            if (enComentario) {
+                int fin = recortada.indexOf("*/");
+                if (fin < 0) {
+                    continue;
+                }
+                enComentario = false;
+                recortada = recortada.substring(fin + 2).strip();
+            }
+            if (recortada.startsWith("/*")) {
+                int fin = recortada.indexOf("*/", 2);
+                if (fin < 0) {
+                    enComentario = true;
+                    continue;
+                }
+                recortada = recortada.substring(fin + 2).strip();
+            }
+            if (recortada.isEmpty() || recortada.startsWith("//")) {
+                continue;
+            }
+            sb.append(recortada).append('\n');
+        }
+        return sb.toString();
+    }
+}
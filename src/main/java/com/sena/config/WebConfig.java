@@ -0,0 +1,85 @@
+package com.sena.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sena.monitoring.RequestProfiler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.FlashMapManager;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+
+/**
+ * Configuración web de la aplicación
+ * Sirve CSS y JS con huella de contenido en la URL, caché inmutable de larga
+ * duración y variantes pre-comprimidas con gzip
+ * Registra los interceptores de administración, del flujo de cambios y de perfilado de peticiones
+ * Los mensajes flash viajan en una cookie firmada: ningún nodo necesita sesión HTTP
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final StaticAssetPipeline staticAssetPipeline;
+    private final AdminAccessInterceptor adminAccessInterceptor;
+    private final RequestProfiler requestProfiler;
+    private final String[] patronesPerfilados;
+    private final String tokenCambios;
+
+    public WebConfig(StaticAssetPipeline staticAssetPipeline,
+                     AdminAccessInterceptor adminAccessInterceptor,
+                     RequestProfiler requestProfiler,
+                     @Value("${sena.profiling.patrones:}") String[] patronesPerfilados,
+                     @Value("${sena.cambios.token:}") String tokenCambios) {
+        this.staticAssetPipeline = staticAssetPipeline;
+        this.adminAccessInterceptor = adminAccessInterceptor;
+        this.requestProfiler = requestProfiler;
+        this.patronesPerfilados = patronesPerfilados;
+        this.tokenCambios = tokenCambios;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(adminAccessInterceptor).addPathPatterns("/admin/**");
+        registry.addInterceptor(new AdminAccessInterceptor("X-Cambios-Token", tokenCambios))
+                .addPathPatterns("/api/cambios/**");
+        if (patronesPerfilados.length > 0) {
+            registry.addInterceptor(requestProfiler).addPathPatterns(patronesPerfilados);
+        }
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/css/**", "/js/**")
+                .addResourceLocations(staticAssetPipeline.getUbicacion(), "classpath:/static/")
+                .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    /**
+     * Reescribe las URLs @{/css/...} y @{/js/...} de las plantillas con la huella de contenido
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
+    /**
+     * Mensajes flash en cookie firmada en lugar de en la sesión (nombre fijo que busca DispatcherServlet)
+     */
+    @Bean(name = DispatcherServlet.FLASH_MAP_MANAGER_BEAN_NAME)
+    public FlashMapManager flashMapManager(ObjectMapper objectMapper,
+                                           @Value("${sena.flash.secreto:}") String secreto,
+                                           @Value("${sena.flash.max-bytes:3072}") int maxBytes) {
+        return new CookieFlashMapManager(objectMapper, secreto, maxBytes);
+    }
+}
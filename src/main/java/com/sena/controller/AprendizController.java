@@ -1,20 +1,44 @@
 package com.sena.controller;
 
+import com.sena.cache.FragmentCache;
+import com.sena.cache.FragmentRenderer;
+import com.sena.exception.CapacityExceededException;
 import com.sena.exception.DuplicateResourceException;
+import com.sena.exception.ResourceConflictException;
 import com.sena.exception.ResourceNotFoundException;
+import com.sena.facet.FacetIndex;
+import com.sena.facet.Faceta;
 import com.sena.model.Aprendiz;
+import com.sena.model.EstadoAprendiz;
 import com.sena.service.AprendizService;
 import com.sena.service.FichaService;
+import com.sena.service.TransicionEstadoService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.MultiValueMap;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Controlador web para gestión de Aprendices
@@ -26,23 +50,34 @@ public class AprendizController {
 
     private static final Logger log = LoggerFactory.getLogger(AprendizController.class);
 
+    private static final int TAMANO_PAGINA_FACETAS = 50;
+
     private final AprendizService aprendizService;
     private final FichaService fichaService;
+    private final TransicionEstadoService transicionEstadoService;
+    private final FragmentCache fragmentCache;
+    private final FragmentRenderer fragmentRenderer;
+    private final FacetIndex facetIndex;
 
-    public AprendizController(AprendizService aprendizService, FichaService fichaService) {
+    public AprendizController(AprendizService aprendizService, FichaService fichaService,
+                              TransicionEstadoService transicionEstadoService,
+                              FragmentCache fragmentCache, FragmentRenderer fragmentRenderer,
+                              FacetIndex facetIndex) {
         this.aprendizService = aprendizService;
         this.fichaService = fichaService;
+        this.transicionEstadoService = transicionEstadoService;
+        this.fragmentCache = fragmentCache;
+        this.fragmentRenderer = fragmentRenderer;
+        this.facetIndex = facetIndex;
     }
 
     /**
      * Página principal - Lista de aprendices
      */
     @GetMapping({"", "/", "/lista"})
-    public String listarAprendices(Model model) {
+    public String listarAprendices(Model model, HttpServletRequest request, HttpServletResponse response) {
         log.info("Mostrando lista de aprendices");
-        List<Aprendiz> aprendices = aprendizService.getAllAprendices();
-        model.addAttribute("aprendices", aprendices);
-        model.addAttribute("totalAprendices", aprendices.size());
+        agregarFilas(model, "todos", aprendizService::getAllAprendices, request, response);
         return "aprendices/lista";
     }
 
@@ -81,9 +116,11 @@ public class AprendizController {
             aprendiz.setFicha(fichaService.getFichaById(fichaId));
             
             if (aprendiz.getId() == null) {
-                aprendizService.createAprendiz(aprendiz);
+                Aprendiz creado = aprendizService.createAprendiz(aprendiz);
                 redirectAttributes.addFlashAttribute("mensajeExito", 
-                    "Aprendiz creado exitosamente");
+                    EstadoAprendiz.EN_ESPERA.name().equals(creado.getEstado())
+                        ? "Ficha sin cupos: aprendiz inscrito en la lista de espera"
+                        : "Aprendiz creado exitosamente");
             } else {
                 aprendizService.updateAprendiz(aprendiz.getId(), aprendiz);
                 redirectAttributes.addFlashAttribute("mensajeExito", 
@@ -96,6 +133,18 @@ public class AprendizController {
             model.addAttribute("fichas", fichaService.getAllFichas());
             model.addAttribute("accion", aprendiz.getId() == null ? "Crear" : "Editar");
             return "aprendices/formulario";
+        } catch (CapacityExceededException e) {
+            log.warn("Ficha sin cupos al guardar aprendiz: {}", e.getMessage());
+            model.addAttribute("error", e.getMessage());
+            model.addAttribute("fichas", fichaService.getAllFichas());
+            model.addAttribute("accion", aprendiz.getId() == null ? "Crear" : "Editar");
+            return "aprendices/formulario";
+        } catch (ResourceConflictException | OptimisticLockingFailureException e) {
+            log.warn("Conflicto de concurrencia al guardar aprendiz: {}", e.getMessage());
+            model.addAttribute("error", "El aprendiz fue modificado por otro usuario. Recargue la página e intente de nuevo.");
+            model.addAttribute("fichas", fichaService.getAllFichas());
+            model.addAttribute("accion", aprendiz.getId() == null ? "Crear" : "Editar");
+            return "aprendices/formulario";
         } catch (Exception e) {
             log.error("Error al guardar aprendiz", e);
             model.addAttribute("error", "Error al guardar el aprendiz: " + e.getMessage());
@@ -127,7 +176,7 @@ public class AprendizController {
     }
 
     /**
-     * Ver detalles de un aprendiz
+     * Ver detalles de un aprendiz (también archivado, en modo de solo lectura)
      */
     @GetMapping("/ver/{id}")
     public String verAprendiz(@PathVariable Long id, Model model, 
@@ -135,7 +184,7 @@ public class AprendizController {
         log.info("Mostrando detalles del aprendiz ID: {}", id);
         
         try {
-            Aprendiz aprendiz = aprendizService.getAprendizById(id);
+            Aprendiz aprendiz = aprendizService.getAprendizOArchivado(id);
             model.addAttribute("aprendiz", aprendiz);
             return "aprendices/detalle";
         } catch (ResourceNotFoundException e) {
@@ -168,23 +217,66 @@ public class AprendizController {
         return "redirect:/aprendices";
     }
 
+    /**
+     * Cambiar el estado de los aprendices de una ficha
+     */
+    @PostMapping("/ficha/{fichaId}/estado")
+    public String cambiarEstadoPorFicha(@PathVariable Long fichaId,
+                                        @RequestParam("estado") EstadoAprendiz estado,
+                                        RedirectAttributes redirectAttributes) {
+        log.info("Cambiando estado de aprendices de la ficha ID: {} a {}", fichaId, estado);
+        
+        try {
+            int actualizados = transicionEstadoService.transicionarAprendicesDeFicha(fichaId, estado);
+            redirectAttributes.addFlashAttribute("mensajeExito", 
+                actualizados + " aprendiz(es) actualizados a " + estado);
+        } catch (Exception e) {
+            log.error("Error al cambiar estado de aprendices", e);
+            redirectAttributes.addFlashAttribute("error", 
+                "Error al cambiar el estado de los aprendices: " + e.getMessage());
+        }
+        
+        return "redirect:/aprendices/ficha/" + fichaId;
+    }
+
+    /**
+     * Cambiar el estado de los aprendices de un programa
+     */
+    @PostMapping("/programa/{programaId}/estado")
+    public String cambiarEstadoPorPrograma(@PathVariable Long programaId,
+                                           @RequestParam("estado") EstadoAprendiz estado,
+                                           RedirectAttributes redirectAttributes) {
+        log.info("Cambiando estado de aprendices del programa ID: {} a {}", programaId, estado);
+        
+        try {
+            int actualizados = transicionEstadoService.transicionarAprendicesDePrograma(programaId, estado);
+            redirectAttributes.addFlashAttribute("mensajeExito", 
+                actualizados + " aprendiz(es) actualizados a " + estado);
+        } catch (Exception e) {
+            log.error("Error al cambiar estado de aprendices", e);
+            redirectAttributes.addFlashAttribute("error", 
+                "Error al cambiar el estado de los aprendices: " + e.getMessage());
+        }
+        
+        return "redirect:/aprendices/programa/" + programaId;
+    }
+
     /**
      * Buscar aprendices
      */
     @GetMapping("/buscar")
-    public String buscarAprendices(@RequestParam(required = false) String searchTerm, Model model) {
+    public String buscarAprendices(@RequestParam(required = false) String searchTerm, Model model,
+                                   HttpServletRequest request, HttpServletResponse response) {
         log.info("Buscando aprendices con término: {}", searchTerm);
         
-        List<Aprendiz> aprendices;
         if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-            aprendices = aprendizService.searchAprendices(searchTerm);
+            agregarFilas(model, "buscar=" + searchTerm,
+                    () -> aprendizService.searchAprendices(searchTerm), request, response);
             model.addAttribute("searchTerm", searchTerm);
         } else {
-            aprendices = aprendizService.getAllAprendices();
+            agregarFilas(model, "todos", aprendizService::getAllAprendices, request, response);
         }
         
-        model.addAttribute("aprendices", aprendices);
-        model.addAttribute("totalAprendices", aprendices.size());
         return "aprendices/lista";
     }
 
@@ -193,14 +285,14 @@ public class AprendizController {
      */
     @GetMapping("/ficha/{fichaId}")
     public String filtrarPorFicha(@PathVariable Long fichaId, Model model, 
-                                   RedirectAttributes redirectAttributes) {
+                                   RedirectAttributes redirectAttributes,
+                                   HttpServletRequest request, HttpServletResponse response) {
         log.info("Filtrando aprendices por ficha ID: {}", fichaId);
         
         try {
-            List<Aprendiz> aprendices = aprendizService.getAprendicesByFichaId(fichaId);
-            model.addAttribute("aprendices", aprendices);
-            model.addAttribute("totalAprendices", aprendices.size());
             model.addAttribute("fichaFiltro", fichaService.getFichaById(fichaId).getCodigo());
+            agregarFilas(model, "ficha=" + fichaId,
+                    () -> aprendizService.getAprendicesByFichaId(fichaId), request, response);
             return "aprendices/lista";
         } catch (ResourceNotFoundException e) {
             log.error("Ficha no encontrada", e);
@@ -213,13 +305,180 @@ public class AprendizController {
      * Filtrar aprendices por programa
      */
     @GetMapping("/programa/{programaId}")
-    public String filtrarPorPrograma(@PathVariable Long programaId, Model model) {
+    public String filtrarPorPrograma(@PathVariable Long programaId, Model model,
+                                     HttpServletRequest request, HttpServletResponse response) {
         log.info("Filtrando aprendices por programa ID: {}", programaId);
         
-        List<Aprendiz> aprendices = aprendizService.getAprendicesByProgramaId(programaId);
-        model.addAttribute("aprendices", aprendices);
-        model.addAttribute("totalAprendices", aprendices.size());
+        agregarFilas(model, "programa=" + programaId,
+                () -> aprendizService.getAprendicesByProgramaId(programaId), request, response);
         model.addAttribute("programaFiltro", programaId);
         return "aprendices/lista";
     }
+
+    /**
+     * Filtrar aprendices por facetas combinadas, con el conteo de cada valor
+     * Los filtros y conteos se resuelven en el índice en memoria; solo la página
+     * mostrada se consulta en la base de datos
+     */
+    @GetMapping("/facetas")
+    public String filtrarPorFacetas(@RequestParam MultiValueMap<String, String> parametros,
+                                    @RequestParam(defaultValue = "0") int pagina,
+                                    Model model, RedirectAttributes redirectAttributes) {
+        if (!facetIndex.isListo()) {
+            redirectAttributes.addFlashAttribute("error",
+                "Los filtros se están preparando. Intente de nuevo en unos segundos.");
+            return "redirect:/aprendices";
+        }
+
+        Map<Faceta, Set<String>> seleccion = new EnumMap<>(Faceta.class);
+        parametros.forEach((nombre, valores) -> {
+            Faceta faceta = Faceta.deParametro(nombre);
+            if (faceta != null) {
+                seleccion.put(faceta, new LinkedHashSet<>(valores));
+            }
+        });
+        int paginaActual = Math.max(0, pagina);
+
+        FacetIndex.Resultado resultado = facetIndex.consultar(seleccion, paginaActual, TAMANO_PAGINA_FACETAS);
+        log.info("Facetas {} -> {} aprendices en {} µs", seleccion, resultado.total(), resultado.microsegundos());
+
+        Map<Faceta, List<OpcionFaceta>> facetas = new LinkedHashMap<>();
+        resultado.conteos().forEach((faceta, conteos) -> facetas.put(faceta, conteos.stream()
+                .map(c -> new OpcionFaceta(c.etiqueta(), c.cantidad(), c.seleccionado(),
+                        enlaceFacetas(alternar(seleccion, faceta, c.valor()), 0)))
+                .toList()));
+        int paginas = (resultado.total() + TAMANO_PAGINA_FACETAS - 1) / TAMANO_PAGINA_FACETAS;
+
+        model.addAttribute("aprendices", aprendizService.getAprendicesByIds(
+                Arrays.stream(resultado.ids()).mapToObj(Long::valueOf).toList()));
+        model.addAttribute("facetas", facetas);
+        model.addAttribute("totalAprendices", resultado.total());
+        model.addAttribute("microsegundos", resultado.microsegundos());
+        model.addAttribute("pagina", paginaActual);
+        model.addAttribute("paginas", paginas);
+        model.addAttribute("inicio", paginaActual * TAMANO_PAGINA_FACETAS);
+        model.addAttribute("hayFiltros", !seleccion.isEmpty());
+        model.addAttribute("enlaceAnterior", paginaActual > 0 ? enlaceFacetas(seleccion, paginaActual - 1) : null);
+        model.addAttribute("enlaceSiguiente", paginaActual + 1 < paginas ? enlaceFacetas(seleccion, paginaActual + 1) : null);
+        return "aprendices/facetas";
+    }
+
+    // ==================== Fragmentos para actualizaciones parciales (main.js) ====================
+    // Con la cabecera X-Fragmento se responde solo con la fila o la sección del formulario
+    // afectada, en lugar de redirigir al listado completo
+
+    /**
+     * Sección del formulario de edición, para editar una fila en línea
+     */
+    @GetMapping(value = "/editar/{id}", headers = "X-Fragmento")
+    public String formularioEnLinea(@PathVariable Long id, Model model) {
+        try {
+            model.addAttribute("aprendiz", aprendizService.getAprendizById(id));
+        } catch (ResourceNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        model.addAttribute("fichas", fichaService.getAllFichas());
+        model.addAttribute("accion", "Editar");
+        model.addAttribute("enLinea", true);
+        return "aprendices/formulario :: formulario";
+    }
+
+    /**
+     * Guardar desde la edición en línea: devuelve solo la fila guardada,
+     * o la sección del formulario con los errores (422)
+     */
+    @PostMapping(value = "/guardar", headers = "X-Fragmento")
+    public String guardarEnLinea(@Valid @ModelAttribute("aprendiz") Aprendiz aprendiz,
+                                 BindingResult result,
+                                 @RequestParam("fichaId") Long fichaId,
+                                 Model model,
+                                 HttpServletResponse response) {
+        log.info("Guardando aprendiz en línea: {}", aprendiz.getId());
+        model.addAttribute("enLinea", true);
+
+        if (!result.hasErrors()) {
+            try {
+                aprendiz.setFicha(fichaService.getFichaById(fichaId));
+                Aprendiz guardado = aprendiz.getId() == null
+                        ? aprendizService.createAprendiz(aprendiz)
+                        : aprendizService.updateAprendiz(aprendiz.getId(), aprendiz);
+                model.addAttribute("aprendices", List.of(guardado));
+                return "aprendices/lista :: filas";
+            } catch (DuplicateResourceException | CapacityExceededException e) {
+                model.addAttribute("error", e.getMessage());
+            } catch (ResourceConflictException | OptimisticLockingFailureException e) {
+                log.warn("Conflicto de concurrencia al guardar aprendiz: {}", e.getMessage());
+                model.addAttribute("error", "El aprendiz fue modificado por otro usuario. Recargue la página e intente de nuevo.");
+            } catch (ResourceNotFoundException e) {
+                model.addAttribute("error", e.getMessage());
+            }
+        }
+
+        response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+        model.addAttribute("fichas", fichaService.getAllFichas());
+        model.addAttribute("accion", aprendiz.getId() == null ? "Crear" : "Editar");
+        return "aprendices/formulario :: formulario";
+    }
+
+    /**
+     * Eliminar desde el listado: 204 y el navegador quita solo la fila
+     */
+    @PostMapping(value = "/eliminar/{id}", headers = "X-Fragmento")
+    public ResponseEntity<String> eliminarEnLinea(@PathVariable Long id) {
+        log.info("Eliminando aprendiz ID: {} en línea", id);
+        try {
+            aprendizService.deleteAprendiz(id);
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error al eliminar aprendiz", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.TEXT_PLAIN)
+                    .body("Error al eliminar el aprendiz: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Valor de una faceta tal como se muestra: etiqueta, conteo y enlace que lo activa o desactiva
+     */
+    public record OpcionFaceta(String etiqueta, int cantidad, boolean seleccionado, String enlace) {
+    }
+
+    private static Map<Faceta, Set<String>> alternar(Map<Faceta, Set<String>> seleccion, Faceta faceta, String valor) {
+        Map<Faceta, Set<String>> nueva = new EnumMap<>(Faceta.class);
+        seleccion.forEach((f, valores) -> nueva.put(f, new LinkedHashSet<>(valores)));
+        Set<String> valores = nueva.computeIfAbsent(faceta, f -> new LinkedHashSet<>());
+        if (!valores.remove(valor)) {
+            valores.add(valor);
+        }
+        if (valores.isEmpty()) {
+            nueva.remove(faceta);
+        }
+        return nueva;
+    }
+
+    private static String enlaceFacetas(Map<Faceta, Set<String>> seleccion, int pagina) {
+        UriComponentsBuilder enlace = UriComponentsBuilder.fromPath("/aprendices/facetas");
+        seleccion.forEach((faceta, valores) -> enlace.queryParam(faceta.getParametro(), valores.toArray()));
+        if (pagina > 0) {
+            enlace.queryParam("pagina", pagina);
+        }
+        return enlace.encode().toUriString();
+    }
+
+    /**
+     * Agregar al modelo las filas de la tabla, tomándolas de la caché de fragmentos
+     * o consultando y renderizando si no están
+     */
+    private void agregarFilas(Model model, String parametros, Supplier<List<Aprendiz>> consulta,
+                              HttpServletRequest request, HttpServletResponse response) {
+        FragmentCache.Entrada filas = fragmentCache.obtener(FragmentCache.APRENDICES, parametros, () -> {
+            List<Aprendiz> aprendices = consulta.get();
+            byte[] html = fragmentRenderer.render("aprendices/lista", "filas",
+                    Map.of("aprendices", aprendices), request, response);
+            return new FragmentCache.Entrada(html, aprendices.size());
+        });
+        model.addAttribute("filasHtml", filas.getHtml());
+        model.addAttribute("totalAprendices", filas.getTotal());
+    }
 }
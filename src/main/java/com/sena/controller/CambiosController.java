@@ -0,0 +1,69 @@
+package com.sena.controller;
+
+import com.sena.cache.TipoEntidad;
+import com.sena.outbox.OutboxRelay;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flujo de cambios para sistemas externos (token en la cabecera X-Cambios-Token)
+ * El consumidor pide los eventos posteriores a la última secuencia que procesó y guarda
+ * "siguiente" para la próxima llamada. Si su posición ya fue purgada responde 410 y el
+ * consumidor debe resincronizarse desde cero.
+ */
+@RestController
+@RequestMapping("/api/cambios")
+public class CambiosController {
+
+    private final OutboxRelay outboxRelay;
+    private final int limiteMaximo;
+
+    public CambiosController(OutboxRelay outboxRelay,
+                             @Value("${sena.cambios.limite-maximo:1000}") int limiteMaximo) {
+        this.outboxRelay = outboxRelay;
+        this.limiteMaximo = limiteMaximo;
+    }
+
+    /**
+     * Eventos con secuencia mayor que "desde", en orden
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> leer(@RequestParam(defaultValue = "0") long desde,
+                                                    @RequestParam(defaultValue = "100") int limite,
+                                                    @RequestParam(required = false) TipoEntidad tipo) {
+        if (desde < 0 || limite < 1) {
+            throw new IllegalArgumentException("Parámetros inválidos: desde >= 0 y limite >= 1");
+        }
+        long minima = outboxRelay.getSecuenciaMinima();
+        if (desde > 0 && minima > desde + 1) {
+            return ResponseEntity.status(HttpStatus.GONE).body(Map.of(
+                    "error", "La posición " + desde + " ya no está disponible; resincronizar",
+                    "secuenciaMinima", minima));
+        }
+
+        int efectivo = Math.min(limite, limiteMaximo);
+        // Se pide uno de más para saber si quedan eventos sin consultar otra vez
+        List<OutboxRelay.Evento> eventos = outboxRelay.leer(desde, efectivo + 1, tipo != null ? tipo.name() : null);
+        boolean hayMas = eventos.size() > efectivo;
+        if (hayMas) {
+            eventos = eventos.subList(0, efectivo);
+        }
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("eventos", eventos);
+        respuesta.put("siguiente", eventos.isEmpty() ? desde : eventos.get(eventos.size() - 1).secuencia());
+        respuesta.put("hayMas", hayMas);
+        return ResponseEntity.ok(respuesta);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> manejarError(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
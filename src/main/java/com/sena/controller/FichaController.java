@@ -1,20 +1,46 @@
 package com.sena.controller;
 
+import com.sena.cache.FragmentCache;
+import com.sena.cache.FragmentRenderer;
 import com.sena.exception.DuplicateResourceException;
+import com.sena.exception.InvalidStateTransitionException;
+import com.sena.exception.ResourceConflictException;
 import com.sena.exception.ResourceNotFoundException;
+import com.sena.interval.FichaIntervalIndex;
+import com.sena.model.Aprendiz;
+import com.sena.model.EstadoFicha;
 import com.sena.model.Ficha;
+import com.sena.service.AprendizService;
 import com.sena.service.FichaService;
 import com.sena.service.ProgramaService;
+import com.sena.service.TransicionEstadoService;
+import com.sena.view.RowSource;
+import com.sena.view.StreamingViews;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 
 /**
  * Controlador web para gestión de Fichas
@@ -25,26 +51,95 @@ public class FichaController {
 
     private static final Logger log = LoggerFactory.getLogger(FichaController.class);
 
+    private static final int MAX_SEMANAS_CALENDARIO = 104;
+
     private final FichaService fichaService;
     private final ProgramaService programaService;
+    private final AprendizService aprendizService;
+    private final TransicionEstadoService transicionEstadoService;
+    private final FragmentCache fragmentCache;
+    private final FragmentRenderer fragmentRenderer;
+    private final FichaIntervalIndex fichaIntervalIndex;
+    private final StreamingViews streamingViews;
+    private final long umbralStreaming;
 
-    public FichaController(FichaService fichaService, ProgramaService programaService) {
+    public FichaController(FichaService fichaService, ProgramaService programaService,
+                           AprendizService aprendizService,
+                           TransicionEstadoService transicionEstadoService,
+                           FragmentCache fragmentCache, FragmentRenderer fragmentRenderer,
+                           FichaIntervalIndex fichaIntervalIndex, StreamingViews streamingViews,
+                           @Value("${sena.vistas.streaming.umbral-filas:500}") long umbralStreaming) {
         this.fichaService = fichaService;
         this.programaService = programaService;
+        this.aprendizService = aprendizService;
+        this.transicionEstadoService = transicionEstadoService;
+        this.fragmentCache = fragmentCache;
+        this.fragmentRenderer = fragmentRenderer;
+        this.fichaIntervalIndex = fichaIntervalIndex;
+        this.streamingViews = streamingViews;
+        this.umbralStreaming = umbralStreaming;
     }
 
     /**
      * Lista de fichas
+     * Con "desde"/"hasta" muestra solo las fichas en curso en ese rango (y de la jornada indicada)
      */
     @GetMapping({"", "/", "/lista"})
-    public String listarFichas(Model model) {
+    public String listarFichas(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                               @RequestParam(required = false) String jornada,
+                               Model model, HttpServletRequest request, HttpServletResponse response) {
+        if ((desde != null || hasta != null) && fichaIntervalIndex.isListo()) {
+            return listarFichasEnCurso(desde, hasta, jornada, model, request, response);
+        }
         log.info("Mostrando lista de fichas");
-        List<Ficha> fichas = fichaService.getAllFichas();
-        model.addAttribute("fichas", fichas);
-        model.addAttribute("totalFichas", fichas.size());
+        FragmentCache.Entrada filas = fragmentCache.obtener(FragmentCache.FICHAS, "todas", () -> {
+            List<Ficha> fichas = fichaService.getAllFichas();
+            byte[] html = fragmentRenderer.render("fichas/lista", "filas",
+                    Map.of("fichas", fichas), request, response);
+            return new FragmentCache.Entrada(html, fichas.size());
+        });
+        model.addAttribute("filasHtml", filas.getHtml());
+        model.addAttribute("totalFichas", filas.getTotal());
         return "fichas/lista";
     }
 
+    /**
+     * Calendario de ocupación: fichas en curso por semana y jornada, y el listado del rango
+     */
+    @GetMapping("/calendario")
+    public String calendario(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                             @RequestParam(required = false) String jornada,
+                             Model model, RedirectAttributes redirectAttributes) {
+        if (!fichaIntervalIndex.isListo()) {
+            redirectAttributes.addFlashAttribute("error", "El calendario se está construyendo. Intente de nuevo en unos segundos.");
+            return "redirect:/fichas";
+        }
+        LocalDate inicio = desde != null ? desde : LocalDate.now();
+        LocalDate fin = hasta != null ? hasta : inicio.plusWeeks(12);
+        log.info("Mostrando calendario de fichas del {} al {}", inicio, fin);
+
+        if (fin.isBefore(inicio) || ChronoUnit.WEEKS.between(inicio, fin) > MAX_SEMANAS_CALENDARIO) {
+            redirectAttributes.addFlashAttribute("error",
+                "Rango de fechas inválido (máximo " + MAX_SEMANAS_CALENDARIO + " semanas)");
+            return "redirect:/fichas/calendario";
+        }
+
+        String filtroJornada = jornada == null || jornada.isBlank() ? null : jornada;
+        Map<LocalDate, Map<String, Integer>> ocupacion = fichaIntervalIndex.ocupacionSemanal(inicio, fin);
+        TreeSet<String> jornadas = new TreeSet<>();
+        ocupacion.values().forEach(porJornada -> jornadas.addAll(porJornada.keySet()));
+
+        model.addAttribute("desde", inicio);
+        model.addAttribute("hasta", fin);
+        model.addAttribute("jornada", filtroJornada);
+        model.addAttribute("ocupacion", ocupacion);
+        model.addAttribute("jornadas", jornadas);
+        model.addAttribute("periodos", fichaIntervalIndex.enCurso(inicio, fin, filtroJornada));
+        return "fichas/calendario";
+    }
+
     /**
      * Formulario para crear nueva ficha
      */
@@ -95,6 +190,12 @@ public class FichaController {
             model.addAttribute("programas", programaService.getAllProgramas());
             model.addAttribute("accion", ficha.getId() == null ? "Crear" : "Editar");
             return "fichas/formulario";
+        } catch (ResourceConflictException | OptimisticLockingFailureException e) {
+            log.warn("Conflicto de concurrencia al guardar ficha: {}", e.getMessage());
+            model.addAttribute("error", "La ficha fue modificada por otro usuario. Recargue la página e intente de nuevo.");
+            model.addAttribute("programas", programaService.getAllProgramas());
+            model.addAttribute("accion", ficha.getId() == null ? "Crear" : "Editar");
+            return "fichas/formulario";
         } catch (Exception e) {
             log.error("Error al guardar ficha", e);
             model.addAttribute("error", "Error al guardar la ficha: " + e.getMessage());
@@ -105,21 +206,37 @@ public class FichaController {
     }
 
     /**
-     * Ver detalles de una ficha
+     * Ver detalles de una ficha (también archivada, en modo de solo lectura)
+     * La página se envía por partes. Una ficha con pocos aprendices los lee con la consulta
+     * fusionada (getAprendicesByFichaId: las visitas simultáneas comparten una sola lectura);
+     * por encima de sena.vistas.streaming.umbral-filas se leen y se renderizan por lotes
      */
     @GetMapping("/ver/{id}")
-    public String verFicha(@PathVariable Long id, Model model,
-                           RedirectAttributes redirectAttributes) {
+    public ModelAndView verFicha(@PathVariable Long id, Model model,
+                                 RedirectAttributes redirectAttributes) {
         log.info("Mostrando detalles de la ficha ID: {}", id);
 
         try {
-            Ficha ficha = fichaService.getFichaById(id);
+            Ficha ficha = fichaService.getFichaOArchivada(id);
             model.addAttribute("ficha", ficha);
-            return "fichas/detalle";
+            RowSource<Aprendiz> aprendices;
+            if (ficha.isArchivada()) {
+                List<Aprendiz> archivados = aprendizService.getAprendicesArchivadosByFichaId(id);
+                model.addAttribute("totalAprendices", archivados.size());
+                aprendices = RowSource.de(archivados);
+            } else {
+                long total = aprendizService.contarAprendicesByFichaId(id);
+                model.addAttribute("totalAprendices", total);
+                model.addAttribute("aprendicesEnEspera", aprendizService.contarEnEsperaByFichaId(id));
+                aprendices = total <= umbralStreaming
+                        ? RowSource.de(aprendizService.getAprendicesByFichaId(id))
+                        : (tamanoLote, lote) -> aprendizService.recorrerAprendicesByFichaId(id, tamanoLote, lote);
+            }
+            return new ModelAndView(streamingViews.filas("fichas/detalle", "filasAprendices", "aprendices", aprendices));
         } catch (ResourceNotFoundException e) {
             log.error("Ficha no encontrada", e);
             redirectAttributes.addFlashAttribute("error", e.getMessage());
-            return "redirect:/fichas";
+            return new ModelAndView("redirect:/fichas");
         }
     }
 
@@ -144,6 +261,30 @@ public class FichaController {
         }
     }
 
+    /**
+     * Cambiar el estado de una ficha (y el de sus aprendices si la ficha se cierra)
+     */
+    @PostMapping("/estado/{id}")
+    public String cambiarEstado(@PathVariable Long id, @RequestParam("estado") EstadoFicha estado,
+                                RedirectAttributes redirectAttributes) {
+        log.info("Cambiando estado de la ficha ID: {} a {}", id, estado);
+
+        try {
+            int aprendices = transicionEstadoService.transicionarFicha(id, estado);
+            redirectAttributes.addFlashAttribute("mensajeExito",
+                "Ficha cambiada a " + estado + " (" + aprendices + " aprendiz(es) actualizados)");
+        } catch (ResourceNotFoundException e) {
+            log.error("Ficha no encontrada", e);
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/fichas";
+        } catch (InvalidStateTransitionException | ResourceConflictException e) {
+            log.warn("Cambio de estado rechazado: {}", e.getMessage());
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/fichas/ver/" + id;
+    }
+
     /**
      * Eliminar ficha
      */
@@ -166,4 +307,108 @@ public class FichaController {
         
         return "redirect:/fichas";
     }
+
+    // ==================== Fragmentos para actualizaciones parciales (main.js) ====================
+    // Con la cabecera X-Fragmento se responde solo con la fila o la sección del formulario
+    // afectada, en lugar de redirigir al listado completo
+
+    /**
+     * Sección del formulario de edición, para editar una fila en línea
+     */
+    @GetMapping(value = "/editar/{id}", headers = "X-Fragmento")
+    public String formularioEnLinea(@PathVariable Long id, Model model) {
+        try {
+            model.addAttribute("ficha", fichaService.getFichaById(id));
+        } catch (ResourceNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        model.addAttribute("programas", programaService.getAllProgramas());
+        model.addAttribute("accion", "Editar");
+        model.addAttribute("enLinea", true);
+        return "fichas/formulario :: formulario";
+    }
+
+    /**
+     * Guardar desde la edición en línea: devuelve solo la fila guardada,
+     * o la sección del formulario con los errores (422)
+     */
+    @PostMapping(value = "/guardar", headers = "X-Fragmento")
+    public String guardarEnLinea(@Valid @ModelAttribute("ficha") Ficha ficha,
+                                 BindingResult result,
+                                 @RequestParam("programaId") Long programaId,
+                                 Model model,
+                                 HttpServletResponse response) {
+        log.info("Guardando ficha en línea: {}", ficha.getId());
+        model.addAttribute("enLinea", true);
+
+        if (!result.hasErrors()) {
+            try {
+                ficha.setPrograma(programaService.getProgramaById(programaId));
+                Ficha guardada = ficha.getId() == null
+                        ? fichaService.createFicha(ficha)
+                        : fichaService.updateFicha(ficha.getId(), ficha);
+                model.addAttribute("fichas", List.of(guardada));
+                return "fichas/lista :: filas";
+            } catch (DuplicateResourceException e) {
+                model.addAttribute("error", e.getMessage());
+            } catch (ResourceConflictException | OptimisticLockingFailureException e) {
+                log.warn("Conflicto de concurrencia al guardar ficha: {}", e.getMessage());
+                model.addAttribute("error", "La ficha fue modificada por otro usuario. Recargue la página e intente de nuevo.");
+            } catch (ResourceNotFoundException e) {
+                model.addAttribute("error", e.getMessage());
+            }
+        }
+
+        response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+        model.addAttribute("programas", programaService.getAllProgramas());
+        model.addAttribute("accion", ficha.getId() == null ? "Crear" : "Editar");
+        return "fichas/formulario :: formulario";
+    }
+
+    /**
+     * Eliminar desde el listado: 204 y el navegador quita solo la fila
+     */
+    @PostMapping(value = "/eliminar/{id}", headers = "X-Fragmento")
+    public ResponseEntity<String> eliminarEnLinea(@PathVariable Long id) {
+        log.info("Eliminando ficha ID: {} en línea", id);
+        try {
+            fichaService.deleteFicha(id);
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error al eliminar ficha", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.TEXT_PLAIN)
+                    .body("Error al eliminar la ficha: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fichas en curso en un rango de fechas: el índice de periodos da los IDs y solo
+     * esas fichas se leen de la base de datos (sin caché de fragmentos)
+     */
+    private String listarFichasEnCurso(LocalDate desde, LocalDate hasta, String jornada, Model model,
+                                       HttpServletRequest request, HttpServletResponse response) {
+        LocalDate inicio = desde != null ? desde : hasta;
+        LocalDate fin = hasta != null ? hasta : desde;
+        if (fin.isBefore(inicio)) {
+            LocalDate cambio = inicio;
+            inicio = fin;
+            fin = cambio;
+        }
+        String filtroJornada = jornada == null || jornada.isBlank() ? null : jornada;
+        log.info("Mostrando fichas en curso del {} al {} (jornada {})", inicio, fin, filtroJornada);
+
+        List<Long> ids = fichaIntervalIndex.enCurso(inicio, fin, filtroJornada).stream()
+                .map(FichaIntervalIndex.Periodo::fichaId)
+                .toList();
+        List<Ficha> fichas = fichaService.getFichasByIds(ids);
+        model.addAttribute("filasHtml", new String(fragmentRenderer.render("fichas/lista", "filas",
+                Map.of("fichas", fichas), request, response), StandardCharsets.UTF_8));
+        model.addAttribute("totalFichas", fichas.size());
+        model.addAttribute("desde", inicio);
+        model.addAttribute("hasta", fin);
+        model.addAttribute("jornada", filtroJornada);
+        return "fichas/lista";
+    }
 }
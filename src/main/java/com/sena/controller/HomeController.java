@@ -3,10 +3,18 @@ package com.sena.controller;
 import com.sena.service.AprendizService;
 import com.sena.service.ProgramaService;
 import com.sena.service.FichaService;
+import com.sena.service.TendenciaMatriculaService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Controlador para la página de inicio
  */
@@ -16,11 +24,14 @@ public class HomeController {
     private final AprendizService aprendizService;
     private final ProgramaService programaService;
     private final FichaService fichaService;
+    private final TendenciaMatriculaService tendenciaMatriculaService;
 
-    public HomeController(AprendizService aprendizService, ProgramaService programaService, FichaService fichaService) {
+    public HomeController(AprendizService aprendizService, ProgramaService programaService, FichaService fichaService,
+                          TendenciaMatriculaService tendenciaMatriculaService) {
         this.aprendizService = aprendizService;
         this.programaService = programaService;
         this.fichaService = fichaService;
+        this.tendenciaMatriculaService = tendenciaMatriculaService;
     }
 
     @GetMapping({"", "/", "/home", "/index"})
@@ -28,6 +39,32 @@ public class HomeController {
         model.addAttribute("totalAprendices", aprendizService.getTotalAprendices());
         model.addAttribute("totalProgramas", programaService.getTotalProgramas());
         model.addAttribute("totalFichas", fichaService.getTotalFichas());
+        agregarTendencia(model);
         return "index";
     }
+
+    /**
+     * Matrículas de los últimos 12 meses para la gráfica (los meses sin matrículas en 0)
+     */
+    private void agregarTendencia(Model model) {
+        YearMonth actual = YearMonth.now();
+        YearMonth primero = actual.minusMonths(11);
+        Map<LocalDate, Long> porMes = new HashMap<>();
+        for (Map<String, Object> punto : tendenciaMatriculaService.getTendencia(TendenciaMatriculaService.Granularidad.MES,
+                null, null, primero.atDay(1), actual.atEndOfMonth())) {
+            porMes.put((LocalDate) punto.get("periodo"), (Long) punto.get("matriculas"));
+        }
+
+        List<Map<String, Object>> meses = new ArrayList<>();
+        long maximo = 1;
+        for (YearMonth mes = primero; !mes.isAfter(actual); mes = mes.plusMonths(1)) {
+            long matriculas = porMes.getOrDefault(mes.atDay(1), 0L);
+            maximo = Math.max(maximo, matriculas);
+            meses.add(new HashMap<>(Map.of("mes", mes, "matriculas", matriculas)));
+        }
+        for (Map<String, Object> mes : meses) {
+            mes.put("porcentaje", (Long) mes.get("matriculas") * 100 / maximo);
+        }
+        model.addAttribute("tendenciaMeses", meses);
+    }
 }
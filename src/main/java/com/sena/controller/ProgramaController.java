@@ -1,19 +1,35 @@
 package com.sena.controller;
 
+import com.sena.cache.FragmentCache;
+import com.sena.cache.FragmentRenderer;
 import com.sena.exception.DuplicateResourceException;
+import com.sena.exception.ResourceConflictException;
 import com.sena.exception.ResourceNotFoundException;
+import com.sena.model.Ficha;
 import com.sena.model.Programa;
+import com.sena.service.FichaService;
 import com.sena.service.ProgramaService;
+import com.sena.view.RowSource;
+import com.sena.view.StreamingViews;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador web para gestión de Programas
@@ -25,20 +41,35 @@ public class ProgramaController {
     private static final Logger log = LoggerFactory.getLogger(ProgramaController.class);
 
     private final ProgramaService programaService;
+    private final FichaService fichaService;
+    private final FragmentCache fragmentCache;
+    private final FragmentRenderer fragmentRenderer;
+    private final StreamingViews streamingViews;
 
-    public ProgramaController(ProgramaService programaService) {
+    public ProgramaController(ProgramaService programaService, FichaService fichaService,
+                              FragmentCache fragmentCache, FragmentRenderer fragmentRenderer,
+                              StreamingViews streamingViews) {
         this.programaService = programaService;
+        this.fichaService = fichaService;
+        this.fragmentCache = fragmentCache;
+        this.fragmentRenderer = fragmentRenderer;
+        this.streamingViews = streamingViews;
     }
 
     /**
      * Lista de programas
      */
     @GetMapping({"", "/", "/lista"})
-    public String listarProgramas(Model model) {
+    public String listarProgramas(Model model, HttpServletRequest request, HttpServletResponse response) {
         log.info("Mostrando lista de programas");
-        List<Programa> programas = programaService.getAllProgramas();
-        model.addAttribute("programas", programas);
-        model.addAttribute("totalProgramas", programas.size());
+        FragmentCache.Entrada filas = fragmentCache.obtener(FragmentCache.PROGRAMAS, "todos", () -> {
+            List<Programa> programas = programaService.getAllProgramas();
+            byte[] html = fragmentRenderer.render("programas/lista", "filas",
+                    Map.of("programas", programas), request, response);
+            return new FragmentCache.Entrada(html, programas.size());
+        });
+        model.addAttribute("filasHtml", filas.getHtml());
+        model.addAttribute("totalProgramas", filas.getTotal());
         return "programas/lista";
     }
 
@@ -85,6 +116,11 @@ public class ProgramaController {
             model.addAttribute("error", e.getMessage());
             model.addAttribute("accion", programa.getId() == null ? "Crear" : "Editar");
             return "programas/formulario";
+        } catch (ResourceConflictException | OptimisticLockingFailureException e) {
+            log.warn("Conflicto de concurrencia al guardar programa: {}", e.getMessage());
+            model.addAttribute("error", "El programa fue modificado por otro usuario. Recargue la página e intente de nuevo.");
+            model.addAttribute("accion", programa.getId() == null ? "Crear" : "Editar");
+            return "programas/formulario";
         } catch (Exception e) {
             log.error("Error al guardar programa", e);
             model.addAttribute("error", "Error al guardar el programa: " + e.getMessage());
@@ -95,20 +131,23 @@ public class ProgramaController {
 
     /**
      * Ver detalles de un programa
+     * La página se envía por partes: las fichas se leen y se renderizan por lotes
      */
     @GetMapping("/ver/{id}")
-    public String verPrograma(@PathVariable Long id, Model model,
-                              RedirectAttributes redirectAttributes) {
+    public ModelAndView verPrograma(@PathVariable Long id, Model model,
+                                    RedirectAttributes redirectAttributes) {
         log.info("Mostrando detalles del programa ID: {}", id);
 
         try {
             Programa programa = programaService.getProgramaById(id);
             model.addAttribute("programa", programa);
-            return "programas/detalle";
+            model.addAttribute("totalFichas", fichaService.contarFichasByProgramaId(id));
+            RowSource<Ficha> fichas = (tamanoLote, lote) -> fichaService.recorrerFichasByProgramaId(id, tamanoLote, lote);
+            return new ModelAndView(streamingViews.filas("programas/detalle", "filasFichas", "fichas", fichas));
         } catch (ResourceNotFoundException e) {
             log.error("Programa no encontrado", e);
             redirectAttributes.addFlashAttribute("error", e.getMessage());
-            return "redirect:/programas";
+            return new ModelAndView("redirect:/programas");
         }
     }
 
@@ -154,4 +193,75 @@ public class ProgramaController {
         
         return "redirect:/programas";
     }
+
+    // ==================== Fragmentos para actualizaciones parciales (main.js) ====================
+    // Con la cabecera X-Fragmento se responde solo con la fila o la sección del formulario
+    // afectada, en lugar de redirigir al listado completo
+
+    /**
+     * Sección del formulario de edición, para editar una fila en línea
+     */
+    @GetMapping(value = "/editar/{id}", headers = "X-Fragmento")
+    public String formularioEnLinea(@PathVariable Long id, Model model) {
+        try {
+            model.addAttribute("programa", programaService.getProgramaById(id));
+        } catch (ResourceNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        model.addAttribute("accion", "Editar");
+        model.addAttribute("enLinea", true);
+        return "programas/formulario :: formulario";
+    }
+
+    /**
+     * Guardar desde la edición en línea: devuelve solo la fila guardada,
+     * o la sección del formulario con los errores (422)
+     */
+    @PostMapping(value = "/guardar", headers = "X-Fragmento")
+    public String guardarEnLinea(@Valid @ModelAttribute("programa") Programa programa,
+                                 BindingResult result,
+                                 Model model,
+                                 HttpServletResponse response) {
+        log.info("Guardando programa en línea: {}", programa.getId());
+        model.addAttribute("enLinea", true);
+
+        if (!result.hasErrors()) {
+            try {
+                Programa guardado = programa.getId() == null
+                        ? programaService.createPrograma(programa)
+                        : programaService.updatePrograma(programa.getId(), programa);
+                model.addAttribute("programas", List.of(guardado));
+                return "programas/lista :: filas";
+            } catch (DuplicateResourceException e) {
+                model.addAttribute("error", e.getMessage());
+            } catch (ResourceConflictException | OptimisticLockingFailureException e) {
+                log.warn("Conflicto de concurrencia al guardar programa: {}", e.getMessage());
+                model.addAttribute("error", "El programa fue modificado por otro usuario. Recargue la página e intente de nuevo.");
+            } catch (ResourceNotFoundException e) {
+                model.addAttribute("error", e.getMessage());
+            }
+        }
+
+        response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+        model.addAttribute("accion", programa.getId() == null ? "Crear" : "Editar");
+        return "programas/formulario :: formulario";
+    }
+
+    /**
+     * Eliminar desde el listado: 204 y el navegador quita solo la fila
+     */
+    @PostMapping(value = "/eliminar/{id}", headers = "X-Fragmento")
+    public ResponseEntity<String> eliminarEnLinea(@PathVariable Long id) {
+        log.info("Eliminando programa ID: {} en línea", id);
+        try {
+            programaService.deletePrograma(id);
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error al eliminar programa", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.TEXT_PLAIN)
+                    .body("Error al eliminar el programa: " + e.getMessage());
+        }
+    }
 }
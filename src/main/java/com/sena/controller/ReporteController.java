@@ -0,0 +1,109 @@
+package com.sena.controller;
+
+import com.sena.analytics.AnalyticsService;
+import com.sena.analytics.Dimension;
+import com.sena.service.TendenciaMatriculaService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reportes de matrículas para la dirección
+ * Los agrupados se calculan sobre la instantánea columnar en memoria (ver AnalyticsService)
+ * y reflejan el último refresco; la tendencia se lee de los conteos preagregados por periodo.
+ */
+@RestController
+@RequestMapping("/reportes")
+public class ReporteController {
+
+    private final AnalyticsService analyticsService;
+    private final TendenciaMatriculaService tendenciaMatriculaService;
+
+    public ReporteController(AnalyticsService analyticsService,
+                             TendenciaMatriculaService tendenciaMatriculaService) {
+        this.analyticsService = analyticsService;
+        this.tendenciaMatriculaService = tendenciaMatriculaService;
+    }
+
+    /**
+     * Matrículas agrupadas, p. ej. /reportes/matriculas?agrupar=programa,estado&nivel=TECNÓLOGO
+     * Dimensiones: programa, nivel, jornada, estado y mes (de registro, AAAA-MM).
+     * Cualquier dimensión usada como parámetro filtra por los valores dados.
+     */
+    @GetMapping("/matriculas")
+    public Map<String, Object> matriculas(@RequestParam(defaultValue = "") List<String> agrupar,
+                                          @RequestParam MultiValueMap<String, String> parametros) {
+        List<Dimension> dimensiones = new ArrayList<>();
+        for (String nombre : agrupar) {
+            if (!nombre.isBlank()) {
+                dimensiones.add(Dimension.deParametro(nombre.trim()));
+            }
+        }
+        Map<Dimension, Set<String>> filtros = new EnumMap<>(Dimension.class);
+        for (Dimension dimension : Dimension.values()) {
+            List<String> valores = parametros.get(dimension.getParametro());
+            if (valores != null && !valores.isEmpty()) {
+                filtros.put(dimension, Set.copyOf(valores));
+            }
+        }
+
+        long inicio = System.nanoTime();
+        List<Map<String, Object>> grupos = analyticsService.agrupar(dimensiones, filtros);
+        long microsegundos = (System.nanoTime() - inicio) / 1_000;
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("grupos", grupos);
+        respuesta.put("total", grupos.stream().mapToLong(g -> (Long) g.get("cantidad")).sum());
+        respuesta.put("microsegundos", microsegundos);
+        respuesta.put("instantanea", analyticsService.getEstado());
+        return respuesta;
+    }
+
+    /**
+     * Matrículas y fichas abiertas por periodo, p. ej. /reportes/tendencia?granularidad=SEMANA&programa=3
+     * Sin fechas devuelve el último año. Con "ficha" la serie es de esa ficha; con "programa",
+     * del programa; sin ninguno, de todos los programas.
+     */
+    @GetMapping("/tendencia")
+    public Map<String, Object> tendencia(
+            @RequestParam(defaultValue = "MES") TendenciaMatriculaService.Granularidad granularidad,
+            @RequestParam(required = false) Long programa,
+            @RequestParam(required = false) Long ficha,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        LocalDate fin = hasta != null ? hasta : LocalDate.now();
+        LocalDate inicio = desde != null ? desde : fin.minusYears(1);
+        if (inicio.isAfter(fin)) {
+            throw new IllegalArgumentException("La fecha inicial es posterior a la final");
+        }
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("granularidad", granularidad);
+        respuesta.put("desde", inicio);
+        respuesta.put("hasta", fin);
+        respuesta.put("puntos", tendenciaMatriculaService.getTendencia(granularidad, programa, ficha, inicio, fin));
+        return respuesta;
+    }
+
+    /**
+     * Fecha, costo del último refresco y memoria ocupada por la instantánea
+     */
+    @GetMapping("/estado")
+    public Map<String, Object> estado() {
+        return analyticsService.getEstado();
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, IllegalStateException.class})
+    public ResponseEntity<Map<String, String>> manejarError(RuntimeException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
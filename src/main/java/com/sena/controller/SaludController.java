@@ -0,0 +1,58 @@
+package com.sena.controller;
+
+import com.sena.readiness.ReadinessCheck;
+import com.sena.readiness.WarmUpRunner;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Sondas del balanceador / orquestador
+ * /salud/vivo: el proceso responde (reiniciar si falla)
+ * /salud/preparado: la instancia admite tráfico (sacarla del balanceo si falla, ver ReadinessCheck)
+ */
+@RestController
+@Profile("!seed")
+@RequestMapping("/salud")
+public class SaludController {
+
+    private final ApplicationAvailability applicationAvailability;
+    private final ReadinessCheck readinessCheck;
+    private final WarmUpRunner warmUpRunner;
+
+    public SaludController(ApplicationAvailability applicationAvailability, ReadinessCheck readinessCheck,
+                           WarmUpRunner warmUpRunner) {
+        this.applicationAvailability = applicationAvailability;
+        this.readinessCheck = readinessCheck;
+        this.warmUpRunner = warmUpRunner;
+    }
+
+    @GetMapping("/vivo")
+    public ResponseEntity<Map<String, Object>> vivo() {
+        LivenessState estado = applicationAvailability.getLivenessState();
+        return ResponseEntity.status(estado == LivenessState.CORRECT ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("estado", estado));
+    }
+
+    @GetMapping("/preparado")
+    public ResponseEntity<Map<String, Object>> preparado() {
+        Map<String, Object> resultado = readinessCheck.evaluar();
+        boolean preparado = Boolean.TRUE.equals(resultado.get("preparado"));
+        return ResponseEntity.status(preparado ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(resultado);
+    }
+
+    /**
+     * Pasos y duración del calentamiento de arranque
+     */
+    @GetMapping("/calentamiento")
+    public Map<String, Object> calentamiento() {
+        return warmUpRunner.getResumen();
+    }
+}
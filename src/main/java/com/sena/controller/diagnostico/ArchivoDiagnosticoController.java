@@ -0,0 +1,39 @@
+package com.sena.controller.diagnostico;
+
+import com.sena.archive.ArchiveService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Archivo de fichas terminadas
+ */
+@RestController
+@RequestMapping("/admin/diagnostico/archivo")
+public class ArchivoDiagnosticoController {
+
+    private final ArchiveService archiveService;
+
+    public ArchivoDiagnosticoController(ArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * Filas y tamaño de las tablas de trabajo frente a las de archivo, y última ejecución
+     */
+    @GetMapping
+    public Map<String, Object> archivo() {
+        return archiveService.getResumen();
+    }
+
+    /**
+     * Archivar ya las fichas terminadas que superan la retención (409 si ya está en curso)
+     */
+    @PostMapping("/ejecutar")
+    public Map<String, Object> ejecutarArchivo() {
+        return archiveService.archivar();
+    }
+}
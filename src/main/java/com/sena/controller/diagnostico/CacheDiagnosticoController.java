@@ -0,0 +1,41 @@
+package com.sena.controller.diagnostico;
+
+import com.sena.cache.EntityCaches;
+import com.sena.cache.RequestCoalescer;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Cachés de entidades y lecturas fusionadas
+ */
+@RestController
+@RequestMapping("/admin/diagnostico")
+public class CacheDiagnosticoController {
+
+    private final RequestCoalescer requestCoalescer;
+    private final EntityCaches entityCaches;
+
+    public CacheDiagnosticoController(RequestCoalescer requestCoalescer, EntityCaches entityCaches) {
+        this.requestCoalescer = requestCoalescer;
+        this.entityCaches = entityCaches;
+    }
+
+    /**
+     * Tamaño y tasa de aciertos de las cachés de entidades
+     */
+    @GetMapping("/cache")
+    public Map<String, Map<String, Object>> cache() {
+        return entityCaches.getMetricas();
+    }
+
+    /**
+     * Lecturas totales y fusionadas por operación de servicio
+     */
+    @GetMapping("/coalescencia")
+    public Map<String, Map<String, Long>> coalescencia() {
+        return requestCoalescer.getMetricas();
+    }
+}
@@ -0,0 +1,31 @@
+package com.sena.controller.diagnostico;
+
+import com.sena.service.CupoService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Cupos de las fichas
+ */
+@RestController
+@RequestMapping("/admin/diagnostico/cupos")
+public class CuposDiagnosticoController {
+
+    private final CupoService cupoService;
+
+    public CuposDiagnosticoController(CupoService cupoService) {
+        this.cupoService = cupoService;
+    }
+
+    /**
+     * Capacidad y contador de cupos de una ficha frente a sus aprendices (sobreadmisión y deriva)
+     */
+    @GetMapping("/{fichaId}")
+    public Map<String, Object> cupos(@PathVariable Long fichaId) {
+        return cupoService.getEstado(fichaId);
+    }
+}
@@ -0,0 +1,116 @@
+package com.sena.controller.diagnostico;
+
+import com.sena.config.SessionCreationMonitor;
+import com.sena.monitoring.JfrRecorder;
+import com.sena.monitoring.RequestProfiler;
+import com.sena.monitoring.SlowQueryLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diagnóstico de rendimiento (solo administración, ver AdminAccessInterceptor)
+ * Desglose de tiempo por patrón de URL, sentencias lentas, sesiones HTTP creadas y
+ * grabaciones JFR descargables. El resto de /admin/diagnostico está repartido por
+ * funcionalidad en los demás controladores de este paquete (errores en DiagnosticoErrorHandler).
+ */
+@RestController
+@RequestMapping("/admin/diagnostico")
+public class DiagnosticoController {
+
+    private static final Logger log = LoggerFactory.getLogger(DiagnosticoController.class);
+
+    private final RequestProfiler requestProfiler;
+    private final JfrRecorder jfrRecorder;
+    private final SlowQueryLog slowQueryLog;
+    private final SessionCreationMonitor sessionCreationMonitor;
+
+    public DiagnosticoController(RequestProfiler requestProfiler, JfrRecorder jfrRecorder,
+                                 SlowQueryLog slowQueryLog, SessionCreationMonitor sessionCreationMonitor) {
+        this.requestProfiler = requestProfiler;
+        this.jfrRecorder = jfrRecorder;
+        this.slowQueryLog = slowQueryLog;
+        this.sessionCreationMonitor = sessionCreationMonitor;
+    }
+
+    /**
+     * Desglose acumulado de las peticiones perfiladas
+     */
+    @GetMapping("/peticiones")
+    public List<Map<String, Object>> peticiones() {
+        return requestProfiler.getResumen();
+    }
+
+    @DeleteMapping("/peticiones")
+    public ResponseEntity<Void> reiniciarPeticiones() {
+        requestProfiler.reiniciar();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Últimas sentencias lentas con parámetros, origen y EXPLAIN
+     */
+    @GetMapping("/consultas-lentas")
+    public List<SlowQueryLog.ConsultaLenta> consultasLentas() {
+        return slowQueryLog.getRecientes();
+    }
+
+    @DeleteMapping("/consultas-lentas")
+    public ResponseEntity<Void> limpiarConsultasLentas() {
+        slowQueryLog.limpiar();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Sesiones HTTP creadas desde el arranque y activas (deberían ser 0: nodos sin estado)
+     */
+    @GetMapping("/sesiones")
+    public Map<String, Long> sesiones() {
+        return Map.of("creadas", sessionCreationMonitor.getCreadas(), "activas", sessionCreationMonitor.getActivas());
+    }
+
+    @GetMapping("/grabaciones")
+    public List<Map<String, Object>> grabaciones() {
+        return jfrRecorder.listar();
+    }
+
+    /**
+     * Iniciar una grabación JFR de duración limitada (409 si ya hay una en curso)
+     */
+    @PostMapping("/grabaciones")
+    public ResponseEntity<Map<String, Object>> iniciarGrabacion(
+            @RequestParam(defaultValue = "60") int segundos,
+            @RequestParam(defaultValue = "profile") String configuracion) throws Exception {
+        return ResponseEntity.status(HttpStatus.CREATED).body(jfrRecorder.iniciar(segundos, configuracion));
+    }
+
+    @PostMapping("/grabaciones/{id}/detener")
+    public Map<String, Object> detenerGrabacion(@PathVariable long id) {
+        return jfrRecorder.detener(id);
+    }
+
+    /**
+     * Descargar el archivo .jfr de una grabación terminada
+     */
+    @GetMapping("/grabaciones/{id}")
+    public ResponseEntity<Resource> descargarGrabacion(@PathVariable long id) {
+        Path archivo = jfrRecorder.getArchivo(id);
+        log.info("Descargando grabación JFR {}", archivo.getFileName());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(archivo.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(archivo));
+    }
+}
@@ -0,0 +1,39 @@
+package com.sena.controller.diagnostico;
+
+import com.sena.exception.InvalidParameterValueException;
+import com.sena.exception.OperationInProgressException;
+import com.sena.exception.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Errores esperados de las rutas /admin/diagnostico, como JSON
+ * Solo se traducen las excepciones propias de cada caso; cualquier otra (un error de
+ * programación, por ejemplo) sigue siendo un 500 para que no pase por un conflicto.
+ */
+@RestControllerAdvice(basePackageClasses = DiagnosticoErrorHandler.class)
+public class DiagnosticoErrorHandler {
+
+    @ExceptionHandler(InvalidParameterValueException.class)
+    public ResponseEntity<Map<String, String>> parametroInvalido(InvalidParameterValueException e) {
+        return error(HttpStatus.BAD_REQUEST, e);
+    }
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<Map<String, String>> noEncontrado(ResourceNotFoundException e) {
+        return error(HttpStatus.NOT_FOUND, e);
+    }
+
+    @ExceptionHandler(OperationInProgressException.class)
+    public ResponseEntity<Map<String, String>> enCurso(OperationInProgressException e) {
+        return error(HttpStatus.CONFLICT, e);
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus estado, RuntimeException e) {
+        return ResponseEntity.status(estado).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.sena.controller.diagnostico;
+
+import com.sena.facet.FacetIndex;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Índice de facetas del listado de aprendices
+ */
+@RestController
+@RequestMapping("/admin/diagnostico/facetas")
+public class FacetasDiagnosticoController {
+
+    private final FacetIndex facetIndex;
+
+    public FacetasDiagnosticoController(FacetIndex facetIndex) {
+        this.facetIndex = facetIndex;
+    }
+
+    /**
+     * Tamaño del índice de facetas y duración de su última construcción
+     */
+    @GetMapping
+    public Map<String, Object> facetas() {
+        return facetIndex.getMetricas();
+    }
+
+    @PostMapping("/reconstruir")
+    public Map<String, Object> reconstruirFacetas() {
+        facetIndex.reconstruir();
+        return facetIndex.getMetricas();
+    }
+}
@@ -0,0 +1,59 @@
+package com.sena.controller.diagnostico;
+
+import com.sena.pool.ConnectionBulkhead;
+import com.sena.pool.PoolAutoTuner;
+import com.sena.pool.Workload;
+import com.sena.ratelimit.RateLimitFilter;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Pool de conexiones, compartimentos por clase de carga y limitación de peticiones
+ */
+@RestController
+@RequestMapping("/admin/diagnostico")
+public class PoolDiagnosticoController {
+
+    private final ConnectionBulkhead connectionBulkhead;
+    private final PoolAutoTuner poolAutoTuner;
+    private final RateLimitFilter rateLimitFilter;
+
+    public PoolDiagnosticoController(ConnectionBulkhead connectionBulkhead, PoolAutoTuner poolAutoTuner,
+                                     RateLimitFilter rateLimitFilter) {
+        this.connectionBulkhead = connectionBulkhead;
+        this.poolAutoTuner = poolAutoTuner;
+        this.rateLimitFilter = rateLimitFilter;
+    }
+
+    /**
+     * Estado del pool Hikari y de los compartimentos por clase de carga
+     */
+    @GetMapping("/pool")
+    public Map<String, Object> pool() {
+        return Map.of("hikari", poolAutoTuner.getEstado(), "compartimentos", connectionBulkhead.getMetricas());
+    }
+
+    /**
+     * Cambiar en caliente el máximo de conexiones de un compartimento (400 si es menor que 1)
+     */
+    @PostMapping("/pool/{workload}")
+    public Map<String, Map<String, Object>> ajustarCompartimento(@PathVariable Workload workload,
+                                                                 @RequestParam int maxConexiones) {
+        connectionBulkhead.setMaxConexiones(workload, maxConexiones);
+        return connectionBulkhead.getMetricas();
+    }
+
+    /**
+     * Peticiones limitadas (429 por cliente) y descartadas por sobrecarga
+     */
+    @GetMapping("/limites")
+    public Map<String, Object> limites() {
+        return rateLimitFilter.getMetricas();
+    }
+}
@@ -0,0 +1,45 @@
+package com.sena.controller.diagnostico;
+
+import com.sena.analytics.AnalyticsService;
+import com.sena.service.TendenciaMatriculaService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Instantánea de reportes y tendencia de matrículas
+ */
+@RestController
+@RequestMapping("/admin/diagnostico")
+public class ReportesDiagnosticoController {
+
+    private final AnalyticsService analyticsService;
+    private final TendenciaMatriculaService tendenciaMatriculaService;
+
+    public ReportesDiagnosticoController(AnalyticsService analyticsService,
+                                         TendenciaMatriculaService tendenciaMatriculaService) {
+        this.analyticsService = analyticsService;
+        this.tendenciaMatriculaService = tendenciaMatriculaService;
+    }
+
+    /**
+     * Refrescar ya la instantánea de reportes (409 si hay un refresco en curso)
+     */
+    @PostMapping("/reportes/refrescar")
+    public Map<String, Object> refrescarReportes() {
+        analyticsService.refrescar();
+        return analyticsService.getEstado();
+    }
+
+    /**
+     * Recalcular la tendencia de matrículas desde aprendices y fichas (409 si ya está en curso)
+     */
+    @PostMapping("/tendencia/reconstruir")
+    public ResponseEntity<Void> reconstruirTendencia() {
+        tendenciaMatriculaService.reconstruir();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,293 @@
+package com.sena.datagen;
+
+import com.sena.pool.Workload;
+import com.sena.pool.WorkloadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generador determinista de datos sintéticos (programas, fichas y aprendices)
+ * Se activa con el perfil "seed": genera los datos y cierra la aplicación (en ese perfil no
+ * hay tareas programadas ni calentamiento, ver SchedulingConfig y WarmUpRunner).
+ * La misma semilla produce siempre los mismos datos.
+ * Inserta por lotes con JDBC (ver application-seed.properties: rewriteBatchedStatements).
+ *
+ * Los registros generados se identifican por el prefijo GEN- en el código de programa
+ * y por los números de ficha a partir de 9000000.
+ */
+@Component
+@Profile("seed")
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final String[] NOMBRES_MUJER = {
+            "María", "Luisa", "Valentina", "Daniela", "Camila", "Laura", "Paula", "Sofía", "Andrea",
+            "Natalia", "Juliana", "Carolina", "Alejandra", "Diana", "Gabriela", "Mariana", "Isabella",
+            "Ana", "Sara", "Manuela", "Angie", "Yuliana", "Karen", "Tatiana", "Lorena", "Paola"};
+
+    private static final String[] NOMBRES_HOMBRE = {
+            "Juan", "Santiago", "Andrés", "Carlos", "Sebastián", "Felipe", "Daniel", "Jhon", "David",
+            "Alejandro", "Camilo", "Luis", "Jorge", "Diego", "Nicolás", "Mateo", "Samuel", "Julián",
+            "Miguel", "Óscar", "Brayan", "Esteban", "Cristian", "Kevin", "Fabián", "José"};
+
+    private static final String[] APELLIDOS = {
+            "Rodríguez", "Gómez", "González", "Martínez", "García", "López", "Hernández", "Sánchez",
+            "Ramírez", "Pérez", "Díaz", "Muñoz", "Rojas", "Moreno", "Jiménez", "Vargas", "Castro",
+            "Gutiérrez", "Álvarez", "Ruiz", "Suárez", "Romero", "Torres", "Valencia", "Quintero",
+            "Cárdenas", "Ospina", "Restrepo", "Mejía", "Salazar", "Giraldo", "Cifuentes", "Pineda",
+            "Barrera", "Montoya", "Patiño", "Zapata", "Arango", "Duarte", "Becerra"};
+
+    private static final String[] CIUDADES = {
+            "Bogotá", "Medellín", "Cali", "Barranquilla", "Bucaramanga", "Tunja", "Duitama",
+            "Sogamoso", "Pereira", "Manizales", "Ibagué", "Cúcuta", "Villavicencio", "Pasto"};
+
+    private static final String[] VIAS = {"Calle", "Carrera", "Avenida", "Transversal", "Diagonal"};
+
+    private static final String[] DOMINIOS = {"gmail.com", "hotmail.com", "outlook.com", "misena.edu.co", "yahoo.com"};
+    private static final int[] PESOS_DOMINIO = {55, 20, 10, 10, 5};
+
+    private static final String[] PROGRAMAS = {
+            "Análisis y Desarrollo de Software", "Gestión Contable y de Información Financiera",
+            "Programación de Software", "Gestión Empresarial", "Mantenimiento de Equipos de Cómputo",
+            "Cocina", "Electricidad Industrial", "Gestión del Talento Humano", "Logística Empresarial",
+            "Diseño e Integración de Multimedia", "Sistemas Agropecuarios Ecológicos",
+            "Mecánica Automotriz", "Enfermería", "Asistencia Administrativa", "Producción Agropecuaria",
+            "Gestión de Redes de Datos", "Construcción de Edificaciones", "Salud Ocupacional"};
+
+    private static final String[] JORNADAS = {"DIURNA", "NOCTURNA", "MIXTA", "FINES_DE_SEMANA"};
+    private static final int[] PESOS_JORNADA = {50, 25, 15, 10};
+
+    // Fichas en curso (activas o suspendidas): nadie se ha graduado todavía
+    private static final String[] ESTADOS_APRENDIZ_EN_CURSO = {"ACTIVO", "INACTIVO", "RETIRADO"};
+    private static final int[] PESOS_ESTADO_EN_CURSO = {88, 6, 6};
+
+    // Fichas terminadas: sus aprendices ya no ocupan cupo
+    private static final String[] ESTADOS_APRENDIZ_TERMINADA = {"GRADUADO", "RETIRADO"};
+    private static final int[] PESOS_ESTADO_TERMINADA = {85, 15};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext context;
+    private final long semilla;
+    private final int numProgramas;
+    private final int fichasPorPrograma;
+    private final int numAprendices;
+    private final int tamanoLote;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, ConfigurableApplicationContext context,
+                                  @Value("${sena.seed.semilla:42}") long semilla,
+                                  @Value("${sena.seed.programas:50}") int numProgramas,
+                                  @Value("${sena.seed.fichas-por-programa:20}") int fichasPorPrograma,
+                                  @Value("${sena.seed.aprendices:1000000}") int numAprendices,
+                                  @Value("${sena.seed.tamano-lote:5000}") int tamanoLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.context = context;
+        this.semilla = semilla;
+        this.numProgramas = numProgramas;
+        this.fichasPorPrograma = fichasPorPrograma;
+        this.numAprendices = numAprendices;
+        this.tamanoLote = tamanoLote;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int codigo = 0;
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            generar();
+        } catch (RuntimeException e) {
+            log.error("La generación de datos sintéticos falló", e);
+            codigo = 1;
+        }
+        int salida = codigo;
+        System.exit(SpringApplication.exit(context, () -> salida));
+    }
+
+    /**
+     * Insertar los programas, fichas y aprendices configurados (no hace nada si ya existen
+     * datos generados). También lo usan las pruebas para sembrar la base de datos
+     */
+    public void generar() {
+        Integer existentes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM programas WHERE codigo LIKE 'GEN-%'", Integer.class);
+        if (existentes != null && existentes > 0) {
+            log.warn("Ya existen datos generados ({} programas GEN-); no se genera nada", existentes);
+            return;
+        }
+
+        SplittableRandom random = new SplittableRandom(semilla);
+        long inicio = System.currentTimeMillis();
+
+        List<Long> programaIds = generarProgramas(random);
+        List<FichaGenerada> fichas = generarFichas(random, programaIds);
+        generarAprendices(random, fichas);
+        actualizarCuposOcupados();
+
+        log.info("Datos sintéticos generados en {} ms: {} programas, {} fichas, {} aprendices",
+                System.currentTimeMillis() - inicio, programaIds.size(), fichas.size(), numAprendices);
+    }
+
+    private List<Long> generarProgramas(SplittableRandom random) {
+        List<Object[]> filas = new ArrayList<>();
+        for (int i = 0; i < numProgramas; i++) {
+            boolean tecnologo = random.nextInt(100) < 60;
+            String nombre = PROGRAMAS[i % PROGRAMAS.length]
+                    + (i >= PROGRAMAS.length ? " " + (i / PROGRAMAS.length + 1) : "");
+            filas.add(new Object[]{
+                    String.format("GEN-%04d", i + 1),
+                    nombre,
+                    tecnologo ? "TECNÓLOGO" : "TÉCNICO",
+                    tecnologo ? 24 + random.nextInt(4) * 3 : 12 + random.nextInt(3) * 3,
+                    random.nextInt(100) < 90 ? "ACTIVO" : "INACTIVO"});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO programas (codigo, nombre, nivel, duracion, estado) VALUES (?, ?, ?, ?, ?)", filas);
+        return jdbcTemplate.queryForList("SELECT id FROM programas WHERE codigo LIKE 'GEN-%' ORDER BY id", Long.class);
+    }
+
+    private List<FichaGenerada> generarFichas(SplittableRandom random, List<Long> programaIds) {
+        List<Object[]> filas = new ArrayList<>();
+        LocalDate hoy = LocalDate.now();
+        int numero = 9_000_000;
+        for (Long programaId : programaIds) {
+            for (int j = 0; j < fichasPorPrograma; j++) {
+                // Inicios repartidos en los últimos cuatro años; duración de 12 a 27 meses
+                LocalDate inicio = hoy.minusDays(random.nextInt(4 * 365));
+                LocalDate fin = inicio.plusMonths(12 + random.nextInt(16));
+                String estado = fin.isBefore(hoy) ? "TERMINADA" : random.nextInt(100) < 95 ? "ACTIVA" : "SUSPENDIDA";
+                filas.add(new Object[]{
+                        String.valueOf(numero++), programaId, Date.valueOf(inicio), Date.valueOf(fin),
+                        JORNADAS[elegir(random, PESOS_JORNADA)], estado});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO fichas (numero_ficha, programa_id, fecha_inicio, fecha_fin, jornada, estado) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", filas);
+        return jdbcTemplate.query(
+                "SELECT id, fecha_inicio, fecha_fin, estado FROM fichas WHERE numero_ficha >= '9000000' ORDER BY id",
+                (rs, i) -> new FichaGenerada(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getDate(3).toLocalDate(),
+                        "TERMINADA".equals(rs.getString(4))));
+    }
+
+    /**
+     * Cada aprendiz toma su estado del de la ficha (solo las terminadas tienen graduados) y
+     * una fecha de registro dentro del periodo de la ficha, sin pasar de hoy
+     */
+    private void generarAprendices(SplittableRandom random, List<FichaGenerada> fichas) {
+        String sql = "INSERT INTO aprendices (tipo_documento, numero_documento, nombres, apellidos, email, " +
+                "telefono, direccion, estado, ficha_id, fecha_registro) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> lote = new ArrayList<>(tamanoLote);
+        LocalDate hoy = LocalDate.now();
+
+        for (int i = 0; i < numAprendices; i++) {
+            boolean mujer = random.nextBoolean();
+            String[] nombres = mujer ? NOMBRES_MUJER : NOMBRES_HOMBRE;
+            String nombre = nombres[random.nextInt(nombres.length)];
+            if (random.nextInt(100) < 45) {
+                nombre += " " + nombres[random.nextInt(nombres.length)];
+            }
+            String apellido1 = APELLIDOS[random.nextInt(APELLIDOS.length)];
+            String apellido2 = APELLIDOS[random.nextInt(APELLIDOS.length)];
+            FichaGenerada ficha = fichas.get(random.nextInt(fichas.size()));
+            String estado = ficha.terminada()
+                    ? ESTADOS_APRENDIZ_TERMINADA[elegir(random, PESOS_ESTADO_TERMINADA)]
+                    : ESTADOS_APRENDIZ_EN_CURSO[elegir(random, PESOS_ESTADO_EN_CURSO)];
+
+            lote.add(new Object[]{
+                    tipoDocumento(random),
+                    documento(random, i),
+                    nombre,
+                    apellido1 + " " + apellido2,
+                    correo(random, nombre, apellido1, i),
+                    String.format("3%02d%07d", random.nextInt(51), random.nextInt(10_000_000)),
+                    VIAS[random.nextInt(VIAS.length)] + " " + (random.nextInt(180) + 1) + " # "
+                            + (random.nextInt(120) + 1) + "-" + (random.nextInt(99) + 1) + ", "
+                            + CIUDADES[random.nextInt(CIUDADES.length)],
+                    estado,
+                    ficha.id(),
+                    fechaRegistro(random, ficha, hoy)});
+
+            if (lote.size() == tamanoLote) {
+                jdbcTemplate.batchUpdate(sql, lote);
+                lote.clear();
+                if ((i + 1) % (tamanoLote * 20) == 0) {
+                    log.info("Aprendices insertados: {}/{}", i + 1, numAprendices);
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, lote);
+        }
+    }
+
+    /**
+     * Los aprendices se insertan directamente, sin CupoService: fijar el contador de cupos
+     * de las fichas generadas igual que lo haría db/06_capacidad_fichas.sql
+     */
+    private void actualizarCuposOcupados() {
+        jdbcTemplate.update("UPDATE fichas f SET f.cupos_ocupados = (SELECT COUNT(*) FROM aprendices a " +
+                "WHERE a.ficha_id = f.id AND a.estado IN ('ACTIVO', 'INACTIVO')) WHERE f.numero_ficha >= '9000000'");
+    }
+
+    private static Timestamp fechaRegistro(SplittableRandom random, FichaGenerada ficha, LocalDate hoy) {
+        LocalDate ultimo = ficha.fin().isBefore(hoy) ? ficha.fin() : hoy;
+        long dias = Math.max(0, ChronoUnit.DAYS.between(ficha.inicio(), ultimo));
+        LocalDate dia = ficha.inicio().plusDays(random.nextLong(dias + 1));
+        return Timestamp.valueOf(dia.atTime(7 + random.nextInt(12), random.nextInt(60), random.nextInt(60)));
+    }
+
+    private String tipoDocumento(SplittableRandom random) {
+        int r = random.nextInt(100);
+        return r < 85 ? "CC" : r < 97 ? "TI" : "CE";
+    }
+
+    /**
+     * Documento único: cada índice ocupa su propio intervalo de 7 números
+     * dentro del rango típico de cédulas recientes (10 dígitos que empiezan en 1)
+     */
+    private String documento(SplittableRandom random, int indice) {
+        return String.valueOf(1_000_000_000L + indice * 7L + random.nextInt(7));
+    }
+
+    private String correo(SplittableRandom random, String nombre, String apellido, int indice) {
+        String usuario = normalizar(nombre.split(" ")[0]) + "." + normalizar(apellido) + indice;
+        return usuario + "@" + DOMINIOS[elegir(random, PESOS_DOMINIO)];
+    }
+
+    private static String normalizar(String texto) {
+        return java.text.Normalizer.normalize(texto.toLowerCase(), java.text.Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+    }
+
+    private static int elegir(SplittableRandom random, int[] pesos) {
+        int total = 0;
+        for (int peso : pesos) {
+            total += peso;
+        }
+        int r = random.nextInt(total);
+        for (int i = 0; i < pesos.length; i++) {
+            r -= pesos[i];
+            if (r < 0) {
+                return i;
+            }
+        }
+        return pesos.length - 1;
+    }
+
+    private record FichaGenerada(long id, LocalDate inicio, LocalDate fin, boolean terminada) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.sena.exception;
+
+/**
+ * Excepción lanzada cuando una ficha no tiene cupos y no admite lista de espera
+ */
+public class CapacityExceededException extends RuntimeException {
+
+    public CapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.sena.exception;
+
+/**
+ * Excepción lanzada cuando un parámetro de una operación administrativa está fuera de rango
+ */
+public class InvalidParameterValueException extends RuntimeException {
+    
+    public InvalidParameterValueException(String message) {
+        super(message);
+    }
+    
+    public InvalidParameterValueException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
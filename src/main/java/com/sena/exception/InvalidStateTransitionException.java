@@ -0,0 +1,15 @@
+package com.sena.exception;
+
+/**
+ * Excepción lanzada cuando se intenta un cambio de estado no permitido
+ */
+public class InvalidStateTransitionException extends RuntimeException {
+    
+    public InvalidStateTransitionException(String message) {
+        super(message);
+    }
+    
+    public InvalidStateTransitionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.sena.exception;
+
+/**
+ * Excepción lanzada cuando se pide una operación de mantenimiento que ya está en curso
+ * (reconstrucción, refresco, archivo o grabación) o cuyo resultado aún no está listo
+ */
+public class OperationInProgressException extends RuntimeException {
+    
+    public OperationInProgressException(String message) {
+        super(message);
+    }
+    
+    public OperationInProgressException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.sena.exception;
+
+/**
+ * Excepción lanzada cuando un recurso fue modificado por otro usuario
+ * desde que se leyó (conflicto de concurrencia optimista)
+ */
+public class ResourceConflictException extends RuntimeException {
+    
+    public ResourceConflictException(String message) {
+        super(message);
+    }
+    
+    public ResourceConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,408 @@
+package com.sena.facet;
+
+import com.sena.model.Aprendiz;
+import com.sena.model.Ficha;
+import com.sena.model.Programa;
+import com.sena.pool.Workload;
+import com.sena.pool.WorkloadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice en memoria de las facetas de los aprendices (estado, jornada, nivel, programa,
+ * ficha y tipo de documento) sobre bitmaps comprimidos de sus ids
+ * Cualquier combinación de filtros y los conteos de cada valor se resuelven con
+ * intersecciones de bitmaps, sin consultas GROUP BY.
+ *
+ * Se construye leyendo la tabla en streaming y se mantiene al día con las escrituras
+ * de los servicios (aplicadas al confirmar). La reconstrucción periódica recoge los
+ * cambios hechos por otros nodos o directamente en la base de datos.
+ */
+@Component
+public class FacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetIndex.class);
+
+    private static final String CONSULTA =
+            "SELECT a.id, a.estado, a.tipo_documento, f.id, f.numero_ficha, f.jornada, p.id, p.nombre, p.nivel " +
+            "FROM aprendices a JOIN fichas f ON f.id = a.ficha_id JOIN programas p ON p.id = f.programa_id";
+
+    private final JdbcTemplate streaming;
+    private final int maxValores;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Indice indice = new Indice();
+    private boolean listo;
+    private List<Consumer<Indice>> pendientes;
+    private long ultimaConstruccionMs;
+
+    public FacetIndex(DataSource dataSource,
+                      @Value("${sena.facetas.max-valores:30}") int maxValores) {
+        // Integer.MIN_VALUE: el driver de MySQL entrega las filas una a una sin cargar el resultado completo
+        this.streaming = new JdbcTemplate(dataSource);
+        this.streaming.setFetchSize(Integer.MIN_VALUE);
+        this.maxValores = maxValores;
+    }
+
+    /**
+     * Reconstruir el índice desde la base de datos (al arrancar y cada cierto tiempo)
+     * Las escrituras que llegan durante la lectura se vuelven a aplicar sobre el índice nuevo
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${sena.facetas.reconstruccion-ms:900000}")
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long inicio = System.currentTimeMillis();
+        Indice nuevo = new Indice();
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            streaming.query(CONSULTA, rs -> {
+                int id = Math.toIntExact(rs.getLong(1));
+                nuevo.todos.agregar(id);
+                nuevo.cargar(id, Faceta.ESTADO, rs.getString(2), null);
+                nuevo.cargar(id, Faceta.TIPO_DOCUMENTO, rs.getString(3), null);
+                nuevo.cargar(id, Faceta.FICHA, rs.getString(4), rs.getString(5));
+                nuevo.cargar(id, Faceta.JORNADA, rs.getString(6), null);
+                nuevo.cargar(id, Faceta.PROGRAMA, rs.getString(7), rs.getString(8));
+                nuevo.cargar(id, Faceta.NIVEL, rs.getString(9), null);
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("No se pudo construir el índice de facetas", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendientes.forEach(cambio -> cambio.accept(nuevo));
+            pendientes = null;
+            indice = nuevo;
+            listo = true;
+            ultimaConstruccionMs = System.currentTimeMillis() - inicio;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de facetas construido en {} ms: {} aprendices, {} KB",
+                ultimaConstruccionMs, nuevo.todos.cardinalidad(), nuevo.bytes() / 1024);
+    }
+
+    public boolean isListo() {
+        lock.readLock().lock();
+        try {
+            return listo;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Un aprendiz fue creado o actualizado (su ficha debe venir con el programa cargado)
+     */
+    public void registrar(Aprendiz aprendiz) {
+        int id = Math.toIntExact(aprendiz.getId());
+        Ficha ficha = aprendiz.getFicha();
+        Programa programa = ficha != null ? ficha.getPrograma() : null;
+        String estado = aprendiz.getEstado();
+        String tipoDocumento = aprendiz.getTipoDocumento();
+        String fichaId = ficha != null ? String.valueOf(ficha.getId()) : null;
+        String codigoFicha = ficha != null ? ficha.getCodigo() : null;
+        String jornada = ficha != null ? ficha.getJornada() : null;
+        String programaId = programa != null ? String.valueOf(programa.getId()) : null;
+        String nombrePrograma = programa != null ? programa.getNombre() : null;
+        String nivel = programa != null ? programa.getNivel() : null;
+
+        alConfirmar(ind -> {
+            ind.todos.agregar(id);
+            ind.asignar(id, Faceta.ESTADO, estado, null);
+            ind.asignar(id, Faceta.TIPO_DOCUMENTO, tipoDocumento, null);
+            ind.asignar(id, Faceta.FICHA, fichaId, codigoFicha);
+            ind.asignar(id, Faceta.JORNADA, jornada, null);
+            ind.asignar(id, Faceta.PROGRAMA, programaId, nombrePrograma);
+            ind.asignar(id, Faceta.NIVEL, nivel, null);
+        });
+    }
+
+    /**
+     * Un aprendiz fue eliminado
+     */
+    public void quitar(Long aprendizId) {
+        int id = Math.toIntExact(aprendizId);
+        alConfirmar(ind -> ind.quitar(id));
+    }
+
+    /**
+     * Varios aprendices pasaron al mismo estado (transiciones masivas)
+     */
+    public void cambiarEstado(Collection<Long> aprendizIds, String estado) {
+        int[] ids = aprendizIds.stream().mapToInt(Math::toIntExact).toArray();
+        alConfirmar(ind -> {
+            for (int id : ids) {
+                if (ind.todos.contiene(id)) {
+                    ind.asignar(id, Faceta.ESTADO, estado, null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Una ficha cambió de código o de programa: sus aprendices heredan jornada, programa y nivel
+     */
+    public void actualizarFicha(Ficha ficha) {
+        String fichaId = String.valueOf(ficha.getId());
+        String codigo = ficha.getCodigo();
+        String jornada = ficha.getJornada();
+        Programa programa = ficha.getPrograma();
+        String programaId = programa != null ? String.valueOf(programa.getId()) : null;
+        String nombrePrograma = programa != null ? programa.getNombre() : null;
+        String nivel = programa != null ? programa.getNivel() : null;
+
+        alConfirmar(ind -> {
+            ind.etiquetas.get(Faceta.FICHA).put(fichaId, codigo);
+            RoaringBitmap aprendices = ind.valores.get(Faceta.FICHA).get(fichaId);
+            if (aprendices == null) {
+                return;
+            }
+            for (int id : aprendices.pagina(0, aprendices.cardinalidad())) {
+                ind.asignar(id, Faceta.JORNADA, jornada, null);
+                ind.asignar(id, Faceta.PROGRAMA, programaId, nombrePrograma);
+                ind.asignar(id, Faceta.NIVEL, nivel, null);
+            }
+        });
+    }
+
+    /**
+     * Un programa cambió de nombre: la etiqueta de su valor en la faceta PROGRAMA
+     */
+    public void actualizarPrograma(Programa programa) {
+        String programaId = String.valueOf(programa.getId());
+        String nombre = programa.getNombre();
+        alConfirmar(ind -> ind.etiquetas.get(Faceta.PROGRAMA).put(programaId, nombre));
+    }
+
+    /**
+     * Se eliminó una ficha o un programa y, en cascada, sus aprendices
+     */
+    public void quitarDependientes(Faceta faceta, Long id) {
+        String valor = String.valueOf(id);
+        alConfirmar(ind -> {
+            RoaringBitmap aprendices = ind.valores.get(faceta).get(valor);
+            if (aprendices != null) {
+                for (int aprendizId : aprendices.copia().pagina(0, aprendices.cardinalidad())) {
+                    ind.quitar(aprendizId);
+                }
+            }
+            ind.etiquetas.get(faceta).remove(valor);
+        });
+    }
+
+    /**
+     * Resolver una combinación de filtros: total, página de ids y conteo de cada valor
+     * Dentro de una faceta los valores se combinan con O y entre facetas con Y. El conteo
+     * de cada faceta ignora su propio filtro, para mostrar cuántos habría al añadir ese valor.
+     */
+    public Resultado consultar(Map<Faceta, Set<String>> seleccion, int pagina, int tamanoPagina) {
+        long inicio = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            Map<Faceta, RoaringBitmap> filtros = new EnumMap<>(Faceta.class);
+            seleccion.forEach((faceta, seleccionados) -> {
+                RoaringBitmap union = new RoaringBitmap();
+                for (String valor : seleccionados) {
+                    RoaringBitmap bitmap = indice.valores.get(faceta).get(valor);
+                    if (bitmap != null) {
+                        union = RoaringBitmap.or(union, bitmap);
+                    }
+                }
+                filtros.put(faceta, union);
+            });
+
+            RoaringBitmap coincidentes = interseccion(filtros, null);
+            Map<Faceta, List<Conteo>> conteos = new EnumMap<>(Faceta.class);
+            for (Faceta faceta : Faceta.values()) {
+                RoaringBitmap base = filtros.containsKey(faceta) ? interseccion(filtros, faceta) : coincidentes;
+                conteos.put(faceta, contar(faceta, base, seleccion.getOrDefault(faceta, Set.of())));
+            }
+
+            int[] ids = coincidentes.pagina(pagina * tamanoPagina, tamanoPagina);
+            return new Resultado(coincidentes.cardinalidad(), ids, conteos, (System.nanoTime() - inicio) / 1_000);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getMetricas() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> metricas = new LinkedHashMap<>();
+            metricas.put("listo", listo);
+            metricas.put("aprendices", indice.todos.cardinalidad());
+            indice.valores.forEach((faceta, valores) -> metricas.put("valores." + faceta.getParametro(), valores.size()));
+            metricas.put("bytes", indice.bytes());
+            metricas.put("ultimaConstruccionMs", ultimaConstruccionMs);
+            return metricas;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap interseccion(Map<Faceta, RoaringBitmap> filtros, Faceta excluida) {
+        RoaringBitmap resultado = indice.todos;
+        for (Map.Entry<Faceta, RoaringBitmap> e : filtros.entrySet()) {
+            if (e.getKey() != excluida) {
+                resultado = RoaringBitmap.and(resultado, e.getValue());
+            }
+        }
+        return resultado;
+    }
+
+    private List<Conteo> contar(Faceta faceta, RoaringBitmap base, Set<String> seleccionados) {
+        Map<String, String> etiquetas = indice.etiquetas.get(faceta);
+        List<Conteo> conteos = new ArrayList<>();
+        indice.valores.get(faceta).forEach((valor, bitmap) -> {
+            int cantidad = RoaringBitmap.andCardinalidad(bitmap, base);
+            boolean seleccionado = seleccionados.contains(valor);
+            if (cantidad > 0 || seleccionado) {
+                conteos.add(new Conteo(valor, etiquetas.getOrDefault(valor, valor), cantidad, seleccionado));
+            }
+        });
+        conteos.sort(Comparator.comparing(Conteo::seleccionado).reversed()
+                .thenComparing(Comparator.comparingInt(Conteo::cantidad).reversed())
+                .thenComparing(Conteo::etiqueta));
+        return conteos.size() > maxValores ? List.copyOf(conteos.subList(0, maxValores)) : conteos;
+    }
+
+    private void alConfirmar(Consumer<Indice> cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(cambio);
+                }
+            });
+        } else {
+            aplicar(cambio);
+        }
+    }
+
+    private void aplicar(Consumer<Indice> cambio) {
+        lock.writeLock().lock();
+        try {
+            cambio.accept(indice);
+            if (pendientes != null) {
+                pendientes.add(cambio);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Valor de una faceta con el número de aprendices que lo tienen dentro del filtro actual
+     */
+    public record Conteo(String valor, String etiqueta, int cantidad, boolean seleccionado) {
+    }
+
+    /**
+     * Resultado de una consulta por facetas
+     */
+    public record Resultado(int total, int[] ids, Map<Faceta, List<Conteo>> conteos, long microsegundos) {
+    }
+
+    /**
+     * Bitmaps por faceta y valor, con la etiqueta legible de los valores que son ids
+     */
+    private static final class Indice {
+
+        private final Map<Faceta, Map<String, RoaringBitmap>> valores = new EnumMap<>(Faceta.class);
+        private final Map<Faceta, Map<String, String>> etiquetas = new EnumMap<>(Faceta.class);
+        private final RoaringBitmap todos = new RoaringBitmap();
+
+        Indice() {
+            for (Faceta faceta : Faceta.values()) {
+                valores.put(faceta, new HashMap<>());
+                etiquetas.put(faceta, new HashMap<>());
+            }
+        }
+
+        /**
+         * Agregar sin quitar valores anteriores (solo durante la construcción)
+         */
+        void cargar(int id, Faceta faceta, String valor, String etiqueta) {
+            if (valor == null) {
+                return;
+            }
+            valores.get(faceta).computeIfAbsent(valor, v -> new RoaringBitmap()).agregar(id);
+            if (etiqueta != null) {
+                etiquetas.get(faceta).putIfAbsent(valor, etiqueta);
+            }
+        }
+
+        void asignar(int id, Faceta faceta, String valor, String etiqueta) {
+            quitarDe(id, faceta);
+            if (valor == null) {
+                return;
+            }
+            valores.get(faceta).computeIfAbsent(valor, v -> new RoaringBitmap()).agregar(id);
+            if (etiqueta != null) {
+                etiquetas.get(faceta).put(valor, etiqueta);
+            }
+        }
+
+        void quitar(int id) {
+            todos.quitar(id);
+            for (Faceta faceta : Faceta.values()) {
+                quitarDe(id, faceta);
+            }
+        }
+
+        private void quitarDe(int id, Faceta faceta) {
+            Iterator<RoaringBitmap> it = valores.get(faceta).values().iterator();
+            while (it.hasNext()) {
+                RoaringBitmap bitmap = it.next();
+                bitmap.quitar(id);
+                if (bitmap.vacio()) {
+                    it.remove();
+                }
+            }
+        }
+
+        long bytes() {
+            long total = todos.bytes();
+            for (Map<String, RoaringBitmap> porValor : valores.values()) {
+                for (RoaringBitmap bitmap : porValor.values()) {
+                    total += bitmap.bytes();
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.sena.facet;
+
+/**
+ * Dimensiones por las que se puede filtrar el listado de aprendices
+ * El parámetro es el nombre usado en la URL de /aprendices/facetas
+ */
+public enum Faceta {
+
+    ESTADO("estado", "Estado"),
+    JORNADA("jornada", "Jornada"),
+    NIVEL("nivel", "Nivel del programa"),
+    PROGRAMA("programa", "Programa"),
+    FICHA("ficha", "Ficha"),
+    TIPO_DOCUMENTO("tipoDocumento", "Tipo de documento");
+
+    private final String parametro;
+    private final String titulo;
+
+    Faceta(String parametro, String titulo) {
+        this.parametro = parametro;
+        this.titulo = titulo;
+    }
+
+    public String getParametro() {
+        return parametro;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public static Faceta deParametro(String parametro) {
+        for (Faceta faceta : values()) {
+            if (faceta.parametro.equals(parametro)) {
+                return faceta;
+            }
+        }
+        return null;
+    }
+}
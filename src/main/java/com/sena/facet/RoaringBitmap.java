@@ -0,0 +1,477 @@
+package com.sena.facet;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto comprimido de enteros no negativos al estilo Roaring
+ * Divide cada valor en sus 16 bits altos (clave del contenedor) y sus 16 bits bajos.
+ * Cada contenedor es un arreglo ordenado de char mientras tiene pocos valores
+ * (hasta 4096, 8 KB como máximo) y un mapa de 65536 bits (8 KB fijos) cuando es denso,
+ * de modo que los ids consecutivos de una misma ficha ocupan muy poco y las
+ * intersecciones se resuelven palabra a palabra.
+ *
+ * No es seguro para hilos: FacetIndex serializa las escrituras y protege las lecturas.
+ */
+public final class RoaringBitmap {
+
+    private static final int MAX_ARREGLO = 4096;
+    private static final int PALABRAS = 1024;
+
+    private char[] claves = new char[4];
+    private Object[] contenedores = new Object[4];
+    private int tamano;
+
+    public static RoaringBitmap de(int... valores) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int valor : valores) {
+            bitmap.agregar(valor);
+        }
+        return bitmap;
+    }
+
+    public void agregar(int valor) {
+        char clave = (char) (valor >>> 16);
+        int i = buscarClave(clave);
+        if (i < 0) {
+            i = -i - 1;
+            insertarContenedor(i, clave, new Arreglo());
+        }
+        contenedores[i] = contenedor(i).agregar((char) valor);
+    }
+
+    public void quitar(int valor) {
+        int i = buscarClave((char) (valor >>> 16));
+        if (i < 0) {
+            return;
+        }
+        Contenedor c = contenedor(i).quitar((char) valor);
+        if (c.cardinalidad() == 0) {
+            System.arraycopy(claves, i + 1, claves, i, tamano - i - 1);
+            System.arraycopy(contenedores, i + 1, contenedores, i, tamano - i - 1);
+            contenedores[--tamano] = null;
+        } else {
+            contenedores[i] = c;
+        }
+    }
+
+    public boolean contiene(int valor) {
+        int i = buscarClave((char) (valor >>> 16));
+        return i >= 0 && contenedor(i).contiene((char) valor);
+    }
+
+    public boolean vacio() {
+        return tamano == 0;
+    }
+
+    public int cardinalidad() {
+        int total = 0;
+        for (int i = 0; i < tamano; i++) {
+            total += contenedor(i).cardinalidad();
+        }
+        return total;
+    }
+
+    public RoaringBitmap copia() {
+        RoaringBitmap copia = new RoaringBitmap();
+        copia.claves = Arrays.copyOf(claves, Math.max(4, tamano));
+        copia.contenedores = new Object[copia.claves.length];
+        for (int i = 0; i < tamano; i++) {
+            copia.contenedores[i] = contenedor(i).copia();
+        }
+        copia.tamano = tamano;
+        return copia;
+    }
+
+    /**
+     * Intersección (nuevo bitmap)
+     */
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap resultado = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.tamano && j < b.tamano) {
+            if (a.claves[i] < b.claves[j]) {
+                i++;
+            } else if (a.claves[i] > b.claves[j]) {
+                j++;
+            } else {
+                Contenedor c = a.contenedor(i).and(b.contenedor(j));
+                if (c.cardinalidad() > 0) {
+                    resultado.insertarContenedor(resultado.tamano, a.claves[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Unión (nuevo bitmap)
+     */
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap resultado = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.tamano || j < b.tamano) {
+            if (j >= b.tamano || i < a.tamano && a.claves[i] < b.claves[j]) {
+                resultado.insertarContenedor(resultado.tamano, a.claves[i], a.contenedor(i).copia());
+                i++;
+            } else if (i >= a.tamano || a.claves[i] > b.claves[j]) {
+                resultado.insertarContenedor(resultado.tamano, b.claves[j], b.contenedor(j).copia());
+                j++;
+            } else {
+                resultado.insertarContenedor(resultado.tamano, a.claves[i], a.contenedor(i).or(b.contenedor(j)));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Cardinalidad de la intersección sin construirla (conteos de facetas)
+     */
+    public static int andCardinalidad(RoaringBitmap a, RoaringBitmap b) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.tamano && j < b.tamano) {
+            if (a.claves[i] < b.claves[j]) {
+                i++;
+            } else if (a.claves[i] > b.claves[j]) {
+                j++;
+            } else {
+                total += a.contenedor(i).andCardinalidad(b.contenedor(j));
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Valores en orden ascendente, saltando los primeros "desde" y devolviendo como máximo "limite"
+     */
+    public int[] pagina(int desde, int limite) {
+        int[] resultado = new int[limite];
+        int n = 0;
+        int saltar = desde;
+        for (int i = 0; i < tamano && n < limite; i++) {
+            Contenedor c = contenedor(i);
+            int cardinalidad = c.cardinalidad();
+            if (saltar >= cardinalidad) {
+                saltar -= cardinalidad;
+                continue;
+            }
+            n = c.copiarA(resultado, n, saltar, claves[i] << 16);
+            saltar = 0;
+        }
+        return n == limite ? resultado : Arrays.copyOf(resultado, n);
+    }
+
+    /**
+     * Bytes aproximados ocupados por los contenedores
+     */
+    public long bytes() {
+        long total = claves.length * 2L + contenedores.length * 8L;
+        for (int i = 0; i < tamano; i++) {
+            total += contenedor(i).bytes();
+        }
+        return total;
+    }
+
+    private Contenedor contenedor(int i) {
+        return (Contenedor) contenedores[i];
+    }
+
+    private int buscarClave(char clave) {
+        // Los ids crecen: la mayoría de las altas caen en el último contenedor
+        if (tamano > 0 && claves[tamano - 1] == clave) {
+            return tamano - 1;
+        }
+        return Arrays.binarySearch(claves, 0, tamano, clave);
+    }
+
+    private void insertarContenedor(int i, char clave, Contenedor c) {
+        if (tamano == claves.length) {
+            claves = Arrays.copyOf(claves, tamano * 2);
+            contenedores = Arrays.copyOf(contenedores, tamano * 2);
+        }
+        System.arraycopy(claves, i, claves, i + 1, tamano - i);
+        System.arraycopy(contenedores, i, contenedores, i + 1, tamano - i);
+        claves[i] = clave;
+        contenedores[i] = c;
+        tamano++;
+    }
+
+    private sealed interface Contenedor permits Arreglo, Bits {
+
+        Contenedor agregar(char v);
+
+        Contenedor quitar(char v);
+
+        boolean contiene(char v);
+
+        int cardinalidad();
+
+        Contenedor and(Contenedor otro);
+
+        Contenedor or(Contenedor otro);
+
+        int andCardinalidad(Contenedor otro);
+
+        int copiarA(int[] destino, int n, int saltar, int base);
+
+        Contenedor copia();
+
+        long bytes();
+    }
+
+    /**
+     * Contenedor disperso: valores bajos ordenados
+     */
+    private static final class Arreglo implements Contenedor {
+
+        private char[] valores;
+        private int n;
+
+        Arreglo() {
+            this(new char[4], 0);
+        }
+
+        Arreglo(char[] valores, int n) {
+            this.valores = valores;
+            this.n = n;
+        }
+
+        @Override
+        public Contenedor agregar(char v) {
+            int i = n > 0 && valores[n - 1] < v ? -n - 1 : Arrays.binarySearch(valores, 0, n, v);
+            if (i >= 0) {
+                return this;
+            }
+            if (n == MAX_ARREGLO) {
+                return aBits().agregar(v);
+            }
+            i = -i - 1;
+            if (n == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(MAX_ARREGLO, n * 2));
+            }
+            System.arraycopy(valores, i, valores, i + 1, n - i);
+            valores[i] = v;
+            n++;
+            return this;
+        }
+
+        @Override
+        public Contenedor quitar(char v) {
+            int i = Arrays.binarySearch(valores, 0, n, v);
+            if (i >= 0) {
+                System.arraycopy(valores, i + 1, valores, i, n - i - 1);
+                n--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contiene(char v) {
+            return Arrays.binarySearch(valores, 0, n, v) >= 0;
+        }
+
+        @Override
+        public int cardinalidad() {
+            return n;
+        }
+
+        @Override
+        public Contenedor and(Contenedor otro) {
+            char[] resultado = new char[n];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                if (otro.contiene(valores[i])) {
+                    resultado[k++] = valores[i];
+                }
+            }
+            return new Arreglo(resultado, k);
+        }
+
+        @Override
+        public Contenedor or(Contenedor otro) {
+            Contenedor resultado = otro.copia();
+            for (int i = 0; i < n; i++) {
+                resultado = resultado.agregar(valores[i]);
+            }
+            return resultado;
+        }
+
+        @Override
+        public int andCardinalidad(Contenedor otro) {
+            int total = 0;
+            for (int i = 0; i < n; i++) {
+                if (otro.contiene(valores[i])) {
+                    total++;
+                }
+            }
+            return total;
+        }
+
+        @Override
+        public int copiarA(int[] destino, int k, int saltar, int base) {
+            for (int i = saltar; i < n && k < destino.length; i++) {
+                destino[k++] = base | valores[i];
+            }
+            return k;
+        }
+
+        @Override
+        public Contenedor copia() {
+            return new Arreglo(Arrays.copyOf(valores, Math.max(4, n)), n);
+        }
+
+        @Override
+        public long bytes() {
+            return 16L + valores.length * 2L;
+        }
+
+        private Bits aBits() {
+            Bits bits = new Bits();
+            for (int i = 0; i < n; i++) {
+                bits.agregar(valores[i]);
+            }
+            return bits;
+        }
+    }
+
+    /**
+     * Contenedor denso: un bit por cada uno de los 65536 valores bajos
+     */
+    private static final class Bits implements Contenedor {
+
+        private final long[] palabras;
+        private int n;
+
+        Bits() {
+            this(new long[PALABRAS], 0);
+        }
+
+        Bits(long[] palabras, int n) {
+            this.palabras = palabras;
+            this.n = n;
+        }
+
+        @Override
+        public Contenedor agregar(char v) {
+            long antes = palabras[v >>> 6];
+            palabras[v >>> 6] = antes | 1L << v;
+            if (antes != palabras[v >>> 6]) {
+                n++;
+            }
+            return this;
+        }
+
+        @Override
+        public Contenedor quitar(char v) {
+            long antes = palabras[v >>> 6];
+            palabras[v >>> 6] = antes & ~(1L << v);
+            if (antes != palabras[v >>> 6]) {
+                n--;
+            }
+            return n <= MAX_ARREGLO ? aArreglo() : this;
+        }
+
+        @Override
+        public boolean contiene(char v) {
+            return (palabras[v >>> 6] & 1L << v) != 0;
+        }
+
+        @Override
+        public int cardinalidad() {
+            return n;
+        }
+
+        @Override
+        public Contenedor and(Contenedor otro) {
+            if (otro instanceof Arreglo arreglo) {
+                return arreglo.and(this);
+            }
+            long[] otras = ((Bits) otro).palabras;
+            long[] resultado = new long[PALABRAS];
+            int total = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                resultado[i] = palabras[i] & otras[i];
+                total += Long.bitCount(resultado[i]);
+            }
+            Bits bits = new Bits(resultado, total);
+            return total <= MAX_ARREGLO ? bits.aArreglo() : bits;
+        }
+
+        @Override
+        public Contenedor or(Contenedor otro) {
+            if (otro instanceof Arreglo arreglo) {
+                return arreglo.or(this);
+            }
+            long[] otras = ((Bits) otro).palabras;
+            long[] resultado = new long[PALABRAS];
+            int total = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                resultado[i] = palabras[i] | otras[i];
+                total += Long.bitCount(resultado[i]);
+            }
+            return new Bits(resultado, total);
+        }
+
+        @Override
+        public int andCardinalidad(Contenedor otro) {
+            if (otro instanceof Arreglo arreglo) {
+                return arreglo.andCardinalidad(this);
+            }
+            long[] otras = ((Bits) otro).palabras;
+            int total = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                total += Long.bitCount(palabras[i] & otras[i]);
+            }
+            return total;
+        }
+
+        @Override
+        public int copiarA(int[] destino, int k, int saltar, int base) {
+            for (int i = 0; i < PALABRAS && k < destino.length; i++) {
+                long palabra = palabras[i];
+                while (palabra != 0 && k < destino.length) {
+                    int bit = Long.numberOfTrailingZeros(palabra);
+                    palabra &= palabra - 1;
+                    if (saltar > 0) {
+                        saltar--;
+                    } else {
+                        destino[k++] = base | (i << 6 | bit);
+                    }
+                }
+            }
+            return k;
+        }
+
+        @Override
+        public Contenedor copia() {
+            return new Bits(palabras.clone(), n);
+        }
+
+        @Override
+        public long bytes() {
+            return 16L + PALABRAS * 8L;
+        }
+
+        private Arreglo aArreglo() {
+            char[] valores = new char[Math.max(4, n)];
+            int k = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                long palabra = palabras[i];
+                while (palabra != 0) {
+                    valores[k++] = (char) (i << 6 | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+            return new Arreglo(valores, k);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.sena.interval;
+
+import com.sena.model.EstadoFicha;
+import com.sena.model.Ficha;
+import com.sena.pool.Workload;
+import com.sena.pool.WorkloadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Índice en memoria de los periodos de las fichas (fecha de inicio a fecha de fin)
+ * Responde "qué fichas están en curso entre dos fechas" con un árbol de intervalos,
+ * sin la consulta de solapamiento (inicio <= hasta AND fin >= desde) que un índice
+ * B-tree no puede resolver con un solo rango.
+ *
+ * Las escrituras de fichas se aplican al confirmar y reconstruyen el árbol (las fichas
+ * son pocas); la reconstrucción periódica recoge los cambios de otros nodos. Los cambios
+ * confirmados mientras se lee la tabla se guardan y se vuelven a aplicar sobre la carga,
+ * que puede no incluirlos. Las fichas terminadas o canceladas siguen en el índice, pero
+ * no cuentan como en curso.
+ */
+@Component
+public class FichaIntervalIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FichaIntervalIndex.class);
+
+    private static final Set<String> NO_EN_CURSO = Set.of(EstadoFicha.TERMINADA.name(), EstadoFicha.CANCELADA.name());
+
+    private static final String CONSULTA =
+            "SELECT f.id, f.numero_ficha, f.jornada, f.estado, f.fecha_inicio, f.fecha_fin, p.id, p.nombre " +
+            "FROM fichas f JOIN programas p ON p.id = f.programa_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Fuente de verdad del índice; el árbol se reconstruye a partir de ella en cada cambio
+    private final Map<Long, Periodo> periodos = new HashMap<>();
+    private volatile IntervalTree<Periodo> arbol = IntervalTree.de(List.of(), Periodo::dia, Periodo::diaFin);
+    private volatile boolean listo;
+    // Cambios confirmados durante una reconstrucción (null si no hay ninguna en curso)
+    private List<Consumer<Map<Long, Periodo>>> pendientes;
+
+    public FichaIntervalIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Cargar todas las fichas (al arrancar y cada cierto tiempo)
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${sena.fichas.calendario.reconstruccion-ms:900000}")
+    public void reconstruir() {
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            long inicio = System.currentTimeMillis();
+            synchronized (this) {
+                pendientes = new ArrayList<>();
+            }
+            List<Periodo> cargados;
+            try {
+                cargados = jdbcTemplate.query(CONSULTA, (rs, i) -> new Periodo(
+                        rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getDate(5).toLocalDate(), rs.getDate(6).toLocalDate(), rs.getLong(7), rs.getString(8)));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendientes = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                periodos.clear();
+                cargados.forEach(p -> periodos.put(p.fichaId(), p));
+                pendientes.forEach(cambio -> cambio.accept(periodos));
+                pendientes = null;
+                publicar();
+                listo = true;
+            }
+            log.info("Índice de periodos de fichas construido en {} ms: {} fichas",
+                    System.currentTimeMillis() - inicio, cargados.size());
+        }
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    /**
+     * Una ficha fue creada o actualizada (con su programa cargado)
+     */
+    public void registrar(Ficha ficha) {
+        if (ficha.getFechaInicio() == null || ficha.getFechaFin() == null) {
+            return;
+        }
+        Periodo periodo = new Periodo(ficha.getId(), ficha.getCodigo(), ficha.getJornada(), ficha.getEstado(),
+                ficha.getFechaInicio(), ficha.getFechaFin(),
+                ficha.getPrograma() != null ? ficha.getPrograma().getId() : null,
+                ficha.getPrograma() != null ? ficha.getPrograma().getNombre() : null);
+        alConfirmar(m -> m.put(periodo.fichaId(), periodo));
+    }
+
+    /**
+     * Una ficha cambió de estado
+     */
+    public void cambiarEstado(Long fichaId, String estado) {
+        alConfirmar(m -> m.computeIfPresent(fichaId, (id, p) -> p.conEstado(estado)));
+    }
+
+    /**
+     * Una ficha fue eliminada
+     */
+    public void quitar(Long fichaId) {
+        alConfirmar(m -> m.remove(fichaId));
+    }
+
+    /**
+     * Un programa fue eliminado junto con sus fichas
+     */
+    public void quitarPrograma(Long programaId) {
+        alConfirmar(m -> m.values().removeIf(p -> programaId.equals(p.programaId())));
+    }
+
+    /**
+     * Fichas en curso en algún día de [desde, hasta], opcionalmente de una jornada, por fecha de inicio
+     * No incluye las terminadas ni las canceladas
+     */
+    public List<Periodo> enCurso(LocalDate desde, LocalDate hasta, String jornada) {
+        List<Periodo> resultado = new ArrayList<>();
+        arbol.solapados((int) desde.toEpochDay(), (int) hasta.toEpochDay(), p -> {
+            if (p.enCurso() && (jornada == null || jornada.equals(p.jornada()))) {
+                resultado.add(p);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Ocupación por semana (desde el lunes de "desde") y jornada: fichas en curso en cada semana
+     */
+    public Map<LocalDate, Map<String, Integer>> ocupacionSemanal(LocalDate desde, LocalDate hasta) {
+        IntervalTree<Periodo> actual = arbol;
+        Map<LocalDate, Map<String, Integer>> ocupacion = new LinkedHashMap<>();
+        LocalDate semana = desde.minusDays(desde.getDayOfWeek().getValue() - 1L);
+        while (!semana.isAfter(hasta)) {
+            Map<String, Integer> porJornada = new TreeMap<>();
+            actual.solapados((int) semana.toEpochDay(), (int) semana.plusDays(6).toEpochDay(), p -> {
+                if (p.enCurso()) {
+                    porJornada.merge(p.jornada(), 1, Integer::sum);
+                }
+            });
+            ocupacion.put(semana, porJornada);
+            semana = semana.plusWeeks(1);
+        }
+        return ocupacion;
+    }
+
+    private void alConfirmar(Consumer<Map<Long, Periodo>> cambio) {
+        Runnable aplicar = () -> {
+            synchronized (this) {
+                cambio.accept(periodos);
+                if (pendientes != null) {
+                    pendientes.add(cambio);
+                }
+                publicar();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar.run();
+                }
+            });
+        } else {
+            aplicar.run();
+        }
+    }
+
+    private void publicar() {
+        arbol = IntervalTree.de(periodos.values(), Periodo::dia, Periodo::diaFin);
+    }
+
+    /**
+     * Periodo de una ficha con los datos que muestra el calendario
+     */
+    public record Periodo(Long fichaId, String codigo, String jornada, String estado,
+                          LocalDate fechaInicio, LocalDate fechaFin, Long programaId, String programa) {
+
+        int dia() {
+            return (int) fechaInicio.toEpochDay();
+        }
+
+        int diaFin() {
+            return (int) fechaFin.toEpochDay();
+        }
+
+        boolean enCurso() {
+            return !NO_EN_CURSO.contains(estado);
+        }
+
+        Periodo conEstado(String nuevoEstado) {
+            return new Periodo(fichaId, codigo, jornada, nuevoEstado, fechaInicio, fechaFin, programaId, programa);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.sena.interval;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Árbol de intervalos inmutable sobre un arreglo ordenado por inicio
+ * El árbol es implícito (la raíz de cada rango es su elemento central) y cada nodo
+ * guarda el fin máximo de su subárbol, de modo que una consulta de solapamiento
+ * descarta subárboles completos y cuesta O(log n + k) para k resultados.
+ * Los extremos son inclusivos (por ejemplo, días desde la época).
+ */
+public final class IntervalTree<T> {
+
+    private final int[] inicios;
+    private final int[] fines;
+    private final int[] maxFin;
+    private final Object[] valores;
+
+    private IntervalTree(int[] inicios, int[] fines, Object[] valores) {
+        this.inicios = inicios;
+        this.fines = fines;
+        this.valores = valores;
+        this.maxFin = new int[valores.length];
+        calcularMaximos(0, valores.length);
+    }
+
+    public static <T> IntervalTree<T> de(Collection<T> elementos, ToIntFunction<T> inicio, ToIntFunction<T> fin) {
+        List<T> ordenados = new ArrayList<>(elementos);
+        ordenados.sort(Comparator.comparingInt(inicio));
+        int n = ordenados.size();
+        int[] inicios = new int[n];
+        int[] fines = new int[n];
+        Object[] valores = new Object[n];
+        for (int i = 0; i < n; i++) {
+            T elemento = ordenados.get(i);
+            inicios[i] = inicio.applyAsInt(elemento);
+            fines[i] = fin.applyAsInt(elemento);
+            valores[i] = elemento;
+        }
+        return new IntervalTree<>(inicios, fines, valores);
+    }
+
+    public int tamano() {
+        return valores.length;
+    }
+
+    /**
+     * Elementos cuyo intervalo se solapa con [desde, hasta], en orden de inicio
+     */
+    public List<T> solapados(int desde, int hasta) {
+        List<T> resultado = new ArrayList<>();
+        visitar(0, valores.length, desde, hasta, resultado::add);
+        return resultado;
+    }
+
+    /**
+     * Recorrer los elementos que se solapan con [desde, hasta] sin construir una lista
+     */
+    public void solapados(int desde, int hasta, Consumer<T> accion) {
+        visitar(0, valores.length, desde, hasta, accion);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void visitar(int lo, int hi, int desde, int hasta, Consumer<T> accion) {
+        while (lo < hi) {
+            int medio = (lo + hi) >>> 1;
+            if (maxFin[medio] < desde) {
+                return;
+            }
+            visitar(lo, medio, desde, hasta, accion);
+            // A la derecha todos empiezan después del nodo central
+            if (inicios[medio] > hasta) {
+                return;
+            }
+            if (fines[medio] >= desde) {
+                accion.accept((T) valores[medio]);
+            }
+            lo = medio + 1;
+        }
+    }
+
+    private int calcularMaximos(int lo, int hi) {
+        if (lo >= hi) {
+            return Integer.MIN_VALUE;
+        }
+        int medio = (lo + hi) >>> 1;
+        int maximo = Math.max(fines[medio], Math.max(calcularMaximos(lo, medio), calcularMaximos(medio + 1, hi)));
+        maxFin[medio] = maximo;
+        return maximo;
+    }
+}
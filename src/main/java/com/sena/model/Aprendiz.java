@@ -49,11 +49,16 @@ public class Aprendiz {
     private String estado = "ACTIVO";
 
     // Relación Many-to-One con Ficha
-    @NotNull
+    // Sin @NotNull: el formulario envía fichaId y el controlador la asigna después de validar
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ficha_id", nullable = false)
     private Ficha ficha;
 
+    // Control de concurrencia optimista
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "fecha_registro", nullable = false, insertable = false, updatable = false)
     private java.time.LocalDateTime fechaRegistro;
 
@@ -110,4 +115,6 @@ public class Aprendiz {
     public void setFicha(Ficha ficha) { this.ficha = ficha; }
     public java.time.LocalDateTime getFechaRegistro() { return fechaRegistro; }
     public void setFechaRegistro(java.time.LocalDateTime fechaRegistro) { this.fechaRegistro = fechaRegistro; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,58 @@
+package com.sena.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estados posibles de un aprendiz y transiciones permitidas entre ellos
+ * EN_ESPERA: inscrito en la lista de espera de una ficha llena, sin ocupar cupo. Pasa a
+ * ACTIVO solo por promoción al liberarse un cupo (CupoService), no por un cambio manual.
+ * Ocupan cupo solo ACTIVO e INACTIVO: al graduarse o retirarse el aprendiz deja su cupo.
+ */
+public enum EstadoAprendiz {
+
+    ACTIVO,
+    INACTIVO,
+    GRADUADO,
+    RETIRADO,
+    EN_ESPERA;
+
+    /**
+     * Indica si se permite pasar de este estado al estado destino
+     */
+    public boolean puedeCambiarA(EstadoAprendiz destino) {
+        return switch (this) {
+            case ACTIVO -> destino == INACTIVO || destino == GRADUADO || destino == RETIRADO;
+            case INACTIVO -> destino == ACTIVO || destino == RETIRADO;
+            case EN_ESPERA -> destino == RETIRADO;
+            case GRADUADO, RETIRADO -> false;
+        };
+    }
+
+    /**
+     * Indica si un aprendiz en este estado ocupa un cupo de su ficha
+     */
+    public boolean ocupaCupo() {
+        return this == ACTIVO || this == INACTIVO;
+    }
+
+    /**
+     * Nombres de los estados que ocupan cupo
+     */
+    public static List<String> conCupo() {
+        return List.of(ACTIVO.name(), INACTIVO.name());
+    }
+
+    /**
+     * Nombres de los estados desde los que se puede llegar al estado destino
+     */
+    public static List<String> origenesDe(EstadoAprendiz destino) {
+        List<String> origenes = new ArrayList<>();
+        for (EstadoAprendiz estado : values()) {
+            if (estado.puedeCambiarA(destino)) {
+                origenes.add(estado.name());
+            }
+        }
+        return origenes;
+    }
+}
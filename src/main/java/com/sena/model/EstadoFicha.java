@@ -0,0 +1,39 @@
+package com.sena.model;
+
+/**
+ * Estados posibles de una ficha y transiciones permitidas entre ellos
+ */
+public enum EstadoFicha {
+
+    ACTIVA,
+    INACTIVA,
+    SUSPENDIDA,
+    FINALIZADA,
+    TERMINADA,
+    CANCELADA;
+
+    /**
+     * Indica si se permite pasar de este estado al estado destino
+     */
+    public boolean puedeCambiarA(EstadoFicha destino) {
+        return switch (this) {
+            case ACTIVA -> destino == INACTIVA || destino == SUSPENDIDA
+                    || destino == TERMINADA || destino == CANCELADA;
+            case INACTIVA -> destino == ACTIVA || destino == CANCELADA;
+            case SUSPENDIDA -> destino == ACTIVA || destino == TERMINADA || destino == CANCELADA;
+            case FINALIZADA, TERMINADA, CANCELADA -> false;
+        };
+    }
+
+    /**
+     * Estado al que pasan los aprendices de la ficha al entrar en este estado,
+     * o null si el estado de la ficha no afecta a sus aprendices
+     */
+    public EstadoAprendiz getEstadoAprendices() {
+        return switch (this) {
+            case TERMINADA -> EstadoAprendiz.GRADUADO;
+            case CANCELADA -> EstadoAprendiz.RETIRADO;
+            default -> null;
+        };
+    }
+}
@@ -1,8 +1,8 @@
 package com.sena.model;
 
 import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
 import java.util.ArrayList;
@@ -22,7 +22,7 @@ public class Ficha {
     private String codigo;
 
     // Relación Many-to-One con Programa
-    @NotNull
+    // Sin @NotNull: el formulario envía programaId y el controlador lo asigna después de validar
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "programa_id", nullable = false)
     private Programa programa;
@@ -45,9 +45,31 @@ public class Ficha {
     @Column(name = "estado", length = 20)
     private String estado = "ACTIVA";
 
+    // Máximo de aprendices que ocupan cupo (null = sin límite, ver db/06_capacidad_fichas.sql)
+    @Min(1)
+    @Column(name = "capacidad")
+    private Integer capacidad;
+
+    // Solo lectura: se mantiene con UPDATE condicionales (FichaRepository.ocuparCupo/liberarCupo)
+    @Column(name = "cupos_ocupados", nullable = false, insertable = false, updatable = false)
+    private int cuposOcupados;
+
+    // Con la ficha llena, los nuevos aprendices quedan EN_ESPERA en lugar de rechazarse
+    @Column(name = "lista_espera", nullable = false)
+    private boolean listaEspera;
+
+    // Control de concurrencia optimista
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "fecha_creacion", nullable = false, insertable = false, updatable = false)
     private java.time.LocalDateTime fechaCreacion;
 
+    // Leída de fichas_archivo (solo lectura, ver ArchiveStore)
+    @Transient
+    private boolean archivada;
+
     public Ficha() {}
 
     public Ficha(String codigo, Programa programa) {
@@ -73,6 +95,16 @@ public class Ficha {
     public void setEstado(String estado) { this.estado = estado; }
     public java.time.LocalDateTime getFechaCreacion() { return fechaCreacion; }
     public void setFechaCreacion(java.time.LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    public Integer getCapacidad() { return capacidad; }
+    public void setCapacidad(Integer capacidad) { this.capacidad = capacidad; }
+    public int getCuposOcupados() { return cuposOcupados; }
+    public void setCuposOcupados(int cuposOcupados) { this.cuposOcupados = cuposOcupados; }
+    public boolean isListaEspera() { return listaEspera; }
+    public void setListaEspera(boolean listaEspera) { this.listaEspera = listaEspera; }
+    public boolean isArchivada() { return archivada; }
+    public void setArchivada(boolean archivada) { this.archivada = archivada; }
 
     public void addAprendiz(Aprendiz aprendiz) {
         aprendices.add(aprendiz);
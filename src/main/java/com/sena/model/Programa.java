@@ -41,6 +41,11 @@ public class Programa {
     @Column(name = "estado", length = 20)
     private String estado = "ACTIVO";
 
+    // Control de concurrencia optimista
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "fecha_creacion", nullable = false, insertable = false, updatable = false)
     private java.time.LocalDateTime fechaCreacion;
 
@@ -64,6 +69,8 @@ public class Programa {
     public void setEstado(String estado) { this.estado = estado; }
     public java.time.LocalDateTime getFechaCreacion() { return fechaCreacion; }
     public void setFechaCreacion(java.time.LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 
     public void addFicha(Ficha ficha) {
         fichas.add(ficha);
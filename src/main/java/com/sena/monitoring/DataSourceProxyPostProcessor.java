@@ -0,0 +1,36 @@
+package com.sena.monitoring;
+
+import com.sena.pool.ConnectionBulkhead;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Envuelve el DataSource de la aplicación con los compartimentos por clase de carga
+ * y el proxy de medición de sentencias, y entrega el DataSource original al registro
+ * de sentencias lentas (para EXPLAIN)
+ */
+@Component
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SlowQueryLog> slowQueryLog;
+    private final ObjectProvider<ConnectionBulkhead> connectionBulkhead;
+
+    public DataSourceProxyPostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog,
+                                        ObjectProvider<ConnectionBulkhead> connectionBulkhead) {
+        this.slowQueryLog = slowQueryLog;
+        this.connectionBulkhead = connectionBulkhead;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            SlowQueryLog listener = slowQueryLog.getObject();
+            listener.setDataSource(dataSource);
+            return JdbcProxyFactory.dataSource(connectionBulkhead.getObject().envolver(dataSource), listener);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,146 @@
+package com.sena.monitoring;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Crea proxies JDBC (DataSource, Connection, Statement) que miden cada sentencia ejecutada
+ * Además del contador por petición, notifica a un listener cada sentencia con su SQL,
+ * sus parámetros enlazados y su duración.
+ */
+public final class JdbcProxyFactory {
+
+    /**
+     * Recibe cada sentencia ejecutada a través del proxy
+     * La lista de parámetros se reutiliza: copiarla si se necesita conservar
+     */
+    @FunctionalInterface
+    public interface SentenciaListener {
+        void ejecutada(String sql, List<Object> parametros, long nanos);
+    }
+
+    private JdbcProxyFactory() {
+    }
+
+    /**
+     * Envolver un DataSource para que sus sentencias se cuenten y cronometren
+     */
+    public static DataSource dataSource(DataSource target, SentenciaListener listener) {
+        return (DataSource) Proxy.newProxyInstance(JdbcProxyFactory.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, new DataSourceHandler(target, listener));
+    }
+
+    private static Object invocar(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static final class DataSourceHandler implements InvocationHandler {
+
+        private final DataSource target;
+        private final SentenciaListener listener;
+
+        DataSourceHandler(DataSource target, SentenciaListener listener) {
+            this.target = target;
+            this.listener = listener;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object resultado = invocar(target, method, args);
+            if (resultado instanceof Connection connection) {
+                return Proxy.newProxyInstance(JdbcProxyFactory.class.getClassLoader(),
+                        new Class<?>[]{Connection.class}, new ConnectionHandler(connection, listener));
+            }
+            return resultado;
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final SentenciaListener listener;
+
+        ConnectionHandler(Connection target, SentenciaListener listener) {
+            this.target = target;
+            this.listener = listener;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object resultado = invocar(target, method, args);
+            Class<?> tipo = switch (method.getName()) {
+                case "createStatement" -> Statement.class;
+                case "prepareStatement" -> PreparedStatement.class;
+                case "prepareCall" -> CallableStatement.class;
+                default -> null;
+            };
+            if (tipo == null) {
+                return resultado;
+            }
+            // prepareStatement/prepareCall reciben el SQL como primer argumento
+            String sql = tipo == Statement.class ? null : (String) args[0];
+            return Proxy.newProxyInstance(JdbcProxyFactory.class.getClassLoader(),
+                    new Class<?>[]{tipo}, new StatementHandler((Statement) resultado, sql, listener));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String sql;
+        private final SentenciaListener listener;
+        private final List<Object> parametros = new ArrayList<>();
+
+        StatementHandler(Statement target, String sql, SentenciaListener listener) {
+            this.target = target;
+            this.sql = sql;
+            this.listener = listener;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                enlazar(indice, nombre.equals("setNull") ? null : args[1]);
+                return invocar(target, method, args);
+            }
+            if (nombre.equals("clearParameters")) {
+                parametros.clear();
+                return invocar(target, method, args);
+            }
+            if (!nombre.startsWith("execute")) {
+                return invocar(target, method, args);
+            }
+            long inicio = System.nanoTime();
+            try {
+                return invocar(target, method, args);
+            } finally {
+                long nanos = System.nanoTime() - inicio;
+                QueryCounter.registrar(nanos);
+                // Statement.execute*(sql) recibe el SQL en la llamada
+                String ejecutado = sql != null ? sql : args != null && args.length > 0 ? (String) args[0] : null;
+                listener.ejecutada(ejecutado, parametros, nanos);
+            }
+        }
+
+        private void enlazar(int indice, Object valor) {
+            while (parametros.size() < indice) {
+                parametros.add(null);
+            }
+            parametros.set(indice - 1, valor);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.sena.monitoring;
+
+import com.sena.exception.InvalidParameterValueException;
+import com.sena.exception.OperationInProgressException;
+import com.sena.exception.ResourceNotFoundException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grabaciones JFR acotadas en tiempo, iniciadas desde /admin/diagnostico
+ * La configuración "profile" incluye el muestreo de CPU cada 10-20 ms, del que se
+ * obtiene el flame graph (JDK Mission Control, o "jfr print --events jdk.ExecutionSample").
+ * Solo se permite una grabación activa y se conservan las últimas terminadas en disco.
+ */
+@Component
+public class JfrRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(JfrRecorder.class);
+
+    private final Path directorio;
+    private final int maxSegundos;
+    private final int maxConservadas;
+    private final List<Recording> grabaciones = new ArrayList<>();
+
+    public JfrRecorder(@Value("${sena.profiling.directorio:${java.io.tmpdir}/sena-jfr}") String directorio,
+                       @Value("${sena.profiling.max-segundos:300}") int maxSegundos,
+                       @Value("${sena.profiling.grabaciones-conservadas:5}") int maxConservadas) {
+        this.directorio = Paths.get(directorio);
+        this.maxSegundos = maxSegundos;
+        this.maxConservadas = maxConservadas;
+    }
+
+    /**
+     * Iniciar una grabación que se detiene sola al cumplir la duración
+     */
+    public synchronized Map<String, Object> iniciar(int segundos, String configuracion)
+            throws IOException, ParseException {
+        if (segundos < 1 || segundos > maxSegundos) {
+            throw new InvalidParameterValueException("La duración debe estar entre 1 y " + maxSegundos + " segundos");
+        }
+        if (!configuracion.equals("default") && !configuracion.equals("profile")) {
+            throw new InvalidParameterValueException("Configuración JFR no válida: " + configuracion);
+        }
+        if (grabaciones.stream().anyMatch(r -> r.getState() == RecordingState.RUNNING)) {
+            throw new OperationInProgressException("Ya hay una grabación en curso");
+        }
+
+        Files.createDirectories(directorio);
+        Recording recording = new Recording(Configuration.getConfiguration(configuracion));
+        recording.setName("sena-" + Instant.now().getEpochSecond());
+        recording.enable(RequestProfileEvent.class);
+        recording.setToDisk(true);
+        recording.setDuration(Duration.ofSeconds(segundos));
+        recording.setDestination(directorio.resolve(recording.getName() + ".jfr"));
+        recording.start();
+        grabaciones.add(recording);
+        descartarAntiguas();
+
+        log.info("Grabación JFR {} iniciada ({} s, configuración {})", recording.getId(), segundos, configuracion);
+        return describir(recording);
+    }
+
+    /**
+     * Detener antes de tiempo una grabación en curso
+     */
+    public synchronized Map<String, Object> detener(long id) {
+        Recording recording = buscar(id);
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Grabación JFR {} detenida", id);
+        }
+        return describir(recording);
+    }
+
+    public synchronized List<Map<String, Object>> listar() {
+        return grabaciones.stream().map(this::describir).toList();
+    }
+
+    /**
+     * Archivo de una grabación terminada
+     */
+    public synchronized Path getArchivo(long id) {
+        Recording recording = buscar(id);
+        if (recording.getState() != RecordingState.STOPPED && recording.getState() != RecordingState.CLOSED) {
+            throw new OperationInProgressException("La grabación " + id + " aún no ha terminado");
+        }
+        Path archivo = recording.getDestination();
+        if (archivo == null || !Files.exists(archivo)) {
+            throw new ResourceNotFoundException("La grabación " + id + " no tiene archivo disponible");
+        }
+        return archivo;
+    }
+
+    @PreDestroy
+    public synchronized void cerrar() {
+        grabaciones.forEach(Recording::close);
+    }
+
+    private Recording buscar(long id) {
+        return grabaciones.stream().filter(r -> r.getId() == id).findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Grabación no encontrada con ID: " + id));
+    }
+
+    private void descartarAntiguas() {
+        while (grabaciones.size() > maxConservadas) {
+            Recording antigua = grabaciones.remove(0);
+            Path archivo = antigua.getDestination();
+            antigua.close();
+            try {
+                if (archivo != null) {
+                    Files.deleteIfExists(archivo);
+                }
+            } catch (IOException e) {
+                log.warn("No se pudo borrar la grabación {}: {}", archivo, e.getMessage());
+            }
+        }
+    }
+
+    private Map<String, Object> describir(Recording recording) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", recording.getId());
+        m.put("nombre", recording.getName());
+        m.put("estado", recording.getState().name());
+        m.put("inicio", recording.getStartTime());
+        m.put("duracionSegundos", recording.getDuration() == null ? null : recording.getDuration().toSeconds());
+        m.put("tamanoBytes", recording.getState() == RecordingState.STOPPED ? recording.getSize() : null);
+        return m;
+    }
+}
@@ -0,0 +1,79 @@
+package com.sena.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Cuenta las sentencias SQL y el tiempo de cada petición HTTP
+ * Con un presupuesto configurado, avisa de las peticiones que lo superan (posibles N+1).
+ * En modo estricto (pensado para pruebas e integración continua) añade las cabeceras
+ * X-Consultas-SQL y X-Tiempo-SQL-ms y responde 500 si se supera el presupuesto.
+ * Va antes que los demás filtros propios: reinicia QueryCounter y los de dentro
+ * (RateLimitFilter) leen sus valores por diferencia.
+ */
+@Component
+@Order(QueryCountFilter.ORDEN)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    /** Justo después de los filtros de Spring que fijan la codificación */
+    public static final int ORDEN = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final int maxConsultas;
+    private final boolean estricto;
+
+    public QueryCountFilter(@Value("${sena.monitoring.consultas.max-por-peticion:0}") int maxConsultas,
+                            @Value("${sena.monitoring.consultas.estricto:false}") boolean estricto) {
+        this.maxConsultas = maxConsultas;
+        this.estricto = estricto;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryCounter.reset();
+        long inicio = System.nanoTime();
+        HttpServletResponse destino = estricto ? new ContentCachingResponseWrapper(response) : response;
+
+        try {
+            filterChain.doFilter(request, destino);
+        } finally {
+            long consultas = QueryCounter.getConsultas();
+            long tiempoSqlMs = QueryCounter.getTiempoNanos() / 1_000_000;
+            long tiempoMs = (System.nanoTime() - inicio) / 1_000_000;
+            boolean excedido = maxConsultas > 0 && consultas > maxConsultas;
+
+            if (excedido) {
+                log.warn("{} {} ejecutó {} sentencias SQL (máximo {}) en {} ms de {} ms",
+                        request.getMethod(), request.getRequestURI(), consultas, maxConsultas, tiempoSqlMs, tiempoMs);
+            } else {
+                log.debug("{} {} -> {} sentencias SQL en {} ms de {} ms",
+                        request.getMethod(), request.getRequestURI(), consultas, tiempoSqlMs, tiempoMs);
+            }
+
+            if (destino instanceof ContentCachingResponseWrapper wrapper) {
+                wrapper.setHeader("X-Consultas-SQL", String.valueOf(consultas));
+                wrapper.setHeader("X-Tiempo-SQL-ms", String.valueOf(tiempoSqlMs));
+                if (excedido) {
+                    wrapper.resetBuffer();
+                    wrapper.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                            "Presupuesto de sentencias SQL superado: " + consultas + " > " + maxConsultas);
+                }
+                wrapper.copyBodyToResponse();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.sena.monitoring;
+
+/**
+ * Contador de sentencias SQL y tiempo de base de datos por hilo (por petición HTTP)
+ * Lo alimenta el proxy del DataSource y lo reinicia QueryCountFilter al inicio de cada petición.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<long[]> CONTADOR = ThreadLocal.withInitial(() -> new long[2]);
+
+    private QueryCounter() {
+    }
+
+    /**
+     * Reiniciar el contador del hilo actual
+     */
+    public static void reset() {
+        long[] contador = CONTADOR.get();
+        contador[0] = 0;
+        contador[1] = 0;
+    }
+
+    /**
+     * Registrar una sentencia ejecutada y su duración
+     */
+    public static void registrar(long nanos) {
+        long[] contador = CONTADOR.get();
+        contador[0]++;
+        contador[1] += nanos;
+    }
+
+    /**
+     * Número de sentencias ejecutadas desde el último reinicio
+     */
+    public static long getConsultas() {
+        return CONTADOR.get()[0];
+    }
+
+    /**
+     * Tiempo acumulado en base de datos desde el último reinicio, en nanosegundos
+     */
+    public static long getTiempoNanos() {
+        return CONTADOR.get()[1];
+    }
+
+    /**
+     * Verificar que se ejecutó exactamente el número de sentencias esperado
+     * Pensado para pruebas: detecta cargas perezosas (N+1) y consultas nuevas
+     */
+    public static void expectQueries(long esperadas) {
+        long ejecutadas = getConsultas();
+        if (ejecutadas != esperadas) {
+            throw new IllegalStateException(
+                    "Se esperaban " + esperadas + " sentencias SQL pero se ejecutaron " + ejecutadas);
+        }
+    }
+
+    /**
+     * Verificar que no se superó un número máximo de sentencias
+     */
+    public static void expectAtMostQueries(long maximo) {
+        long ejecutadas = getConsultas();
+        if (ejecutadas > maximo) {
+            throw new IllegalStateException(
+                    "Se esperaban como máximo " + maximo + " sentencias SQL pero se ejecutaron " + ejecutadas);
+        }
+    }
+}
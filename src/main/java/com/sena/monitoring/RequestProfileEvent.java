@@ -0,0 +1,41 @@
+package com.sena.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR con el desglose de tiempo de una petición perfilada
+ * Queda incluido en las grabaciones JFR junto a los muestreos de CPU
+ */
+@Name("com.sena.PeticionPerfilada")
+@Label("Petición perfilada")
+@Category({"SENA", "Web"})
+@Description("Desglose del tiempo de una petición HTTP")
+@StackTrace(false)
+public class RequestProfileEvent extends jdk.jfr.Event {
+
+    @Label("URI")
+    String uri;
+
+    @Label("Patrón")
+    String patron;
+
+    @Label("Sentencias SQL")
+    long consultas;
+
+    @Label("Espera de base de datos")
+    @Timespan(Timespan.NANOSECONDS)
+    long baseDatos;
+
+    @Label("Hidratación y lógica (sin BD)")
+    @Timespan(Timespan.NANOSECONDS)
+    long hidratacion;
+
+    @Label("Renderizado / serialización")
+    @Timespan(Timespan.NANOSECONDS)
+    long renderizado;
+}
@@ -0,0 +1,150 @@
+package com.sena.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Desglosa el tiempo de las peticiones que coinciden con sena.profiling.patrones
+ * (registrado en WebConfig) en:
+ *  - base de datos: tiempo de ejecución de sentencias medido por QueryCounter
+ *  - hidratación y lógica: resto del tiempo del controlador (Hibernate, servicios)
+ *  - renderizado: vista Thymeleaf o serialización de la respuesta
+ *
+ * Acumula los totales por patrón de URL y emite un RequestProfileEvent por petición,
+ * que solo cuesta algo mientras hay una grabación JFR activa.
+ */
+@Component
+public class RequestProfiler implements HandlerInterceptor {
+
+    private static final String ATRIBUTO = RequestProfiler.class.getName() + ".medicion";
+
+    private final Map<String, Estadistica> estadisticas = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Medicion medicion = new Medicion();
+        medicion.evento.begin();
+        medicion.inicio = System.nanoTime();
+        medicion.consultasInicio = QueryCounter.getConsultas();
+        medicion.bdInicio = QueryCounter.getTiempoNanos();
+        request.setAttribute(ATRIBUTO, medicion);
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (request.getAttribute(ATRIBUTO) instanceof Medicion medicion) {
+            medicion.finControlador = System.nanoTime();
+            medicion.bdControlador = QueryCounter.getTiempoNanos();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(request.getAttribute(ATRIBUTO) instanceof Medicion medicion)) {
+            return;
+        }
+        long fin = System.nanoTime();
+        // Sin postHandle (excepción en el controlador) todo cuenta como tiempo del controlador
+        long finControlador = medicion.finControlador > 0 ? medicion.finControlador : fin;
+        long bdControlador = medicion.finControlador > 0 ? medicion.bdControlador : QueryCounter.getTiempoNanos();
+
+        long baseDatos = QueryCounter.getTiempoNanos() - medicion.bdInicio;
+        long hidratacion = Math.max(0, finControlador - medicion.inicio - (bdControlador - medicion.bdInicio));
+        long renderizado = Math.max(0, fin - finControlador - (QueryCounter.getTiempoNanos() - bdControlador));
+        long consultas = QueryCounter.getConsultas() - medicion.consultasInicio;
+
+        Object patronAtributo = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String patron = request.getMethod() + " " + (patronAtributo != null ? patronAtributo : request.getRequestURI());
+        estadisticas.computeIfAbsent(patron, p -> new Estadistica())
+                .registrar(fin - medicion.inicio, consultas, baseDatos, hidratacion, renderizado);
+
+        RequestProfileEvent evento = medicion.evento;
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.uri = request.getRequestURI();
+            evento.patron = patron;
+            evento.consultas = consultas;
+            evento.baseDatos = baseDatos;
+            evento.hidratacion = hidratacion;
+            evento.renderizado = renderizado;
+            evento.commit();
+        }
+    }
+
+    /**
+     * Resumen por patrón de URL, ordenado por tiempo total acumulado
+     */
+    public List<Map<String, Object>> getResumen() {
+        List<Map<String, Object>> resumen = new ArrayList<>();
+        estadisticas.forEach((patron, e) -> resumen.add(e.resumen(patron)));
+        resumen.sort(Comparator.comparingDouble((Map<String, Object> m) -> (Double) m.get("totalMs")).reversed());
+        return resumen;
+    }
+
+    /**
+     * Reiniciar los acumulados
+     */
+    public void reiniciar() {
+        estadisticas.clear();
+    }
+
+    private static final class Medicion {
+        final RequestProfileEvent evento = new RequestProfileEvent();
+        long inicio;
+        long consultasInicio;
+        long bdInicio;
+        long finControlador;
+        long bdControlador;
+    }
+
+    private static final class Estadistica {
+        final LongAdder peticiones = new LongAdder();
+        final LongAdder total = new LongAdder();
+        final LongAdder consultas = new LongAdder();
+        final LongAdder baseDatos = new LongAdder();
+        final LongAdder hidratacion = new LongAdder();
+        final LongAdder renderizado = new LongAdder();
+        final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+        void registrar(long total, long consultas, long baseDatos, long hidratacion, long renderizado) {
+            this.peticiones.increment();
+            this.total.add(total);
+            this.consultas.add(consultas);
+            this.baseDatos.add(baseDatos);
+            this.hidratacion.add(hidratacion);
+            this.renderizado.add(renderizado);
+            this.maximo.accumulate(total);
+        }
+
+        Map<String, Object> resumen(String patron) {
+            long n = Math.max(1, peticiones.sum());
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("patron", patron);
+            m.put("peticiones", peticiones.sum());
+            m.put("totalMs", total.sum() / 1e6);
+            m.put("mediaMs", total.sum() / 1e6 / n);
+            m.put("maximoMs", maximo.get() / 1e6);
+            m.put("consultasMedia", consultas.sum() / (double) n);
+            m.put("baseDatosMediaMs", baseDatos.sum() / 1e6 / n);
+            m.put("hidratacionMediaMs", hidratacion.sum() / 1e6 / n);
+            m.put("renderizadoMediaMs", renderizado.sum() / 1e6 / n);
+            return m;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.sena.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro de sentencias lentas
+ * Toda sentencia que supera sena.monitoring.consultas-lentas.umbral-ms se registra con
+ * sus parámetros, el método de servicio que la originó y, para los SELECT, la salida
+ * de EXPLAIN de MySQL. Se conservan las últimas en un buffer circular acotado que se
+ * consulta en /admin/diagnostico/consultas-lentas.
+ *
+ * El EXPLAIN se ejecuta en un hilo aparte con una conexión sin instrumentar, para no
+ * alargar la petición lenta ni contarse a sí mismo.
+ */
+@Component
+public class SlowQueryLog implements JdbcProxyFactory.SentenciaListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final long umbralNanos;
+    private final int capacidad;
+    private final boolean explain;
+    private final Deque<ConsultaLenta> recientes = new ArrayDeque<>();
+    private final Map<String, String> explainPorSql = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > 200;
+        }
+    };
+    // Un solo hilo y cola corta: si se acumulan, se descartan EXPLAIN en lugar de cargar la BD
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(20), r -> {
+                Thread t = new Thread(r, "sena-explain");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private volatile DataSource dataSource;
+
+    public SlowQueryLog(@Value("${sena.monitoring.consultas-lentas.umbral-ms:500}") long umbralMs,
+                        @Value("${sena.monitoring.consultas-lentas.capacidad:100}") int capacidad,
+                        @Value("${sena.monitoring.consultas-lentas.explain:true}") boolean explain) {
+        this.umbralNanos = TimeUnit.MILLISECONDS.toNanos(umbralMs);
+        this.capacidad = capacidad;
+        this.explain = explain;
+    }
+
+    /**
+     * DataSource sin instrumentar con el que se ejecutan los EXPLAIN
+     */
+    void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void ejecutada(String sql, List<Object> parametros, long nanos) {
+        if (umbralNanos <= 0 || nanos < umbralNanos || sql == null) {
+            return;
+        }
+        ConsultaLenta consulta = new ConsultaLenta(Instant.now(), sql, new ArrayList<>(parametros),
+                nanos / 1_000_000, metodoDeServicio());
+        log.warn("Sentencia lenta ({} ms) desde {}: {} parámetros {}",
+                consulta.duracionMs, consulta.origen, sql, consulta.parametros);
+
+        synchronized (recientes) {
+            if (recientes.size() == capacidad) {
+                recientes.removeFirst();
+            }
+            recientes.addLast(consulta);
+        }
+
+        if (explain && dataSource != null && sql.stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+            String previo;
+            synchronized (explainPorSql) {
+                previo = explainPorSql.get(sql);
+            }
+            if (previo != null) {
+                consulta.explain = previo;
+            } else {
+                explainExecutor.execute(() -> explicar(consulta));
+            }
+        }
+    }
+
+    /**
+     * Últimas sentencias lentas, de la más reciente a la más antigua
+     */
+    public List<ConsultaLenta> getRecientes() {
+        synchronized (recientes) {
+            List<ConsultaLenta> lista = new ArrayList<>(recientes);
+            Collections.reverse(lista);
+            return lista;
+        }
+    }
+
+    public void limpiar() {
+        synchronized (recientes) {
+            recientes.clear();
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        explainExecutor.shutdownNow();
+    }
+
+    private void explicar(ConsultaLenta consulta) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("EXPLAIN " + consulta.sql)) {
+            for (int i = 0; i < consulta.parametros.size(); i++) {
+                ps.setObject(i + 1, consulta.parametros.get(i));
+            }
+            StringBuilder salida = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    for (int c = 1; c <= meta.getColumnCount(); c++) {
+                        salida.append(c > 1 ? " | " : "").append(meta.getColumnLabel(c)).append('=').append(rs.getString(c));
+                    }
+                    salida.append('\n');
+                }
+            }
+            consulta.explain = salida.toString();
+            synchronized (explainPorSql) {
+                explainPorSql.put(consulta.sql, consulta.explain);
+            }
+            log.warn("EXPLAIN de la sentencia lenta desde {}:\n{}", consulta.origen, consulta.explain);
+        } catch (Exception e) {
+            consulta.explain = "EXPLAIN no disponible: " + e.getMessage();
+            log.debug("No se pudo obtener el EXPLAIN de {}: {}", consulta.sql, e.getMessage());
+        }
+    }
+
+    /**
+     * Primer método de servicio de la pila (los repositorios son proxies sin marco propio útil)
+     */
+    private static String metodoDeServicio() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith("com.sena.service.")
+                        || f.getClassName().startsWith("com.sena.controller."))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1)
+                        + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("desconocido"));
+    }
+
+    /**
+     * Sentencia lenta registrada
+     */
+    public static final class ConsultaLenta {
+
+        private final Instant instante;
+        private final String sql;
+        private final List<Object> parametros;
+        private final long duracionMs;
+        private final String origen;
+        private volatile String explain;
+
+        ConsultaLenta(Instant instante, String sql, List<Object> parametros, long duracionMs, String origen) {
+            this.instante = instante;
+            this.sql = sql;
+            this.parametros = parametros;
+            this.duracionMs = duracionMs;
+            this.origen = origen;
+        }
+
+        public Instant getInstante() {
+            return instante;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getParametros() {
+            return parametros;
+        }
+
+        public long getDuracionMs() {
+            return duracionMs;
+        }
+
+        public String getOrigen() {
+            return origen;
+        }
+
+        public String getExplain() {
+            return explain;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.sena.outbox;
+
+/**
+ * Tipo de cambio registrado en el outbox
+ */
+public enum Operacion {
+    CREADO,
+    ACTUALIZADO,
+    ELIMINADO,
+    // Movido a las tablas de archivo: sigue existiendo, pero ya no cambia
+    ARCHIVADO
+}
@@ -0,0 +1,134 @@
+package com.sena.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.sena.pool.Workload;
+import com.sena.pool.WorkloadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publica los eventos del outbox asignándoles una secuencia contigua
+ *
+ * El id autoincremental no sirve como posición para los consumidores: una transacción
+ * que obtuvo un id menor puede confirmarse después de otra con un id mayor, y un
+ * consumidor que ya pasó ese punto la perdería. Este relay numera los eventos en el
+ * orden en que se hacen visibles (ya confirmados). La última secuencia asignada vive en
+ * la fila de outbox_secuencia, que cada numeración bloquea hasta confirmar: solo un
+ * nodo numera a la vez, y la purga de eventos antiguos no reinicia la numeración. Así la
+ * secuencia no tiene huecos ni reordenamientos y "desde" en /api/cambios es una
+ * posición segura para reanudar.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+    private final int retencionDias;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       @Value("${sena.outbox.tamano-lote:1000}") int tamanoLote,
+                       @Value("${sena.outbox.retencion-dias:7}") int retencionDias) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.retencionDias = retencionDias;
+    }
+
+    /**
+     * Numerar los eventos confirmados que aún no tienen secuencia
+     */
+    @Scheduled(fixedDelayString = "${sena.outbox.intervalo-ms:500}")
+    public void publicar() {
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            Integer publicados = transactionTemplate.execute(status -> {
+                // El bloqueo de la fila dura hasta el commit; si otro nodo la tiene, no se espera
+                List<Long> ultima = jdbcTemplate.queryForList(
+                        "SELECT ultima FROM outbox_secuencia WHERE id = 1 FOR UPDATE SKIP LOCKED", Long.class);
+                return ultima.isEmpty() ? 0 : numerar(ultima.get(0));
+            });
+            if (publicados != null && publicados > 0) {
+                log.debug("Outbox: {} evento(s) publicados", publicados);
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron publicar los eventos del outbox: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Borrar eventos publicados más antiguos que la retención
+     */
+    @Scheduled(cron = "${sena.outbox.purga.cron:0 15 3 * * *}")
+    public void purgar() {
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            int borrados = jdbcTemplate.update(
+                    "DELETE FROM outbox_eventos WHERE secuencia IS NOT NULL AND publicado < ?",
+                    Timestamp.from(Instant.now().minus(retencionDias, ChronoUnit.DAYS)));
+            log.info("Outbox: {} evento(s) purgados (retención {} días)", borrados, retencionDias);
+        }
+    }
+
+    /**
+     * Eventos publicados a partir de una secuencia (exclusiva)
+     */
+    public List<Evento> leer(long desde, int limite, String tipo) {
+        String sql = "SELECT secuencia, tipo_entidad, entidad_id, operacion, datos, creado FROM outbox_eventos " +
+                "WHERE secuencia > ?" + (tipo != null ? " AND tipo_entidad = ?" : "") +
+                " ORDER BY secuencia LIMIT ?";
+        Object[] args = tipo != null ? new Object[]{desde, tipo, limite} : new Object[]{desde, limite};
+        return jdbcTemplate.query(sql, (rs, i) -> new Evento(
+                rs.getLong("secuencia"), rs.getString("tipo_entidad"), rs.getLong("entidad_id"),
+                rs.getString("operacion"), rs.getString("datos"), rs.getTimestamp("creado").toInstant()), args);
+    }
+
+    /**
+     * Menor secuencia aún disponible; si la purga vació el outbox, la siguiente que se asignará
+     */
+    public long getSecuenciaMinima() {
+        Long minima = jdbcTemplate.queryForObject(
+                "SELECT COALESCE((SELECT MIN(secuencia) FROM outbox_eventos WHERE secuencia IS NOT NULL), " +
+                        "(SELECT ultima + 1 FROM outbox_secuencia WHERE id = 1), 0)", Long.class);
+        return minima == null ? 0 : minima;
+    }
+
+    /**
+     * Numerar a continuación de la última secuencia (con la fila de outbox_secuencia bloqueada)
+     */
+    private int numerar(long ultima) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM outbox_eventos WHERE secuencia IS NULL ORDER BY id LIMIT ?", Long.class, tamanoLote);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long secuencia = ultima;
+        List<Object[]> filas = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            filas.add(new Object[]{++secuencia, id});
+        }
+        jdbcTemplate.batchUpdate("UPDATE outbox_eventos SET secuencia = ?, publicado = NOW(3) WHERE id = ?", filas);
+        jdbcTemplate.update("UPDATE outbox_secuencia SET ultima = ? WHERE id = 1", secuencia);
+        return ids.size();
+    }
+
+    /**
+     * Evento del flujo de cambios
+     */
+    public record Evento(long secuencia, String tipo, long entidadId, String operacion,
+                         @JsonRawValue String datos, Instant fecha) {
+    }
+}
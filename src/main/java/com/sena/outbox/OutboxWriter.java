@@ -0,0 +1,142 @@
+package com.sena.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sena.cache.TipoEntidad;
+import com.sena.model.Aprendiz;
+import com.sena.model.Ficha;
+import com.sena.model.Programa;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registra cambios de entidades en la tabla outbox_eventos
+ * Se llama desde los métodos de escritura de los servicios, dentro de su transacción:
+ * el evento existe si y solo si el cambio se confirma. OutboxRelay les asigna después
+ * una secuencia contigua que los consumidores usan como posición en /api/cambios.
+ */
+@Component
+public class OutboxWriter {
+
+    private static final String INSERT =
+            "INSERT INTO outbox_eventos (tipo_entidad, entidad_id, operacion, datos) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void aprendiz(Operacion operacion, Aprendiz aprendiz) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("id", aprendiz.getId());
+        datos.put("tipoDocumento", aprendiz.getTipoDocumento());
+        datos.put("documento", aprendiz.getDocumento());
+        datos.put("nombres", aprendiz.getNombres());
+        datos.put("apellidos", aprendiz.getApellidos());
+        datos.put("correo", aprendiz.getCorreo());
+        datos.put("estado", aprendiz.getEstado());
+        datos.put("fichaId", aprendiz.getFicha() != null ? aprendiz.getFicha().getId() : null);
+        registrar(TipoEntidad.APRENDIZ, aprendiz.getId(), operacion, datos);
+    }
+
+    public void ficha(Operacion operacion, Ficha ficha) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("id", ficha.getId());
+        datos.put("codigo", ficha.getCodigo());
+        datos.put("programaId", ficha.getPrograma() != null ? ficha.getPrograma().getId() : null);
+        datos.put("fechaInicio", ficha.getFechaInicio());
+        datos.put("fechaFin", ficha.getFechaFin());
+        datos.put("jornada", ficha.getJornada());
+        datos.put("estado", ficha.getEstado());
+        datos.put("capacidad", ficha.getCapacidad());
+        datos.put("listaEspera", ficha.isListaEspera());
+        registrar(TipoEntidad.FICHA, ficha.getId(), operacion, datos);
+    }
+
+    public void programa(Operacion operacion, Programa programa) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("id", programa.getId());
+        datos.put("codigo", programa.getCodigo());
+        datos.put("nombre", programa.getNombre());
+        datos.put("nivel", programa.getNivel());
+        datos.put("duracion", programa.getDuracion());
+        datos.put("estado", programa.getEstado());
+        registrar(TipoEntidad.PROGRAMA, programa.getId(), operacion, datos);
+    }
+
+    /**
+     * Registrar la eliminación de una entidad
+     */
+    public void eliminado(TipoEntidad tipo, Long id) {
+        registrar(tipo, id, Operacion.ELIMINADO, Map.of("id", id));
+    }
+
+    /**
+     * Registrar la eliminación en cascada de los aprendices de una ficha
+     * Llamar antes de borrar la ficha: los ids se leen en la misma transacción
+     */
+    public void aprendicesEliminadosDeFicha(Long fichaId) {
+        jdbcTemplate.update("INSERT INTO outbox_eventos (tipo_entidad, entidad_id, operacion, datos) " +
+                        "SELECT ?, a.id, ?, CONCAT('{\"id\":', a.id, '}') FROM aprendices a WHERE a.ficha_id = ?",
+                TipoEntidad.APRENDIZ.name(), Operacion.ELIMINADO.name(), fichaId);
+    }
+
+    /**
+     * Registrar la eliminación en cascada de las fichas (y sus aprendices) de un programa
+     * Llamar antes de borrar el programa
+     */
+    public void fichasEliminadasDePrograma(Long programaId) {
+        jdbcTemplate.update("INSERT INTO outbox_eventos (tipo_entidad, entidad_id, operacion, datos) " +
+                        "SELECT ?, a.id, ?, CONCAT('{\"id\":', a.id, '}') FROM aprendices a " +
+                        "JOIN fichas f ON f.id = a.ficha_id WHERE f.programa_id = ?",
+                TipoEntidad.APRENDIZ.name(), Operacion.ELIMINADO.name(), programaId);
+        jdbcTemplate.update("INSERT INTO outbox_eventos (tipo_entidad, entidad_id, operacion, datos) " +
+                        "SELECT ?, f.id, ?, CONCAT('{\"id\":', f.id, '}') FROM fichas f WHERE f.programa_id = ?",
+                TipoEntidad.FICHA.name(), Operacion.ELIMINADO.name(), programaId);
+    }
+
+    /**
+     * Registrar el archivo de una ficha y de sus aprendices
+     * Llamar antes de borrarlos de las tablas de trabajo
+     */
+    public void fichaArchivada(Long fichaId) {
+        jdbcTemplate.update("INSERT INTO outbox_eventos (tipo_entidad, entidad_id, operacion, datos) " +
+                        "SELECT ?, a.id, ?, CONCAT('{\"id\":', a.id, ',\"fichaId\":', a.ficha_id, '}') " +
+                        "FROM aprendices a WHERE a.ficha_id = ?",
+                TipoEntidad.APRENDIZ.name(), Operacion.ARCHIVADO.name(), fichaId);
+        registrar(TipoEntidad.FICHA, fichaId, Operacion.ARCHIVADO, Map.of("id", fichaId));
+    }
+
+    /**
+     * Registrar el mismo cambio de estado para varias entidades (transiciones masivas)
+     */
+    public void cambioDeEstado(TipoEntidad tipo, Collection<Long> ids, String estado) {
+        List<Object[]> filas = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            filas.add(new Object[]{tipo.name(), id, Operacion.ACTUALIZADO.name(),
+                    json(Map.of("id", id, "estado", estado))});
+        }
+        jdbcTemplate.batchUpdate(INSERT, filas);
+    }
+
+    private void registrar(TipoEntidad tipo, Long id, Operacion operacion, Map<String, Object> datos) {
+        jdbcTemplate.update(INSERT, tipo.name(), id, operacion.name(), json(datos));
+    }
+
+    private String json(Map<String, Object> datos) {
+        try {
+            return objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento de cambio", e);
+        }
+    }
+}
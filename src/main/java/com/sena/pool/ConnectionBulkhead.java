@@ -0,0 +1,270 @@
+package com.sena.pool;
+
+import com.sena.exception.InvalidParameterValueException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compartimentos (bulkheads) del pool de conexiones por clase de carga
+ * Cada clase tiene un máximo de conexiones simultáneas y su propio tiempo de espera,
+ * configurables con sena.pool.{lectura|escritura|busqueda|masiva}.{max-conexiones|timeout-ms}.
+ * Una ráfaga de búsquedas agota su compartimento y recibe error rápido, pero deja
+ * conexiones libres para formularios y listados.
+ *
+ * Los máximos son partes del pool Hikari y deben sumar como mucho su tamaño; si no, una
+ * clase puede quedarse esperando en Hikari con permisos libres en su compartimento. Cuando
+ * PoolAutoTuner cambia el tamaño del pool, los compartimentos se reparten el nuevo tamaño
+ * en la misma proporción (ajustarAlPool).
+ */
+@Component
+public class ConnectionBulkhead {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionBulkhead.class);
+
+    private final Map<Workload, Compartimento> compartimentos = new EnumMap<>(Workload.class);
+
+    public ConnectionBulkhead(Environment env) {
+        compartimentos.put(Workload.LECTURA, crear(env, "lectura", 4, 2000));
+        compartimentos.put(Workload.ESCRITURA, crear(env, "escritura", 2, 5000));
+        compartimentos.put(Workload.BUSQUEDA, crear(env, "busqueda", 2, 500));
+        compartimentos.put(Workload.MASIVA, crear(env, "masiva", 2, 30000));
+
+        int tamanoPool = env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int suma = compartimentos.values().stream().mapToInt(c -> c.limite).sum();
+        if (suma > tamanoPool) {
+            log.warn("Los compartimentos suman {} conexiones y el pool solo tiene {}: "
+                    + "las clases esperarán en el pool en lugar de en su compartimento", suma, tamanoPool);
+        }
+    }
+
+    private static Compartimento crear(Environment env, String nombre, int maxPorDefecto, long timeoutPorDefecto) {
+        return new Compartimento(
+                env.getProperty("sena.pool." + nombre + ".max-conexiones", Integer.class, maxPorDefecto),
+                env.getProperty("sena.pool." + nombre + ".timeout-ms", Long.class, timeoutPorDefecto));
+    }
+
+    /**
+     * Envolver un DataSource para que cada conexión ocupe un permiso del compartimento
+     * de la clase de carga actual hasta que se cierre
+     */
+    public DataSource envolver(DataSource target) {
+        return (DataSource) Proxy.newProxyInstance(ConnectionBulkhead.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("getConnection")) {
+                        return invocar(target, method, args);
+                    }
+                    Workload workload = WorkloadContext.actual();
+                    Compartimento compartimento = compartimentos.get(workload);
+                    compartimento.adquirir(workload);
+                    try {
+                        Connection connection = (Connection) invocar(target, method, args);
+                        return liberarAlCerrar(connection, compartimento);
+                    } catch (Throwable e) {
+                        compartimento.liberar();
+                        throw e;
+                    }
+                });
+    }
+
+    /**
+     * Cambiar en caliente el máximo de conexiones de una clase
+     */
+    public void setMaxConexiones(Workload workload, int max) {
+        if (max < 1) {
+            throw new InvalidParameterValueException("El máximo de conexiones debe ser al menos 1");
+        }
+        Compartimento compartimento = compartimentos.get(workload);
+        compartimento.setLimite(max);
+        compartimento.proporcion = max;
+        log.info("Compartimento {} ajustado a {} conexiones", workload, max);
+    }
+
+    /**
+     * Repartir un nuevo tamaño del pool entre los compartimentos en proporción a sus máximos
+     * configurados (o fijados a mano), sin superar el tamaño ni bajar de una conexión por clase
+     * Las conexiones que sobran al redondear van a las clases con mayor parte fraccionaria.
+     */
+    public synchronized void ajustarAlPool(int tamanoPool) {
+        int total = compartimentos.values().stream().mapToInt(c -> c.proporcion).sum();
+        Map<Workload, Integer> limites = new EnumMap<>(Workload.class);
+        Map<Workload, Double> restos = new EnumMap<>(Workload.class);
+        int asignadas = 0;
+        for (Map.Entry<Workload, Compartimento> e : compartimentos.entrySet()) {
+            double parte = tamanoPool * (double) e.getValue().proporcion / total;
+            int limite = Math.max(1, (int) parte);
+            limites.put(e.getKey(), limite);
+            restos.put(e.getKey(), parte - (int) parte);
+            asignadas += limite;
+        }
+        int sobrantes = tamanoPool - asignadas;
+        for (Workload w : restos.entrySet().stream()
+                .sorted(Map.Entry.<Workload, Double>comparingByValue().reversed())
+                .map(Map.Entry::getKey).toList()) {
+            if (sobrantes-- <= 0) {
+                break;
+            }
+            limites.merge(w, 1, Integer::sum);
+        }
+        limites.forEach((w, limite) -> compartimentos.get(w).setLimite(limite));
+        log.info("Compartimentos repartidos para un pool de {}: {}", tamanoPool, limites);
+    }
+
+    /**
+     * Tiempo medio de espera por un permiso desde la última llamada, en ms, de todas las clases
+     */
+    public double tomarEsperaMediaMs() {
+        long nanos = 0;
+        long esperas = 0;
+        for (Compartimento c : compartimentos.values()) {
+            nanos += c.esperaNanos.sumThenReset();
+            esperas += c.esperasPeriodo.sumThenReset();
+        }
+        return esperas == 0 ? 0 : nanos / 1e6 / esperas;
+    }
+
+    /**
+     * Métricas por compartimento
+     */
+    public Map<String, Map<String, Object>> getMetricas() {
+        Map<String, Map<String, Object>> metricas = new LinkedHashMap<>();
+        compartimentos.forEach((workload, c) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("maxConexiones", c.limite);
+            m.put("timeoutMs", c.timeoutMs);
+            m.put("activas", c.limite - c.permisos.availablePermits());
+            m.put("esperando", c.esperando.get());
+            m.put("adquiridas", c.adquiridas.sum());
+            m.put("rechazadas", c.rechazadas.sum());
+            m.put("esperaMaximaMs", c.esperaMaxima.get() / 1e6);
+            metricas.put(workload.name(), m);
+        });
+        return metricas;
+    }
+
+    /**
+     * Ocupación actual de un compartimento; rechazadas es el total acumulado de esperas
+     * que agotaron el tiempo
+     */
+    public Ocupacion getOcupacion(Workload workload) {
+        Compartimento c = compartimentos.get(workload);
+        return new Ocupacion(c.limite, c.limite - c.permisos.availablePermits(), c.esperando.get(), c.rechazadas.sum());
+    }
+
+    public record Ocupacion(int maxConexiones, int activas, int esperando, long rechazadas) {
+    }
+
+    private static Connection liberarAlCerrar(Connection connection, Compartimento compartimento) {
+        AtomicBoolean cerrada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionBulkhead.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("close")) {
+                        return invocar(connection, method, args);
+                    }
+                    try {
+                        return invocar(connection, method, args);
+                    } finally {
+                        if (cerrada.compareAndSet(false, true)) {
+                            compartimento.liberar();
+                        }
+                    }
+                });
+    }
+
+    private static Object invocar(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Semáforo redimensionable con sus métricas
+     */
+    private static final class Compartimento {
+
+        private final Permisos permisos;
+        private final long timeoutMs;
+        private volatile int limite;
+        // Peso del compartimento al repartir el pool: el máximo configurado o fijado a mano
+        private volatile int proporcion;
+        private final AtomicInteger esperando = new AtomicInteger();
+        private final LongAdder adquiridas = new LongAdder();
+        private final LongAdder rechazadas = new LongAdder();
+        private final LongAdder esperaNanos = new LongAdder();
+        private final LongAdder esperasPeriodo = new LongAdder();
+        private final LongAccumulator esperaMaxima = new LongAccumulator(Math::max, 0);
+
+        Compartimento(int limite, long timeoutMs) {
+            this.permisos = new Permisos(limite);
+            this.limite = limite;
+            this.proporcion = limite;
+            this.timeoutMs = timeoutMs;
+        }
+
+        void adquirir(Workload workload) throws SQLTransientConnectionException, InterruptedException {
+            long inicio = System.nanoTime();
+            esperando.incrementAndGet();
+            boolean obtenido;
+            try {
+                obtenido = permisos.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+            } finally {
+                esperando.decrementAndGet();
+            }
+            long espera = System.nanoTime() - inicio;
+            esperaNanos.add(espera);
+            esperasPeriodo.increment();
+            esperaMaxima.accumulate(espera);
+            if (!obtenido) {
+                rechazadas.increment();
+                throw new SQLTransientConnectionException("Compartimento " + workload + " sin conexiones libres tras "
+                        + timeoutMs + " ms (máximo " + limite + ")");
+            }
+            adquiridas.increment();
+        }
+
+        void liberar() {
+            permisos.release();
+        }
+
+        synchronized void setLimite(int nuevo) {
+            int diferencia = nuevo - limite;
+            if (diferencia > 0) {
+                permisos.release(diferencia);
+            } else if (diferencia < 0) {
+                // Las conexiones en uso terminan normalmente; el nuevo límite rige al devolverlas
+                permisos.reducir(-diferencia);
+            }
+            limite = nuevo;
+        }
+    }
+
+    private static final class Permisos extends Semaphore {
+
+        Permisos(int permisos) {
+            super(permisos, true);
+        }
+
+        void reducir(int cantidad) {
+            reducePermits(cantidad);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.sena.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ajuste automático del tamaño del pool Hikari y de sus compartimentos
+ * Cada intervalo mira la saturación del propio pool:
+ *  - hay hilos esperando conexión en Hikari: crece
+ *  - el pool está casi lleno y la espera media en los compartimentos supera el umbral: crece
+ *    (los compartimentos suman el tamaño del pool, así que la cola del pool se forma en ellos)
+ *  - el pool pasa varios intervalos seguidos con menos de la mitad activas: decrece de a una
+ * Siempre dentro de [min, max], y cada cambio se reparte entre los compartimentos con
+ * ConnectionBulkhead.ajustarAlPool. Desactivado por defecto (sena.pool.ajuste-automatico.habilitado).
+ */
+@Component
+public class PoolAutoTuner {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolAutoTuner.class);
+
+    private static final int INTERVALOS_OCIOSOS_PARA_REDUCIR = 6;
+
+    private final DataSource dataSource;
+    private final ConnectionBulkhead connectionBulkhead;
+    private final boolean habilitado;
+    private final int minimo;
+    private final int maximo;
+    private final double umbralEsperaMs;
+    private int intervalosOciosos;
+
+    public PoolAutoTuner(DataSource dataSource, ConnectionBulkhead connectionBulkhead,
+                         @Value("${sena.pool.ajuste-automatico.habilitado:false}") boolean habilitado,
+                         @Value("${sena.pool.ajuste-automatico.min:5}") int minimo,
+                         @Value("${sena.pool.ajuste-automatico.max:30}") int maximo,
+                         @Value("${sena.pool.ajuste-automatico.umbral-espera-ms:50}") double umbralEsperaMs) {
+        this.dataSource = dataSource;
+        this.connectionBulkhead = connectionBulkhead;
+        this.habilitado = habilitado;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.umbralEsperaMs = umbralEsperaMs;
+    }
+
+    @Scheduled(fixedDelayString = "${sena.pool.ajuste-automatico.intervalo-ms:10000}")
+    public void ajustar() {
+        double esperaMediaMs = connectionBulkhead.tomarEsperaMediaMs();
+        HikariDataSource hikari = hikari();
+        if (!habilitado || hikari == null || hikari.getHikariPoolMXBean() == null) {
+            return;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        int actual = hikari.getHikariConfigMXBean().getMaximumPoolSize();
+        int activas = pool.getActiveConnections();
+        int esperando = pool.getThreadsAwaitingConnection();
+
+        boolean saturado = activas >= actual * 0.9;
+        int nuevo = actual;
+        if (esperando > 0 || (saturado && esperaMediaMs > umbralEsperaMs)) {
+            nuevo = Math.min(maximo, actual + Math.max(1, Math.min(esperando, 4)));
+            intervalosOciosos = 0;
+        } else if (activas < actual / 2) {
+            if (++intervalosOciosos >= INTERVALOS_OCIOSOS_PARA_REDUCIR) {
+                nuevo = Math.max(minimo, actual - 1);
+                intervalosOciosos = 0;
+            }
+        } else {
+            intervalosOciosos = 0;
+        }
+
+        if (nuevo != actual) {
+            hikari.getHikariConfigMXBean().setMaximumPoolSize(nuevo);
+            connectionBulkhead.ajustarAlPool(nuevo);
+            log.info("Pool de conexiones ajustado de {} a {} (activas {}, esperando {}, espera media {} ms)",
+                    actual, nuevo, activas, esperando, String.format("%.1f", esperaMediaMs));
+        }
+    }
+
+    /**
+     * Estado actual del pool Hikari
+     */
+    public Map<String, Object> getEstado() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        HikariDataSource hikari = hikari();
+        m.put("ajusteAutomatico", habilitado);
+        if (hikari != null && hikari.getHikariPoolMXBean() != null) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            m.put("maximo", hikari.getHikariConfigMXBean().getMaximumPoolSize());
+            m.put("total", pool.getTotalConnections());
+            m.put("activas", pool.getActiveConnections());
+            m.put("ociosas", pool.getIdleConnections());
+            m.put("esperando", pool.getThreadsAwaitingConnection());
+        }
+        return m;
+    }
+
+    private HikariDataSource hikari() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
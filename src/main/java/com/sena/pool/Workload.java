@@ -0,0 +1,16 @@
+package com.sena.pool;
+
+/**
+ * Clases de carga que comparten el pool de conexiones
+ * Cada una tiene su propio compartimento (bulkhead) para que una no agote a las demás.
+ */
+public enum Workload {
+    /** Páginas de consulta interactivas (listados, detalle, formularios) */
+    LECTURA,
+    /** Envíos de formularios: crear, actualizar, eliminar, cambios de estado */
+    ESCRITURA,
+    /** Búsquedas por texto, las más costosas por petición */
+    BUSQUEDA,
+    /** Procesos programados, importaciones, exportaciones y generación de datos */
+    MASIVA
+}
@@ -0,0 +1,42 @@
+package com.sena.pool;
+
+/**
+ * Clase de carga del hilo actual
+ * La fija WorkloadFilter para las peticiones HTTP; los procesos masivos y todas las tareas @Scheduled
+ * la fijan con usar(MASIVA).
+ * Sin clase fijada se considera LECTURA.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<Workload> ACTUAL = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    public static Workload actual() {
+        Workload workload = ACTUAL.get();
+        return workload != null ? workload : Workload.LECTURA;
+    }
+
+    /**
+     * Fijar la clase de carga hasta cerrar el ámbito devuelto, que restaura la anterior
+     * Uso: try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) { ... }
+     */
+    public static Ambito usar(Workload workload) {
+        Workload anterior = ACTUAL.get();
+        ACTUAL.set(workload);
+        return () -> {
+            if (anterior == null) {
+                ACTUAL.remove();
+            } else {
+                ACTUAL.set(anterior);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Ambito extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,37 @@
+package com.sena.pool;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Clasifica cada petición HTTP en una clase de carga antes de que pida conexiones
+ */
+@Component
+public class WorkloadFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(clasificar(request))) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    static Workload clasificar(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri.contains("/buscar")) {
+            return Workload.BUSQUEDA;
+        }
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            // Los cambios de estado de fichas y programas pueden actualizar miles de aprendices
+            return uri.contains("/estado") ? Workload.MASIVA : Workload.ESCRITURA;
+        }
+        return Workload.LECTURA;
+    }
+}
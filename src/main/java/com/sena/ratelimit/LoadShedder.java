@@ -0,0 +1,79 @@
+package com.sena.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitador de concurrencia para los endpoints protegidos
+ * Mantiene una media móvil exponencial (EWMA) de la latencia por sentencia SQL. Mientras
+ * está por debajo del umbral admite hasta max-concurrentes peticiones simultáneas; por
+ * encima, solo max-concurrentes-degradado, y el resto se rechaza de inmediato.
+ */
+@Component
+public class LoadShedder {
+
+    private static final double ALFA = 0.2;
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final LongAdder rechazadas = new LongAdder();
+    private final int maxConcurrentes;
+    private final int maxDegradado;
+    private final double umbralLatenciaMs;
+    private volatile double latenciaEwmaMs;
+
+    public LoadShedder(@Value("${sena.limites.max-concurrentes:40}") int maxConcurrentes,
+                       @Value("${sena.limites.max-concurrentes-degradado:4}") int maxDegradado,
+                       @Value("${sena.limites.umbral-latencia-bd-ms:200}") double umbralLatenciaMs) {
+        this.maxConcurrentes = maxConcurrentes;
+        this.maxDegradado = maxDegradado;
+        this.umbralLatenciaMs = umbralLatenciaMs;
+    }
+
+    /**
+     * Intentar entrar; si devuelve true hay que llamar a salir() al terminar
+     */
+    public boolean entrar() {
+        int limite = isDegradado() ? maxDegradado : maxConcurrentes;
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= limite) {
+                rechazadas.increment();
+                return false;
+            }
+            if (enCurso.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Salir registrando la latencia media por sentencia observada en la petición
+     */
+    public void salir(long consultas, long nanosBd) {
+        enCurso.decrementAndGet();
+        if (consultas > 0) {
+            double muestra = nanosBd / 1e6 / consultas;
+            // Carreras entre hilos solo pierden alguna muestra, aceptable para una media móvil
+            latenciaEwmaMs = latenciaEwmaMs + ALFA * (muestra - latenciaEwmaMs);
+        }
+    }
+
+    public boolean isDegradado() {
+        return latenciaEwmaMs > umbralLatenciaMs;
+    }
+
+    public double getLatenciaEwmaMs() {
+        return latenciaEwmaMs;
+    }
+
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+}
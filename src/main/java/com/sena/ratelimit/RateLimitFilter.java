@@ -0,0 +1,126 @@
+package com.sena.ratelimit;
+
+import com.sena.monitoring.QueryCountFilter;
+import com.sena.monitoring.QueryCounter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limita la frecuencia de búsquedas y listados por cliente (IP) y descarta carga
+ * cuando la base de datos se degrada. Responde 429 con Retry-After en ambos casos.
+ * Corre dentro de QueryCountFilter, que reinicia QueryCounter al empezar la petición.
+ */
+@Component
+@Order(QueryCountFilter.ORDEN + 1)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final TokenBucketLimiter busquedas;
+    private final TokenBucketLimiter listados;
+    private final LoadShedder loadShedder;
+    private final boolean confiarEnProxy;
+    private final LongAdder limitadas = new LongAdder();
+
+    public RateLimitFilter(LoadShedder loadShedder,
+                           @Value("${sena.limites.busqueda.por-segundo:2}") double busquedasPorSegundo,
+                           @Value("${sena.limites.busqueda.rafaga:5}") int rafagaBusquedas,
+                           @Value("${sena.limites.listado.por-segundo:5}") double listadosPorSegundo,
+                           @Value("${sena.limites.listado.rafaga:20}") int rafagaListados,
+                           @Value("${sena.limites.max-clientes:100000}") int maxClientes,
+                           @Value("${sena.limites.confiar-en-proxy:false}") boolean confiarEnProxy) {
+        this.loadShedder = loadShedder;
+        this.busquedas = new TokenBucketLimiter(busquedasPorSegundo, rafagaBusquedas, maxClientes);
+        this.listados = new TokenBucketLimiter(listadosPorSegundo, rafagaListados, maxClientes);
+        this.confiarEnProxy = confiarEnProxy;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || limitador(request.getRequestURI()) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String cliente = cliente(request);
+        long espera = limitador(request.getRequestURI()).intentar(cliente);
+        if (espera > 0) {
+            limitadas.increment();
+            log.debug("Cliente {} limitado en {}", cliente, request.getRequestURI());
+            rechazar(response, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(espera) + 1),
+                    "Demasiadas solicitudes. Espere un momento e intente de nuevo.");
+            return;
+        }
+
+        if (!loadShedder.entrar()) {
+            log.warn("Petición descartada por sobrecarga ({} en curso, latencia BD {} ms): {}",
+                    loadShedder.getEnCurso(), String.format("%.1f", loadShedder.getLatenciaEwmaMs()),
+                    request.getRequestURI());
+            rechazar(response, 2, "El sistema está ocupado. Intente de nuevo en unos segundos.");
+            return;
+        }
+        long consultasInicio = QueryCounter.getConsultas();
+        long bdInicio = QueryCounter.getTiempoNanos();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            loadShedder.salir(QueryCounter.getConsultas() - consultasInicio, QueryCounter.getTiempoNanos() - bdInicio);
+        }
+    }
+
+    /**
+     * Métricas de limitación y descarte
+     */
+    public Map<String, Object> getMetricas() {
+        return Map.of(
+                "limitadas", limitadas.sum(),
+                "descartadas", loadShedder.getRechazadas(),
+                "enCurso", loadShedder.getEnCurso(),
+                "latenciaBdEwmaMs", loadShedder.getLatenciaEwmaMs(),
+                "degradado", loadShedder.isDegradado());
+    }
+
+    private TokenBucketLimiter limitador(String uri) {
+        if (uri.startsWith("/aprendices/buscar")) {
+            return busquedas;
+        }
+        return switch (uri) {
+            case "/aprendices", "/aprendices/", "/aprendices/lista",
+                 "/fichas", "/fichas/", "/fichas/lista",
+                 "/programas", "/programas/", "/programas/lista" -> listados;
+            default -> uri.startsWith("/aprendices/ficha/") || uri.startsWith("/aprendices/programa/") ? listados : null;
+        };
+    }
+
+    private String cliente(HttpServletRequest request) {
+        if (confiarEnProxy) {
+            String reenviado = request.getHeader("X-Forwarded-For");
+            if (reenviado != null && !reenviado.isBlank()) {
+                int coma = reenviado.indexOf(',');
+                return (coma > 0 ? reenviado.substring(0, coma) : reenviado).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static void rechazar(HttpServletResponse response, long segundos, String mensaje) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(segundos));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(mensaje);
+    }
+}
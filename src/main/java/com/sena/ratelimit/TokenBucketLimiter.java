@@ -0,0 +1,66 @@
+package com.sena.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cubetas de tokens por cliente, repartidas en franjas con candado propio
+ * Cada franja es un LRU acotado, así que la memoria no crece con el número de IPs
+ * distintas: un cliente olvidado vuelve a empezar con la cubeta llena.
+ */
+public class TokenBucketLimiter {
+
+    private static final int FRANJAS = 64;
+
+    private final double tokensPorNano;
+    private final double capacidad;
+    private final Franja[] franjas = new Franja[FRANJAS];
+
+    public TokenBucketLimiter(double porSegundo, int rafaga, int maxClientes) {
+        this.tokensPorNano = porSegundo / 1_000_000_000d;
+        this.capacidad = rafaga;
+        int porFranja = Math.max(16, maxClientes / FRANJAS);
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Franja(porFranja);
+        }
+    }
+
+    /**
+     * Consumir un token del cliente
+     * Devuelve 0 si se concede, o los nanosegundos hasta que haya un token disponible
+     */
+    public long intentar(String cliente) {
+        Franja franja = franjas[(cliente.hashCode() & 0x7fffffff) % FRANJAS];
+        long ahora = System.nanoTime();
+        synchronized (franja) {
+            double[] cubeta = franja.get(cliente);
+            if (cubeta == null) {
+                cubeta = new double[]{capacidad, ahora};
+                franja.put(cliente, cubeta);
+            }
+            double tokens = Math.min(capacidad, cubeta[0] + (ahora - (long) cubeta[1]) * tokensPorNano);
+            cubeta[1] = ahora;
+            if (tokens >= 1) {
+                cubeta[0] = tokens - 1;
+                return 0;
+            }
+            cubeta[0] = tokens;
+            return (long) Math.ceil((1 - tokens) / tokensPorNano);
+        }
+    }
+
+    private static final class Franja extends LinkedHashMap<String, double[]> {
+
+        private final int maximo;
+
+        Franja(int maximo) {
+            super(maximo * 2, 0.75f, true);
+            this.maximo = maximo;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, double[]> eldest) {
+            return size() > maximo;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.sena.readiness;
+
+import com.sena.pool.ConnectionBulkhead;
+import com.sena.pool.Workload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comprobación de disponibilidad para el balanceador (GET /salud/preparado)
+ * La instancia está lista si Spring Boot la marca ACCEPTING_TRAFFIC (es decir, terminó el
+ * calentamiento, ver WarmUpRunner), los compartimentos de conexiones del tráfico normal no
+ * están saturados y un SELECT 1 responde por debajo de la latencia máxima.
+ *
+ * La saturación se mide en ConnectionBulkhead y no en Hikari: los compartimentos suman como
+ * mucho el tamaño del pool, así que las peticiones esperan (y agotan su tiempo) en su
+ * compartimento antes de llegar a esperar en Hikari. Cuentan LECTURA y ESCRITURA; las cargas
+ * masivas esperan por diseño y las búsquedas se rechazan rápido a propósito en una ráfaga.
+ * Un compartimento está saturado con más de max-esperando hilos esperando, con hilos esperando
+ * y un uso de max-uso-pool o más, o si rechazó peticiones por tiempo desde la evaluación
+ * anterior. Los compartimentos se miran primero: saturados, no se lanza la sonda, que también
+ * tendría que esperar. El resultado se reutiliza durante cache-ms para que las sondas
+ * frecuentes no carguen la base de datos.
+ */
+@Component
+@Profile("!seed")
+public class ReadinessCheck {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadinessCheck.class);
+
+    private static final List<Workload> COMPARTIMENTOS = List.of(Workload.LECTURA, Workload.ESCRITURA);
+
+    private final ApplicationAvailability applicationAvailability;
+    private final WarmUpRunner warmUpRunner;
+    private final ConnectionBulkhead connectionBulkhead;
+    private final JdbcTemplate sonda;
+    private final long maxLatenciaMs;
+    private final double maxUsoPool;
+    private final int maxEsperando;
+    private final long cacheMs;
+
+    private volatile Map<String, Object> ultimo;
+    private volatile long ultimoEn;
+    // Rechazos acumulados de cada compartimento en la evaluación anterior (solo bajo el lock)
+    private final Map<Workload, Long> rechazadasPrevias = new EnumMap<>(Workload.class);
+
+    public ReadinessCheck(ApplicationAvailability applicationAvailability, WarmUpRunner warmUpRunner,
+                          DataSource dataSource, ConnectionBulkhead connectionBulkhead,
+                          @Value("${sena.salud.max-latencia-bd-ms:250}") long maxLatenciaMs,
+                          @Value("${sena.salud.max-uso-pool:0.95}") double maxUsoPool,
+                          @Value("${sena.salud.max-esperando:2}") int maxEsperando,
+                          @Value("${sena.salud.cache-ms:1000}") long cacheMs) {
+        this.applicationAvailability = applicationAvailability;
+        this.warmUpRunner = warmUpRunner;
+        this.connectionBulkhead = connectionBulkhead;
+        this.sonda = new JdbcTemplate(dataSource);
+        this.sonda.setQueryTimeout(Math.max(1, (int) Math.ceil(maxLatenciaMs * 4 / 1000.0)));
+        this.maxLatenciaMs = maxLatenciaMs;
+        this.maxUsoPool = maxUsoPool;
+        this.maxEsperando = maxEsperando;
+        this.cacheMs = cacheMs;
+    }
+
+    /**
+     * Estado de disponibilidad con sus métricas; "preparado" indica si la instancia admite tráfico
+     */
+    public Map<String, Object> evaluar() {
+        Map<String, Object> previo = ultimo;
+        if (previo != null && System.currentTimeMillis() - ultimoEn < cacheMs) {
+            return previo;
+        }
+        synchronized (this) {
+            if (ultimo != null && System.currentTimeMillis() - ultimoEn < cacheMs) {
+                return ultimo;
+            }
+            Map<String, Object> resultado = calcular();
+            ultimo = resultado;
+            ultimoEn = System.currentTimeMillis();
+            return resultado;
+        }
+    }
+
+    private Map<String, Object> calcular() {
+        List<String> motivos = new ArrayList<>();
+        Map<String, Object> m = new LinkedHashMap<>();
+
+        ReadinessState estado = applicationAvailability.getReadinessState();
+        m.put("estado", estado);
+        m.put("calentamientoTerminado", warmUpRunner.isTerminado());
+        if (estado != ReadinessState.ACCEPTING_TRAFFIC) {
+            motivos.add(warmUpRunner.isTerminado() ? "la aplicación no acepta tráfico" : "calentamiento en curso");
+        }
+
+        boolean saturado = false;
+        Map<String, Object> compartimentos = new LinkedHashMap<>();
+        for (Workload workload : COMPARTIMENTOS) {
+            ConnectionBulkhead.Ocupacion o = connectionBulkhead.getOcupacion(workload);
+            Long previas = rechazadasPrevias.put(workload, o.rechazadas());
+            long rechazadas = previas == null ? 0 : o.rechazadas() - previas;
+            double uso = o.maxConexiones() == 0 ? 0 : (double) o.activas() / o.maxConexiones();
+            compartimentos.put(workload.name(), Map.of(
+                    "activas", o.activas(),
+                    "maximo", o.maxConexiones(),
+                    "esperando", o.esperando(),
+                    "rechazadasRecientes", rechazadas));
+            if (o.esperando() > maxEsperando || (o.esperando() > 0 && uso >= maxUsoPool) || rechazadas > 0) {
+                saturado = true;
+                motivos.add("compartimento " + workload + " saturado (" + o.activas() + "/" + o.maxConexiones()
+                        + ", " + o.esperando() + " esperando, " + rechazadas + " rechazadas por tiempo)");
+            }
+        }
+        m.put("compartimentos", compartimentos);
+
+        if (!saturado) {
+            long inicio = System.nanoTime();
+            try {
+                sonda.queryForObject("SELECT 1", Integer.class);
+                long latenciaMs = (System.nanoTime() - inicio) / 1_000_000;
+                m.put("latenciaBdMs", latenciaMs);
+                if (latenciaMs > maxLatenciaMs) {
+                    motivos.add("latencia de base de datos " + latenciaMs + " ms (máximo " + maxLatenciaMs + ")");
+                }
+            } catch (Exception e) {
+                log.warn("Sonda de base de datos fallida: {}", e.getMessage());
+                motivos.add("base de datos no disponible: " + e.getMessage());
+            }
+        }
+
+        m.put("preparado", motivos.isEmpty());
+        m.put("motivos", motivos);
+        return m;
+    }
+}
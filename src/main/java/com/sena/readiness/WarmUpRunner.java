@@ -0,0 +1,175 @@
+package com.sena.readiness;
+
+import com.sena.service.AprendizService;
+import com.sena.service.FichaService;
+import com.sena.service.ProgramaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Calentamiento de una instancia recién arrancada
+ * Cuando Spring Boot marca la aplicación como lista (ReadinessState.ACCEPTING_TRAFFIC), la
+ * vuelve a poner en REFUSING_TRAFFIC y, en un hilo aparte, ejecuta varias rondas de llamadas
+ * representativas contra los datos reales: getAllFichas, getAllProgramas, una búsqueda de
+ * aprendices y el renderizado de cada listado (peticiones HTTP a la propia instancia, que
+ * pasan por filtros, Thymeleaf y la caché de fragmentos). Así se compilan los planes de
+ * Hibernate, se cargan las plantillas, se abren las conexiones del pool y el JIT compila
+ * los caminos calientes antes de recibir tráfico. Al terminar vuelve a ACCEPTING_TRAFFIC.
+ *
+ * Un fallo en un paso se registra y no detiene el calentamiento; si se supera max-segundos,
+ * la instancia se da por lista igualmente para no bloquear el despliegue.
+ * No existe con el perfil "seed" (sin servidor web: no hay nada que calentar).
+ */
+@Component
+@Profile("!seed")
+public class WarmUpRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    private static final List<String> LISTADOS = List.of("/", "/aprendices", "/fichas", "/programas");
+
+    private final FichaService fichaService;
+    private final ProgramaService programaService;
+    private final AprendizService aprendizService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Environment environment;
+    private final boolean habilitado;
+    private final int rondas;
+    private final long maxMs;
+    private final String busqueda;
+    private final AtomicBoolean iniciado = new AtomicBoolean();
+
+    private volatile boolean terminado;
+    private volatile Map<String, Object> resumen = Map.of();
+
+    public WarmUpRunner(FichaService fichaService, ProgramaService programaService,
+                        AprendizService aprendizService, ApplicationEventPublisher eventPublisher,
+                        Environment environment,
+                        @Value("${sena.calentamiento.habilitado:true}") boolean habilitado,
+                        @Value("${sena.calentamiento.rondas:3}") int rondas,
+                        @Value("${sena.calentamiento.max-segundos:120}") long maxSegundos,
+                        @Value("${sena.calentamiento.busqueda:an}") String busqueda) {
+        this.fichaService = fichaService;
+        this.programaService = programaService;
+        this.aprendizService = aprendizService;
+        this.eventPublisher = eventPublisher;
+        this.environment = environment;
+        this.habilitado = habilitado;
+        this.rondas = rondas;
+        this.maxMs = maxSegundos * 1000;
+        this.busqueda = busqueda;
+    }
+
+    @EventListener
+    public void alCambiarDisponibilidad(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || !iniciado.compareAndSet(false, true)) {
+            return;
+        }
+        if (!habilitado) {
+            terminado = true;
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        Thread hilo = new Thread(this::calentar, "sena-calentamiento");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    public boolean isTerminado() {
+        return terminado;
+    }
+
+    /**
+     * Pasos ejecutados en el último calentamiento, con su duración por ronda
+     */
+    public Map<String, Object> getResumen() {
+        return resumen;
+    }
+
+    private void calentar() {
+        long inicio = System.currentTimeMillis();
+        Map<String, List<String>> pasos = new LinkedHashMap<>();
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        String base = urlBase();
+        log.info("Calentamiento iniciado: {} ronda(s) contra {}", rondas, base);
+        try {
+            for (int ronda = 1; ronda <= rondas && System.currentTimeMillis() - inicio < maxMs; ronda++) {
+                paso(pasos, "getAllFichas", fichaService::getAllFichas);
+                paso(pasos, "getAllProgramas", programaService::getAllProgramas);
+                paso(pasos, "searchAprendices", () -> aprendizService.searchAprendices(busqueda));
+                for (String ruta : LISTADOS) {
+                    paso(pasos, "GET " + ruta, () -> renderizar(cliente, base + ruta));
+                }
+            }
+        } finally {
+            long duracion = System.currentTimeMillis() - inicio;
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("milisegundos", duracion);
+            r.put("excedioMaximo", duracion >= maxMs);
+            r.put("pasos", pasos);
+            resumen = r;
+            terminado = true;
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+            log.info("Calentamiento terminado en {} ms; la instancia acepta tráfico", duracion);
+        }
+    }
+
+    private void paso(Map<String, List<String>> pasos, String nombre, Runnable accion) {
+        long inicio = System.nanoTime();
+        String resultado;
+        try {
+            accion.run();
+            resultado = (System.nanoTime() - inicio) / 1_000_000 + " ms";
+        } catch (Exception e) {
+            log.warn("Paso de calentamiento {} fallido: {}", nombre, e.getMessage());
+            resultado = "error: " + e.getMessage();
+        }
+        pasos.computeIfAbsent(nombre, n -> new ArrayList<>()).add(resultado);
+    }
+
+    private static void renderizar(HttpClient cliente, String url) {
+        try {
+            HttpResponse<Void> respuesta = cliente.send(
+                    HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            if (respuesta.statusCode() >= 400) {
+                throw new IllegalStateException("HTTP " + respuesta.statusCode());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido");
+        }
+    }
+
+    private String urlBase() {
+        String puerto = environment.getProperty("local.server.port",
+                environment.getProperty("server.port", "8080"));
+        String contexto = environment.getProperty("server.servlet.context-path", "");
+        if (contexto.endsWith("/")) {
+            contexto = contexto.substring(0, contexto.length() - 1);
+        }
+        return "http://localhost:" + puerto + contexto;
+    }
+}
@@ -2,11 +2,19 @@ package com.sena.repository;
 
 import com.sena.model.Aprendiz;
 import com.sena.model.Ficha;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,9 +41,51 @@ public interface AprendizRepository extends JpaRepository<Aprendiz, Long> {
     List<Aprendiz> findByFicha(Ficha ficha);
 
     /**
-     * Buscar aprendices por ID de ficha
+     * Buscar aprendices por ID de ficha (join fetch para evitar N+1 en el listado)
      */
-    List<Aprendiz> findByFichaId(Long fichaId);
+    @Query("SELECT a FROM Aprendiz a " +
+           "JOIN FETCH a.ficha f " +
+           "JOIN FETCH f.programa " +
+           "WHERE f.id = :fichaId " +
+           "ORDER BY a.apellidos, a.nombres")
+    List<Aprendiz> findByFichaId(@Param("fichaId") Long fichaId);
+
+    /**
+     * Primer lote de los aprendices de una ficha (vista de detalle por partes), en orden de
+     * apellidos, nombres e ID; entidades solo de lectura, sin copia para dirty checking
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT a FROM Aprendiz a WHERE a.ficha.id = :fichaId ORDER BY a.apellidos, a.nombres, a.id")
+    List<Aprendiz> findLoteByFichaId(@Param("fichaId") Long fichaId, Pageable lote);
+
+    /**
+     * Siguiente lote de los aprendices de una ficha: los posteriores al último entregado en el
+     * mismo orden (paginación por clave, recorre idx_aprendices_ficha_nombre sin saltar filas)
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT a FROM Aprendiz a WHERE a.ficha.id = :fichaId AND (a.apellidos > :apellidos " +
+           "OR (a.apellidos = :apellidos AND (a.nombres > :nombres OR (a.nombres = :nombres AND a.id > :id)))) " +
+           "ORDER BY a.apellidos, a.nombres, a.id")
+    List<Aprendiz> findLoteByFichaIdDespuesDe(@Param("fichaId") Long fichaId,
+                                              @Param("apellidos") String apellidos,
+                                              @Param("nombres") String nombres,
+                                              @Param("id") Long id,
+                                              Pageable lote);
+
+    /**
+     * Contar aprendices por ID de ficha
+     */
+    long countByFichaId(Long fichaId);
+
+    /**
+     * Contar aprendices de una ficha en un estado
+     */
+    long countByFichaIdAndEstado(Long fichaId, String estado);
+
+    /**
+     * Contar los aprendices de una ficha que están en alguno de los estados dados
+     */
+    long countByFichaIdAndEstadoIn(Long fichaId, Collection<String> estados);
 
     /**
      * Buscar aprendices por código de ficha
@@ -44,15 +94,22 @@ public interface AprendizRepository extends JpaRepository<Aprendiz, Long> {
     List<Aprendiz> findByCodigoFicha(@Param("codigoFicha") String codigoFicha);
 
     /**
-     * Buscar aprendices por programa
+     * Buscar aprendices por programa (join fetch para evitar N+1 en el listado)
      */
-    @Query("SELECT a FROM Aprendiz a WHERE a.ficha.programa.id = :programaId")
+    @Query("SELECT a FROM Aprendiz a " +
+           "JOIN FETCH a.ficha f " +
+           "JOIN FETCH f.programa p " +
+           "WHERE p.id = :programaId " +
+           "ORDER BY a.apellidos, a.nombres")
     List<Aprendiz> findByProgramaId(@Param("programaId") Long programaId);
 
     /**
      * Buscar aprendices por nombres, apellidos o documento (búsqueda flexible)
      */
-    @Query("SELECT a FROM Aprendiz a WHERE " +
+    @Query("SELECT a FROM Aprendiz a " +
+           "JOIN FETCH a.ficha f " +
+           "JOIN FETCH f.programa " +
+           "WHERE " +
            "LOWER(a.nombres) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(a.apellidos) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(a.documento) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
@@ -82,9 +139,76 @@ public interface AprendizRepository extends JpaRepository<Aprendiz, Long> {
            "ORDER BY a.apellidos, a.nombres")
     List<Aprendiz> findAllWithFichaAndPrograma();
 
+    /**
+     * Obtener aprendices por sus IDs con ficha y programa (página del listado por facetas)
+     */
+    @Query("SELECT a FROM Aprendiz a " +
+           "JOIN FETCH a.ficha f " +
+           "JOIN FETCH f.programa " +
+           "WHERE a.id IN :ids " +
+           "ORDER BY a.id")
+    List<Aprendiz> findAllWithFichaAndProgramaByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Buscar aprendices por nombre de programa
      */
     @Query("SELECT a FROM Aprendiz a WHERE LOWER(a.ficha.programa.nombre) LIKE LOWER(CONCAT('%', :programaNombre, '%'))")
     List<Aprendiz> searchByProgramaNombre(@Param("programaNombre") String programaNombre);
+
+    /**
+     * Obtener los IDs de los aprendices de una ficha que están en alguno de los estados dados
+     */
+    @Query("SELECT a.id FROM Aprendiz a WHERE a.ficha.id = :fichaId AND a.estado IN :estados ORDER BY a.id")
+    List<Long> findIdsByFichaIdAndEstadoIn(@Param("fichaId") Long fichaId,
+                                           @Param("estados") Collection<String> estados);
+
+    /**
+     * Obtener los IDs de los aprendices de un programa que están en alguno de los estados dados
+     */
+    @Query("SELECT a.id FROM Aprendiz a WHERE a.ficha.programa.id = :programaId AND a.estado IN :estados ORDER BY a.id")
+    List<Long> findIdsByProgramaIdAndEstadoIn(@Param("programaId") Long programaId,
+                                              @Param("estados") Collection<String> estados);
+
+    /**
+     * Ficha de cada aprendiz del lote que está en alguno de los estados dados (una por aprendiz)
+     */
+    @Query("SELECT a.ficha.id FROM Aprendiz a WHERE a.id IN :ids AND a.estado IN :estados")
+    List<Long> findFichaIdsByIdInAndEstadoIn(@Param("ids") Collection<Long> ids,
+                                             @Param("estados") Collection<String> estados);
+
+    /**
+     * Bloquear (SELECT ... FOR UPDATE) los aprendices de un lote que siguen en un estado de origen
+     * Devuelve sus IDs: dentro de la misma transacción son exactamente los que cambiará updateEstadoByIds
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id FROM Aprendiz a WHERE a.id IN :ids AND a.estado IN :origenes ORDER BY a.id")
+    List<Long> lockIdsByIdInAndEstadoIn(@Param("ids") Collection<Long> ids,
+                                        @Param("origenes") Collection<String> origenes);
+
+    /**
+     * Cambiar el estado de un lote de aprendices en una sola sentencia
+     * Solo afecta a los que siguen en un estado de origen válido, e incrementa la versión
+     * para que las ediciones abiertas sobre esos aprendices entren en conflicto
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Aprendiz a SET a.estado = :destino, a.version = a.version + 1 " +
+           "WHERE a.id IN :ids AND a.estado IN :origenes")
+    int updateEstadoByIds(@Param("ids") Collection<Long> ids,
+                          @Param("origenes") Collection<String> origenes,
+                          @Param("destino") String destino);
+
+    /**
+     * Borrar en una sola sentencia los aprendices de una ficha
+     * Evita la cascada de JPA, que los carga y los borra uno por uno
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Aprendiz a WHERE a.ficha.id = :fichaId")
+    int bulkDeleteByFichaId(@Param("fichaId") Long fichaId);
+
+    /**
+     * Borrar en una sola sentencia los aprendices de todas las fichas de un programa
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Aprendiz a WHERE a.ficha.id IN (SELECT f.id FROM Ficha f WHERE f.programa.id = :programaId)")
+    int bulkDeleteByProgramaId(@Param("programaId") Long programaId);
 }
@@ -2,10 +2,20 @@ package com.sena.repository;
 
 import com.sena.model.Ficha;
 import com.sena.model.Programa;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +40,29 @@ public interface FichaRepository extends JpaRepository<Ficha, Long> {
      */
     List<Ficha> findByProgramaId(Long programaId);
 
+    /**
+     * Primer lote de las fichas de un programa (vista de detalle por partes), en orden de
+     * código; entidades solo de lectura
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT f FROM Ficha f WHERE f.programa.id = :programaId ORDER BY f.codigo")
+    List<Ficha> findLoteByProgramaId(@Param("programaId") Long programaId, Pageable lote);
+
+    /**
+     * Siguiente lote de las fichas de un programa: las de código posterior a la última
+     * entregada (paginación por clave; el código es único)
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT f FROM Ficha f WHERE f.programa.id = :programaId AND f.codigo > :codigo ORDER BY f.codigo")
+    List<Ficha> findLoteByProgramaIdDespuesDe(@Param("programaId") Long programaId,
+                                              @Param("codigo") String codigo,
+                                              Pageable lote);
+
+    /**
+     * Contar fichas por ID de programa
+     */
+    long countByProgramaId(Long programaId);
+
     /**
      * Verificar si existe una ficha con un código específico
      */
@@ -56,4 +89,80 @@ public interface FichaRepository extends JpaRepository<Ficha, Long> {
      */
     @Query("SELECT f FROM Ficha f JOIN FETCH f.programa ORDER BY f.codigo")
     List<Ficha> findAllWithPrograma();
+
+    /**
+     * Obtener fichas por sus IDs con su programa (join fetch para evitar N+1)
+     */
+    @Query("SELECT f FROM Ficha f JOIN FETCH f.programa WHERE f.id IN :ids ORDER BY f.fechaInicio, f.codigo")
+    List<Ficha> findAllWithProgramaByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Obtener los IDs de las fichas en alguno de los estados dados cuya fecha de fin ya pasó
+     */
+    @Query("SELECT f.id FROM Ficha f WHERE f.estado IN :estados AND f.fechaFin < :fecha ORDER BY f.id")
+    List<Long> findIdsByEstadoInAndFechaFinBefore(@Param("estados") Collection<String> estados,
+                                                  @Param("fecha") LocalDate fecha);
+
+    /**
+     * Obtener los IDs de las fichas en un estado que todavía tienen aprendices en alguno de los
+     * estados dados (cambio de estado de la ficha cuyo paso por los aprendices no terminó)
+     */
+    @Query("SELECT DISTINCT a.ficha.id FROM Aprendiz a " +
+           "WHERE a.ficha.estado = :estado AND a.estado IN :estadosAprendiz ORDER BY a.ficha.id")
+    List<Long> findIdsByEstadoConAprendicesEn(@Param("estado") String estado,
+                                              @Param("estadosAprendiz") Collection<String> estadosAprendiz);
+
+    /**
+     * Cambiar el estado de una ficha solo si sigue en el estado de origen (actualización versionada)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ficha f SET f.estado = :destino, f.version = f.version + 1 " +
+           "WHERE f.id = :id AND f.estado = :origen")
+    int updateEstado(@Param("id") Long id, @Param("origen") String origen, @Param("destino") String destino);
+
+    /**
+     * Ocupar un cupo de la ficha si queda alguno (o no tiene capacidad): 1 si se ocupó, 0 si está llena
+     * Sentencia atómica: la fila queda bloqueada hasta el fin de la transacción, así que las
+     * altas concurrentes en la misma ficha se serializan sin poder superar la capacidad
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Ficha f SET f.cuposOcupados = f.cuposOcupados + 1 " +
+           "WHERE f.id = :id AND (f.capacidad IS NULL OR f.cuposOcupados < f.capacidad)")
+    int ocuparCupo(@Param("id") Long id);
+
+    /**
+     * Bloquear (SELECT ... FOR UPDATE) una ficha y devolver su estado
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f.estado FROM Ficha f WHERE f.id = :id")
+    Optional<String> lockEstadoById(@Param("id") Long id);
+
+    /**
+     * Bloquear varias fichas en orden de ID (antes que a sus aprendices)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f.id FROM Ficha f WHERE f.id IN :ids ORDER BY f.id")
+    List<Long> lockIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Liberar de una vez los cupos de varios aprendices de la ficha (sin bajar de cero)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Ficha f SET f.cuposOcupados = " +
+           "CASE WHEN f.cuposOcupados > :cantidad THEN f.cuposOcupados - :cantidad ELSE 0 END WHERE f.id = :id")
+    int liberarCupos(@Param("id") Long id, @Param("cantidad") int cantidad);
+
+    /**
+     * Liberar un cupo de la ficha
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Ficha f SET f.cuposOcupados = f.cuposOcupados - 1 WHERE f.id = :id AND f.cuposOcupados > 0")
+    int liberarCupo(@Param("id") Long id);
+
+    /**
+     * Borrar en una sola sentencia las fichas de un programa (sus aprendices deben borrarse antes)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Ficha f WHERE f.programa.id = :programaId")
+    int bulkDeleteByProgramaId(@Param("programaId") Long programaId);
 }
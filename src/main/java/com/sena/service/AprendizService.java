@@ -1,15 +1,35 @@
 package com.sena.service;
 
+import com.sena.archive.ArchiveStore;
+import com.sena.cache.AprendizSnapshot;
+import com.sena.cache.CacheInvalidator;
+import com.sena.cache.EntityCaches;
+import com.sena.cache.RequestCoalescer;
+import com.sena.cache.TipoEntidad;
+import com.sena.exception.ResourceConflictException;
 import com.sena.exception.ResourceNotFoundException;
 import com.sena.exception.DuplicateResourceException;
+import com.sena.facet.FacetIndex;
 import com.sena.model.Aprendiz;
+import com.sena.model.EstadoAprendiz;
+import com.sena.outbox.Operacion;
+import com.sena.outbox.OutboxWriter;
 import com.sena.repository.AprendizRepository;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * Servicio de lógica de negocio para Aprendiz
@@ -21,10 +41,41 @@ public class AprendizService {
 
     private static final Logger log = LoggerFactory.getLogger(AprendizService.class);
 
+    // Un número de documento: 5 a 20 caracteres sin espacios y con al menos un dígito (los nombres no los tienen)
+    private static final Pattern DOCUMENTO = Pattern.compile("(?=.*\\d)[A-Za-z0-9-]{5,20}");
+
     private final AprendizRepository aprendizRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final RequestCoalescer requestCoalescer;
+    private final EntityCaches entityCaches;
+    private final FichaService fichaService;
+    private final OutboxWriter outboxWriter;
+    private final FacetIndex facetIndex;
+    private final TendenciaMatriculaService tendenciaMatriculaService;
+    private final ArchiveStore archiveStore;
+    private final EntityManager entityManager;
+    private final CupoService cupoService;
+    private final TransactionTemplate lecturaPorLotes;
 
-    public AprendizService(AprendizRepository aprendizRepository) {
+    public AprendizService(AprendizRepository aprendizRepository, CacheInvalidator cacheInvalidator,
+                           RequestCoalescer requestCoalescer, EntityCaches entityCaches,
+                           FichaService fichaService, OutboxWriter outboxWriter,
+                           FacetIndex facetIndex, TendenciaMatriculaService tendenciaMatriculaService,
+                           ArchiveStore archiveStore, EntityManager entityManager,
+                           CupoService cupoService, PlatformTransactionManager transactionManager) {
         this.aprendizRepository = aprendizRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.requestCoalescer = requestCoalescer;
+        this.entityCaches = entityCaches;
+        this.fichaService = fichaService;
+        this.outboxWriter = outboxWriter;
+        this.facetIndex = facetIndex;
+        this.tendenciaMatriculaService = tendenciaMatriculaService;
+        this.archiveStore = archiveStore;
+        this.entityManager = entityManager;
+        this.cupoService = cupoService;
+        this.lecturaPorLotes = new TransactionTemplate(transactionManager);
+        this.lecturaPorLotes.setReadOnly(true);
     }
 
     /**
@@ -38,26 +89,50 @@ public class AprendizService {
 
     /**
      * Obtener aprendiz por ID
+     * Devuelve una copia desacoplada desde la caché de entidades, con ficha y programa
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Aprendiz getAprendizById(Long id) {
         log.info("Buscando aprendiz con ID: {}", id);
-        return aprendizRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Aprendiz no encontrado con ID: " + id));
+        AprendizSnapshot aprendiz = entityCaches.aprendices().obtener(id, () ->
+                AprendizSnapshot.de(aprendizRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Aprendiz no encontrado con ID: " + id))));
+        return aprendiz.toEntity(fichaService.getFichaById(aprendiz.fichaId()));
+    }
+
+    /**
+     * Obtener aprendiz por ID buscando también en el archivo (solo para consulta)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Aprendiz getAprendizOArchivado(Long id) {
+        try {
+            return getAprendizById(id);
+        } catch (ResourceNotFoundException e) {
+            return archiveStore.buscarAprendiz(id).orElseThrow(() -> e);
+        }
     }
 
     /**
      * Buscar aprendiz por documento
+     * Si no está en las tablas de trabajo, devuelve su registro archivado más reciente
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Aprendiz getAprendizByDocumento(String documento) {
         log.info("Buscando aprendiz con documento: {}", documento);
-        return aprendizRepository.findByDocumento(documento)
-                .orElseThrow(() -> new ResourceNotFoundException("Aprendiz no encontrado con documento: " + documento));
+        try {
+            AprendizSnapshot aprendiz = entityCaches.aprendices().obtenerPorClave(documento, () ->
+                    AprendizSnapshot.de(aprendizRepository.findByDocumento(documento)
+                            .orElseThrow(() -> new ResourceNotFoundException("Aprendiz no encontrado con documento: " + documento))));
+            return aprendiz.toEntity(fichaService.getFichaById(aprendiz.fichaId()));
+        } catch (ResourceNotFoundException e) {
+            return archiveStore.buscarAprendizPorDocumento(documento).orElseThrow(() -> e);
+        }
     }
 
     /**
      * Crear nuevo aprendiz
+     * Ocupa un cupo de la ficha en la misma transacción que el alta; con la ficha llena queda
+     * EN_ESPERA si la ficha tiene lista de espera, o se rechaza con CapacityExceededException
      */
     public Aprendiz createAprendiz(Aprendiz aprendiz) {
         log.info("Creando nuevo aprendiz: {}", aprendiz.getDocumento());
@@ -72,7 +147,13 @@ public class AprendizService {
             throw new DuplicateResourceException("Ya existe un aprendiz con el correo: " + aprendiz.getCorreo());
         }
         
-        return aprendizRepository.save(aprendiz);
+        aprendiz.setEstado(cupoService.asignar(aprendiz.getFicha().getId(), aprendiz.getEstado()));
+        Aprendiz guardado = aprendizRepository.save(aprendiz);
+        tendenciaMatriculaService.aprendizRegistrado(guardado.getId());
+        outboxWriter.aprendiz(Operacion.CREADO, guardado);
+        facetIndex.registrar(guardado);
+        cacheInvalidator.invalidar(TipoEntidad.APRENDIZ, guardado.getId());
+        return guardado;
     }
 
     /**
@@ -81,7 +162,14 @@ public class AprendizService {
     public Aprendiz updateAprendiz(Long id, Aprendiz aprendizActualizado) {
         log.info("Actualizando aprendiz con ID: {}", id);
         
-        Aprendiz aprendizExistente = getAprendizById(id);
+        Aprendiz aprendizExistente = aprendizRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Aprendiz no encontrado con ID: " + id));
+        
+        // Validar que nadie haya modificado el registro desde que se leyó; una edición
+        // sin versión no prueba haber leído la última y se trata también como conflicto
+        if (!Objects.equals(aprendizActualizado.getVersion(), aprendizExistente.getVersion())) {
+            throw new ResourceConflictException("El aprendiz fue modificado por otro usuario. Recargue la página e intente de nuevo.");
+        }
         
         // Validar documento duplicado (si cambió)
         if (!aprendizExistente.getDocumento().equals(aprendizActualizado.getDocumento()) &&
@@ -95,6 +183,15 @@ public class AprendizService {
             throw new DuplicateResourceException("Ya existe un aprendiz con el correo: " + aprendizActualizado.getCorreo());
         }
         
+        // Un cambio de ficha mueve la matrícula en la tendencia: se descuenta con la ficha anterior
+        boolean cambiaFicha = aprendizActualizado.getFicha() != null &&
+            !Objects.equals(aprendizExistente.getFicha().getId(), aprendizActualizado.getFicha().getId());
+        if (cambiaFicha) {
+            tendenciaMatriculaService.aprendizRetirado(id);
+            aprendizExistente.setEstado(cupoService.mover(aprendizExistente.getFicha().getId(),
+                    aprendizExistente.getEstado(), aprendizActualizado.getFicha().getId()));
+        }
+        
         // Actualizar campos
         aprendizExistente.setDocumento(aprendizActualizado.getDocumento());
         aprendizExistente.setNombres(aprendizActualizado.getNombres());
@@ -103,20 +200,35 @@ public class AprendizService {
         aprendizExistente.setTelefono(aprendizActualizado.getTelefono());
         aprendizExistente.setFicha(aprendizActualizado.getFicha());
         
-        return aprendizRepository.save(aprendizExistente);
+        Aprendiz guardado;
+        if (cambiaFicha) {
+            guardado = aprendizRepository.saveAndFlush(aprendizExistente);
+            tendenciaMatriculaService.aprendizRegistrado(id);
+        } else {
+            guardado = aprendizRepository.save(aprendizExistente);
+        }
+        outboxWriter.aprendiz(Operacion.ACTUALIZADO, guardado);
+        facetIndex.registrar(guardado);
+        cacheInvalidator.invalidar(TipoEntidad.APRENDIZ, id);
+        return guardado;
     }
 
     /**
-     * Eliminar aprendiz
+     * Eliminar aprendiz (su cupo pasa al primero de la lista de espera, si lo hay)
      */
     public void deleteAprendiz(Long id) {
         log.info("Eliminando aprendiz con ID: {}", id);
         
-        if (!aprendizRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Aprendiz no encontrado con ID: " + id);
-        }
+        Aprendiz aprendiz = aprendizRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Aprendiz no encontrado con ID: " + id));
         
+        // Liberar su cupo (y promover al siguiente en espera) antes de borrar: ficha antes que aprendiz
+        cupoService.liberar(aprendiz.getFicha().getId(), aprendiz.getEstado());
+        tendenciaMatriculaService.aprendizRetirado(id);
         aprendizRepository.deleteById(id);
+        outboxWriter.eliminado(TipoEntidad.APRENDIZ, id);
+        facetIndex.quitar(id);
+        cacheInvalidator.invalidar(TipoEntidad.APRENDIZ, id);
     }
 
     /**
@@ -125,16 +237,79 @@ public class AprendizService {
     @Transactional(readOnly = true)
     public List<Aprendiz> searchAprendices(String searchTerm) {
         log.info("Buscando aprendices con término: {}", searchTerm);
-        return aprendizRepository.searchByNombresOrApellidosOrDocumento(searchTerm);
+        List<Aprendiz> encontrados = aprendizRepository.searchByNombresOrApellidosOrDocumento(searchTerm);
+        // Un documento exacto que ya no está en las tablas de trabajo se busca en el archivo;
+        // las búsquedas por nombre no lo consultan
+        String documento = searchTerm.trim();
+        if (DOCUMENTO.matcher(documento).matches()
+                && encontrados.stream().noneMatch(a -> documento.equals(a.getDocumento()))) {
+            Optional<Aprendiz> archivado = archiveStore.buscarAprendizPorDocumento(documento);
+            if (archivado.isPresent()) {
+                encontrados = new ArrayList<>(encontrados);
+                encontrados.add(archivado.get());
+            }
+        }
+        return encontrados;
     }
 
     /**
-     * Obtener aprendices por ficha
+     * Obtener los aprendices archivados de una ficha archivada
      */
     @Transactional(readOnly = true)
+    public List<Aprendiz> getAprendicesArchivadosByFichaId(Long fichaId) {
+        return archiveStore.aprendicesDeFicha(fichaId);
+    }
+
+    /**
+     * Obtener aprendices por ficha (con ficha y programa)
+     * Las lecturas concurrentes de la misma ficha se fusionan en una sola consulta;
+     * la lista devuelta es inmutable y compartida
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Aprendiz> getAprendicesByFichaId(Long fichaId) {
         log.info("Obteniendo aprendices de la ficha ID: {}", fichaId);
-        return aprendizRepository.findByFichaId(fichaId);
+        return requestCoalescer.fusionar("AprendizService.getAprendicesByFichaId", fichaId, () ->
+                List.copyOf(aprendizRepository.findByFichaId(fichaId)));
+    }
+
+    /**
+     * Recorrer los aprendices de una ficha por lotes, leyéndolos de la base de datos a medida
+     * que el consumidor los procesa (vista de detalle por partes). Sin ficha ni programa cargados
+     * Sin transacción alrededor del recorrido: cada lote se lee en la suya y la conexión se
+     * devuelve antes de que el consumidor escriba al cliente (ver KeysetBatcher)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void recorrerAprendicesByFichaId(Long fichaId, int tamanoLote, Consumer<List<Aprendiz>> consumidor) {
+        log.info("Recorriendo aprendices de la ficha ID: {}", fichaId);
+        KeysetBatcher.recorrer(lecturaPorLotes, entityManager, tamanoLote,
+                lote -> aprendizRepository.findLoteByFichaId(fichaId, lote),
+                (ultimo, lote) -> aprendizRepository.findLoteByFichaIdDespuesDe(fichaId,
+                        ultimo.getApellidos(), ultimo.getNombres(), ultimo.getId(), lote),
+                consumidor);
+    }
+
+    /**
+     * Contar los aprendices de una ficha
+     */
+    @Transactional(readOnly = true)
+    public long contarAprendicesByFichaId(Long fichaId) {
+        return aprendizRepository.countByFichaId(fichaId);
+    }
+
+    /**
+     * Contar los aprendices de una ficha en lista de espera
+     */
+    @Transactional(readOnly = true)
+    public long contarEnEsperaByFichaId(Long fichaId) {
+        return aprendizRepository.countByFichaIdAndEstado(fichaId, EstadoAprendiz.EN_ESPERA.name());
+    }
+
+    /**
+     * Obtener aprendices por sus IDs (con ficha y programa), en orden de ID
+     */
+    @Transactional(readOnly = true)
+    public List<Aprendiz> getAprendicesByIds(List<Long> ids) {
+        return ids.isEmpty() ? List.of() : aprendizRepository.findAllWithFichaAndProgramaByIdIn(ids);
     }
 
     /**
@@ -0,0 +1,194 @@
+package com.sena.service;
+
+import com.sena.cache.CacheInvalidator;
+import com.sena.cache.TipoEntidad;
+import com.sena.exception.CapacityExceededException;
+import com.sena.exception.ResourceNotFoundException;
+import com.sena.facet.FacetIndex;
+import com.sena.model.EstadoAprendiz;
+import com.sena.model.EstadoFicha;
+import com.sena.model.Ficha;
+import com.sena.outbox.OutboxWriter;
+import com.sena.repository.AprendizRepository;
+import com.sena.repository.FichaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cupos de las fichas y lista de espera (ver db/06_capacidad_fichas.sql)
+ * El contador fichas.cupos_ocupados solo cambia con UPDATE condicionales dentro de la
+ * transacción del alta, la baja o el cambio de ficha del aprendiz: el UPDATE que ocupa
+ * un cupo bloquea la fila de la ficha hasta el commit, así que las altas concurrentes
+ * se serializan por ficha y nunca superan la capacidad, sin contar aprendices antes de
+ * insertar. Si la transacción se revierte, el contador vuelve atrás con ella.
+ *
+ * Ocupan cupo los aprendices ACTIVO e INACTIVO (EstadoAprendiz.ocupaCupo). Todo cambio
+ * que cruza ese límite pasa por aquí: el alta, la baja, el cambio de ficha, la promoción
+ * desde la lista de espera y los cambios de estado masivos que gradúan o retiran
+ * (liberarCupos). Los cupos que se liberan en una ficha abierta se ofrecen enseguida a
+ * la lista de espera; en una ficha terminada o cancelada no se promueve a nadie.
+ *
+ * Las fichas se bloquean siempre antes que los aprendices (y por ID cuando son dos)
+ * para no cruzar bloqueos entre altas, bajas y promociones.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class CupoService {
+
+    private static final Logger log = LoggerFactory.getLogger(CupoService.class);
+
+    private static final String EN_ESPERA = EstadoAprendiz.EN_ESPERA.name();
+    private static final String ACTIVO = EstadoAprendiz.ACTIVO.name();
+
+    private final FichaRepository fichaRepository;
+    private final AprendizRepository aprendizRepository;
+    private final OutboxWriter outboxWriter;
+    private final FacetIndex facetIndex;
+    private final CacheInvalidator cacheInvalidator;
+
+    public CupoService(FichaRepository fichaRepository, AprendizRepository aprendizRepository,
+                       OutboxWriter outboxWriter, FacetIndex facetIndex, CacheInvalidator cacheInvalidator) {
+        this.fichaRepository = fichaRepository;
+        this.aprendizRepository = aprendizRepository;
+        this.outboxWriter = outboxWriter;
+        this.facetIndex = facetIndex;
+        this.cacheInvalidator = cacheInvalidator;
+    }
+
+    /**
+     * Ocupar un cupo para un aprendiz que entra en la ficha; devuelve el estado con el que queda:
+     * el suyo si ocupó cupo (ACTIVO si venía EN_ESPERA) o EN_ESPERA si la ficha está llena y tiene
+     * lista de espera. Sin lista de espera lanza CapacityExceededException. Un aprendiz graduado o
+     * retirado entra sin ocupar cupo
+     */
+    public String asignar(Long fichaId, String estado) {
+        if (!EN_ESPERA.equals(estado) && !ocupaCupo(estado)) {
+            return estado;
+        }
+        if (fichaRepository.ocuparCupo(fichaId) == 1) {
+            return EN_ESPERA.equals(estado) ? ACTIVO : estado;
+        }
+        Ficha ficha = fichaRepository.findById(fichaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Ficha no encontrada con ID: " + fichaId));
+        if (!ficha.isListaEspera()) {
+            throw new CapacityExceededException("La ficha " + ficha.getCodigo() +
+                    " no tiene cupos disponibles (capacidad " + ficha.getCapacidad() + ")");
+        }
+        log.info("Ficha ID: {} llena: el aprendiz queda en lista de espera", fichaId);
+        return EN_ESPERA;
+    }
+
+    /**
+     * Liberar el cupo de un aprendiz que sale de la ficha y promover al siguiente en espera
+     */
+    public void liberar(Long fichaId, String estado) {
+        if (!ocupaCupo(estado)) {
+            return;
+        }
+        fichaRepository.liberarCupo(fichaId);
+        promoverEnEspera(fichaId);
+    }
+
+    /**
+     * Liberar los cupos de varios aprendices de una ficha que pasaron a un estado sin cupo
+     * (graduados o retirados en un cambio masivo) y promover a los que esperan
+     * Llamar con la ficha ya bloqueada, antes o después de cambiar a los aprendices
+     */
+    public void liberarCupos(Long fichaId, int cantidad) {
+        if (cantidad <= 0) {
+            return;
+        }
+        fichaRepository.liberarCupos(fichaId, cantidad);
+        promoverEnEspera(fichaId);
+    }
+
+    /**
+     * Mover un aprendiz de ficha: libera en el origen y ocupa en el destino, en orden de ID de ficha
+     * Devuelve el estado con el que queda en la ficha destino
+     */
+    public String mover(Long origenId, String estado, Long destinoId) {
+        if (origenId < destinoId) {
+            liberar(origenId, estado);
+            return asignar(destinoId, estado);
+        }
+        String nuevoEstado = asignar(destinoId, estado);
+        liberar(origenId, estado);
+        return nuevoEstado;
+    }
+
+    /**
+     * Pasar a ACTIVO, por orden de llegada, tantos aprendices EN_ESPERA como cupos queden libres
+     * La ficha se bloquea antes que los aprendices; solo se promueve a los que siguen en espera
+     * con su fila bloqueada, así que los eventos corresponden exactamente a los cambiados
+     */
+    public int promoverEnEspera(Long fichaId) {
+        String estadoFicha = fichaRepository.lockEstadoById(fichaId).orElse(null);
+        if (estadoFicha == null || cerrada(estadoFicha)) {
+            return 0;
+        }
+        List<Long> enEspera = aprendizRepository.findIdsByFichaIdAndEstadoIn(fichaId, List.of(EN_ESPERA));
+        if (enEspera.isEmpty()) {
+            return 0;
+        }
+        List<Long> promovidos = new ArrayList<>();
+        for (Long id : aprendizRepository.lockIdsByIdInAndEstadoIn(enEspera, List.of(EN_ESPERA))) {
+            if (fichaRepository.ocuparCupo(fichaId) == 0) {
+                break;
+            }
+            promovidos.add(id);
+        }
+        if (promovidos.isEmpty()) {
+            return 0;
+        }
+        aprendizRepository.updateEstadoByIds(promovidos, List.of(EN_ESPERA), ACTIVO);
+        outboxWriter.cambioDeEstado(TipoEntidad.APRENDIZ, promovidos, ACTIVO);
+        facetIndex.cambiarEstado(promovidos, ACTIVO);
+        cacheInvalidator.invalidar(TipoEntidad.APRENDIZ, promovidos);
+        log.info("{} aprendiz(es) promovidos de la lista de espera de la ficha ID: {}", promovidos.size(), fichaId);
+        return promovidos.size();
+    }
+
+    /**
+     * Capacidad, contador de cupos y aprendices que ocupan cupo o esperan (coinciden si no hay deriva)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getEstado(Long fichaId) {
+        Ficha ficha = fichaRepository.findById(fichaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Ficha no encontrada con ID: " + fichaId));
+        long enEspera = aprendizRepository.countByFichaIdAndEstado(fichaId, EN_ESPERA);
+        long ocupando = aprendizRepository.countByFichaIdAndEstadoIn(fichaId, EstadoAprendiz.conCupo());
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("ficha", ficha.getCodigo());
+        estado.put("capacidad", ficha.getCapacidad());
+        estado.put("listaEspera", ficha.isListaEspera());
+        estado.put("cuposOcupados", ficha.getCuposOcupados());
+        estado.put("aprendicesOcupando", ocupando);
+        estado.put("aprendicesEnEspera", enEspera);
+        estado.put("sobreAdmision", ficha.getCapacidad() != null && ocupando > ficha.getCapacidad());
+        estado.put("contadorCoincide", ficha.getCuposOcupados() == ocupando);
+        return estado;
+    }
+
+    private static boolean ocupaCupo(String estado) {
+        return EstadoAprendiz.conCupo().contains(estado);
+    }
+
+    /**
+     * Ficha terminada o cancelada: sus aprendices ya salieron (o están saliendo) y no se promueve a nadie
+     */
+    private static boolean cerrada(String estadoFicha) {
+        try {
+            return EstadoFicha.valueOf(estadoFicha).getEstadoAprendices() != null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -1,15 +1,36 @@
 package com.sena.service;
 
+import com.sena.archive.ArchiveStore;
+import com.sena.cache.CacheInvalidator;
+import com.sena.cache.EntityCaches;
+import com.sena.cache.FichaSnapshot;
+import com.sena.cache.RequestCoalescer;
+import com.sena.cache.TipoEntidad;
 import com.sena.exception.DuplicateResourceException;
+import com.sena.exception.InvalidStateTransitionException;
+import com.sena.exception.ResourceConflictException;
 import com.sena.exception.ResourceNotFoundException;
+import com.sena.facet.FacetIndex;
+import com.sena.facet.Faceta;
+import com.sena.interval.FichaIntervalIndex;
+import com.sena.model.EstadoFicha;
 import com.sena.model.Ficha;
+import com.sena.outbox.Operacion;
+import com.sena.outbox.OutboxWriter;
+import com.sena.repository.AprendizRepository;
 import com.sena.repository.FichaRepository;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Servicio de lógica de negocio para Ficha
@@ -21,9 +42,43 @@ public class FichaService {
     private static final Logger log = LoggerFactory.getLogger(FichaService.class);
 
     private final FichaRepository fichaRepository;
+    private final AprendizRepository aprendizRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final RequestCoalescer requestCoalescer;
+    private final EntityCaches entityCaches;
+    private final ProgramaService programaService;
+    private final OutboxWriter outboxWriter;
+    private final FacetIndex facetIndex;
+    private final TendenciaMatriculaService tendenciaMatriculaService;
+    private final FichaIntervalIndex fichaIntervalIndex;
+    private final ArchiveStore archiveStore;
+    private final EntityManager entityManager;
+    private final CupoService cupoService;
+    private final TransactionTemplate lecturaPorLotes;
 
-    public FichaService(FichaRepository fichaRepository) {
+    public FichaService(FichaRepository fichaRepository, AprendizRepository aprendizRepository,
+                        CacheInvalidator cacheInvalidator,
+                        RequestCoalescer requestCoalescer, EntityCaches entityCaches,
+                        ProgramaService programaService, OutboxWriter outboxWriter,
+                        FacetIndex facetIndex, TendenciaMatriculaService tendenciaMatriculaService,
+                        FichaIntervalIndex fichaIntervalIndex, ArchiveStore archiveStore,
+                        EntityManager entityManager, CupoService cupoService,
+                        PlatformTransactionManager transactionManager) {
         this.fichaRepository = fichaRepository;
+        this.aprendizRepository = aprendizRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.requestCoalescer = requestCoalescer;
+        this.entityCaches = entityCaches;
+        this.programaService = programaService;
+        this.outboxWriter = outboxWriter;
+        this.facetIndex = facetIndex;
+        this.tendenciaMatriculaService = tendenciaMatriculaService;
+        this.fichaIntervalIndex = fichaIntervalIndex;
+        this.archiveStore = archiveStore;
+        this.entityManager = entityManager;
+        this.cupoService = cupoService;
+        this.lecturaPorLotes = new TransactionTemplate(transactionManager);
+        this.lecturaPorLotes.setReadOnly(true);
     }
 
     /**
@@ -36,23 +91,44 @@ public class FichaService {
     }
 
     /**
-     * Obtener ficha por ID
+     * Obtener ficha por ID (con su programa)
+     * Devuelve una copia desacoplada desde la caché de entidades; las cargas concurrentes
+     * de la misma ficha se fusionan en una sola consulta. Sin aprendices cargados:
+     * usar AprendizService.getAprendicesByFichaId
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Ficha getFichaById(Long id) {
         log.info("Buscando ficha con ID: {}", id);
-        return fichaRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Ficha no encontrada con ID: " + id));
+        FichaSnapshot ficha = entityCaches.fichas().obtener(id, () ->
+                requestCoalescer.fusionar("FichaService.getFichaById", id, () ->
+                        FichaSnapshot.de(fichaRepository.findById(id)
+                                .orElseThrow(() -> new ResourceNotFoundException("Ficha no encontrada con ID: " + id)))));
+        return ficha.toEntity(programaService.getProgramaById(ficha.programaId()));
+    }
+
+    /**
+     * Obtener ficha por ID buscando también en el archivo (solo para consulta)
+     * Una ficha archivada vuelve marcada con isArchivada() y no se puede modificar
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Ficha getFichaOArchivada(Long id) {
+        try {
+            return getFichaById(id);
+        } catch (ResourceNotFoundException e) {
+            return archiveStore.buscarFicha(id).orElseThrow(() -> e);
+        }
     }
 
     /**
      * Buscar ficha por código
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Ficha getFichaByCodigo(String codigo) {
         log.info("Buscando ficha con código: {}", codigo);
-        return fichaRepository.findByCodigo(codigo)
-                .orElseThrow(() -> new ResourceNotFoundException("Ficha no encontrada con código: " + codigo));
+        FichaSnapshot ficha = entityCaches.fichas().obtenerPorClave(codigo, () ->
+                FichaSnapshot.de(fichaRepository.findByCodigo(codigo)
+                        .orElseThrow(() -> new ResourceNotFoundException("Ficha no encontrada con código: " + codigo))));
+        return ficha.toEntity(programaService.getProgramaById(ficha.programaId()));
     }
 
     /**
@@ -66,7 +142,18 @@ public class FichaService {
             throw new DuplicateResourceException("Ya existe una ficha con el código: " + ficha.getCodigo());
         }
         
-        return fichaRepository.save(ficha);
+        // Los estados de cierre solo se alcanzan con el cambio de estado (arrastran a los aprendices)
+        if (EstadoFicha.TERMINADA.name().equals(ficha.getEstado()) ||
+            EstadoFicha.CANCELADA.name().equals(ficha.getEstado())) {
+            throw new InvalidStateTransitionException("Una ficha no puede crearse en estado " + ficha.getEstado());
+        }
+        
+        Ficha guardada = fichaRepository.save(ficha);
+        tendenciaMatriculaService.fichaCreada(guardada.getId());
+        outboxWriter.ficha(Operacion.CREADO, guardada);
+        fichaIntervalIndex.registrar(guardada);
+        cacheInvalidator.invalidar(TipoEntidad.FICHA, guardada.getId());
+        return guardada;
     }
 
     /**
@@ -75,7 +162,14 @@ public class FichaService {
     public Ficha updateFicha(Long id, Ficha fichaActualizada) {
         log.info("Actualizando ficha con ID: {}", id);
         
-        Ficha fichaExistente = getFichaById(id);
+        Ficha fichaExistente = fichaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Ficha no encontrada con ID: " + id));
+        
+        // Validar que nadie haya modificado el registro desde que se leyó; una edición
+        // sin versión no prueba haber leído la última y se trata también como conflicto
+        if (!Objects.equals(fichaActualizada.getVersion(), fichaExistente.getVersion())) {
+            throw new ResourceConflictException("La ficha fue modificada por otro usuario. Recargue la página e intente de nuevo.");
+        }
         
         // Validar código duplicado (si cambió)
         if (!fichaExistente.getCodigo().equals(fichaActualizada.getCodigo()) &&
@@ -83,10 +177,37 @@ public class FichaService {
             throw new DuplicateResourceException("Ya existe una ficha con el código: " + fichaActualizada.getCodigo());
         }
         
+        // Un cambio de programa mueve la ficha y sus matrículas en la tendencia
+        boolean cambiaPrograma = fichaActualizada.getPrograma() != null &&
+            !Objects.equals(fichaExistente.getPrograma().getId(), fichaActualizada.getPrograma().getId());
+        if (cambiaPrograma) {
+            tendenciaMatriculaService.fichaRetirada(id);
+        }
+        
+        // Más capacidad (o capacidad ilimitada) deja entrar a la lista de espera
+        boolean ampliaCupos = fichaExistente.getCapacidad() != null &&
+            (fichaActualizada.getCapacidad() == null || fichaActualizada.getCapacidad() > fichaExistente.getCapacidad());
+        
         fichaExistente.setCodigo(fichaActualizada.getCodigo());
         fichaExistente.setPrograma(fichaActualizada.getPrograma());
+        fichaExistente.setCapacidad(fichaActualizada.getCapacidad());
+        fichaExistente.setListaEspera(fichaActualizada.isListaEspera());
         
-        return fichaRepository.save(fichaExistente);
+        Ficha guardada;
+        if (cambiaPrograma) {
+            guardada = fichaRepository.saveAndFlush(fichaExistente);
+            tendenciaMatriculaService.fichaReasignada(id);
+        } else {
+            guardada = fichaRepository.save(fichaExistente);
+        }
+        if (ampliaCupos) {
+            cupoService.promoverEnEspera(id);
+        }
+        outboxWriter.ficha(Operacion.ACTUALIZADO, guardada);
+        facetIndex.actualizarFicha(guardada);
+        fichaIntervalIndex.registrar(guardada);
+        cacheInvalidator.invalidar(TipoEntidad.FICHA, id);
+        return guardada;
     }
 
     /**
@@ -99,7 +220,16 @@ public class FichaService {
             throw new ResourceNotFoundException("Ficha no encontrada con ID: " + id);
         }
         
+        outboxWriter.aprendicesEliminadosDeFicha(id);
+        tendenciaMatriculaService.fichaEliminada(id);
+        aprendizRepository.bulkDeleteByFichaId(id);
         fichaRepository.deleteById(id);
+        outboxWriter.eliminado(TipoEntidad.FICHA, id);
+        facetIndex.quitarDependientes(Faceta.FICHA, id);
+        fichaIntervalIndex.quitar(id);
+        cacheInvalidator.invalidar(TipoEntidad.FICHA, id);
+        // Sus aprendices se borraron con ella
+        cacheInvalidator.invalidarTodos(TipoEntidad.APRENDIZ);
     }
 
     /**
@@ -111,6 +241,14 @@ public class FichaService {
         return fichaRepository.searchByCodigo(searchTerm);
     }
 
+    /**
+     * Obtener fichas por sus IDs (con su programa), por fecha de inicio
+     */
+    @Transactional(readOnly = true)
+    public List<Ficha> getFichasByIds(List<Long> ids) {
+        return ids.isEmpty() ? List.of() : fichaRepository.findAllWithProgramaByIdIn(ids);
+    }
+
     /**
      * Obtener fichas por programa
      */
@@ -120,6 +258,28 @@ public class FichaService {
         return fichaRepository.findByProgramaId(programaId);
     }
 
+    /**
+     * Recorrer las fichas de un programa por lotes, leyéndolas de la base de datos a medida
+     * que el consumidor las procesa (vista de detalle por partes). Sin programa cargado
+     * Cada lote se lee en su propia transacción (ver KeysetBatcher)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void recorrerFichasByProgramaId(Long programaId, int tamanoLote, Consumer<List<Ficha>> consumidor) {
+        log.info("Recorriendo fichas del programa ID: {}", programaId);
+        KeysetBatcher.recorrer(lecturaPorLotes, entityManager, tamanoLote,
+                lote -> fichaRepository.findLoteByProgramaId(programaId, lote),
+                (ultima, lote) -> fichaRepository.findLoteByProgramaIdDespuesDe(programaId, ultima.getCodigo(), lote),
+                consumidor);
+    }
+
+    /**
+     * Contar las fichas de un programa
+     */
+    @Transactional(readOnly = true)
+    public long contarFichasByProgramaId(Long programaId) {
+        return fichaRepository.countByProgramaId(programaId);
+    }
+
     /**
      * Obtener total de fichas
      */
@@ -0,0 +1,46 @@
+package com.sena.service;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Recorre una consulta por lotes con paginación por clave (keyset): cada lote continúa
+ * después de la última fila del anterior y se lee en su propia transacción corta, así que
+ * la conexión vuelve al pool antes de entregar el lote al consumidor. Un consumidor lento
+ * (la respuesta a un cliente lento) no retiene conexión, cursor ni permiso del compartimento.
+ * Las entidades se desacoplan del contexto de persistencia después de entregar cada lote,
+ * para que la memoria de un recorrido largo no crezca con el número de filas.
+ */
+final class KeysetBatcher {
+
+    private KeysetBatcher() {
+    }
+
+    /**
+     * primerLote lee las primeras filas; siguienteLote, las posteriores a la fila dada,
+     * ambas en el mismo orden total (con el ID como desempate)
+     */
+    static <T> void recorrer(TransactionTemplate lectura, EntityManager entityManager, int tamanoLote,
+                             Function<Pageable, List<T>> primerLote,
+                             BiFunction<T, Pageable, List<T>> siguienteLote,
+                             Consumer<List<T>> consumidor) {
+        Pageable pagina = PageRequest.of(0, tamanoLote);
+        List<T> lote = lectura.execute(status -> primerLote.apply(pagina));
+        while (lote != null && !lote.isEmpty()) {
+            consumidor.accept(List.copyOf(lote));
+            lote.forEach(entityManager::detach);
+            if (lote.size() < tamanoLote) {
+                return;
+            }
+            T ultimo = lote.get(lote.size() - 1);
+            lote = lectura.execute(status -> siguienteLote.apply(ultimo, pagina));
+        }
+    }
+}
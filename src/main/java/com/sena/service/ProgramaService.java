@@ -1,15 +1,31 @@
 package com.sena.service;
 
+import com.sena.archive.ArchiveStore;
+import com.sena.cache.CacheInvalidator;
+import com.sena.cache.EntityCaches;
+import com.sena.cache.ProgramaSnapshot;
+import com.sena.cache.RequestCoalescer;
+import com.sena.cache.TipoEntidad;
 import com.sena.exception.DuplicateResourceException;
+import com.sena.exception.ResourceConflictException;
 import com.sena.exception.ResourceNotFoundException;
+import com.sena.facet.FacetIndex;
+import com.sena.facet.Faceta;
+import com.sena.interval.FichaIntervalIndex;
 import com.sena.model.Programa;
+import com.sena.outbox.Operacion;
+import com.sena.outbox.OutboxWriter;
+import com.sena.repository.AprendizRepository;
+import com.sena.repository.FichaRepository;
 import com.sena.repository.ProgramaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Servicio de lógica de negocio para Programa
@@ -21,9 +37,34 @@ public class ProgramaService {
     private static final Logger log = LoggerFactory.getLogger(ProgramaService.class);
 
     private final ProgramaRepository programaRepository;
+    private final FichaRepository fichaRepository;
+    private final AprendizRepository aprendizRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final EntityCaches entityCaches;
+    private final RequestCoalescer requestCoalescer;
+    private final OutboxWriter outboxWriter;
+    private final FacetIndex facetIndex;
+    private final TendenciaMatriculaService tendenciaMatriculaService;
+    private final FichaIntervalIndex fichaIntervalIndex;
+    private final ArchiveStore archiveStore;
 
-    public ProgramaService(ProgramaRepository programaRepository) {
+    public ProgramaService(ProgramaRepository programaRepository, FichaRepository fichaRepository,
+                           AprendizRepository aprendizRepository, CacheInvalidator cacheInvalidator,
+                           EntityCaches entityCaches, RequestCoalescer requestCoalescer,
+                           OutboxWriter outboxWriter, FacetIndex facetIndex,
+                           TendenciaMatriculaService tendenciaMatriculaService,
+                           FichaIntervalIndex fichaIntervalIndex, ArchiveStore archiveStore) {
         this.programaRepository = programaRepository;
+        this.fichaRepository = fichaRepository;
+        this.aprendizRepository = aprendizRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.entityCaches = entityCaches;
+        this.requestCoalescer = requestCoalescer;
+        this.outboxWriter = outboxWriter;
+        this.facetIndex = facetIndex;
+        this.tendenciaMatriculaService = tendenciaMatriculaService;
+        this.fichaIntervalIndex = fichaIntervalIndex;
+        this.archiveStore = archiveStore;
     }
 
     /**
@@ -37,12 +78,16 @@ public class ProgramaService {
 
     /**
      * Obtener programa por ID
+     * Devuelve una copia desacoplada desde la caché de entidades (sin fichas cargadas)
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Programa getProgramaById(Long id) {
         log.info("Buscando programa con ID: {}", id);
-        return programaRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Programa no encontrado con ID: " + id));
+        return entityCaches.programas().obtener(id, () ->
+                requestCoalescer.fusionar("ProgramaService.getProgramaById", id, () ->
+                        ProgramaSnapshot.de(programaRepository.findById(id)
+                                .orElseThrow(() -> new ResourceNotFoundException("Programa no encontrado con ID: " + id)))))
+                .toEntity();
     }
 
     /**
@@ -66,7 +111,10 @@ public class ProgramaService {
             throw new DuplicateResourceException("Ya existe un programa con el nombre: " + programa.getNombre());
         }
         
-        return programaRepository.save(programa);
+        Programa guardado = programaRepository.save(programa);
+        outboxWriter.programa(Operacion.CREADO, guardado);
+        cacheInvalidator.invalidar(TipoEntidad.PROGRAMA, guardado.getId());
+        return guardado;
     }
 
     /**
@@ -75,7 +123,14 @@ public class ProgramaService {
     public Programa updatePrograma(Long id, Programa programaActualizado) {
         log.info("Actualizando programa con ID: {}", id);
         
-        Programa programaExistente = getProgramaById(id);
+        Programa programaExistente = programaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Programa no encontrado con ID: " + id));
+        
+        // Validar que nadie haya modificado el registro desde que se leyó; una edición
+        // sin versión no prueba haber leído la última y se trata también como conflicto
+        if (!Objects.equals(programaActualizado.getVersion(), programaExistente.getVersion())) {
+            throw new ResourceConflictException("El programa fue modificado por otro usuario. Recargue la página e intente de nuevo.");
+        }
         
         // Validar nombre duplicado (si cambió)
         if (!programaExistente.getNombre().equals(programaActualizado.getNombre()) &&
@@ -85,7 +140,11 @@ public class ProgramaService {
         
         programaExistente.setNombre(programaActualizado.getNombre());
         
-        return programaRepository.save(programaExistente);
+        Programa guardado = programaRepository.save(programaExistente);
+        outboxWriter.programa(Operacion.ACTUALIZADO, guardado);
+        facetIndex.actualizarPrograma(guardado);
+        cacheInvalidator.invalidar(TipoEntidad.PROGRAMA, id);
+        return guardado;
     }
 
     /**
@@ -98,7 +157,20 @@ public class ProgramaService {
             throw new ResourceNotFoundException("Programa no encontrado con ID: " + id);
         }
         
+        outboxWriter.fichasEliminadasDePrograma(id);
+        tendenciaMatriculaService.programaEliminado(id);
+        // Aprendices y fichas en una sentencia cada uno, no ficha por ficha en cascada
+        aprendizRepository.bulkDeleteByProgramaId(id);
+        fichaRepository.bulkDeleteByProgramaId(id);
         programaRepository.deleteById(id);
+        archiveStore.eliminarPrograma(id);
+        outboxWriter.eliminado(TipoEntidad.PROGRAMA, id);
+        facetIndex.quitarDependientes(Faceta.PROGRAMA, id);
+        fichaIntervalIndex.quitarPrograma(id);
+        cacheInvalidator.invalidar(TipoEntidad.PROGRAMA, id);
+        // Sus fichas y aprendices se borraron con él
+        cacheInvalidator.invalidarTodos(TipoEntidad.FICHA);
+        cacheInvalidator.invalidarTodos(TipoEntidad.APRENDIZ);
     }
 
     /**
@@ -0,0 +1,215 @@
+package com.sena.service;
+
+import com.sena.exception.OperationInProgressException;
+import com.sena.pool.Workload;
+import com.sena.pool.WorkloadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tendencia de matrículas por día, semana y mes (tabla matriculas_tendencia)
+ * Los servicios de escritura ajustan los conteos en su misma transacción (+1 al
+ * registrar un aprendiz, -1 al eliminarlo o moverlo de ficha); la tendencia se lee
+ * de los conteos, sin recorrer la tabla de aprendices por rango de fechas.
+ * La reconstrucción recalcula todo desde aprendices y fichas (incluidas las archivadas),
+ * un programa a la vez.
+ */
+@Service
+public class TendenciaMatriculaService {
+
+    private static final Logger log = LoggerFactory.getLogger(TendenciaMatriculaService.class);
+
+    /**
+     * Granularidades de la tendencia
+     */
+    public enum Granularidad { DIA, SEMANA, MES }
+
+    // Cada aprendiz cuenta en 3 granularidades x 2 niveles (la ficha y el total del programa, ficha_id = 0)
+    private static final String PERIODOS =
+            "CROSS JOIN (SELECT 'DIA' AS granularidad UNION ALL SELECT 'SEMANA' UNION ALL SELECT 'MES') g " +
+            "CROSS JOIN (SELECT 1 AS por_ficha UNION ALL SELECT 0) n ";
+
+    private static final String PERIODO_APRENDIZ = periodo("a.fecha_registro");
+
+    // La reconstrucción cuenta también lo archivado (ver ArchiveService): el archivo no es una baja
+    private static final String TODOS_LOS_APRENDICES =
+            "(SELECT ficha_id, fecha_registro FROM aprendices " +
+            "UNION ALL SELECT ficha_id, fecha_registro FROM aprendices_archivo) a ";
+
+    private static final String TODAS_LAS_FICHAS =
+            "(SELECT id, programa_id, fecha_creacion FROM fichas " +
+            "UNION ALL SELECT id, programa_id, fecha_creacion FROM fichas_archivo) f ";
+
+    private static final String AJUSTAR_MATRICULAS =
+            "INSERT INTO matriculas_tendencia (granularidad, periodo, programa_id, ficha_id, matriculas) " +
+            "SELECT g.granularidad, " + PERIODO_APRENDIZ + ", f.programa_id, " +
+            "CASE WHEN n.por_ficha = 1 THEN f.id ELSE 0 END, ? " +
+            "FROM aprendices a JOIN fichas f ON f.id = a.ficha_id " + PERIODOS + "WHERE %s " +
+            "ON DUPLICATE KEY UPDATE matriculas = matriculas + VALUES(matriculas)";
+
+    private static final String AJUSTAR_FICHAS =
+            "INSERT INTO matriculas_tendencia (granularidad, periodo, programa_id, ficha_id, fichas_abiertas) " +
+            "SELECT g.granularidad, " + periodo("f.fecha_creacion") + ", f.programa_id, 0, ? " +
+            "FROM fichas f CROSS JOIN (SELECT 'DIA' AS granularidad UNION ALL SELECT 'SEMANA' UNION ALL SELECT 'MES') g " +
+            "WHERE %s " +
+            "ON DUPLICATE KEY UPDATE fichas_abiertas = fichas_abiertas + VALUES(fichas_abiertas)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean reconstruyendo = new AtomicBoolean();
+
+    public TendenciaMatriculaService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Contar un aprendiz recién insertado (llamar después de guardarlo)
+     */
+    public void aprendizRegistrado(Long aprendizId) {
+        jdbcTemplate.update(AJUSTAR_MATRICULAS.formatted("a.id = ?"), 1, aprendizId);
+    }
+
+    /**
+     * Descontar un aprendiz (llamar antes de borrarlo o de cambiarlo de ficha)
+     */
+    public void aprendizRetirado(Long aprendizId) {
+        jdbcTemplate.update(AJUSTAR_MATRICULAS.formatted("a.id = ?"), -1, aprendizId);
+    }
+
+    /**
+     * Contar una ficha recién insertada
+     */
+    public void fichaCreada(Long fichaId) {
+        jdbcTemplate.update(AJUSTAR_FICHAS.formatted("f.id = ?"), 1, fichaId);
+    }
+
+    /**
+     * Descontar una ficha y sus aprendices (llamar antes de borrarla o de cambiarla de programa)
+     */
+    public void fichaRetirada(Long fichaId) {
+        jdbcTemplate.update(AJUSTAR_MATRICULAS.formatted("f.id = ?"), -1, fichaId);
+        jdbcTemplate.update(AJUSTAR_FICHAS.formatted("f.id = ?"), -1, fichaId);
+    }
+
+    /**
+     * Descontar una ficha que se va a eliminar y borrar sus filas propias
+     */
+    public void fichaEliminada(Long fichaId) {
+        fichaRetirada(fichaId);
+        jdbcTemplate.update("DELETE FROM matriculas_tendencia WHERE ficha_id = ?", fichaId);
+    }
+
+    /**
+     * Volver a contar una ficha y sus aprendices (después de cambiarla de programa)
+     */
+    public void fichaReasignada(Long fichaId) {
+        jdbcTemplate.update(AJUSTAR_MATRICULAS.formatted("f.id = ?"), 1, fichaId);
+        jdbcTemplate.update(AJUSTAR_FICHAS.formatted("f.id = ?"), 1, fichaId);
+    }
+
+    /**
+     * Quitar los conteos de un programa eliminado
+     */
+    public void programaEliminado(Long programaId) {
+        jdbcTemplate.update("DELETE FROM matriculas_tendencia WHERE programa_id = ?", programaId);
+    }
+
+    /**
+     * Serie de un periodo a otro: de todos los programas, de uno o de una ficha
+     * Los periodos sin matrículas no aparecen
+     */
+    public List<Map<String, Object>> getTendencia(Granularidad granularidad, Long programaId, Long fichaId,
+                                                  LocalDate desde, LocalDate hasta) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT periodo, SUM(matriculas) AS matriculas, SUM(fichas_abiertas) AS fichas_abiertas " +
+                "FROM matriculas_tendencia WHERE granularidad = ? AND periodo BETWEEN ? AND ? ");
+        List<Object> parametros = new ArrayList<>(List.of(granularidad.name(), Date.valueOf(desde), Date.valueOf(hasta)));
+        if (fichaId != null) {
+            sql.append("AND ficha_id = ? ");
+            parametros.add(fichaId);
+        } else {
+            sql.append("AND ficha_id = 0 ");
+            if (programaId != null) {
+                sql.append("AND programa_id = ? ");
+                parametros.add(programaId);
+            }
+        }
+        sql.append("GROUP BY periodo ORDER BY periodo");
+
+        return jdbcTemplate.query(sql.toString(), (rs, i) -> {
+            Map<String, Object> punto = new LinkedHashMap<>();
+            punto.put("periodo", rs.getDate("periodo").toLocalDate());
+            punto.put("matriculas", rs.getLong("matriculas"));
+            punto.put("fichasAbiertas", rs.getLong("fichas_abiertas"));
+            return punto;
+        }, parametros.toArray());
+    }
+
+    /**
+     * Recalcular la tabla desde aprendices y fichas, un programa por transacción
+     * Es idempotente; conviene ejecutarla fuera de horario porque recorre todos los aprendices
+     */
+    @Scheduled(cron = "${sena.tendencia.reconstruccion.cron:-}")
+    public void reconstruir() {
+        if (!reconstruyendo.compareAndSet(false, true)) {
+            throw new OperationInProgressException("Ya hay una reconstrucción de la tendencia en curso");
+        }
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            long inicio = System.currentTimeMillis();
+            List<Long> programas = jdbcTemplate.queryForList("SELECT id FROM programas ORDER BY id", Long.class);
+            for (Long programaId : programas) {
+                transactionTemplate.executeWithoutResult(status -> reconstruirPrograma(programaId));
+            }
+            // Restos de programas que ya no existen
+            jdbcTemplate.update("DELETE FROM matriculas_tendencia WHERE programa_id NOT IN (SELECT id FROM programas)");
+            log.info("Tendencia de matrículas reconstruida en {} ms ({} programas)",
+                    System.currentTimeMillis() - inicio, programas.size());
+        } finally {
+            reconstruyendo.set(false);
+        }
+    }
+
+    private void reconstruirPrograma(Long programaId) {
+        jdbcTemplate.update("DELETE FROM matriculas_tendencia WHERE programa_id = ?", programaId);
+        jdbcTemplate.update(
+                "INSERT INTO matriculas_tendencia (granularidad, periodo, programa_id, ficha_id, matriculas) " +
+                "SELECT g.granularidad, " + PERIODO_APRENDIZ + " AS periodo, f.programa_id, " +
+                "CASE WHEN n.por_ficha = 1 THEN f.id ELSE 0 END AS ficha, COUNT(*) " +
+                "FROM " + TODOS_LOS_APRENDICES + "JOIN " + TODAS_LAS_FICHAS + "ON f.id = a.ficha_id " + PERIODOS +
+                "WHERE f.programa_id = ? GROUP BY g.granularidad, periodo, f.programa_id, ficha",
+                programaId);
+        jdbcTemplate.update(
+                "INSERT INTO matriculas_tendencia (granularidad, periodo, programa_id, ficha_id, fichas_abiertas) " +
+                "SELECT g.granularidad, " + periodo("f.fecha_creacion") + " AS periodo, f.programa_id, 0, COUNT(*) " +
+                "FROM " + TODAS_LAS_FICHAS +
+                "CROSS JOIN (SELECT 'DIA' AS granularidad UNION ALL SELECT 'SEMANA' UNION ALL SELECT 'MES') g " +
+                "WHERE f.programa_id = ? GROUP BY g.granularidad, periodo, f.programa_id " +
+                "ON DUPLICATE KEY UPDATE fichas_abiertas = VALUES(fichas_abiertas)",
+                programaId);
+    }
+
+    /**
+     * Inicio del periodo de una fecha según la granularidad de la fila (semanas desde el lunes)
+     */
+    private static String periodo(String columna) {
+        return String.format(Locale.ROOT,
+                "CASE g.granularidad WHEN 'DIA' THEN DATE(%1$s) " +
+                "WHEN 'SEMANA' THEN DATE_SUB(DATE(%1$s), INTERVAL WEEKDAY(%1$s) DAY) " +
+                "ELSE DATE_SUB(DATE(%1$s), INTERVAL DAYOFMONTH(%1$s) - 1 DAY) END", columna);
+    }
+}
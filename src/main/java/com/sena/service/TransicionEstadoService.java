@@ -0,0 +1,225 @@
+package com.sena.service;
+
+import com.sena.cache.CacheInvalidator;
+import com.sena.cache.TipoEntidad;
+import com.sena.exception.InvalidStateTransitionException;
+import com.sena.exception.ResourceConflictException;
+import com.sena.exception.ResourceNotFoundException;
+import com.sena.facet.FacetIndex;
+import com.sena.interval.FichaIntervalIndex;
+import com.sena.model.EstadoAprendiz;
+import com.sena.model.EstadoFicha;
+import com.sena.model.Ficha;
+import com.sena.outbox.OutboxWriter;
+import com.sena.pool.Workload;
+import com.sena.pool.WorkloadContext;
+import com.sena.repository.AprendizRepository;
+import com.sena.repository.FichaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de cambios de estado masivos para fichas y aprendices
+ * Valida las transiciones permitidas y las aplica por lotes, cada lote en su
+ * propia transacción corta, para no mantener bloqueos largos sobre las tablas.
+ *
+ * El cambio de la ficha se confirma antes de recorrer sus aprendices, así que un fallo a
+ * mitad deja la ficha ya cerrada con aprendices pendientes. Ese paso es reanudable: pedir de
+ * nuevo el mismo estado lo completa, y el cierre nocturno repasa las fichas cerradas que aún
+ * tienen aprendices sin cambiar.
+ *
+ * Los aprendices que se gradúan o se retiran dejan su cupo: cada lote bloquea primero las
+ * fichas afectadas y devuelve sus cupos con CupoService en la misma transacción. Los que
+ * estaban EN_ESPERA no ocupaban cupo y no descuentan nada.
+ */
+@Service
+public class TransicionEstadoService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransicionEstadoService.class);
+
+    private final FichaRepository fichaRepository;
+    private final AprendizRepository aprendizRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final OutboxWriter outboxWriter;
+    private final FacetIndex facetIndex;
+    private final FichaIntervalIndex fichaIntervalIndex;
+    private final CupoService cupoService;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoLote;
+
+    public TransicionEstadoService(FichaRepository fichaRepository,
+                                   AprendizRepository aprendizRepository,
+                                   CacheInvalidator cacheInvalidator,
+                                   OutboxWriter outboxWriter,
+                                   FacetIndex facetIndex,
+                                   FichaIntervalIndex fichaIntervalIndex,
+                                   CupoService cupoService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${sena.transiciones.tamano-lote:500}") int tamanoLote) {
+        this.fichaRepository = fichaRepository;
+        this.aprendizRepository = aprendizRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.outboxWriter = outboxWriter;
+        this.facetIndex = facetIndex;
+        this.fichaIntervalIndex = fichaIntervalIndex;
+        this.cupoService = cupoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Cambiar el estado de una ficha y, si corresponde, el de sus aprendices
+     * Devuelve el número de aprendices actualizados
+     */
+    public int transicionarFicha(Long fichaId, EstadoFicha destino) {
+        log.info("Cambiando ficha ID: {} a estado {}", fichaId, destino);
+
+        Ficha ficha = fichaRepository.findById(fichaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Ficha no encontrada con ID: " + fichaId));
+        EstadoFicha origen;
+        try {
+            origen = EstadoFicha.valueOf(ficha.getEstado());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new InvalidStateTransitionException("Estado de ficha desconocido: " + ficha.getEstado());
+        }
+
+        EstadoAprendiz estadoAprendices = destino.getEstadoAprendices();
+        if (origen == destino && estadoAprendices != null) {
+            // Ficha ya cerrada: solo completar el paso por los aprendices que quedara pendiente
+            return transicionarAprendicesDeFicha(fichaId, estadoAprendices);
+        }
+        if (!origen.puedeCambiarA(destino)) {
+            throw new InvalidStateTransitionException(
+                    "No se permite cambiar la ficha de " + origen + " a " + destino);
+        }
+
+        Integer filas = transactionTemplate.execute(status -> {
+            int actualizadas = fichaRepository.updateEstado(fichaId, origen.name(), destino.name());
+            if (actualizadas > 0) {
+                outboxWriter.cambioDeEstado(TipoEntidad.FICHA, List.of(fichaId), destino.name());
+                fichaIntervalIndex.cambiarEstado(fichaId, destino.name());
+            }
+            cacheInvalidator.invalidar(TipoEntidad.FICHA, fichaId);
+            return actualizadas;
+        });
+        if (filas == null || filas == 0) {
+            throw new ResourceConflictException(
+                    "La ficha fue modificada por otro usuario. Recargue la página e intente de nuevo.");
+        }
+
+        return estadoAprendices == null ? 0 : transicionarAprendicesDeFicha(fichaId, estadoAprendices);
+    }
+
+    /**
+     * Cambiar el estado de los aprendices de una ficha que puedan pasar al estado destino
+     */
+    public int transicionarAprendicesDeFicha(Long fichaId, EstadoAprendiz destino) {
+        List<String> origenes = EstadoAprendiz.origenesDe(destino);
+        return aplicarPorLotes(aprendizRepository.findIdsByFichaIdAndEstadoIn(fichaId, origenes), origenes, destino);
+    }
+
+    /**
+     * Cambiar el estado de los aprendices de un programa que puedan pasar al estado destino
+     */
+    public int transicionarAprendicesDePrograma(Long programaId, EstadoAprendiz destino) {
+        List<String> origenes = EstadoAprendiz.origenesDe(destino);
+        return aplicarPorLotes(aprendizRepository.findIdsByProgramaIdAndEstadoIn(programaId, origenes), origenes, destino);
+    }
+
+    /**
+     * Terminar automáticamente las fichas activas o suspendidas cuya fecha de fin ya pasó,
+     * y completar los cierres anteriores que dejaron aprendices sin cambiar
+     */
+    @Scheduled(cron = "${sena.fichas.cierre-automatico.cron:0 30 2 * * *}")
+    public void cerrarFichasVencidas() {
+        try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.MASIVA)) {
+            List<Long> ids = fichaRepository.findIdsByEstadoInAndFechaFinBefore(
+                    List.of(EstadoFicha.ACTIVA.name(), EstadoFicha.SUSPENDIDA.name()), LocalDate.now());
+            log.info("Cierre automático: {} ficha(s) vencidas", ids.size());
+
+            for (Long id : ids) {
+                try {
+                    transicionarFicha(id, EstadoFicha.TERMINADA);
+                } catch (Exception e) {
+                    // Una ficha con conflicto se reintenta en la siguiente ejecución
+                    log.warn("No se pudo cerrar la ficha ID: {}: {}", id, e.getMessage());
+                }
+            }
+            reanudarCierresPendientes();
+        }
+    }
+
+    /**
+     * Completar el paso por los aprendices de las fichas terminadas o canceladas en las que
+     * quedó interrumpido (caída del proceso o lote fallido tras confirmar el cambio de la ficha)
+     */
+    public int reanudarCierresPendientes() {
+        int total = 0;
+        for (EstadoFicha estado : EstadoFicha.values()) {
+            EstadoAprendiz destino = estado.getEstadoAprendices();
+            if (destino == null) {
+                continue;
+            }
+            List<Long> ids = fichaRepository.findIdsByEstadoConAprendicesEn(estado.name(), EstadoAprendiz.origenesDe(destino));
+            for (Long id : ids) {
+                try {
+                    total += transicionarAprendicesDeFicha(id, destino);
+                } catch (Exception e) {
+                    log.warn("No se pudo completar el cierre de la ficha ID: {}: {}", id, e.getMessage());
+                }
+            }
+            if (!ids.isEmpty()) {
+                log.info("Cierres pendientes: {} ficha(s) {} completadas", ids.size(), estado);
+            }
+        }
+        return total;
+    }
+
+    private int aplicarPorLotes(List<Long> ids, List<String> origenes, EstadoAprendiz destino) {
+        int total = 0;
+        for (int desde = 0; desde < ids.size(); desde += tamanoLote) {
+            List<Long> lote = ids.subList(desde, Math.min(desde + tamanoLote, ids.size()));
+            Integer actualizados = transactionTemplate.execute(status -> {
+                // Fichas antes que aprendices: sus contadores de cupos cambian en este lote
+                if (!destino.ocupaCupo()) {
+                    List<Long> fichas = aprendizRepository.findFichaIdsByIdInAndEstadoIn(lote, origenes);
+                    if (!fichas.isEmpty()) {
+                        fichaRepository.lockIdsByIdIn(new TreeSet<>(fichas));
+                    }
+                }
+                // Otro proceso pudo cambiar parte del lote desde que se leyeron los IDs:
+                // bloquear los que siguen siendo elegibles y emitir eventos solo de esos
+                List<Long> elegibles = aprendizRepository.lockIdsByIdInAndEstadoIn(lote, origenes);
+                if (elegibles.isEmpty()) {
+                    return 0;
+                }
+                Map<Long, Long> cuposLiberados = destino.ocupaCupo() ? Map.of()
+                        : aprendizRepository.findFichaIdsByIdInAndEstadoIn(elegibles, EstadoAprendiz.conCupo()).stream()
+                                .collect(Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting()));
+                int filas = aprendizRepository.updateEstadoByIds(elegibles, origenes, destino.name());
+                outboxWriter.cambioDeEstado(TipoEntidad.APRENDIZ, elegibles, destino.name());
+                facetIndex.cambiarEstado(elegibles, destino.name());
+                cacheInvalidator.invalidar(TipoEntidad.APRENDIZ, elegibles);
+                cuposLiberados.forEach((fichaId, cantidad) -> cupoService.liberarCupos(fichaId, cantidad.intValue()));
+                return filas;
+            });
+            total += actualizados == null ? 0 : actualizados;
+        }
+        log.info("{} aprendiz(es) cambiados a {} en {} lote(s)", total, destino,
+                (ids.size() + tamanoLote - 1) / tamanoLote);
+        return total;
+    }
+}
@@ -0,0 +1,26 @@
+package com.sena.view;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Origen de las filas de una vista por partes (ver StreamingViews)
+ * Entrega las filas en lotes de como máximo tamanoLote elementos; cada lote solo
+ * debe usarse dentro de la llamada al consumidor.
+ */
+@FunctionalInterface
+public interface RowSource<T> {
+
+    void recorrer(int tamanoLote, Consumer<List<T>> lote);
+
+    /**
+     * Filas ya cargadas en memoria (p. ej. las de una ficha archivada)
+     */
+    static <T> RowSource<T> de(List<T> filas) {
+        return (tamanoLote, lote) -> {
+            for (int i = 0; i < filas.size(); i += tamanoLote) {
+                lote.accept(filas.subList(i, Math.min(i + tamanoLote, filas.size())));
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.sena.view;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vistas Thymeleaf que envían la página por partes (páginas de detalle con muchas filas)
+ * La plantilla se renderiza una vez con un marcador en lugar de las filas: todo lo anterior
+ * al marcador (cabecera, datos del registro, inicio de la tabla) se envía y se vacía de
+ * inmediato; después se renderiza el fragmento de filas por lotes a medida que llegan del
+ * origen, vaciando tras cada lote, y por último el resto de la página.
+ *
+ * Así el tiempo hasta el primer byte y la memoria de la petición no dependen del número
+ * de filas. Los totales que la plantilla muestre antes de la tabla deben venir en el modelo
+ * (no se puede usar size() sobre las filas). Un error a mitad de las filas ya no puede
+ * convertirse en redirección: la respuesta se corta y el error queda en el log.
+ */
+@Component
+public class StreamingViews {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingViews.class);
+
+    private static final String MARCADOR = "<!--sena:filas-->";
+
+    private final SpringTemplateEngine templateEngine;
+    private final int tamanoLote;
+
+    public StreamingViews(SpringTemplateEngine templateEngine,
+                          @Value("${sena.vistas.streaming.tamano-lote:200}") int tamanoLote) {
+        this.templateEngine = templateEngine;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Vista de la plantilla con sus filas por lotes
+     * La plantilla muestra th:utext="${fragmento}" donde van las filas y define
+     * th:fragment="fragmento", que recorre la variable variableLote
+     */
+    public <T> View filas(String plantilla, String fragmento, String variableLote, RowSource<T> origen) {
+        return new View() {
+            @Override
+            public String getContentType() {
+                return "text/html;charset=UTF-8";
+            }
+
+            @Override
+            public void render(Map<String, ?> model, HttpServletRequest request,
+                               HttpServletResponse response) throws Exception {
+                renderizar(plantilla, fragmento, variableLote, origen, model, request, response);
+            }
+        };
+    }
+
+    private <T> void renderizar(String plantilla, String fragmento, String variableLote, RowSource<T> origen,
+                                Map<String, ?> model, HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        WebContext context = new WebContext(JakartaServletWebApplication
+                .buildApplication(request.getServletContext())
+                .buildExchange(request, response), request.getLocale());
+        if (model != null) {
+            model.forEach(context::setVariable);
+        }
+        context.setVariable(fragmento, MARCADOR);
+
+        String pagina = templateEngine.process(plantilla, context);
+        int corte = pagina.indexOf(MARCADOR);
+        if (corte < 0) {
+            throw new IllegalStateException("La plantilla " + plantilla + " no muestra ${" + fragmento + "}");
+        }
+
+        response.setContentType("text/html;charset=UTF-8");
+        PrintWriter writer = response.getWriter();
+        writer.write(pagina, 0, corte);
+        vaciar(writer);
+
+        long inicio = System.currentTimeMillis();
+        int[] filas = {0};
+        Set<String> seleccion = Set.of(fragmento);
+        origen.recorrer(tamanoLote, lote -> {
+            context.setVariable(variableLote, lote);
+            templateEngine.process(plantilla, seleccion, context, writer);
+            vaciar(writer);
+            filas[0] += lote.size();
+        });
+        context.removeVariable(variableLote);
+
+        writer.write(pagina, corte + MARCADOR.length(), pagina.length() - corte - MARCADOR.length());
+        writer.flush();
+        log.debug("Vista {} enviada por partes: {} fila(s) en {} ms", plantilla, filas[0],
+                System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Enviar lo escrito al cliente; si se desconectó, cortar el recorrido de filas
+     */
+    private static void vaciar(PrintWriter writer) {
+        writer.flush();
+        if (writer.checkError()) {
+            throw new UncheckedIOException(new IOException("El cliente cerró la conexión"));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+-- ============================================
+-- Columna de versión para concurrencia optimista
+-- ============================================
+-- Ejecutar una vez sobre sena_db antes de desplegar esta versión.
+
+ALTER TABLE programas ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE fichas ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE aprendices ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- ============================================
+-- Invalidaciones de caché entre nodos
+-- ============================================
+-- Necesaria con sena.cache.invalidacion.transporte=db (varias instancias).
+-- Cada escritura inserta una fila en su misma transacción; los demás nodos
+-- la leen por id creciente y la purgan pasada la retención.
+
+CREATE TABLE IF NOT EXISTS cache_invalidaciones (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    nodo VARCHAR(64) NOT NULL,
+    tipo VARCHAR(20) NOT NULL,
+    ids TEXT NULL,
+    creado TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_cache_invalidaciones_creado (creado)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,21 @@
+-- ============================================
+-- Outbox de eventos de cambio
+-- ============================================
+-- Las escrituras de aprendices, fichas y programas insertan aquí su evento
+-- en la misma transacción. OutboxRelay asigna a los eventos confirmados una
+-- secuencia contigua (la posición de lectura de /api/cambios) y los purga
+-- pasada la retención.
+
+CREATE TABLE IF NOT EXISTS outbox_eventos (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tipo_entidad VARCHAR(20) NOT NULL,
+    entidad_id BIGINT NOT NULL,
+    operacion VARCHAR(20) NOT NULL,
+    datos TEXT NOT NULL,
+    creado TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    secuencia BIGINT NULL,
+    publicado TIMESTAMP(3) NULL,
+    UNIQUE KEY uk_outbox_eventos_secuencia (secuencia),
+    INDEX idx_outbox_eventos_tipo_secuencia (tipo_entidad, secuencia),
+    INDEX idx_outbox_eventos_publicado (publicado)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
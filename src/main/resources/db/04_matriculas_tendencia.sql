@@ -0,0 +1,18 @@
+-- ============================================
+-- Tendencia de matrículas por periodo
+-- ============================================
+-- Conteos preagregados por día, semana (lunes) y mes, por programa y por ficha.
+-- Las filas con ficha_id = 0 son el total del programa (y llevan las fichas
+-- abiertas en el periodo). Se mantienen con +1/-1 en cada alta o baja; para
+-- llenarla con los datos existentes: POST /admin/diagnostico/tendencia/reconstruir
+
+CREATE TABLE IF NOT EXISTS matriculas_tendencia (
+    granularidad VARCHAR(6) NOT NULL,
+    periodo DATE NOT NULL,
+    programa_id BIGINT NOT NULL,
+    ficha_id BIGINT NOT NULL,
+    matriculas INT NOT NULL DEFAULT 0,
+    fichas_abiertas INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularidad, ficha_id, programa_id, periodo),
+    INDEX idx_matriculas_tendencia_programa (granularidad, programa_id, ficha_id, periodo)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
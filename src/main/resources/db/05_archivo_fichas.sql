@@ -0,0 +1,42 @@
+-- ============================================
+-- Archivo de fichas terminadas y sus aprendices
+-- ============================================
+-- ArchiveService mueve aquí las fichas TERMINADA cuya fecha de fin supera la
+-- retención (sena.archivo.retencion-dias), junto con sus aprendices, y las
+-- borra de las tablas de trabajo. Se conservan los mismos ids para que las
+-- consultas por ID y por documento sigan encontrándolas. Tablas comprimidas:
+-- solo se insertan y se leen por clave, nunca se actualizan.
+
+CREATE TABLE IF NOT EXISTS fichas_archivo (
+    id BIGINT PRIMARY KEY,
+    numero_ficha VARCHAR(20) NOT NULL,
+    programa_id BIGINT NOT NULL,
+    fecha_inicio DATE NOT NULL,
+    fecha_fin DATE NOT NULL,
+    jornada VARCHAR(20) NOT NULL,
+    estado VARCHAR(20) NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    fecha_creacion TIMESTAMP NOT NULL,
+    fecha_archivo TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_fichas_archivo_programa (programa_id),
+    INDEX idx_fichas_archivo_numero (numero_ficha)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 ROW_FORMAT=COMPRESSED;
+
+-- Sin UNIQUE en documento ni correo: un aprendiz archivado puede volver a
+-- matricularse y archivarse de nuevo con otro id
+CREATE TABLE IF NOT EXISTS aprendices_archivo (
+    id BIGINT PRIMARY KEY,
+    tipo_documento VARCHAR(20) NOT NULL,
+    numero_documento VARCHAR(20) NOT NULL,
+    nombres VARCHAR(100) NOT NULL,
+    apellidos VARCHAR(100) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    telefono VARCHAR(20) NULL,
+    direccion VARCHAR(200) NULL,
+    estado VARCHAR(20) NULL,
+    ficha_id BIGINT NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    fecha_registro TIMESTAMP NOT NULL,
+    INDEX idx_aprendices_archivo_ficha (ficha_id),
+    INDEX idx_aprendices_archivo_documento (numero_documento)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 ROW_FORMAT=COMPRESSED;
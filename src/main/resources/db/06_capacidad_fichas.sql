@@ -0,0 +1,28 @@
+-- ============================================
+-- Capacidad de las fichas y lista de espera
+-- ============================================
+-- capacidad: máximo de aprendices que ocupan cupo (NULL = sin límite).
+-- cupos_ocupados: contador mantenido solo con UPDATE condicionales
+-- (FichaRepository.ocuparCupo / liberarCupo) en la misma transacción que el
+-- alta o la baja del aprendiz; nunca lo escribe la entidad. Ocupan cupo los
+-- aprendices ACTIVO e INACTIVO: al graduarse o retirarse dejan su cupo.
+-- lista_espera: con la ficha llena, los nuevos aprendices quedan EN_ESPERA
+-- en lugar de rechazarse, y se promueven por orden de llegada (id) al liberarse cupos.
+
+ALTER TABLE fichas
+    ADD COLUMN capacidad INT NULL,
+    ADD COLUMN cupos_ocupados INT NOT NULL DEFAULT 0,
+    ADD COLUMN lista_espera BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Las fichas archivadas conservan su capacidad y su ocupación al archivarse
+ALTER TABLE fichas_archivo
+    ADD COLUMN capacidad INT NULL,
+    ADD COLUMN cupos_ocupados INT NOT NULL DEFAULT 0,
+    ADD COLUMN lista_espera BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Ocupación inicial con los aprendices existentes
+UPDATE fichas f
+SET f.cupos_ocupados = (SELECT COUNT(*) FROM aprendices a WHERE a.ficha_id = f.id AND a.estado IN ('ACTIVO', 'INACTIVO'));
+
+-- Lista de espera de una ficha en orden de llegada (el índice secundario incluye el id)
+CREATE INDEX idx_aprendices_ficha_estado ON aprendices (ficha_id, estado);
@@ -0,0 +1,17 @@
+-- ============================================
+-- Última secuencia asignada del outbox
+-- ============================================
+-- Una sola fila con la última secuencia que OutboxRelay asignó. No depende de
+-- las filas de outbox_eventos, así que la purga puede borrarlas todas sin que
+-- la numeración vuelva a empezar. El relay bloquea esta fila (SELECT ... FOR
+-- UPDATE) durante la transacción que numera: un solo nodo numera a la vez y
+-- el siguiente ve la secuencia ya confirmada.
+
+CREATE TABLE IF NOT EXISTS outbox_secuencia (
+    id TINYINT PRIMARY KEY,
+    ultima BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Instalaciones existentes: continuar desde la mayor secuencia ya asignada
+INSERT IGNORE INTO outbox_secuencia (id, ultima)
+SELECT 1, COALESCE(MAX(secuencia), 0) FROM outbox_eventos;
@@ -0,0 +1,9 @@
+-- ============================================
+-- Orden de los aprendices en el detalle de una ficha
+-- ============================================
+-- /fichas/ver lee los aprendices por lotes con paginación por clave en orden de
+-- (apellidos, nombres, id): cada lote continúa en este índice después de la última
+-- fila entregada, sin ordenar de nuevo todos los aprendices de la ficha
+-- (el índice secundario incluye el id).
+
+CREATE INDEX idx_aprendices_ficha_nombre ON aprendices (ficha_id, apellidos, nombres);
@@ -19,6 +19,9 @@ document.addEventListener('DOMContentLoaded', function() {
     // Validación de formularios
     setupFormValidation();
     
+    // Eliminar y editar filas de los listados sin recargar la página
+    setupFragmentActions();
+    
     // Animaciones de entrada
     addFadeInAnimations();
 });
@@ -76,6 +79,160 @@ function setupFormValidation() {
     });
 }
 
+/**
+ * Acciones parciales en los listados (cabecera X-Fragmento)
+ * - form[data-fragmento="eliminar"]: borra por fetch y quita solo la fila
+ * - a[data-fragmento="editar"]: abre el formulario debajo de la fila; al guardar,
+ *   el servidor devuelve solo la fila actualizada (o el formulario con errores, 422)
+ * Sin JavaScript los enlaces y formularios siguen funcionando con la página completa.
+ */
+function setupFragmentActions() {
+    document.addEventListener('submit', function(e) {
+        const form = e.target;
+        if (form.dataset.fragmento === 'eliminar') {
+            e.preventDefault();
+            eliminarFila(form);
+        } else if (form.dataset.fragmento === 'guardar') {
+            e.preventDefault();
+            guardarFila(form);
+        }
+    });
+
+    document.addEventListener('click', function(e) {
+        const enlace = e.target.closest('[data-fragmento]');
+        if (!enlace || enlace.tagName !== 'A') {
+            return;
+        }
+        const edicion = enlace.closest('tr.fila-edicion');
+        if (enlace.dataset.fragmento === 'editar' && enlace.closest('tr[data-fila]')) {
+            e.preventDefault();
+            editarFila(enlace);
+        } else if (enlace.dataset.fragmento === 'cancelar' && edicion) {
+            e.preventDefault();
+            cerrarEdicion(edicion);
+        }
+    });
+}
+
+function pedirFragmento(url, opciones = {}) {
+    opciones.headers = Object.assign({'X-Fragmento': 'true'}, opciones.headers);
+    return fetch(url, opciones);
+}
+
+async function mensajeDeError(respuesta) {
+    const tipo = respuesta.headers.get('Content-Type') || '';
+    if (tipo.startsWith('text/plain')) {
+        return await respuesta.text();
+    }
+    return `No se pudo completar la acción (HTTP ${respuesta.status}). Recargue la página.`;
+}
+
+function mostrarError(mensaje) {
+    const alerta = document.createElement('div');
+    alerta.className = 'alert alert-danger alert-dismissible fade show';
+    alerta.setAttribute('role', 'alert');
+    alerta.innerHTML = '<i class="bi bi-exclamation-triangle-fill"></i> <span></span>' +
+        '<button type="button" class="btn-close" data-bs-dismiss="alert"></button>';
+    alerta.querySelector('span').textContent = mensaje;
+    document.querySelector('main').prepend(alerta);
+}
+
+async function eliminarFila(form) {
+    const fila = form.dataset.fila
+        ? document.querySelector(`tr[data-fila="${form.dataset.fila}"]`)
+        : form.closest('tr');
+    try {
+        const respuesta = await pedirFragmento(form.action, {method: 'POST'});
+        const modal = form.closest('.modal');
+        if (modal) {
+            bootstrap.Modal.getInstance(modal)?.hide();
+        }
+        if (!respuesta.ok) {
+            mostrarError(await mensajeDeError(respuesta));
+            return;
+        }
+        if (fila) {
+            fila.remove();
+        }
+        document.querySelectorAll('[data-total]').forEach(total => {
+            total.textContent = Math.max(0, parseInt(total.textContent, 10) - 1);
+        });
+    } catch (error) {
+        mostrarError('No se pudo contactar al servidor');
+    }
+}
+
+async function editarFila(enlace) {
+    const fila = enlace.closest('tr[data-fila]');
+    if (fila.nextElementSibling && fila.nextElementSibling.classList.contains('fila-edicion')) {
+        return;
+    }
+    try {
+        const respuesta = await pedirFragmento(enlace.href);
+        if (!respuesta.ok) {
+            mostrarError(await mensajeDeError(respuesta));
+            return;
+        }
+        const edicion = document.createElement('tr');
+        edicion.className = 'fila-edicion';
+        edicion.innerHTML = `<td colspan="${fila.cells.length}"></td>`;
+        mostrarFormulario(edicion, await respuesta.text());
+        fila.after(edicion);
+        fila.style.display = 'none';
+    } catch (error) {
+        mostrarError('No se pudo contactar al servidor');
+    }
+}
+
+function mostrarFormulario(edicion, html) {
+    const celda = edicion.cells[0];
+    celda.innerHTML = html;
+    const form = celda.querySelector('form');
+    if (form) {
+        form.dataset.fragmento = 'guardar';
+    }
+}
+
+async function guardarFila(form) {
+    const edicion = form.closest('tr.fila-edicion');
+    try {
+        const respuesta = await pedirFragmento(form.action, {
+            method: 'POST',
+            body: new URLSearchParams(new FormData(form))
+        });
+        if (respuesta.status === 422) {
+            mostrarFormulario(edicion, await respuesta.text());
+            return;
+        }
+        if (!respuesta.ok) {
+            mostrarError(await mensajeDeError(respuesta));
+            return;
+        }
+        const html = await respuesta.text();
+        const original = edicion.previousElementSibling;
+        const plantilla = document.createElement('tbody');
+        plantilla.innerHTML = html.trim();
+        const nueva = plantilla.querySelector('tr');
+        // La numeración de la fila depende de su posición en el listado completo
+        const indice = original.querySelector('[data-indice]');
+        if (indice && nueva.querySelector('[data-indice]')) {
+            nueva.querySelector('[data-indice]').textContent = indice.textContent;
+        }
+        original.replaceWith(nueva);
+        edicion.remove();
+    } catch (error) {
+        mostrarError('No se pudo contactar al servidor');
+    }
+}
+
+function cerrarEdicion(edicion) {
+    const original = edicion.previousElementSibling;
+    if (original) {
+        original.style.display = '';
+    }
+    edicion.remove();
+}
+
 /**
  * Añadir animaciones de entrada a los elementos
  */
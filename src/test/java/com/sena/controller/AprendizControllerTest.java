@@ -0,0 +1,159 @@
+package com.sena.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+/**
+ * Sentencias SQL por petición en los listados, búsquedas, detalles y fragmentos de aprendices,
+ * y en las escrituras: cada una trabaja sobre un programa y una ficha propios, y los cambios de
+ * estado masivos sobre 30 aprendices, para que una sentencia por fila supere el máximo
+ */
+class AprendizControllerTest extends ControllerTestBase {
+
+    @Test
+    void listadoCompletoEnUnaConsulta() throws Exception {
+        conMaximoDeConsultas(3, get("/aprendices"));
+    }
+
+    @Test
+    void busqueda() throws Exception {
+        conMaximoDeConsultas(3, get("/aprendices/buscar").param("searchTerm", "an"));
+    }
+
+    @Test
+    void busquedaVaciaMuestraTodos() throws Exception {
+        conMaximoDeConsultas(3, get("/aprendices/buscar").param("searchTerm", ""));
+    }
+
+    @Test
+    void filtroPorFicha() throws Exception {
+        long fichaId = id("SELECT ficha_id FROM aprendices GROUP BY ficha_id ORDER BY COUNT(*) DESC LIMIT 1");
+        conMaximoDeConsultas(4, get("/aprendices/ficha/{id}", fichaId));
+    }
+
+    @Test
+    void filtroPorPrograma() throws Exception {
+        conMaximoDeConsultas(3, get("/aprendices/programa/{id}", id("SELECT MIN(id) FROM programas")));
+    }
+
+    @Test
+    void facetasConsultanSoloLaPaginaMostrada() throws Exception {
+        conMaximoDeConsultas(3, get("/aprendices/facetas"));
+        conMaximoDeConsultas(3, get("/aprendices/facetas").param("estado", "ACTIVO").param("jornada", "DIURNA"));
+    }
+
+    @Test
+    void detalle() throws Exception {
+        conMaximoDeConsultas(5, get("/aprendices/ver/{id}", id("SELECT MIN(id) FROM aprendices")));
+    }
+
+    @Test
+    void formularioNuevo() throws Exception {
+        conMaximoDeConsultas(3, get("/aprendices/nuevo"));
+    }
+
+    @Test
+    void formularioEditar() throws Exception {
+        conMaximoDeConsultas(5, get("/aprendices/editar/{id}", id("SELECT MIN(id) FROM aprendices")));
+    }
+
+    @Test
+    void fragmentoDeEdicionEnLinea() throws Exception {
+        conMaximoDeConsultas(5, get("/aprendices/editar/{id}", id("SELECT MIN(id) FROM aprendices"))
+                .header("X-Fragmento", "1"));
+    }
+
+    @Test
+    void altaDesdeElFormulario() throws Exception {
+        long fichaId = crearFicha(crearPrograma(), 0);
+        conMaximoDeConsultas(15, redirectedUrl("/aprendices"), formulario(post("/aprendices/guardar"), fichaId));
+    }
+
+    @Test
+    void edicionDesdeElFormulario() throws Exception {
+        long fichaId = crearFicha(crearPrograma(), 1);
+        long aprendizId = id("SELECT MAX(id) FROM aprendices");
+        conMaximoDeConsultas(15, redirectedUrl("/aprendices"), formulario(post("/aprendices/guardar"), fichaId)
+                .param("id", String.valueOf(aprendizId))
+                .param("version", String.valueOf(version("aprendices", aprendizId))));
+    }
+
+    @Test
+    void edicionEnLineaDevuelveSoloLaFila() throws Exception {
+        long fichaId = crearFicha(crearPrograma(), 1);
+        long aprendizId = id("SELECT MAX(id) FROM aprendices");
+        conMaximoDeConsultas(15, status().isOk(), formulario(post("/aprendices/guardar"), fichaId)
+                .param("id", String.valueOf(aprendizId))
+                .param("version", String.valueOf(version("aprendices", aprendizId)))
+                .header("X-Fragmento", "1"));
+    }
+
+    @Test
+    void edicionSinVersionEsConflicto() throws Exception {
+        long fichaId = crearFicha(crearPrograma(), 1);
+        long aprendizId = id("SELECT MAX(id) FROM aprendices");
+        long version = version("aprendices", aprendizId);
+        mockMvc.perform(formulario(post("/aprendices/guardar"), fichaId).param("id", String.valueOf(aprendizId)))
+                .andExpect(status().isOk())
+                .andExpect(view().name("aprendices/formulario"))
+                .andExpect(model().attributeExists("error"));
+        mockMvc.perform(formulario(post("/aprendices/guardar"), fichaId).param("id", String.valueOf(aprendizId))
+                        .header("X-Fragmento", "1"))
+                .andExpect(status().isUnprocessableEntity());
+        assertEquals(version, version("aprendices", aprendizId), "el aprendiz no cambió");
+    }
+
+    @Test
+    void eliminar() throws Exception {
+        crearFicha(crearPrograma(), 1);
+        conMaximoDeConsultas(15, redirectedUrl("/aprendices"),
+                post("/aprendices/eliminar/{id}", id("SELECT MAX(id) FROM aprendices")));
+    }
+
+    @Test
+    void eliminarEnLinea() throws Exception {
+        crearFicha(crearPrograma(), 1);
+        conMaximoDeConsultas(15, status().isNoContent(),
+                post("/aprendices/eliminar/{id}", id("SELECT MAX(id) FROM aprendices")).header("X-Fragmento", "1"));
+    }
+
+    @Test
+    void cambioDeEstadoDeLosAprendicesDeUnaFicha() throws Exception {
+        long fichaId = crearFicha(crearPrograma(), 30);
+        conMaximoDeConsultas(12, redirectedUrl("/aprendices/ficha/" + fichaId),
+                post("/aprendices/ficha/{id}/estado", fichaId).param("estado", "INACTIVO"));
+    }
+
+    @Test
+    void cambioDeEstadoDeLosAprendicesDeUnPrograma() throws Exception {
+        long programaId = crearPrograma();
+        for (int i = 0; i < 3; i++) {
+            crearFicha(programaId, 10);
+        }
+        conMaximoDeConsultas(12, redirectedUrl("/aprendices/programa/" + programaId),
+                post("/aprendices/programa/{id}/estado", programaId).param("estado", "INACTIVO"));
+    }
+
+    /**
+     * Campos del formulario de aprendiz, con un documento y un correo nuevos
+     */
+    private MockHttpServletRequestBuilder formulario(MockHttpServletRequestBuilder peticion, long fichaId) {
+        String documento = "F" + siguiente();
+        return peticion
+                .param("tipoDocumento", "CC")
+                .param("documento", documento)
+                .param("nombres", "Formulario")
+                .param("apellidos", "Prueba")
+                .param("correo", documento.toLowerCase() + "@escritura.test")
+                .param("estado", "ACTIVO")
+                .param("fichaId", String.valueOf(fichaId));
+    }
+}
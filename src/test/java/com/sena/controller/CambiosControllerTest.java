@@ -0,0 +1,16 @@
+package com.sena.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Sentencias SQL por página del flujo de cambios
+ */
+class CambiosControllerTest extends ControllerTestBase {
+
+    @Test
+    void paginaDeEventos() throws Exception {
+        conMaximoDeConsultas(3, get("/api/cambios").param("limite", "500").header("X-Cambios-Token", "prueba"));
+    }
+}
@@ -0,0 +1,188 @@
+package com.sena.controller;
+
+import com.sena.analytics.AnalyticsService;
+import com.sena.cache.CacheInvalidator;
+import com.sena.datagen.SyntheticDataGenerator;
+import com.sena.facet.FacetIndex;
+import com.sena.interval.FichaIntervalIndex;
+import com.sena.model.Aprendiz;
+import com.sena.model.Ficha;
+import com.sena.model.Programa;
+import com.sena.monitoring.QueryCounter;
+import com.sena.service.AprendizService;
+import com.sena.service.FichaService;
+import com.sena.service.ProgramaService;
+import com.sena.service.TendenciaMatriculaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base de las pruebas de controladores: la aplicación completa sobre MySQL (Testcontainers)
+ * con un volumen de datos realista, y la verificación del número de sentencias SQL por petición.
+ *
+ * Con los datos sembrados, una carga perezosa por fila (N+1) en un listado ejecuta cientos de
+ * sentencias y en una página de detalle decenas, muy por encima de los máximos de cada prueba.
+ * Las cachés se vacían antes de cada prueba para medir siempre la petición en frío.
+ *
+ * Es pública para que las pruebas de servicios que necesitan la base de datos real la
+ * extiendan y compartan el mismo contexto (el esquema se crea una sola vez por contenedor).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class ControllerTestBase {
+
+    // 20 programas x 10 fichas y 6000 aprendices (unos 30 por ficha)
+    static final int PROGRAMAS = 20;
+    static final int FICHAS_POR_PROGRAMA = 10;
+    static final int APRENDICES = 6000;
+
+    // Un único contenedor para todas las clases de prueba (comparten el contexto de Spring)
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0").withDatabaseName("sena_db");
+
+    static {
+        MYSQL.start();
+    }
+
+    private static boolean sembrado;
+
+    // Códigos únicos para los datos que crean las pruebas de escritura
+    private static final AtomicInteger secuencia = new AtomicInteger();
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private FacetIndex facetIndex;
+
+    @Autowired
+    private FichaIntervalIndex fichaIntervalIndex;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private TendenciaMatriculaService tendenciaMatriculaService;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private ProgramaService programaService;
+
+    @Autowired
+    private FichaService fichaService;
+
+    @Autowired
+    private AprendizService aprendizService;
+
+    @DynamicPropertySource
+    static void baseDeDatos(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    @BeforeEach
+    protected void prepararDatos() {
+        synchronized (ControllerTestBase.class) {
+            if (!sembrado) {
+                new SyntheticDataGenerator(jdbcTemplate, context, 42, PROGRAMAS, FICHAS_POR_PROGRAMA, APRENDICES, 1000).generar();
+                facetIndex.reconstruir();
+                fichaIntervalIndex.reconstruir();
+                analyticsService.refrescar();
+                tendenciaMatriculaService.reconstruir();
+                sembrado = true;
+            }
+        }
+        cacheInvalidator.vaciarTodo();
+    }
+
+    /**
+     * Ejecutar una petición que debe responder 200 y verificar que no superó el máximo de sentencias
+     */
+    protected ResultActions conMaximoDeConsultas(long maximo, MockHttpServletRequestBuilder peticion) throws Exception {
+        return conMaximoDeConsultas(maximo, status().isOk(), peticion);
+    }
+
+    /**
+     * Ejecutar una petición con la respuesta esperada (redirección, 204...) y verificar que no
+     * superó el máximo de sentencias
+     */
+    protected ResultActions conMaximoDeConsultas(long maximo, ResultMatcher esperado,
+                                                 MockHttpServletRequestBuilder peticion) throws Exception {
+        ResultActions resultado = mockMvc.perform(peticion).andExpect(esperado);
+        QueryCounter.expectAtMostQueries(maximo);
+        return resultado;
+    }
+
+    protected long id(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    protected long version(String tabla, long id) {
+        return jdbcTemplate.queryForObject("SELECT version FROM " + tabla + " WHERE id = ?", Long.class, id);
+    }
+
+    /**
+     * Número único para los códigos y documentos de los datos creados por una prueba
+     */
+    protected static int siguiente() {
+        return secuencia.incrementAndGet();
+    }
+
+    /**
+     * Crear, con los servicios (e índices al día), un programa propio de la prueba: las pruebas
+     * de escritura no modifican los datos sembrados que miden las demás
+     */
+    protected long crearPrograma() {
+        Programa programa = new Programa("Programa de prueba " + siguiente());
+        programa.setCodigo("PP" + siguiente());
+        programa.setNivel("TÉCNICO");
+        programa.setDuracion(12);
+        return programaService.createPrograma(programa).getId();
+    }
+
+    /**
+     * Crear una ficha activa del programa con el número de aprendices activos indicado
+     */
+    protected long crearFicha(long programaId, int aprendices) {
+        Ficha ficha = new Ficha(String.valueOf(7_000_000 + siguiente()), programaService.getProgramaById(programaId));
+        LocalDate hoy = LocalDate.now();
+        ficha.setFechaInicio(hoy);
+        ficha.setFechaFin(hoy.plusMonths(6));
+        ficha.setJornada("DIURNA");
+        long fichaId = fichaService.createFicha(ficha).getId();
+        for (int i = 0; i < aprendices; i++) {
+            String documento = "W" + siguiente();
+            Aprendiz aprendiz = new Aprendiz(documento, "Prueba", "Escritura " + i,
+                    documento.toLowerCase() + "@escritura.test", null, fichaService.getFichaById(fichaId));
+            aprendiz.setTipoDocumento("CC");
+            aprendizService.createAprendiz(aprendiz);
+        }
+        return fichaId;
+    }
+}
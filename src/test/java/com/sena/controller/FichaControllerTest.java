@@ -0,0 +1,122 @@
+package com.sena.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sentencias SQL por petición en los listados, el calendario, los detalles y los fragmentos de fichas,
+ * y en las escrituras sobre fichas propias de cada prueba (con 30 aprendices donde el cambio los arrastra)
+ */
+class FichaControllerTest extends ControllerTestBase {
+
+    @Test
+    void listadoCompleto() throws Exception {
+        conMaximoDeConsultas(3, get("/fichas"));
+    }
+
+    @Test
+    void listadoDeFichasEnCurso() throws Exception {
+        LocalDate hoy = LocalDate.now();
+        conMaximoDeConsultas(3, get("/fichas")
+                .param("desde", hoy.toString())
+                .param("hasta", hoy.plusMonths(3).toString()));
+    }
+
+    @Test
+    void calendario() throws Exception {
+        conMaximoDeConsultas(3, get("/fichas/calendario"));
+    }
+
+    @Test
+    void detallePorPartesConTodosLosAprendices() throws Exception {
+        long fichaId = id("SELECT ficha_id FROM aprendices GROUP BY ficha_id ORDER BY COUNT(*) DESC LIMIT 1");
+        String ultimo = jdbcTemplate.queryForObject(
+                "SELECT numero_documento FROM aprendices WHERE ficha_id = ? ORDER BY apellidos DESC, nombres DESC LIMIT 1",
+                String.class, fichaId);
+        conMaximoDeConsultas(6, get("/fichas/ver/{id}", fichaId))
+                .andExpect(content().string(containsString(ultimo)));
+    }
+
+    @Test
+    void formularioNuevo() throws Exception {
+        conMaximoDeConsultas(3, get("/fichas/nuevo"));
+    }
+
+    @Test
+    void formularioEditar() throws Exception {
+        conMaximoDeConsultas(4, get("/fichas/editar/{id}", id("SELECT MIN(id) FROM fichas")));
+    }
+
+    @Test
+    void fragmentoDeEdicionEnLinea() throws Exception {
+        conMaximoDeConsultas(4, get("/fichas/editar/{id}", id("SELECT MIN(id) FROM fichas"))
+                .header("X-Fragmento", "1"));
+    }
+
+    @Test
+    void altaDesdeElFormulario() throws Exception {
+        long programaId = crearPrograma();
+        conMaximoDeConsultas(15, redirectedUrl("/fichas"), formulario(post("/fichas/guardar"), programaId));
+    }
+
+    @Test
+    void edicionDesdeElFormulario() throws Exception {
+        long programaId = crearPrograma();
+        long fichaId = crearFicha(programaId, 0);
+        conMaximoDeConsultas(15, redirectedUrl("/fichas"), formulario(post("/fichas/guardar"), programaId)
+                .param("id", String.valueOf(fichaId))
+                .param("version", String.valueOf(version("fichas", fichaId))));
+    }
+
+    @Test
+    void edicionEnLineaDevuelveSoloLaFila() throws Exception {
+        long programaId = crearPrograma();
+        long fichaId = crearFicha(programaId, 0);
+        conMaximoDeConsultas(15, status().isOk(), formulario(post("/fichas/guardar"), programaId)
+                .param("id", String.valueOf(fichaId))
+                .param("version", String.valueOf(version("fichas", fichaId)))
+                .header("X-Fragmento", "1"));
+    }
+
+    @Test
+    void eliminarConSusAprendices() throws Exception {
+        long fichaId = crearFicha(crearPrograma(), 30);
+        conMaximoDeConsultas(15, redirectedUrl("/fichas"), post("/fichas/eliminar/{id}", fichaId));
+    }
+
+    @Test
+    void eliminarEnLinea() throws Exception {
+        long fichaId = crearFicha(crearPrograma(), 30);
+        conMaximoDeConsultas(15, status().isNoContent(), post("/fichas/eliminar/{id}", fichaId).header("X-Fragmento", "1"));
+    }
+
+    @Test
+    void cancelarArrastraASusAprendices() throws Exception {
+        long fichaId = crearFicha(crearPrograma(), 30);
+        conMaximoDeConsultas(20, redirectedUrl("/fichas/ver/" + fichaId),
+                post("/fichas/estado/{id}", fichaId).param("estado", "CANCELADA"));
+    }
+
+    /**
+     * Campos del formulario de ficha, con un código nuevo
+     */
+    private MockHttpServletRequestBuilder formulario(MockHttpServletRequestBuilder peticion, long programaId) {
+        LocalDate hoy = LocalDate.now();
+        return peticion
+                .param("codigo", String.valueOf(7_500_000 + siguiente()))
+                .param("programaId", String.valueOf(programaId))
+                .param("fechaInicio", hoy.toString())
+                .param("fechaFin", hoy.plusMonths(6).toString())
+                .param("jornada", "DIURNA")
+                .param("estado", "ACTIVA");
+    }
+}
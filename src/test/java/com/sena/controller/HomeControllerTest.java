@@ -0,0 +1,16 @@
+package com.sena.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Sentencias SQL de la página de inicio (totales y tendencia de 12 meses)
+ */
+class HomeControllerTest extends ControllerTestBase {
+
+    @Test
+    void inicio() throws Exception {
+        conMaximoDeConsultas(5, get("/"));
+    }
+}
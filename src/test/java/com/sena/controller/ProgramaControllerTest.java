@@ -0,0 +1,96 @@
+package com.sena.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sentencias SQL por petición en el listado, el detalle y los fragmentos de programas, y en las
+ * escrituras sobre programas propios de cada prueba (el borrado, con 10 fichas y sus aprendices)
+ */
+class ProgramaControllerTest extends ControllerTestBase {
+
+    @Test
+    void listadoCompleto() throws Exception {
+        conMaximoDeConsultas(3, get("/programas"));
+    }
+
+    @Test
+    void detallePorPartesConTodasLasFichas() throws Exception {
+        conMaximoDeConsultas(5, get("/programas/ver/{id}", id("SELECT MIN(id) FROM programas")));
+    }
+
+    @Test
+    void formularioNuevo() throws Exception {
+        conMaximoDeConsultas(1, get("/programas/nuevo"));
+    }
+
+    @Test
+    void formularioEditar() throws Exception {
+        conMaximoDeConsultas(3, get("/programas/editar/{id}", id("SELECT MIN(id) FROM programas")));
+    }
+
+    @Test
+    void fragmentoDeEdicionEnLinea() throws Exception {
+        conMaximoDeConsultas(3, get("/programas/editar/{id}", id("SELECT MIN(id) FROM programas"))
+                .header("X-Fragmento", "1"));
+    }
+
+    @Test
+    void altaDesdeElFormulario() throws Exception {
+        conMaximoDeConsultas(10, redirectedUrl("/programas"), formulario(post("/programas/guardar")));
+    }
+
+    @Test
+    void edicionDesdeElFormulario() throws Exception {
+        long programaId = crearPrograma();
+        conMaximoDeConsultas(15, redirectedUrl("/programas"), formulario(post("/programas/guardar"))
+                .param("id", String.valueOf(programaId))
+                .param("version", String.valueOf(version("programas", programaId))));
+    }
+
+    @Test
+    void edicionEnLineaDevuelveSoloLaFila() throws Exception {
+        long programaId = crearPrograma();
+        conMaximoDeConsultas(15, status().isOk(), formulario(post("/programas/guardar"))
+                .param("id", String.valueOf(programaId))
+                .param("version", String.valueOf(version("programas", programaId)))
+                .header("X-Fragmento", "1"));
+    }
+
+    @Test
+    void eliminarConSusFichasYAprendices() throws Exception {
+        conMaximoDeConsultas(20, redirectedUrl("/programas"), post("/programas/eliminar/{id}", programaConFichas()));
+    }
+
+    @Test
+    void eliminarEnLinea() throws Exception {
+        conMaximoDeConsultas(20, status().isNoContent(),
+                post("/programas/eliminar/{id}", programaConFichas()).header("X-Fragmento", "1"));
+    }
+
+    private long programaConFichas() {
+        long programaId = crearPrograma();
+        for (int i = 0; i < 10; i++) {
+            crearFicha(programaId, 3);
+        }
+        return programaId;
+    }
+
+    /**
+     * Campos del formulario de programa, con un código y un nombre nuevos
+     */
+    private MockHttpServletRequestBuilder formulario(MockHttpServletRequestBuilder peticion) {
+        int n = siguiente();
+        return peticion
+                .param("codigo", "PF" + n)
+                .param("nombre", "Programa del formulario " + n)
+                .param("nivel", "TECNÓLOGO")
+                .param("duracion", "24")
+                .param("estado", "ACTIVO");
+    }
+}
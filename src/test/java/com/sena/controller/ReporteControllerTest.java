@@ -0,0 +1,26 @@
+package com.sena.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Los reportes de matrículas se resuelven en la instantánea en memoria; la tendencia, con una consulta
+ */
+class ReporteControllerTest extends ControllerTestBase {
+
+    @Test
+    void matriculasAgrupadasSinConsultas() throws Exception {
+        conMaximoDeConsultas(0, get("/reportes/matriculas").param("agrupar", "programa", "jornada"));
+    }
+
+    @Test
+    void tendencia() throws Exception {
+        conMaximoDeConsultas(2, get("/reportes/tendencia").param("granularidad", "SEMANA"));
+    }
+
+    @Test
+    void estado() throws Exception {
+        conMaximoDeConsultas(0, get("/reportes/estado"));
+    }
+}
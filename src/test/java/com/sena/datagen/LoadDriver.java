@@ -0,0 +1,282 @@
+package com.sena.datagen;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de carga HTTP contra una instancia local de la aplicación
+ * Ejecuta una mezcla ponderada de escenarios (listado, búsqueda, detalle y creación)
+ * durante un tiempo fijo y reporta throughput y percentiles de latencia por escenario.
+ *
+ * Con --cupos=ID hace en su lugar una prueba de estrés de capacidad: lanza --altas
+ * registros simultáneos en esa ficha y compara, con /admin/diagnostico/cupos, el contador
+ * de cupos y los aprendices admitidos con la capacidad. Sale con código 1 si hubo
+ * sobreadmisión o el contador no coincide (la ficha debe tener capacidad configurada).
+ *
+ * Herramienta de pruebas de carga: vive en las fuentes de prueba y no se empaqueta en el jar.
+ * Uso (solo depende del JDK):
+ *   java -cp target/test-classes com.sena.datagen.LoadDriver [opciones]
+ *
+ * Opciones:
+ *   --url=http://localhost:9090   URL base
+ *   --segundos=60                 duración de la medición
+ *   --calentamiento=10            segundos de calentamiento que no se miden
+ *   --concurrencia=32             usuarios virtuales simultáneos
+ *   --mezcla=listado:20,busqueda:40,detalle:35,creacion:5
+ *   --ids=1-1000000               rango de IDs de aprendiz para el detalle
+ *   --fichas=1-1000               rango de IDs de ficha para la creación
+ *   --cupos=ID                    prueba de estrés de capacidad sobre la ficha ID
+ *   --altas=500                   registros simultáneos de la prueba de capacidad
+ *   --token=                      X-Admin-Token para leer /admin/diagnostico/cupos
+ */
+public final class LoadDriver {
+
+    private static final String[] TERMINOS = {
+            "rod", "gom", "mar", "gar", "lop", "san", "ram", "per", "val", "car", "jua", "dia", "101", "102"};
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    private final String url;
+    private final long[] rangoIds;
+    private final long[] rangoFichas;
+    private final AtomicLong secuencia = new AtomicLong(System.currentTimeMillis() % 1_000_000 * 1000);
+
+    private LoadDriver(String url, long[] rangoIds, long[] rangoFichas) {
+        this.url = url;
+        this.rangoIds = rangoIds;
+        this.rangoFichas = rangoFichas;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] partes = arg.replaceFirst("^--", "").split("=", 2);
+            opciones.put(partes[0], partes.length > 1 ? partes[1] : "true");
+        }
+
+        LoadDriver driver = new LoadDriver(
+                opciones.getOrDefault("url", "http://localhost:9090"),
+                rango(opciones.getOrDefault("ids", "1-1000000")),
+                rango(opciones.getOrDefault("fichas", "1-1000")));
+        int segundos = Integer.parseInt(opciones.getOrDefault("segundos", "60"));
+        int calentamiento = Integer.parseInt(opciones.getOrDefault("calentamiento", "10"));
+        int concurrencia = Integer.parseInt(opciones.getOrDefault("concurrencia", "32"));
+
+        if (opciones.containsKey("cupos")) {
+            boolean ok = driver.estresarCupos(Long.parseLong(opciones.get("cupos")),
+                    Integer.parseInt(opciones.getOrDefault("altas", "500")), concurrencia,
+                    opciones.getOrDefault("token", ""));
+            System.exit(ok ? 0 : 1);
+        }
+        Map<String, Integer> mezcla = mezcla(opciones.getOrDefault("mezcla", "listado:20,busqueda:40,detalle:35,creacion:5"));
+
+        if (calentamiento > 0) {
+            System.out.printf("Calentamiento de %d s...%n", calentamiento);
+            driver.ejecutar(mezcla, concurrencia, calentamiento);
+        }
+        System.out.printf("Midiendo %d s con %d usuarios virtuales...%n", segundos, concurrencia);
+        Map<String, Resultados> resultados = driver.ejecutar(mezcla, concurrencia, segundos);
+        imprimir(resultados, segundos);
+    }
+
+    private Map<String, Resultados> ejecutar(Map<String, Integer> mezcla, int concurrencia, int segundos)
+            throws InterruptedException {
+        Map<String, Resultados> resultados = new LinkedHashMap<>();
+        mezcla.keySet().forEach(escenario -> resultados.put(escenario, new Resultados()));
+        int pesoTotal = mezcla.values().stream().mapToInt(Integer::intValue).sum();
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrencia);
+        for (int i = 0; i < concurrencia; i++) {
+            executor.submit(() -> {
+                while (System.nanoTime() < fin) {
+                    String escenario = elegir(mezcla, pesoTotal);
+                    long inicio = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = ejecutarEscenario(escenario);
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    resultados.get(escenario).registrar(System.nanoTime() - inicio, ok);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(segundos + 60L, TimeUnit.SECONDS);
+        return resultados;
+    }
+
+    private boolean ejecutarEscenario(String escenario) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (escenario) {
+            case "listado" -> get("/aprendices") == 200;
+            case "busqueda" -> get("/aprendices/buscar?searchTerm="
+                    + URLEncoder.encode(TERMINOS[random.nextInt(TERMINOS.length)], StandardCharsets.UTF_8)) == 200;
+            case "detalle" -> get("/aprendices/ver/" + random.nextLong(rangoIds[0], rangoIds[1] + 1)) == 200;
+            case "creacion" -> crear(random.nextLong(rangoFichas[0], rangoFichas[1] + 1)) == 302;
+            default -> throw new IllegalArgumentException("Escenario desconocido: " + escenario);
+        };
+    }
+
+    private int get(String ruta) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + ruta)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int crear(long fichaId) throws Exception {
+        long n = secuencia.incrementAndGet();
+        String formulario = String.join("&",
+                "tipoDocumento=CC",
+                "documento=" + (2_000_000_000L + n),
+                "nombres=Carga",
+                "apellidos=Prueba+" + n,
+                "correo=carga" + n + "@prueba.local",
+                "telefono=3001234567",
+                "estado=ACTIVO",
+                "fichaId=" + fichaId);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/aprendices/guardar"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(formulario))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Registros simultáneos en una ficha: cada alta responde 302 si se admitió (o quedó en
+     * lista de espera) y 200 con el formulario si se rechazó por falta de cupos
+     */
+    private boolean estresarCupos(long fichaId, int altas, int concurrencia, String token) throws Exception {
+        System.out.printf("Cupos antes:   %s%n", estadoCupos(fichaId, token));
+        Map<Integer, AtomicLong> respuestas = new ConcurrentSkipListMap<>();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrencia);
+        for (int i = 0; i < altas; i++) {
+            executor.submit(() -> {
+                int estado;
+                try {
+                    salida.await();
+                    estado = crear(fichaId);
+                } catch (Exception e) {
+                    estado = -1;
+                }
+                respuestas.computeIfAbsent(estado, k -> new AtomicLong()).incrementAndGet();
+            });
+        }
+        long inicio = System.nanoTime();
+        salida.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.MINUTES);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        System.out.printf("%d altas con %d usuarios virtuales en %.1f s (%.1f altas/s)%n",
+                altas, concurrencia, segundos, altas / segundos);
+        respuestas.forEach((estado, n) -> System.out.printf("  HTTP %d: %d%n", estado, n.get()));
+        String despues = estadoCupos(fichaId, token);
+        System.out.printf("Cupos después: %s%n", despues);
+
+        boolean ok = despues.contains("\"sobreAdmision\":false") && despues.contains("\"contadorCoincide\":true");
+        System.out.println(ok ? "OK: sin sobreadmisión y contador consistente" : "FALLO: sobreadmisión o contador inconsistente");
+        return ok;
+    }
+
+    private String estadoCupos(long fichaId, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/admin/diagnostico/cupos/" + fichaId))
+                .header("X-Admin-Token", token)
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("No se pudo leer el estado de cupos: HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private static String elegir(Map<String, Integer> mezcla, int pesoTotal) {
+        int r = ThreadLocalRandom.current().nextInt(pesoTotal);
+        for (Map.Entry<String, Integer> e : mezcla.entrySet()) {
+            r -= e.getValue();
+            if (r < 0) {
+                return e.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static void imprimir(Map<String, Resultados> resultados, int segundos) {
+        System.out.printf("%-10s %9s %8s %9s %9s %9s %9s %9s%n",
+                "escenario", "peticiones", "errores", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, Resultados> e : resultados.entrySet()) {
+            Resultados r = e.getValue();
+            long[] latencias = r.ordenadas();
+            System.out.printf("%-10s %9d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    e.getKey(), latencias.length, r.errores.get(), latencias.length / (double) segundos,
+                    percentil(latencias, 50), percentil(latencias, 95), percentil(latencias, 99),
+                    percentil(latencias, 100));
+        }
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(p / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1_000_000.0;
+    }
+
+    private static long[] rango(String texto) {
+        String[] partes = texto.split("-");
+        return new long[]{Long.parseLong(partes[0]), Long.parseLong(partes[1])};
+    }
+
+    private static Map<String, Integer> mezcla(String texto) {
+        Map<String, Integer> mezcla = new LinkedHashMap<>();
+        for (String parte : texto.split(",")) {
+            String[] kv = parte.split(":");
+            mezcla.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mezcla;
+    }
+
+    /**
+     * Latencias registradas de un escenario
+     */
+    private static final class Resultados {
+
+        private final List<Long> latencias = new ArrayList<>();
+        private final AtomicLong errores = new AtomicLong();
+
+        synchronized void registrar(long nanos, boolean ok) {
+            latencias.add(nanos);
+            if (!ok) {
+                errores.incrementAndGet();
+            }
+        }
+
+        synchronized long[] ordenadas() {
+            long[] valores = latencias.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(valores);
+            return valores;
+        }
+    }
+}
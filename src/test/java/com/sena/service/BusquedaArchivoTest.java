@@ -0,0 +1,44 @@
+package com.sena.service;
+
+import com.sena.controller.ControllerTestBase;
+import com.sena.monitoring.QueryCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Búsqueda de aprendices: el archivo solo se consulta cuando el término parece un número de
+ * documento que no está en las tablas de trabajo
+ */
+class BusquedaArchivoTest extends ControllerTestBase {
+
+    @Autowired
+    private AprendizService aprendizService;
+
+    @Test
+    void busquedaPorNombreNoConsultaElArchivo() {
+        String nombre = jdbcTemplate.queryForObject(
+                "SELECT nombres FROM aprendices WHERE CHAR_LENGTH(nombres) >= 5 AND nombres NOT LIKE '% %' LIMIT 1",
+                String.class);
+        long porNombre = consultas(nombre);
+        long porDocumento = consultas("99999999999");
+
+        assertTrue(porNombre < porDocumento,
+                "la búsqueda por nombre (" + porNombre + ") no debe leer el archivo (" + porDocumento + ")");
+    }
+
+    @Test
+    void documentoPresenteNoConsultaElArchivo() {
+        String documento = jdbcTemplate.queryForObject("SELECT numero_documento FROM aprendices LIMIT 1", String.class);
+
+        assertEquals(consultas(documento), consultas("un nombre que no existe"));
+    }
+
+    private long consultas(String termino) {
+        QueryCounter.reset();
+        aprendizService.searchAprendices(termino);
+        return QueryCounter.getConsultas();
+    }
+}
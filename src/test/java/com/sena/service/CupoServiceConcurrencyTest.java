@@ -0,0 +1,160 @@
+package com.sena.service;
+
+import com.sena.controller.ControllerTestBase;
+import com.sena.exception.CapacityExceededException;
+import com.sena.model.Aprendiz;
+import com.sena.model.EstadoAprendiz;
+import com.sena.pool.ConnectionBulkhead;
+import com.sena.pool.Workload;
+import com.sena.pool.WorkloadContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Altas simultáneas en una ficha con capacidad: el contador de cupos no admite de más
+ * Todas las altas arrancan a la vez (cada una en su hilo y su transacción, como peticiones
+ * distintas) y compiten por el UPDATE condicional sobre la fila de la ficha.
+ */
+class CupoServiceConcurrencyTest extends ControllerTestBase {
+
+    private static final int CAPACIDAD = 5;
+    private static final int ALTAS = 24;
+    // Conexiones simultáneas para las altas: más que las del compartimento de escritura por defecto
+    private static final int CONEXIONES = 8;
+
+    private static final AtomicInteger fichas = new AtomicInteger();
+
+    @Autowired
+    private AprendizService aprendizService;
+
+    @Autowired
+    private FichaService fichaService;
+
+    @Autowired
+    private CupoService cupoService;
+
+    @Autowired
+    private ConnectionBulkhead connectionBulkhead;
+
+    private int conexionesOriginales;
+
+    @BeforeEach
+    void ampliarCompartimento() {
+        conexionesOriginales = (Integer) connectionBulkhead.getMetricas()
+                .get(Workload.ESCRITURA.name()).get("maxConexiones");
+        connectionBulkhead.setMaxConexiones(Workload.ESCRITURA, CONEXIONES);
+    }
+
+    @AfterEach
+    void restaurarCompartimento() {
+        connectionBulkhead.setMaxConexiones(Workload.ESCRITURA, conexionesOriginales);
+    }
+
+    @Test
+    void sinListaDeEsperaNoSeAdmiteMasQueLaCapacidad() throws Exception {
+        long fichaId = crearFicha(false);
+
+        List<Object> resultados = altasSimultaneas(fichaId);
+
+        long admitidos = resultados.stream().filter(Aprendiz.class::isInstance).count();
+        long rechazados = resultados.stream().filter(CapacityExceededException.class::isInstance).count();
+        assertEquals(CAPACIDAD, admitidos, "altas admitidas");
+        assertEquals(ALTAS - CAPACIDAD, rechazados, "altas rechazadas por falta de cupo");
+        assertCuposCoherentes(fichaId, 0);
+    }
+
+    @Test
+    void conListaDeEsperaLosQueNoCabenQuedanEnEspera() throws Exception {
+        long fichaId = crearFicha(true);
+
+        List<Object> resultados = altasSimultaneas(fichaId);
+
+        assertTrue(resultados.stream().allMatch(Aprendiz.class::isInstance), "todas las altas se registran");
+        long enEspera = resultados.stream()
+                .filter(r -> EstadoAprendiz.EN_ESPERA.name().equals(((Aprendiz) r).getEstado()))
+                .count();
+        assertEquals(ALTAS - CAPACIDAD, enEspera, "aprendices en lista de espera");
+        assertCuposCoherentes(fichaId, ALTAS - CAPACIDAD);
+    }
+
+    /**
+     * Lanzar las altas a la vez; cada resultado es el aprendiz creado o la excepción lanzada
+     */
+    private List<Object> altasSimultaneas(long fichaId) throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(ALTAS);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futuros = new ArrayList<>();
+            for (int i = 0; i < ALTAS; i++) {
+                Aprendiz aprendiz = nuevoAprendiz(fichaId, i);
+                futuros.add(ejecutor.submit(() -> {
+                    salida.await();
+                    try (WorkloadContext.Ambito ambito = WorkloadContext.usar(Workload.ESCRITURA)) {
+                        return aprendizService.createAprendiz(aprendiz);
+                    } catch (RuntimeException e) {
+                        return e;
+                    }
+                }));
+            }
+            salida.countDown();
+            List<Object> resultados = new ArrayList<>();
+            for (Future<Object> futuro : futuros) {
+                resultados.add(futuro.get(60, TimeUnit.SECONDS));
+            }
+            resultados.stream()
+                    .filter(r -> r instanceof RuntimeException && !(r instanceof CapacityExceededException))
+                    .findFirst()
+                    .ifPresent(r -> {
+                        throw new AssertionError("Alta fallida por un error inesperado", (Throwable) r);
+                    });
+            return resultados;
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private void assertCuposCoherentes(long fichaId, long enEsperaEsperados) {
+        Map<String, Object> estado = cupoService.getEstado(fichaId);
+        assertEquals(false, estado.get("sobreAdmision"), "sobreadmisión");
+        assertEquals(true, estado.get("contadorCoincide"), "contador frente a aprendices: " + estado);
+        assertEquals(CAPACIDAD, estado.get("cuposOcupados"), "cupos ocupados");
+        assertEquals((long) CAPACIDAD, estado.get("aprendicesOcupando"), "aprendices que ocupan cupo");
+        assertEquals(enEsperaEsperados, estado.get("aprendicesEnEspera"), "aprendices en espera");
+    }
+
+    private long crearFicha(boolean listaEspera) {
+        String codigo = String.valueOf(8_000_000 + fichas.incrementAndGet());
+        LocalDate hoy = LocalDate.now();
+        jdbcTemplate.update("INSERT INTO fichas (numero_ficha, programa_id, fecha_inicio, fecha_fin, jornada, " +
+                        "estado, capacidad, lista_espera) " +
+                        "VALUES (?, (SELECT MIN(id) FROM programas), ?, ?, 'DIURNA', 'ACTIVA', ?, ?)",
+                codigo, Date.valueOf(hoy), Date.valueOf(hoy.plusMonths(6)), CAPACIDAD, listaEspera);
+        return jdbcTemplate.queryForObject("SELECT id FROM fichas WHERE numero_ficha = ?", Long.class, codigo);
+    }
+
+    private Aprendiz nuevoAprendiz(long fichaId, int i) {
+        String documento = "C" + fichaId + "-" + i;
+        Aprendiz aprendiz = new Aprendiz(documento, "Prueba", "Cupos " + i,
+                documento.toLowerCase() + "@cupos.test", null, fichaService.getFichaById(fichaId));
+        aprendiz.setTipoDocumento("CC");
+        aprendiz.setEstado(EstadoAprendiz.ACTIVO.name());
+        return aprendiz;
+    }
+}
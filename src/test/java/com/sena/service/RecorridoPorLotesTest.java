@@ -0,0 +1,67 @@
+package com.sena.service;
+
+import com.sena.controller.ControllerTestBase;
+import com.sena.model.Aprendiz;
+import com.sena.model.Ficha;
+import com.sena.pool.ConnectionBulkhead;
+import com.sena.pool.Workload;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Recorridos por lotes de las vistas de detalle: cada lote se lee en su propia transacción
+ * y el consumidor (la escritura al cliente) lo recibe sin ninguna conexión tomada
+ */
+class RecorridoPorLotesTest extends ControllerTestBase {
+
+    // Menor que los aprendices de la ficha: varios lotes, el último incompleto
+    private static final int TAMANO_LOTE = 7;
+
+    @Autowired
+    private AprendizService aprendizService;
+
+    @Autowired
+    private FichaService fichaService;
+
+    @Autowired
+    private ConnectionBulkhead connectionBulkhead;
+
+    @Test
+    void aprendicesDeUnaFichaEnOrdenSinRetenerConexiones() {
+        long fichaId = id("SELECT ficha_id FROM aprendices GROUP BY ficha_id ORDER BY COUNT(*) DESC LIMIT 1");
+        List<Long> esperados = jdbcTemplate.queryForList(
+                "SELECT id FROM aprendices WHERE ficha_id = ? ORDER BY apellidos, nombres, id", Long.class, fichaId);
+
+        List<Long> recorridos = new ArrayList<>();
+        aprendizService.recorrerAprendicesByFichaId(fichaId, TAMANO_LOTE, lote -> {
+            assertEquals(0, conexionesDeLectura(), "conexiones tomadas mientras se entrega un lote");
+            lote.stream().map(Aprendiz::getId).forEach(recorridos::add);
+        });
+
+        assertEquals(esperados, recorridos);
+    }
+
+    @Test
+    void fichasDeUnProgramaEnOrdenSinRetenerConexiones() {
+        long programaId = id("SELECT programa_id FROM fichas GROUP BY programa_id ORDER BY COUNT(*) DESC LIMIT 1");
+        List<Long> esperadas = jdbcTemplate.queryForList(
+                "SELECT id FROM fichas WHERE programa_id = ? ORDER BY numero_ficha", Long.class, programaId);
+
+        List<Long> recorridas = new ArrayList<>();
+        fichaService.recorrerFichasByProgramaId(programaId, 3, lote -> {
+            assertEquals(0, conexionesDeLectura(), "conexiones tomadas mientras se entrega un lote");
+            lote.stream().map(Ficha::getId).forEach(recorridas::add);
+        });
+
+        assertEquals(esperadas, recorridas);
+    }
+
+    private int conexionesDeLectura() {
+        return (Integer) connectionBulkhead.getMetricas().get(Workload.LECTURA.name()).get("activas");
+    }
+}
@@ -0,0 +1,108 @@
+package com.sena.service;
+
+import com.sena.controller.ControllerTestBase;
+import com.sena.model.Aprendiz;
+import com.sena.model.EstadoAprendiz;
+import com.sena.model.EstadoFicha;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cambios de estado masivos en una ficha con capacidad y lista de espera: los aprendices
+ * que dejan su cupo lo devuelven al contador y, si la ficha sigue abierta, entra la lista de espera
+ */
+class TransicionEstadoCuposTest extends ControllerTestBase {
+
+    private static final int CAPACIDAD = 3;
+    private static final int ALTAS = 5;
+
+    private static final AtomicInteger fichas = new AtomicInteger();
+
+    @Autowired
+    private AprendizService aprendizService;
+
+    @Autowired
+    private FichaService fichaService;
+
+    @Autowired
+    private CupoService cupoService;
+
+    @Autowired
+    private TransicionEstadoService transicionEstadoService;
+
+    @Test
+    void cancelarLaFichaLiberaLosCuposSinPromoverLaListaDeEspera() {
+        long fichaId = crearFichaConListaDeEspera();
+        assertCupos(fichaId, CAPACIDAD, CAPACIDAD, ALTAS - CAPACIDAD);
+
+        transicionEstadoService.transicionarFicha(fichaId, EstadoFicha.CANCELADA);
+
+        assertCupos(fichaId, 0, 0, 0);
+        assertEquals(ALTAS, contarAprendices(fichaId, EstadoAprendiz.RETIRADO), "aprendices retirados");
+    }
+
+    @Test
+    void retirarLosAprendicesDeUnaFichaAbiertaDejaElContadorEnCero() {
+        long fichaId = crearFichaConListaDeEspera();
+
+        // El lote retira a los que ocupan cupo y a los que esperan: no queda nadie por promover
+        transicionEstadoService.transicionarAprendicesDeFicha(fichaId, EstadoAprendiz.RETIRADO);
+
+        assertCupos(fichaId, 0, 0, 0);
+    }
+
+    @Test
+    void graduarLosAprendicesDeUnaFichaAbiertaPromueveLaListaDeEspera() {
+        long fichaId = crearFichaConListaDeEspera();
+
+        transicionEstadoService.transicionarAprendicesDeFicha(fichaId, EstadoAprendiz.GRADUADO);
+
+        // Los EN_ESPERA no pueden graduarse: ocupan los cupos que dejaron los graduados
+        assertCupos(fichaId, ALTAS - CAPACIDAD, ALTAS - CAPACIDAD, 0);
+        assertEquals(CAPACIDAD, contarAprendices(fichaId, EstadoAprendiz.GRADUADO), "aprendices graduados");
+    }
+
+    private void assertCupos(long fichaId, int ocupados, long ocupando, long enEspera) {
+        Map<String, Object> estado = cupoService.getEstado(fichaId);
+        assertEquals(false, estado.get("sobreAdmision"), "sobreadmisión");
+        assertEquals(true, estado.get("contadorCoincide"), "contador frente a aprendices: " + estado);
+        assertEquals(ocupados, estado.get("cuposOcupados"), "cupos ocupados");
+        assertEquals(ocupando, estado.get("aprendicesOcupando"), "aprendices que ocupan cupo");
+        assertEquals(enEspera, estado.get("aprendicesEnEspera"), "aprendices en espera");
+    }
+
+    private long contarAprendices(long fichaId, EstadoAprendiz estado) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM aprendices WHERE ficha_id = ? AND estado = ?",
+                Long.class, fichaId, estado.name());
+    }
+
+    /**
+     * Ficha llena con lista de espera: CAPACIDAD aprendices activos y el resto EN_ESPERA
+     */
+    private long crearFichaConListaDeEspera() {
+        String codigo = String.valueOf(8_100_000 + fichas.incrementAndGet());
+        LocalDate hoy = LocalDate.now();
+        jdbcTemplate.update("INSERT INTO fichas (numero_ficha, programa_id, fecha_inicio, fecha_fin, jornada, " +
+                        "estado, capacidad, lista_espera) " +
+                        "VALUES (?, (SELECT MIN(id) FROM programas), ?, ?, 'DIURNA', 'ACTIVA', ?, TRUE)",
+                codigo, Date.valueOf(hoy), Date.valueOf(hoy.plusMonths(6)), CAPACIDAD);
+        long fichaId = jdbcTemplate.queryForObject("SELECT id FROM fichas WHERE numero_ficha = ?", Long.class, codigo);
+
+        for (int i = 0; i < ALTAS; i++) {
+            String documento = "T" + fichaId + "-" + i;
+            Aprendiz aprendiz = new Aprendiz(documento, "Prueba", "Transición " + i,
+                    documento.toLowerCase() + "@cupos.test", null, fichaService.getFichaById(fichaId));
+            aprendiz.setTipoDocumento("CC");
+            aprendiz.setEstado(EstadoAprendiz.ACTIVO.name());
+            aprendizService.createAprendiz(aprendiz);
+        }
+        return fichaId;
+    }
+}
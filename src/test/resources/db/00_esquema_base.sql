@@ -0,0 +1,46 @@
+-- ============================================
+-- Esquema base de sena_db para las pruebas
+-- ============================================
+-- Tablas tal como existían antes de los scripts de src/main/resources/db/,
+-- que se aplican después en orden (ver application-test.properties).
+
+CREATE TABLE programas (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    codigo VARCHAR(20) NOT NULL,
+    nombre VARCHAR(200) NOT NULL,
+    nivel VARCHAR(50) NOT NULL,
+    duracion INT NOT NULL,
+    estado VARCHAR(20) NULL DEFAULT 'ACTIVO',
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_programas_codigo (codigo)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE fichas (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    numero_ficha VARCHAR(20) NOT NULL,
+    programa_id BIGINT NOT NULL,
+    fecha_inicio DATE NOT NULL,
+    fecha_fin DATE NOT NULL,
+    jornada VARCHAR(20) NOT NULL,
+    estado VARCHAR(20) NULL DEFAULT 'ACTIVA',
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_fichas_numero (numero_ficha),
+    CONSTRAINT fk_fichas_programa FOREIGN KEY (programa_id) REFERENCES programas (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE TABLE aprendices (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tipo_documento VARCHAR(20) NOT NULL,
+    numero_documento VARCHAR(20) NOT NULL,
+    nombres VARCHAR(100) NOT NULL,
+    apellidos VARCHAR(100) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    telefono VARCHAR(20) NULL,
+    direccion VARCHAR(200) NULL,
+    estado VARCHAR(20) NULL DEFAULT 'ACTIVO',
+    ficha_id BIGINT NOT NULL,
+    fecha_registro TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_aprendices_documento (numero_documento),
+    UNIQUE KEY uk_aprendices_email (email),
+    CONSTRAINT fk_aprendices_ficha FOREIGN KEY (ficha_id) REFERENCES fichas (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;